@@ -31,12 +31,16 @@
 package io.scif;
 
 import io.scif.config.SCIFIOConfig;
+import io.scif.io.FileRange;
+import io.scif.io.IOMetrics;
 import io.scif.io.RandomAccessInputStream;
 import io.scif.util.FormatTools;
 import io.scif.util.SCIFIOMetadataTools;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import net.imagej.axis.Axes;
 
@@ -81,6 +85,19 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 	 */
 	protected abstract String[] createDomainArray();
 
+	/**
+	 * Gets the metrics of the I/O through this reader's stream, which also
+	 * count the planes opened by this reader, and how much of the time taken to
+	 * open them was spent decoding rather than reading.
+	 *
+	 * @return The metrics, or null if there is no stream, or the stream does not
+	 *         collect metrics.
+	 * @see io.scif.io.IOMetricsService
+	 */
+	public IOMetrics getMetrics() {
+		return getStream() == null ? null : getStream().getMetrics();
+	}
+
 	// -- Reader API Methods --
 
 	// TODO Merge common Reader and Writer API methods
@@ -147,7 +164,8 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 				e);
 		}
 
-		return openPlane(imageIndex, planeIndex, plane, planeMin, planeMax, config);
+		return meteredOpenPlane(imageIndex, planeIndex, plane, planeMin, planeMax,
+			config);
 	}
 
 	@Override
@@ -164,8 +182,8 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 		final Plane plane, final long[] planeMin, final long[] planeMax,
 		final SCIFIOConfig config) throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, this.<P> castToTypedPlane(plane),
-			planeMin, planeMax, config);
+		return meteredOpenPlane(imageIndex, planeIndex, this
+			.<P> castToTypedPlane(plane), planeMin, planeMax, config);
 	}
 
 	@Override
@@ -273,7 +291,7 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 			stream.close();
 			throw new IOException(e);
 		}
-		setSource(stream);
+		setSource(stream, config);
 	}
 
 	@Override
@@ -303,6 +321,9 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 				throw new IOException(e);
 			}
 		}
+		if (config.readerIsReadAhead() && getStream() != null) {
+			getStream().setReadAhead(true);
+		}
 	}
 
 	@Override
@@ -360,8 +381,8 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 		final P plane, final SCIFIOConfig config) throws FormatException,
 		IOException
 	{
-		return openPlane(imageIndex, planeIndex, plane, plane.getOffsets(), plane
-			.getLengths(), config);
+		return meteredOpenPlane(imageIndex, planeIndex, plane, plane.getOffsets(),
+			plane.getLengths(), config);
 	}
 
 	@Override
@@ -369,8 +390,8 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 		final P plane, final long[] planeMin, final long[] planeMax)
 		throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, plane, plane.getOffsets(), plane
-			.getLengths(), new SCIFIOConfig());
+		return meteredOpenPlane(imageIndex, planeIndex, plane, plane.getOffsets(),
+			plane.getLengths(), new SCIFIOConfig());
 	}
 
 	@Override
@@ -433,19 +454,17 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 				final int rowLen = (int) (bpp * planeMax[xIndex]);
 				final int h = (int) planeMax[yIndex];
 				final int y = (int) planeMin[yIndex];
+				final long channelLen =
+					metadata.get(imageIndex).getAxisLength(Axes.Y) * rowLen;
 				long c = metadata.get(imageIndex).getAxisLength(Axes.CHANNEL);
 				if (c <= 0 || !metadata.get(imageIndex).isMultichannel()) c = 1;
+				final long start = s.getFilePointer();
+				final List<FileRange> ranges = new ArrayList<>();
 				for (int channel = 0; channel < c; channel++) {
-
-					s.skipBytes(y * rowLen);
-					s.read(bytes, channel * h * rowLen, h * rowLen);
-					if (channel < c - 1) {
-						// no need to skip bytes after reading final channel
-						s.skipBytes((int) (metadata.get(imageIndex).getAxisLength(Axes.Y) -
-							y - h) *
-							rowLen);
-					}
+					ranges.add(new FileRange(start + channel * channelLen + y * rowLen,
+						bytes, channel * h * rowLen, h * rowLen));
 				}
+				s.readVectored(ranges);
 			}
 		}
 		else {
@@ -457,24 +476,18 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 					if (i != xIndex && i != yIndex) planeProduct *=
 						metadata.get(imageIndex).getAxisLength(i);
 				}
-				int bytesToSkip = scanlineWidth * (int) planeProduct;
-				s.skipBytes((int) planeMin[yIndex] * bytesToSkip);
-
-				bytesToSkip = bpp;
-				int bytesToRead = bytesToSkip;
-				bytesToRead *= planeMax[xIndex];
-				bytesToRead *= planeProduct;
-				bytesToSkip *= planeMin[xIndex];
-				bytesToSkip *= planeProduct;
-
+				// NB: planeProduct includes the bytes per pixel
+				final long rowStride = scanlineWidth * planeProduct;
+				final int rowLen = (int) (planeMax[xIndex] * planeProduct);
+				final long start =
+					s.getFilePointer() + planeMin[yIndex] * rowStride +
+						planeMin[xIndex] * planeProduct;
+				final List<FileRange> ranges = new ArrayList<>();
 				for (int row = 0; row < planeMax[yIndex]; row++) {
-					s.skipBytes(bytesToSkip);
-					s.read(bytes, row * bytesToRead, bytesToRead);
-					if (row < planeMax[yIndex] - 1) {
-						// no need to skip bytes after reading final row
-						s.skipBytes((int) (planeProduct * (scanlineWidth - planeMax[xIndex] - planeMin[xIndex])));
-					}
+					ranges.add(new FileRange(start + row * rowStride, bytes, row *
+						rowLen, rowLen));
 				}
+				s.readVectored(ranges);
 			}
 			else {
 				final long c = metadata.get(imageIndex).getAxisLength(Axes.CHANNEL);
@@ -483,23 +496,18 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 				final int h = (int) planeMax[yIndex];
 				final int x = (int) planeMin[xIndex];
 				final int y = (int) planeMin[yIndex];
+				final long rowStride = (long) scanlineWidth * bpp;
+				final long channelLen =
+					metadata.get(imageIndex).getAxisLength(Axes.Y) * rowStride;
+				final long start = s.getFilePointer() + y * rowStride + x * bpp;
+				final List<FileRange> ranges = new ArrayList<>();
 				for (int channel = 0; channel < c; channel++) {
-					s.skipBytes(y * scanlineWidth * bpp);
 					for (int row = 0; row < h; row++) {
-						s.skipBytes(x * bpp);
-						s.read(bytes, channel * w * h * bpp + row * w * bpp, w * bpp);
-						if (row < h - 1 || channel < c - 1) {
-							// no need to skip bytes after reading final row of
-							// final channel
-							s.skipBytes(bpp * (scanlineWidth - w - x));
-						}
-					}
-					if (channel < c - 1) {
-						// no need to skip bytes after reading final channel
-						s.skipBytes(scanlineWidth * bpp *
-							(int) (metadata.get(imageIndex).getAxisLength(Axes.Y) - y - h));
+						ranges.add(new FileRange(start + channel * channelLen + row *
+							rowStride, bytes, channel * w * h * bpp + row * w * bpp, w * bpp));
 					}
 				}
+				s.readVectored(ranges);
 			}
 		}
 		return plane;
@@ -520,4 +528,27 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 			metadata = null;
 		}
 	}
+
+	// -- Helper methods --
+
+	/**
+	 * Opens the given region of a plane into the given plane, counting it to the
+	 * stream's metrics, if collected.
+	 */
+	private P meteredOpenPlane(final int imageIndex, final long planeIndex,
+		final P plane, final long[] planeMin, final long[] planeMax,
+		final SCIFIOConfig config) throws FormatException, IOException
+	{
+		final IOMetrics metrics = getMetrics();
+		if (metrics == null) {
+			return openPlane(imageIndex, planeIndex, plane, planeMin, planeMax,
+				config);
+		}
+		final long ioNanos = metrics.getIONanos();
+		final long start = System.nanoTime();
+		final P result =
+			openPlane(imageIndex, planeIndex, plane, planeMin, planeMax, config);
+		metrics.plane(System.nanoTime() - start, metrics.getIONanos() - ioNanos);
+		return result;
+	}
 }
@@ -43,6 +43,8 @@ import java.io.IOException;
 import net.imagej.axis.Axes;
 import net.imagej.axis.CalibratedAxis;
 
+import org.scijava.plugin.Parameter;
+import org.scijava.thread.ThreadService;
 import org.scijava.util.ArrayUtils;
 
 /**
@@ -93,6 +95,9 @@ public abstract class AbstractWriter<M extends TypedMetadata> extends
 	/** ColorModel for this Writer. */
 	private ColorModel model;
 
+	@Parameter
+	private ThreadService threadService;
+
 	// -- AbstractWriter API Methods --
 
 	/**
@@ -273,6 +278,9 @@ public abstract class AbstractWriter<M extends TypedMetadata> extends
 		// set metadata.datasetName here when RAOS has better id handling
 
 		this.out = out;
+		if (config.writerIsWriteBehind() && !out.isWriteBehind()) {
+			out.setWriteBehind(threadService);
+		}
 		fps = config.writerGetFramesPerSecond();
 		options = config.writerGetCodecOptions();
 		model = config.writerGetColorModel();
@@ -106,4 +106,19 @@ public interface Checker extends HasFormat {
 	 * @return True if {@code block} is compatible with this {@code Format}.
 	 */
 	boolean checkHeader(byte[] block);
+
+	/**
+	 * Gets the byte sequences with which every source of this {@code Format}
+	 * begins, if known. When a source begins with none of them, neither
+	 * {@link #isFormat(RandomAccessInputStream)} nor, unless the source's name
+	 * alone is {@link #suffixSufficient() sufficient}, {@link #isFormat(String,
+	 * SCIFIOConfig)} may accept it; this allows the source to be rejected
+	 * without consulting this Checker.
+	 *
+	 * @return The possible leading bytes of a source of this {@code Format}, or
+	 *         null if they are not known.
+	 */
+	default byte[][] getSignatures() {
+		return null;
+	}
 }
@@ -38,6 +38,7 @@ import io.scif.gui.GUIService;
 import io.scif.img.ImgUtilityService;
 import io.scif.img.cell.cache.CacheService;
 import io.scif.img.converters.PlaneConverterService;
+import io.scif.io.IOMetricsService;
 import io.scif.io.NIOService;
 import io.scif.services.DatasetIOService;
 import io.scif.services.FilePatternService;
@@ -169,6 +170,15 @@ public class SCIFIO extends AbstractGateway {
 		return get(InitializeService.class);
 	}
 
+	/**
+	 * Gets this application context's {@link IOMetricsService}.
+	 *
+	 * @return The {@link IOMetricsService} of this application context.
+	 */
+	public IOMetricsService ioMetrics() {
+		return get(IOMetricsService.class);
+	}
+
 	/**
 	 * Gets this application context's {@link LocationService}.
 	 *
@@ -37,40 +37,24 @@ import org.scijava.log.StderrLogService;
 
 /**
  * A class for reading arbitrary numbers of bits from a byte array.
+ * <p>
+ * Bytes are loaded into a 64-bit accumulator several at a time, so that most
+ * reads are a shift and a mask.
+ * </p>
  *
  * @author Eric Kjellman
  */
 public class BitBuffer {
 
-	// -- Constants --
-
-	/** Various bitmasks for the 0000xxxx side of a byte. */
-	private static final int[] BACK_MASK = { 0x00, // 00000000
-		0x01, // 00000001
-		0x03, // 00000011
-		0x07, // 00000111
-		0x0F, // 00001111
-		0x1F, // 00011111
-		0x3F, // 00111111
-		0x7F // 01111111
-		};
-
-	/** Various bitmasks for the xxxx0000 side of a byte. */
-	private static final int[] FRONT_MASK = { 0x0000, // 00000000
-		0x0080, // 10000000
-		0x00C0, // 11000000
-		0x00E0, // 11100000
-		0x00F0, // 11110000
-		0x00F8, // 11111000
-		0x00FC, // 11111100
-		0x00FE // 11111110
-		};
-
 	private final byte[] byteBuffer;
 
+	/** Index of the next byte to load into the accumulator. */
 	private int currentByte;
 
-	private int currentBit;
+	/** Loaded bits not read yet, in the lowest {@link #bufferedBits} bits. */
+	private long accumulator;
+
+	private int bufferedBits;
 
 	private final int eofByte;
 
@@ -80,7 +64,6 @@ public class BitBuffer {
 	public BitBuffer(final byte[] byteBuffer) {
 		this.byteBuffer = byteBuffer;
 		currentByte = 0;
-		currentBit = 0;
 		eofByte = byteBuffer.length;
 	}
 
@@ -95,21 +78,14 @@ public class BitBuffer {
 		}
 
 		// handles skipping past eof
-		if ((long) eofByte * 8 < (long) currentByte * 8 + currentBit + bits) {
+		if (getRemainingBits() < bits) {
 			eofFlag = true;
 			currentByte = eofByte;
-			currentBit = 0;
+			bufferedBits = 0;
 			return;
 		}
 
-		final int skipBytes = (int) (bits / 8);
-		final int skipBits = (int) (bits % 8);
-		currentByte += skipBytes;
-		currentBit += skipBits;
-		while (currentBit >= 8) {
-			currentByte++;
-			currentBit -= 8;
-		}
+		skip(bits);
 	}
 
 	/**
@@ -130,6 +106,9 @@ public class BitBuffer {
 	 * Requesting more than 32 bits is allowed, but only up to 32 bits worth of
 	 * data will be returned (the last 32 bits read).
 	 * <p>
+	 * If fewer bits than requested remain, the remaining bits are returned; any
+	 * further read returns -1.
+	 * <p>
 	 *
 	 * @param bitsToRead the number of bits to read from the bit buffer
 	 * @return the value of the bits read
@@ -140,54 +119,74 @@ public class BitBuffer {
 		}
 		if (bitsToRead == 0) return 0;
 		if (eofFlag) return -1; // Already at end of file
-		int toStore = 0;
-		while (bitsToRead != 0 && !eofFlag) {
-			if (currentBit < 0 || currentBit > 7) {
-				throw new IllegalStateException("byte=" + currentByte + ", bit = " +
-					currentBit);
-			}
+		final long remaining = getRemainingBits();
+		if (remaining == 0) {
+			eofFlag = true;
+			return -1;
+		}
+		if (bitsToRead >= remaining) {
+			// If we reach the end of the buffer, return what we have.
+			bitsToRead = (int) remaining;
+			eofFlag = true;
+		}
+		if (bitsToRead > 32) {
+			skip(bitsToRead - 32);
+			bitsToRead = 32;
+		}
+		if (bufferedBits < bitsToRead) fill();
+		bufferedBits -= bitsToRead;
+		return (int) ((accumulator >>> bufferedBits) & ((1L << bitsToRead) - 1));
+	}
 
-			// if we need to read from more than the current byte in the
-			// buffer...
-			final int bitsLeft = 8 - currentBit;
-			if (bitsToRead >= bitsLeft) {
-				toStore <<= bitsLeft;
-				bitsToRead -= bitsLeft;
-				final int cb = byteBuffer[currentByte];
-				if (currentBit == 0) {
-					// we can read in a whole byte, so we'll do that.
-					toStore += cb & 0xff;
-				}
-				else {
-					// otherwise, only read the appropriate number of bits off
-					// the back
-					// side of the byte, in order to "finish" the current byte
-					// in the
-					// buffer.
-					toStore += cb & BACK_MASK[bitsLeft];
-					currentBit = 0;
-				}
-				currentByte++;
-			}
-			else {
-				// We will be able to finish using the current byte.
-				// read the appropriate number of bits off the front side of the
-				// byte,
-				// then push them into the int.
-				toStore = toStore << bitsToRead;
-				final int cb = byteBuffer[currentByte] & 0xff;
-				toStore +=
-					(cb & (0x00FF - FRONT_MASK[currentBit])) >> (bitsLeft - bitsToRead);
-				currentBit += bitsToRead;
-				bitsToRead = 0;
-			}
-			// If we reach the end of the buffer, return what we currently have.
-			if (currentByte == eofByte) {
-				eofFlag = true;
-				return toStore;
-			}
+	/**
+	 * Returns the value of the next bits, as {@link #getBits} would, but without
+	 * modifying the current position. Bits beyond the end of the array are read
+	 * as zeros.
+	 *
+	 * @param bitsToRead the number of bits to peek at, at most 32
+	 * @return the value of the bits
+	 */
+	public int peekBits(final int bitsToRead) {
+		if (bitsToRead < 0 || bitsToRead > 32) {
+			throw new IllegalArgumentException("Bits to peek must be in [0, 32]");
+		}
+		if (bufferedBits < bitsToRead) fill();
+		final long mask = (1L << bitsToRead) - 1;
+		if (bufferedBits < bitsToRead) {
+			return (int) ((accumulator << (bitsToRead - bufferedBits)) & mask);
+		}
+		return (int) ((accumulator >>> (bufferedBits - bitsToRead)) & mask);
+	}
+
+	/** Gets the number of bits between the current position and the end. */
+	public long getRemainingBits() {
+		return 8L * (eofByte - currentByte) + bufferedBits;
+	}
+
+	// -- Helper methods --
+
+	/** Loads as many bytes as fit into the accumulator. */
+	private void fill() {
+		while (bufferedBits <= 56 && currentByte < eofByte) {
+			accumulator = (accumulator << 8) | (byteBuffer[currentByte++] & 0xff);
+			bufferedBits += 8;
+		}
+	}
+
+	/** Advances the position by the given number of bits, which remain. */
+	private void skip(long bits) {
+		if (bits <= bufferedBits) {
+			bufferedBits -= bits;
+			return;
+		}
+		bits -= bufferedBits;
+		bufferedBits = 0;
+		currentByte += (int) (bits >>> 3);
+		final int rest = (int) (bits & 7);
+		if (rest > 0) {
+			fill();
+			bufferedBits -= rest;
 		}
-		return toStore;
 	}
 
 	/**
@@ -35,6 +35,7 @@ import io.scif.SCIFIOPlugin;
 import io.scif.io.RandomAccessInputStream;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.scijava.plugin.SingletonPlugin;
 
@@ -128,4 +129,76 @@ public interface Codec extends SCIFIOPlugin, SingletonPlugin {
 	byte[] decompress(RandomAccessInputStream in, CodecOptions options)
 		throws FormatException, IOException;
 
+	/**
+	 * Compresses the remaining bytes of a buffer into a caller-supplied buffer,
+	 * which may be reused across calls to avoid allocating one per block. The
+	 * default implementation compresses a copy of the source's bytes with
+	 * {@link #compress(byte[], CodecOptions)}.
+	 *
+	 * @param src The data to be compressed. Its position is advanced past the
+	 *          bytes compressed.
+	 * @param dst Buffer to write the compressed data into, from its start, or
+	 *          null.
+	 * @param options Options to be used during compression, if appropriate.
+	 * @return {@code dst}, flipped so as to hold the compressed data, if it is
+	 *         large enough; otherwise, a newly allocated buffer likewise.
+	 * @throws FormatException If input is not a compressed data block of the
+	 *           appropriate type.
+	 */
+	default ByteBuffer compress(final ByteBuffer src, final ByteBuffer dst,
+		final CodecOptions options) throws FormatException
+	{
+		final byte[] compressed = compress(CodecBuffers.remaining(src), options);
+		final ByteBuffer out = CodecBuffers.clear(dst, compressed.length);
+		out.put(compressed);
+		out.flip();
+		return out;
+	}
+
+	/**
+	 * Decompresses the remaining bytes of a buffer straight into the remaining
+	 * space of another, such as a region of the destination plane. The space
+	 * remaining in {@code dst} bounds the number of bytes decompressed, in
+	 * place of {@link CodecOptions#maxBytes}; any further data is discarded.
+	 * The default implementation copies the result of
+	 * {@link #decompress(byte[], CodecOptions)} into {@code dst}.
+	 *
+	 * @param src The data to be decompressed. Its position is advanced past the
+	 *          bytes consumed.
+	 * @param dst Buffer to decompress into. Its position is advanced past the
+	 *          bytes written.
+	 * @param options Options to be used during decompression.
+	 * @return The number of bytes written to {@code dst}.
+	 * @throws FormatException If data is not valid.
+	 */
+	default int decompress(final ByteBuffer src, final ByteBuffer dst,
+		final CodecOptions options) throws FormatException
+	{
+		return CodecBuffers.put(decompress(CodecBuffers.remaining(src),
+			options), dst);
+	}
+
+	/**
+	 * Decompresses data from the given RandomAccessInputStream straight into
+	 * the remaining space of a buffer, as
+	 * {@link #decompress(ByteBuffer, ByteBuffer, CodecOptions)} does. The
+	 * default implementation copies the result of
+	 * {@link #decompress(RandomAccessInputStream, CodecOptions)} into
+	 * {@code dst}.
+	 *
+	 * @param in The stream from which to read compressed data.
+	 * @param dst Buffer to decompress into. Its position is advanced past the
+	 *          bytes written.
+	 * @param options Options to be used during decompression.
+	 * @return The number of bytes written to {@code dst}.
+	 * @throws FormatException If data is not valid compressed data for this
+	 *           decompressor.
+	 */
+	default int decompress(final RandomAccessInputStream in,
+		final ByteBuffer dst, final CodecOptions options) throws FormatException,
+		IOException
+	{
+		return CodecBuffers.put(decompress(in, options), dst);
+	}
+
 }
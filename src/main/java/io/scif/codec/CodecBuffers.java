@@ -0,0 +1,86 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package io.scif.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Helpers for moving data between {@link ByteBuffer}s and byte arrays, shared
+ * by the {@link ByteBuffer} methods of {@link Codec} and its implementations.
+ */
+final class CodecBuffers {
+
+	private CodecBuffers() {}
+
+	/**
+	 * Gets the remaining bytes of the given buffer, advancing its position past
+	 * them. The buffer's backing array is returned as is if it holds exactly
+	 * those bytes.
+	 */
+	static byte[] remaining(final ByteBuffer src) {
+		final byte[] bytes;
+		if (src.hasArray() && src.arrayOffset() + src.position() == 0 &&
+			src.remaining() == src.array().length)
+		{
+			bytes = src.array();
+			src.position(src.limit());
+		}
+		else {
+			bytes = new byte[src.remaining()];
+			src.get(bytes);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Gets the given buffer cleared, if it can hold the given number of bytes,
+	 * or else a new buffer of that capacity.
+	 */
+	static ByteBuffer clear(final ByteBuffer dst, final int size) {
+		if (dst == null || dst.capacity() < size) return ByteBuffer.allocate(size);
+		dst.clear();
+		return dst;
+	}
+
+	/**
+	 * Copies as many of the given bytes as fit into the remaining space of the
+	 * given buffer.
+	 *
+	 * @return The number of bytes copied.
+	 */
+	static int put(final byte[] bytes, final ByteBuffer dst) {
+		final int n = Math.min(bytes.length, dst.remaining());
+		dst.put(bytes, 0, n);
+		return n;
+	}
+
+}
@@ -116,6 +116,22 @@ public class CodecOptions {
 	 */
 	public boolean ycbcr;
 
+	/**
+	 * Compression level, for codecs trading speed for compressed size, such as
+	 * 0 (none) to 9 (smallest) for {@link ZlibCodec}. Negative values select
+	 * the codec's default level. Default is -1 (WRITE).
+	 */
+	public int compressionLevel = -1;
+
+	/**
+	 * Compression strategy, for codecs which can tune their search to the
+	 * data, such as {@link java.util.zip.Deflater#FILTERED} for
+	 * {@link ZlibCodec} compressing the output of a predictor. Negative values
+	 * let the codec, or the format writing the data, choose. Default is -1
+	 * (WRITE).
+	 */
+	public int compressionStrategy = -1;
+
 	// -- Constructors --
 
 	/** Construct a new CodecOptions. */
@@ -141,6 +157,8 @@ public class CodecOptions {
 			this.tileGridXOffset = options.tileGridXOffset;
 			this.tileGridYOffset = options.tileGridYOffset;
 			this.ycbcr = options.ycbcr;
+			this.compressionLevel = options.compressionLevel;
+			this.compressionStrategy = options.compressionStrategy;
 		}
 	}
 
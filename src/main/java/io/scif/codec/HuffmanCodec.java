@@ -35,7 +35,8 @@ import io.scif.UnsupportedCompressionException;
 import io.scif.io.RandomAccessInputStream;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.scijava.plugin.Plugin;
 
@@ -47,16 +48,10 @@ import org.scijava.plugin.Plugin;
 @Plugin(type = Codec.class)
 public class HuffmanCodec extends AbstractCodec {
 
-	// -- Constants --
-
-	private static final int LEAVES_OFFSET = 16;
-
 	// -- Fields --
 
-	private int leafCounter;
-
-	private final HashMap<short[], Decoder> cachedDecoders =
-		new HashMap<>();
+	private final Map<short[], HuffmanDecoder> cachedDecoders =
+		new ConcurrentHashMap<>();
 
 	// -- Codec API methods --
 
@@ -91,6 +86,7 @@ public class HuffmanCodec extends AbstractCodec {
 		in.read(pix);
 
 		final BitBuffer bb = new BitBuffer(pix);
+		final HuffmanDecoder decoder = getDecoder(huffman.table);
 
 		final int nSamples = (huffman.maxBytes * 8) / huffman.bitsPerSample;
 		int bytesPerSample = huffman.bitsPerSample / 8;
@@ -99,7 +95,7 @@ public class HuffmanCodec extends AbstractCodec {
 		final BitWriter out = new BitWriter();
 
 		for (int i = 0; i < nSamples; i++) {
-			final int sample = getSample(bb, options);
+			final int sample = decoder.getSample(bb);
 			out.write(sample, bytesPerSample * 8);
 		}
 
@@ -119,80 +115,22 @@ public class HuffmanCodec extends AbstractCodec {
 				+ "loci.formats.codec.HuffmanCodecOptions.");
 		}
 
-		final HuffmanCodecOptions huffman = (HuffmanCodecOptions) options;
-		Decoder decoder = cachedDecoders.get(huffman.table);
-		if (decoder == null) {
-			decoder = new Decoder(huffman.table);
-			cachedDecoders.put(huffman.table, decoder);
-		}
-
-		int bitCount = decoder.decode(bb);
-		if (bitCount == 16) {
-			return 0x8000;
-		}
-		if (bitCount < 0) bitCount = 0;
-		int v = bb.getBits(bitCount) & ((int) Math.pow(2, bitCount) - 1);
-		if ((v & (1 << (bitCount - 1))) == 0) {
-			v -= (1 << bitCount) - 1;
-		}
-
-		return v;
+		return getDecoder(((HuffmanCodecOptions) options).table).getSample(bb);
 	}
 
-	// -- Helper class --
-
-	class Decoder {
-
-		public Decoder[] branch = new Decoder[2];
-
-		private int leafValue = -1;
-
-		public Decoder() {}
-
-		public Decoder(final short[] source) {
-			leafCounter = 0;
-			createDecoder(this, source, 0, 0);
-		}
-
-		private Decoder createDecoder(final short[] source, final int start,
-			final int level)
-		{
-			final Decoder dest = new Decoder();
-			createDecoder(dest, source, start, level);
-			return dest;
-		}
-
-		private void createDecoder(final Decoder dest, final short[] source,
-			final int start, final int level)
-		{
-			int next = 0;
-			int i = 0;
-			while (i <= leafCounter && next < LEAVES_OFFSET) {
-				i += source[start + next++] & 0xff;
-			}
-
-			if (level < next && next < LEAVES_OFFSET) {
-				dest.branch[0] = createDecoder(source, start, level + 1);
-				dest.branch[1] = createDecoder(source, start, level + 1);
-			}
-			else {
-				i = start + LEAVES_OFFSET + leafCounter++;
-				if (i < source.length) {
-					dest.leafValue = source[i] & 0xff;
-				}
-			}
-		}
-
-		public int decode(final BitBuffer bb) {
-			Decoder d = this;
-			while (d.branch[0] != null) {
-				final int v = bb.getBits(1);
-				if (v < 0) break; // eof
-				d = d.branch[v];
-			}
-			return d.leafValue;
+	/**
+	 * Gets a decoder for the given table, as used by
+	 * {@link #getSample(BitBuffer, CodecOptions)}. Callers reading many samples
+	 * with the same table should hold on to it rather than calling
+	 * {@code getSample} for each.
+	 */
+	public HuffmanDecoder getDecoder(final short[] table) {
+		HuffmanDecoder decoder = cachedDecoders.get(table);
+		if (decoder == null) {
+			decoder = new HuffmanDecoder(table);
+			cachedDecoders.put(table, decoder);
 		}
-
+		return decoder;
 	}
 
 }
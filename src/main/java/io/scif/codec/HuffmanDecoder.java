@@ -0,0 +1,179 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.codec;
+
+/**
+ * Decodes the Huffman codes defined by a table in the form used by JPEG: the
+ * number of codes of each length from 1 to 16 bits, followed by the value of
+ * each code, in order of increasing length.
+ * <p>
+ * The codes are first built into a tree; the outcome of walking it for each
+ * possible 10-bit prefix is then stored in a lookup table, so that codes of
+ * up to 10 bits are decoded with a single lookup. Longer codes continue down
+ * the tree from the node their prefix leads to.
+ * </p>
+ */
+public class HuffmanDecoder {
+
+	// -- Constants --
+
+	private static final int LEAVES_OFFSET = 16;
+
+	/** Number of bits looked up at once. */
+	private static final int LOOKUP_BITS = 10;
+
+	// -- Fields --
+
+	private final Node root = new Node();
+
+	/**
+	 * For each prefix, the value of the code it starts with, shifted left by 8
+	 * bits, combined with the length of that code.
+	 */
+	private final int[] lookup = new int[1 << LOOKUP_BITS];
+
+	/** For each prefix of a longer code, the node it leads to. */
+	private final Node[] overflow = new Node[1 << LOOKUP_BITS];
+
+	/** Number of leaves created so far while building the tree. */
+	private int leafCounter;
+
+	// -- Constructor --
+
+	public HuffmanDecoder(final short[] table) {
+		createNode(root, table, 0);
+		fillLookup(root, 0, 0);
+	}
+
+	// -- HuffmanDecoder API methods --
+
+	/**
+	 * Reads the next code from the given bits.
+	 *
+	 * @return The value of the code, or -1 if the bits ended within it.
+	 */
+	public int decode(final BitBuffer bb) {
+		Node node = root;
+		if (bb.getRemainingBits() >= LOOKUP_BITS) {
+			final int prefix = bb.peekBits(LOOKUP_BITS);
+			final int entry = lookup[prefix];
+			bb.skipBits(entry & 0xff);
+			node = overflow[prefix];
+			if (node == null) return entry >> 8;
+		}
+		while (node.zero != null) {
+			final int v = bb.getBits(1);
+			if (v < 0) break; // eof
+			node = v == 0 ? node.zero : node.one;
+		}
+		return node.leafValue;
+	}
+
+	/**
+	 * Reads the next difference from the given bits, as coded by lossless
+	 * JPEG: a code giving the number of bits which follow it, and which hold
+	 * the difference.
+	 */
+	public int getSample(final BitBuffer bb) {
+		int bitCount = decode(bb);
+		if (bitCount == 16) {
+			return 0x8000;
+		}
+		if (bitCount < 0) bitCount = 0;
+		// NB: equal to (int) Math.pow(2, bitCount) - 1, even for bogus counts
+		final int mask =
+			bitCount < 31 ? (1 << bitCount) - 1 : Integer.MAX_VALUE - 1;
+		int v = bb.getBits(bitCount) & mask;
+		if ((v & (1 << (bitCount - 1))) == 0) {
+			v -= (1 << bitCount) - 1;
+		}
+		return v;
+	}
+
+	// -- Helper methods --
+
+	private void createNode(final Node dest, final short[] source,
+		final int level)
+	{
+		int next = 0;
+		int i = 0;
+		while (i <= leafCounter && next < LEAVES_OFFSET) {
+			i += source[next++] & 0xff;
+		}
+
+		if (level < next && next < LEAVES_OFFSET) {
+			dest.zero = new Node();
+			createNode(dest.zero, source, level + 1);
+			dest.one = new Node();
+			createNode(dest.one, source, level + 1);
+		}
+		else {
+			i = LEAVES_OFFSET + leafCounter++;
+			if (i < source.length) {
+				dest.leafValue = source[i] & 0xff;
+			}
+		}
+	}
+
+	/**
+	 * Fills the lookup table entries of all prefixes starting with the given
+	 * path to the given node.
+	 */
+	private void fillLookup(final Node node, final int depth, final int path) {
+		if (node.zero == null) {
+			final int shift = LOOKUP_BITS - depth;
+			final int entry = (node.leafValue << 8) | depth;
+			for (int p = path << shift; p < (path + 1) << shift; p++) {
+				lookup[p] = entry;
+			}
+		}
+		else if (depth == LOOKUP_BITS) {
+			lookup[path] = depth;
+			overflow[path] = node;
+		}
+		else {
+			fillLookup(node.zero, depth + 1, path << 1);
+			fillLookup(node.one, depth + 1, (path << 1) | 1);
+		}
+	}
+
+	// -- Helper classes --
+
+	/** A node of the code tree: either a leaf, or one with two branches. */
+	private static class Node {
+
+		private Node zero;
+
+		private Node one;
+
+		private int leafValue = -1;
+	}
+}
@@ -0,0 +1,415 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.codec;
+
+import io.scif.FormatException;
+import io.scif.io.RandomAccessInputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.scijava.plugin.Plugin;
+
+/**
+ * This class implements the LZ4 block format, in pure Java.
+ * <p>
+ * A block is a series of sequences, each made of a run of literal bytes and a
+ * match copying at least 4 bytes from up to 64 KiB back. The compressor finds
+ * matches greedily through a hash table of 4-byte sequences, skipping ahead
+ * faster the longer it goes without one. The block format does not record the
+ * size of the data, so decompression should be given
+ * {@link CodecOptions#maxBytes}.
+ * </p>
+ */
+@Plugin(type = Codec.class)
+public class LZ4Codec extends AbstractCodec {
+
+	// -- Constants --
+
+	private static final int MIN_MATCH = 4;
+
+	private static final int MAX_OFFSET = 65535;
+
+	/** Largest number of bytes of output for a byte of input. */
+	private static final int MAX_RATIO = 255;
+
+	/** The last bytes of a block are always literals. */
+	private static final int LAST_LITERALS = 5;
+
+	/** The last match starts at least this many bytes before the end. */
+	private static final int MF_LIMIT = 12;
+
+	private static final int HASH_LOG = 12;
+
+	/** Misses after which the match search starts skipping ahead. */
+	private static final int SKIP_TRIGGER = 6;
+
+	// -- Codec API methods --
+
+	@Override
+	public byte[] compress(final byte[] data, final CodecOptions options)
+		throws FormatException
+	{
+		if (data == null || data.length == 0) throw new IllegalArgumentException(
+			"No data to compress");
+		final byte[] output = new byte[maxCompressedSize(data.length)];
+		final int n = compress(data, 0, data.length, output, 0);
+		return Arrays.copyOf(output, n);
+	}
+
+	/**
+	 * Compresses straight into the destination's backing array, when it is
+	 * large enough for incompressible data.
+	 *
+	 * @see Codec#compress(ByteBuffer, ByteBuffer, CodecOptions)
+	 */
+	@Override
+	public ByteBuffer compress(final ByteBuffer src, final ByteBuffer dst,
+		final CodecOptions options) throws FormatException
+	{
+		if (!src.hasArray() || !src.hasRemaining()) {
+			return super.compress(src, dst, options);
+		}
+		final int bufferSize = maxCompressedSize(src.remaining());
+		ByteBuffer out = CodecBuffers.clear(dst, bufferSize);
+		if (!out.hasArray()) out = ByteBuffer.allocate(bufferSize);
+		final int n =
+			compress(src.array(), src.arrayOffset() + src.position(), src
+				.remaining(), out.array(), out.arrayOffset());
+		src.position(src.limit());
+		out.position(n);
+		out.flip();
+		return out;
+	}
+
+	/**
+	 * The CodecOptions parameter should have the following fields set:
+	 * {@link CodecOptions#maxBytes maxBytes}. Without it, the output grows
+	 * until the whole block fits.
+	 *
+	 * @see Codec#decompress(byte[], CodecOptions)
+	 */
+	@Override
+	public byte[] decompress(final byte[] data, CodecOptions options)
+		throws FormatException
+	{
+		if (data == null || data.length == 0) return null;
+		if (options == null) options = CodecOptions.getDefaultOptions();
+		if (options.maxBytes > 0) {
+			final byte[] output = new byte[options.maxBytes];
+			decompress(data, 0, data.length, output, 0, output.length);
+			return output;
+		}
+		// grow the output until it is not filled; no byte of input yields more
+		// than 255 bytes of output
+		final long maxSize = MAX_RATIO * data.length + MIN_MATCH;
+		long size = 4L * data.length;
+		while (true) {
+			final byte[] output = new byte[(int) Math.min(size, Integer.MAX_VALUE)];
+			final int n =
+				written(decompress(data, 0, data.length, output, 0, output.length));
+			if (n < output.length) return Arrays.copyOf(output, n);
+			if (size > maxSize) throw new FormatException("Corrupt LZ4 data");
+			if (output.length == Integer.MAX_VALUE) {
+				throw new FormatException("Decompressed data exceeds 2 GB");
+			}
+			size = 2L * output.length;
+		}
+	}
+
+	/**
+	 * The CodecOptions parameter should have the following fields set:
+	 * {@link CodecOptions#maxBytes maxBytes}
+	 *
+	 * @see Codec#decompress(RandomAccessInputStream, CodecOptions)
+	 */
+	@Override
+	public byte[] decompress(final RandomAccessInputStream in,
+		CodecOptions options) throws FormatException, IOException
+	{
+		if (in == null || in.length() == 0) return null;
+		if (options == null) options = CodecOptions.getDefaultOptions();
+		final byte[] output = new byte[options.maxBytes];
+		decompress(in, output, 0, output.length);
+		return output;
+	}
+
+	@Override
+	public int decompress(final ByteBuffer src, final ByteBuffer dst,
+		final CodecOptions options) throws FormatException
+	{
+		if (!src.hasArray() || !dst.hasArray()) {
+			return super.decompress(src, dst, options);
+		}
+		final long result =
+			decompress(src.array(), src.arrayOffset() + src.position(), src
+				.remaining(), dst.array(), dst.arrayOffset() + dst.position(), dst
+				.remaining());
+		src.position(src.position() + consumed(result));
+		dst.position(dst.position() + written(result));
+		return written(result);
+	}
+
+	@Override
+	public int decompress(final RandomAccessInputStream in, final ByteBuffer dst,
+		final CodecOptions options) throws FormatException, IOException
+	{
+		if (!dst.hasArray()) return super.decompress(in, dst, options);
+		final int n =
+			decompress(in, dst.array(), dst.arrayOffset() + dst.position(), dst
+				.remaining());
+		dst.position(dst.position() + n);
+		return n;
+	}
+
+	// -- Helper methods --
+
+	/** Gets the output buffer size needed to compress the given bytes. */
+	private static int maxCompressedSize(final int length)
+		throws FormatException
+	{
+		// incompressible data costs one more byte for every 255 literals
+		final long bufferSize = length + length / 255L + 16;
+		if (bufferSize > Integer.MAX_VALUE) {
+			throw new FormatException("Output buffer is greater than 2 GB");
+		}
+		return (int) bufferSize;
+	}
+
+	/**
+	 * Compresses {@code len} bytes of {@code input}, starting at {@code off},
+	 * into {@code output} at {@code outOff}, which must have room for
+	 * {@link #maxCompressedSize} bytes.
+	 *
+	 * @return The number of bytes written to {@code output}.
+	 */
+	private static int compress(final byte[] input, final int off,
+		final int len, final byte[] output, final int outOff)
+	{
+		final int end = off + len;
+		int op = outOff;
+		int anchor = off;
+		if (len > MF_LIMIT) {
+			// positions are stored plus one, so that 0 means none
+			final int[] table = new int[1 << HASH_LOG];
+			final int matchLimit = end - LAST_LITERALS;
+			final int mfLimit = end - MF_LIMIT;
+			int ip = off;
+			while (ip <= mfLimit) {
+				final int v = readInt(input, ip);
+				final int h = hash(v);
+				int ref = off + table[h] - 1;
+				table[h] = ip - off + 1;
+				if (ref < off || ip - ref > MAX_OFFSET || readInt(input, ref) != v) {
+					ip += 1 + ((ip - anchor) >> SKIP_TRIGGER);
+					continue;
+				}
+				// extend the match backward, then forward
+				while (ip > anchor && ref > off && input[ip - 1] == input[ref - 1]) {
+					ip--;
+					ref--;
+				}
+				int length = MIN_MATCH;
+				while (ip + length < matchLimit &&
+					input[ip + length] == input[ref + length])
+				{
+					length++;
+				}
+				final int tokenPos = op;
+				op = writeSequence(input, anchor, ip - anchor, output, op);
+				output[op++] = (byte) (ip - ref);
+				output[op++] = (byte) ((ip - ref) >>> 8);
+				op = writeLength(output, op, tokenPos, length - MIN_MATCH, 0);
+				ip += length;
+				anchor = ip;
+				if (ip - 2 <= mfLimit) {
+					table[hash(readInt(input, ip - 2))] = ip - 2 - off + 1;
+				}
+			}
+		}
+		return writeSequence(input, anchor, end - anchor, output, op);
+	}
+
+	/**
+	 * Writes the token and literals of a sequence, with the literals length.
+	 *
+	 * @return The position after the literals.
+	 */
+	private static int writeSequence(final byte[] input, final int off,
+		final int len, final byte[] output, int op)
+	{
+		final int tokenPos = op++;
+		output[tokenPos] = 0;
+		op = writeLength(output, op, tokenPos, len, 4);
+		System.arraycopy(input, off, output, op, len);
+		return op + len;
+	}
+
+	/**
+	 * Stores a length in the given half of a token: in the token alone if it
+	 * is less than 15, else as 15 followed by bytes adding up the rest.
+	 *
+	 * @return The position after the length bytes.
+	 */
+	private static int writeLength(final byte[] output, int op,
+		final int tokenPos, final int length, final int shift)
+	{
+		if (length < 15) {
+			output[tokenPos] |= length << shift;
+			return op;
+		}
+		output[tokenPos] |= 15 << shift;
+		int rest = length - 15;
+		while (rest >= 255) {
+			output[op++] = (byte) 255;
+			rest -= 255;
+		}
+		output[op++] = (byte) rest;
+		return op;
+	}
+
+	/**
+	 * Decompresses data from the given stream into {@code len} bytes of
+	 * {@code output}, starting at {@code off}, leaving the stream positioned
+	 * after the last sequence consumed.
+	 *
+	 * @return The number of bytes written to {@code output}.
+	 */
+	private static int decompress(final RandomAccessInputStream in,
+		final byte[] output, final int off, final int len) throws FormatException,
+		IOException
+	{
+		// no block is larger than the worst case of compressing its output
+		final long fp = in.getFilePointer();
+		final byte[] input =
+			new byte[(int) Math.min(in.length() - fp, maxCompressedSize(len))];
+		in.readFully(input);
+		final long result =
+			decompress(input, 0, input.length, output, off, len);
+		in.seek(fp + consumed(result));
+		return written(result);
+	}
+
+	/**
+	 * Decompresses {@code inLen} bytes of {@code input}, starting at
+	 * {@code inOff}, into {@code outLen} bytes of {@code output}, starting at
+	 * {@code outOff}. Decompression stops at the end of input, or once the
+	 * output is full; sequences which do not fit are truncated.
+	 *
+	 * @return The number of bytes consumed in the upper and the number of bytes
+	 *         written in the lower 32 bits; see {@link #consumed} and
+	 *         {@link #written}.
+	 * @throws FormatException If a sequence runs past the end of input, or
+	 *           refers to data before the start of output.
+	 */
+	private static long decompress(final byte[] input, final int inOff,
+		final int inLen, final byte[] output, final int outOff, final int outLen)
+		throws FormatException
+	{
+		final int inEnd = inOff + inLen;
+		final int outEnd = outOff + outLen;
+		int ip = inOff;
+		int op = outOff;
+		while (ip < inEnd && op < outEnd) {
+			final int token = input[ip++] & 0xff;
+
+			// literals
+			int length = token >>> 4;
+			if (length == 15) {
+				int b;
+				do {
+					if (ip == inEnd) throw new FormatException("Truncated LZ4 data");
+					b = input[ip++] & 0xff;
+					length += b;
+				}
+				while (b == 255 && length >= 0);
+			}
+			if (length < 0 || length > inEnd - ip) {
+				throw new FormatException("Truncated LZ4 data");
+			}
+			int n = Math.min(length, outEnd - op);
+			System.arraycopy(input, ip, output, op, n);
+			ip += length;
+			op += n;
+			if (n < length || ip == inEnd) break;
+
+			// match
+			if (inEnd - ip < 2) throw new FormatException("Truncated LZ4 data");
+			final int offset = (input[ip] & 0xff) | (input[ip + 1] & 0xff) << 8;
+			ip += 2;
+			if (offset == 0 || offset > op - outOff) {
+				throw new FormatException("Invalid LZ4 offset");
+			}
+			length = token & 15;
+			if (length == 15) {
+				int b;
+				do {
+					if (ip == inEnd) throw new FormatException("Truncated LZ4 data");
+					b = input[ip++] & 0xff;
+					length += b;
+				}
+				while (b == 255 && length >= 0);
+			}
+			n = Math.min(length + MIN_MATCH, outEnd - op);
+			if (n < 0) throw new FormatException("Invalid LZ4 match length");
+			final int src = op - offset;
+			if (offset >= n) System.arraycopy(output, src, output, op, n);
+			else {
+				// overlapping match: repeat the last offset bytes
+				for (int i = 0; i < n; i++) {
+					output[op + i] = output[src + i];
+				}
+			}
+			op += n;
+		}
+		return (long) (ip - inOff) << 32 | (op - outOff);
+	}
+
+	private static int hash(final int v) {
+		return (v * 0x9E3779B1) >>> (32 - HASH_LOG);
+	}
+
+	private static int readInt(final byte[] b, final int p) {
+		return (b[p] & 0xff) | (b[p + 1] & 0xff) << 8 | (b[p + 2] & 0xff) << 16 |
+			(b[p + 3] & 0xff) << 24;
+	}
+
+	/** Gets the number of bytes consumed from a decompression result. */
+	private static int consumed(final long result) {
+		return (int) (result >>> 32);
+	}
+
+	/** Gets the number of bytes written from a decompression result. */
+	private static int written(final long result) {
+		return (int) result;
+	}
+}
@@ -34,6 +34,7 @@ import io.scif.FormatException;
 import io.scif.io.RandomAccessInputStream;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import org.scijava.plugin.Plugin;
@@ -70,6 +71,11 @@ import org.scijava.plugin.Plugin;
  * Thus, we can claim than the number of bytes in compressed output never
  * exceeds 1.41*(number of input bytes)+3.
  * <p>
+ * Decompression works on byte arrays: the table maps each code to the offset
+ * and length of an earlier occurrence of its string in the output, so that
+ * strings are emitted by copying them in bulk. Data given as a
+ * {@link RandomAccessInputStream} is read into an array first.
+ * </p>
  *
  * @author Mikhail Kovtun
  */
@@ -77,14 +83,20 @@ import org.scijava.plugin.Plugin;
 public class LZWCodec extends AbstractCodec {
 
 	/**
-	 * Size of hash table. Must be greater 3837 (the number of possible codes).
-	 * Bigger size reduces number of rehashing steps -- at expence of
-	 * initialization time.
+	 * Size of hash table. Must be a power of two greater than 3837 (the number
+	 * of possible codes). Bigger size reduces number of probing steps -- at
+	 * expense of cache footprint.
 	 */
-	private static final int HASH_SIZE = 7349;
+	private static final int HASH_SIZE = 8192;
 
-	/** Rehashing step. HASH_SIZE and HASH_STEP shoulg be coprime. */
-	private static final int HASH_STEP = 257;
+	/** Number of bits of a hash table key, i.e. a (code,byte) pair. */
+	private static final int KEY_BITS = 20;
+
+	/**
+	 * Largest stamp with which hash table entries can be marked; see
+	 * {@link #compress(byte[], int, int, byte[], int)}.
+	 */
+	private static final int MAX_STAMP = (1 << (32 - KEY_BITS)) - 1;
 
 	private static final int CLEAR_CODE = 256;
 
@@ -96,27 +108,134 @@ public class LZWCodec extends AbstractCodec {
 	private static final int[] COMPR_MASKS = { 0xff, 0x7f, 0x3f, 0x1f, 0x0f,
 		0x07, 0x03, 0x01 };
 
-	/** Masks for reading bits in decompressor. */
-	private static final int[] DECOMPR_MASKS = { 0x00, 0x01, 0x03, 0x07, 0x0f,
-		0x1f, 0x3f, 0x7f };
+	/** Strings shorter than this are copied byte by byte by the decompressor. */
+	private static final int MIN_ARRAYCOPY = 16;
 
 	@Override
 	public byte[] compress(final byte[] input, final CodecOptions options)
 		throws FormatException
 	{
 		if (input == null || input.length == 0) return input;
+		final byte[] output = new byte[maxCompressedSize(input.length)];
+		final int outSize = compress(input, 0, input.length, output, 0);
+		return Arrays.copyOf(output, outSize);
+	}
+
+	/**
+	 * Compresses straight into the destination's backing array, when it is
+	 * large enough for the worst case (see class comments).
+	 *
+	 * @see Codec#compress(ByteBuffer, ByteBuffer, CodecOptions)
+	 */
+	@Override
+	public ByteBuffer compress(final ByteBuffer src, final ByteBuffer dst,
+		final CodecOptions options) throws FormatException
+	{
+		if (!src.hasArray() || !src.hasRemaining()) {
+			return super.compress(src, dst, options);
+		}
+		final int bufferSize = maxCompressedSize(src.remaining());
+		ByteBuffer out = CodecBuffers.clear(dst, bufferSize);
+		if (!out.hasArray()) out = ByteBuffer.allocate(bufferSize);
+		final int outSize =
+			compress(src.array(), src.arrayOffset() + src.position(), src
+				.remaining(), out.array(), out.arrayOffset());
+		src.position(src.limit());
+		out.position(outSize);
+		out.flip();
+		return out;
+	}
+
+	/**
+	 * The CodecOptions parameter should have the following fields set:
+	 * {@link CodecOptions#maxBytes maxBytes}
+	 *
+	 * @see Codec#decompress(byte[], CodecOptions)
+	 */
+	@Override
+	public byte[] decompress(final byte[] data, CodecOptions options)
+		throws FormatException
+	{
+		if (data == null || data.length == 0) return null;
+		if (options == null) options = CodecOptions.getDefaultOptions();
+		final byte[] output = new byte[options.maxBytes];
+		decompress(data, 0, data.length, output, 0, output.length);
+		return output;
+	}
 
-		// Output buffer (see class comments for justification of size).
-		final long bufferSize = ((long) input.length * 141) / 100 + 3;
+	/**
+	 * The CodecOptions parameter should have the following fields set:
+	 * {@link CodecOptions#maxBytes maxBytes}
+	 *
+	 * @see Codec#decompress(RandomAccessInputStream, CodecOptions)
+	 */
+	@Override
+	public byte[] decompress(final RandomAccessInputStream in,
+		CodecOptions options) throws FormatException, IOException
+	{
+		if (in == null || in.length() == 0) return null;
+		if (options == null) options = CodecOptions.getDefaultOptions();
+		final byte[] output = new byte[options.maxBytes];
+		decompress(in, output, 0, output.length);
+		return output;
+	}
+
+	@Override
+	public int decompress(final ByteBuffer src, final ByteBuffer dst,
+		final CodecOptions options) throws FormatException
+	{
+		if (!src.hasArray() || !dst.hasArray()) {
+			return super.decompress(src, dst, options);
+		}
+		final long result =
+			decompress(src.array(), src.arrayOffset() + src.position(), src
+				.remaining(), dst.array(), dst.arrayOffset() + dst.position(), dst
+				.remaining());
+		src.position(src.position() + consumed(result));
+		dst.position(dst.position() + written(result));
+		return written(result);
+	}
+
+	@Override
+	public int decompress(final RandomAccessInputStream in, final ByteBuffer dst,
+		final CodecOptions options) throws FormatException, IOException
+	{
+		if (!dst.hasArray()) return super.decompress(in, dst, options);
+		final int n =
+			decompress(in, dst.array(), dst.arrayOffset() + dst.position(), dst
+				.remaining());
+		dst.position(dst.position() + n);
+		return n;
+	}
+
+	// -- Helper methods --
+
+	/** Gets the output buffer size needed to compress the given bytes. */
+	private static int maxCompressedSize(final int length)
+		throws FormatException
+	{
+		// see class comments for justification of size
+		final long bufferSize = ((long) length * 141) / 100 + 3;
 		if (bufferSize > Integer.MAX_VALUE) {
 			throw new FormatException("Output buffer is greater than 2 GB");
 		}
-		final byte[] output = new byte[(int) bufferSize];
+		return (int) bufferSize;
+	}
 
-		// Current size of output buffer (and position to write next byte).
-		int outSize = 0;
+	/**
+	 * Compresses {@code len} bytes of {@code input}, starting at {@code off},
+	 * into {@code output} at {@code outOff}, which must have room for
+	 * {@link #maxCompressedSize} bytes.
+	 *
+	 * @return The number of bytes written to {@code output}.
+	 */
+	private static int compress(final byte[] input, final int off,
+		final int len, final byte[] output, final int outOff)
+	{
+		// Position in output buffer to write next byte to.
+		int outPos = outOff;
 		// The output always starts with CLEAR code
-		output[outSize++] = (byte) (CLEAR_CODE >> 1);
+		output[outPos++] = (byte) (CLEAR_CODE >> 1);
 		// Last incomplete byte to be written to output (bits shifted to the
 		// right).
 		// Always contains at least 1 bit, and may contain 8 bits.
@@ -124,14 +243,15 @@ public class LZWCodec extends AbstractCodec {
 		// Number of unused bits in currOutByte (from 0 to 7).
 		int freeBits = 7;
 
-		// Hash table.
+		// Open-addressing hash table with linear probing.
 		// Keys in the table are pairs (code,byte) and values are codes.
-		// Pair (code,byte) is represented as ( (code<<8) | byte ).
-		// Unused table entries have key=-1.
+		// Pair (code,byte) is represented as ( (code<<8) | byte ), and stored
+		// with the current stamp in the bits above KEY_BITS. Entries with
+		// another stamp are unused, so that the table is reinitialized along
+		// with the code table by just changing the stamp.
 		final int[] htKeys = new int[HASH_SIZE];
 		final int[] htValues = new int[HASH_SIZE];
-		// Initialize hash table: mark all entries as unused
-		Arrays.fill(htKeys, -1);
+		int stamp = 1;
 
 		// Next code to be used by compressor.
 		int nextCode = FIRST_CODE;
@@ -140,31 +260,34 @@ public class LZWCodec extends AbstractCodec {
 
 		// Names of these variables are taken from TIFF specification.
 		// The first byte of input is handled specially.
-		int tiffK = input[0] & 0xff;
+		int tiffK = input[off] & 0xff;
 		int tiffOmega = tiffK;
 
 		// Main loop.
-		for (int currInPos = 1; currInPos < input.length; currInPos++) {
+		final int end = off + len;
+		for (int currInPos = off + 1; currInPos < end; currInPos++) {
 			tiffK = input[currInPos] & 0xff;
-			final int hashKey = (tiffOmega << 8) | tiffK;
-			int hashCode = hashKey % HASH_SIZE;
+			final int hashKey = (stamp << KEY_BITS) | (tiffOmega << 8) | tiffK;
+			// Fibonacci hashing, keeping the top bits of the product
+			int hashCode = ((tiffOmega << 8) | tiffK) * 0x9e3779b1 >>> 19;
 			do {
-				if (htKeys[hashCode] == hashKey) {
+				final int entry = htKeys[hashCode];
+				if (entry == hashKey) {
 					// Omega+K in the table
 					tiffOmega = htValues[hashCode];
 					break;
 				}
-				else if (htKeys[hashCode] < 0) {
+				else if (entry >>> KEY_BITS != stamp) {
 					// Omega+K not in the table
 					// 1) add new entry to hash table
 					htKeys[hashCode] = hashKey;
 					htValues[hashCode] = nextCode++;
 					// 2) output last code
 					int shift = currCodeLength - freeBits;
-					output[outSize++] =
+					output[outPos++] =
 						(byte) ((currOutByte << freeBits) | (tiffOmega >> shift));
 					if (shift > 8) {
-						output[outSize++] = (byte) (tiffOmega >> (shift - 8));
+						output[outPos++] = (byte) (tiffOmega >> (shift - 8));
 						shift -= 8;
 					}
 					freeBits = 8 - shift;
@@ -174,8 +297,8 @@ public class LZWCodec extends AbstractCodec {
 					break;
 				}
 				else {
-					// we have to rehash
-					hashCode = (hashCode + HASH_STEP) % HASH_SIZE;
+					// probe the next entry
+					hashCode = (hashCode + 1) & (HASH_SIZE - 1);
 				}
 			}
 			while (true);
@@ -192,15 +315,19 @@ public class LZWCodec extends AbstractCodec {
 					break;
 				case 4096: // write CLEAR code and reinitialize hash table
 					int shift = currCodeLength - freeBits;
-					output[outSize++] =
+					output[outPos++] =
 						(byte) ((currOutByte << freeBits) | (CLEAR_CODE >> shift));
 					if (shift > 8) {
-						output[outSize++] = (byte) (CLEAR_CODE >> (shift - 8));
+						output[outPos++] = (byte) (CLEAR_CODE >> (shift - 8));
 						shift -= 8;
 					}
 					freeBits = 8 - shift;
 					currOutByte = CLEAR_CODE & COMPR_MASKS[freeBits];
-					Arrays.fill(htKeys, -1);
+					if (stamp == MAX_STAMP) {
+						Arrays.fill(htKeys, 0);
+						stamp = 0;
+					}
+					stamp++;
 					nextCode = FIRST_CODE;
 					currCodeLength = 9;
 					break;
@@ -211,10 +338,10 @@ public class LZWCodec extends AbstractCodec {
 		// 1) write code from tiff_Omega
 		{
 			int shift = currCodeLength - freeBits;
-			output[outSize++] =
+			output[outPos++] =
 				(byte) ((currOutByte << freeBits) | (tiffOmega >> shift));
 			if (shift > 8) {
-				output[outSize++] = (byte) (tiffOmega >> (shift - 8));
+				output[outPos++] = (byte) (tiffOmega >> (shift - 8));
 				shift -= 8;
 			}
 			freeBits = 8 - shift;
@@ -237,178 +364,178 @@ public class LZWCodec extends AbstractCodec {
 
 		{
 			int shift = currCodeLength - freeBits;
-			output[outSize++] =
+			output[outPos++] =
 				(byte) ((currOutByte << freeBits) | (EOI_CODE >> shift));
 			if (shift > 8) {
-				output[outSize++] = (byte) (EOI_CODE >> (shift - 8));
+				output[outPos++] = (byte) (EOI_CODE >> (shift - 8));
 				shift -= 8;
 			}
 			freeBits = 8 - shift;
 			currOutByte = EOI_CODE & COMPR_MASKS[freeBits];
-			output[outSize++] = (byte) (currOutByte << freeBits);
+			output[outPos++] = (byte) (currOutByte << freeBits);
 		}
-
-		final byte[] result = new byte[outSize];
-		System.arraycopy(output, 0, result, 0, outSize);
-		return result;
+		return outPos - outOff;
 	}
 
 	/**
-	 * The CodecOptions parameter should have the following fields set:
-	 * {@link CodecOptions#maxBytes maxBytes}
+	 * Decompresses data from the given stream into {@code len} bytes of
+	 * {@code output}, starting at {@code off}, leaving the stream positioned
+	 * after the last code consumed.
 	 *
-	 * @see Codec#decompress(RandomAccessInputStream, CodecOptions)
+	 * @return The number of bytes written to {@code output}.
 	 */
-	@Override
-	public byte[] decompress(final RandomAccessInputStream in,
-		CodecOptions options) throws FormatException, IOException
+	private static int decompress(final RandomAccessInputStream in,
+		final byte[] output, final int off, final int len) throws FormatException,
+		IOException
 	{
-		if (in == null || in.length() == 0) return null;
-		if (options == null) options = CodecOptions.getDefaultOptions();
-
-		// Output buffer
-		final byte[] output = new byte[options.maxBytes];
-		// Position in output buffer to write next byte to
-		int currOutPos = 0;
+		// Every code but CLEAR and END_OF_INFORMATION yields at least one
+		// byte and takes at most 12 bits, so this is plenty of input.
+		final long fp = in.getFilePointer();
+		final byte[] input =
+			new byte[(int) Math.min(in.length() - fp, 2L * len + 16)];
+		in.readFully(input);
+		final long result =
+			decompress(input, 0, input.length, output, off, len);
+		in.seek(fp + consumed(result));
+		return written(result);
+	}
 
+	/**
+	 * Decompresses {@code inLen} bytes of {@code input}, starting at
+	 * {@code inOff}, into {@code outLen} bytes of {@code output}, starting at
+	 * {@code outOff}. Decompression stops at the END_OF_INFORMATION code, at
+	 * the end of input, or once the output is full; strings which do not fit
+	 * are truncated.
+	 *
+	 * @return The number of bytes consumed in the upper and the number of bytes
+	 *         written in the lower 32 bits; see {@link #consumed} and
+	 *         {@link #written}.
+	 */
+	private static long decompress(final byte[] input, final int inOff,
+		final int inLen, final byte[] output, final int outOff, final int outLen)
+	{
 		// Table mapping codes to strings.
-		// Its structure is based on the fact that a string for a code has form:
-		// (string for another code) + (new byte).
-		// Thus, at index 'code': first array contains 'another code', second
-		// array
-		// contains 'new byte', and third array contains length of the string.
-		// The length is needed to make retrieving the string faster.
-		final int[] anotherCodes = new int[4096];
-		final byte[] newBytes = new byte[4096];
+		// Every string for a code has already been written to the output, as
+		// (string for another code) + (new byte); so at index 'code', the
+		// first array contains the position of that occurrence in the output,
+		// and the second array the length of the string. The first 256 codes
+		// stand for themselves and need no entries.
+		final int[] starts = new int[4096];
 		final int[] lengths = new int[4096];
-		// We need to initialize only firt 256 entries in the table
-		for (int i = 0; i < 256; i++) {
-			newBytes[i] = (byte) i;
-			lengths[i] = 1;
-		}
 
 		// Length of the code to be read from input
 		int currCodeLength = 9;
 		// Next code to be added to the table
 		int nextCode = FIRST_CODE;
 
-		// Variables to handle reading bit stream:
-		// Byte from 'input[curr_in_pos-1]' -- only 'bits_read' bits on the
-		// right
-		// are non-zero
+		// Variables to handle reading bit stream: the lowest 'bitsRead' bits
+		// of 'currRead' were not consumed yet
 		int currRead = 0;
-		// Number of bits in 'curr_read' that were not consumed yet
 		int bitsRead = 0;
 
-		// Current code being processed by decompressor.
-		int currCode;
-		// Previous code processed by decompressor.
-		int oldCode = 0; // without initializer, Java reports error later
+		// Position and length of the string for the previous code, or -1
+		// after a CLEAR code
+		int oldStart = -1;
+		int oldLength = 0;
+
+		final int inEnd = inOff + inLen;
+		final int outEnd = outOff + outLen;
+		int inPos = inOff;
+		int outPos = outOff;
+
+		decode:
+		while (outPos < outEnd) {
+			// read next code
+			while (bitsRead < currCodeLength) {
+				if (inPos == inEnd) break decode;
+				currRead = (currRead << 8) | (input[inPos++] & 0xff);
+				bitsRead += 8;
+			}
+			bitsRead -= currCodeLength;
+			final int currCode =
+				(currRead >>> bitsRead) & ((1 << currCodeLength) - 1);
 
-		try {
-			do {
-				// read next code
-				{
-					int bitsLeft = currCodeLength - bitsRead;
-					if (bitsLeft > 8) {
-						currRead = (currRead << 8) | (in.read() & 0xff);
-						bitsLeft -= 8;
-					}
-					bitsRead = 8 - bitsLeft;
-					final int nextByte = in.read() & 0xff;
-					currCode = (currRead << bitsLeft) | (nextByte >> bitsRead);
-					currRead = nextByte & DECOMPR_MASKS[bitsRead];
-				}
+			if (currCode == EOI_CODE) break;
 
-				if (currCode == EOI_CODE) break;
+			if (currCode == CLEAR_CODE) {
+				nextCode = FIRST_CODE;
+				currCodeLength = 9;
+				oldStart = -1;
+				continue;
+			}
 
-				if (currCode == CLEAR_CODE) {
-					// initialize table -- nothing to do
-					nextCode = FIRST_CODE;
-					currCodeLength = 9;
-					// read next code
-					{
-						int bitsLeft = currCodeLength - bitsRead;
-						if (bitsLeft > 8) {
-							currRead = (currRead << 8) | (in.read() & 0xff);
-							bitsLeft -= 8;
-						}
-						bitsRead = 8 - bitsLeft;
-
-						final int nextByte = in.read() & 0xff;
-						currCode = (currRead << bitsLeft) | (nextByte >> bitsRead);
-						currRead = nextByte & DECOMPR_MASKS[bitsRead];
-					}
-					if (currCode == EOI_CODE) break;
-					// write string[curr_code] to output
-					// -- but here we are sure that string consists of a single
-					// byte
-					if (currOutPos >= output.length - 1) break;
-					output[currOutPos++] = newBytes[currCode];
-					oldCode = currCode;
-				}
-				else if (currCode < nextCode) {
-					// Code is already in the table
-					// 1) Write strin[curr_code] to output
-					final int outLength = lengths[currCode];
-					int i = currOutPos + outLength;
-					int tablePos = currCode;
-					if (i > output.length) break;
-					while (i > currOutPos) {
-						output[--i] = newBytes[tablePos];
-						tablePos = anotherCodes[tablePos];
-					}
-					currOutPos += outLength;
-					// 2) Add string[old_code]+firstByte(string[curr_code]) to
-					// the table
-					if (nextCode >= anotherCodes.length) break;
-					anotherCodes[nextCode] = oldCode;
-					newBytes[nextCode] = output[i];
-					lengths[nextCode] = lengths[oldCode] + 1;
-					oldCode = currCode;
-					nextCode++;
-				}
-				else {
-					// Special case: code is not in the table
-					// 1) Write string[old_code] to output
-					final int outLength = lengths[oldCode];
-					int i = currOutPos + outLength;
-					int tablePos = oldCode;
-					if (i > output.length) break;
-					while (i > currOutPos) {
-						output[--i] = newBytes[tablePos];
-						tablePos = anotherCodes[tablePos];
-					}
-					currOutPos += outLength;
-					// 2) Write firstByte(string[old_code]) to output
-					if (currOutPos >= output.length - 1) break;
-					output[currOutPos++] = output[i];
-					// 3) Add string[old_code]+firstByte(string[old_code]) to
-					// the table
-					anotherCodes[nextCode] = oldCode;
-					newBytes[nextCode] = output[i];
-					lengths[nextCode] = outLength + 1;
-					oldCode = currCode;
-					nextCode++;
-				}
-				// Increase length of code if needed
-				switch (nextCode) {
-					case 511:
-						currCodeLength = 10;
-						break;
-					case 1023:
-						currCodeLength = 11;
-						break;
-					case 2047:
-						currCodeLength = 12;
-						break;
-				}
+			final int start = outPos;
+			if (currCode < CLEAR_CODE) {
+				output[outPos++] = (byte) currCode;
+			}
+			else if (currCode < nextCode) {
+				// Code is already in the table: write string[curr_code]
+				outPos =
+					copy(output, starts[currCode], outPos, lengths[currCode], outEnd);
+			}
+			else if (oldStart >= 0) {
+				// Special case: code is not in the table -- the encoder has
+				// just added it, as string[old_code]+firstByte(string[old_code])
+				outPos = copy(output, oldStart, outPos, oldLength, outEnd);
+				if (outPos < outEnd) output[outPos++] = output[oldStart];
+			}
+			else {
+				// no previous string to build upon: the data is corrupt
+				break;
+			}
+
+			// Add string[old_code]+firstByte(string[curr_code]) to the table;
+			// that byte follows string[old_code] in the output
+			if (oldStart >= 0 && nextCode < 4096) {
+				starts[nextCode] = oldStart;
+				lengths[nextCode] = oldLength + 1;
+				nextCode++;
+			}
+			oldStart = start;
+			oldLength = outPos - start;
+
+			// Increase length of code if needed
+			switch (nextCode) {
+				case 511:
+					currCodeLength = 10;
+					break;
+				case 1023:
+					currCodeLength = 11;
+					break;
+				case 2047:
+					currCodeLength = 12;
+					break;
 			}
-			while (currOutPos < output.length && in.getFilePointer() < in.length());
 		}
-		catch (final ArrayIndexOutOfBoundsException e) {
-			throw new FormatException("Invalid LZW data", e);
+		return ((long) (inPos - inOff) << 32) | (outPos - outOff);
+	}
+
+	/**
+	 * Copies {@code length} bytes from {@code src} to {@code pos} within the
+	 * given output, truncated at {@code end}.
+	 *
+	 * @return The position after the last byte copied.
+	 */
+	private static int copy(final byte[] output, final int src, final int pos,
+		final int length, final int end)
+	{
+		final int n = Math.min(length, end - pos);
+		if (n < MIN_ARRAYCOPY) {
+			for (int i = 0; i < n; i++) {
+				output[pos + i] = output[src + i];
+			}
 		}
-		return output;
+		else System.arraycopy(output, src, output, pos, n);
+		return pos + n;
+	}
+
+	/** Gets the number of bytes consumed from a decompression result. */
+	private static int consumed(final long result) {
+		return (int) (result >>> 32);
+	}
+
+	/** Gets the number of bytes written from a decompression result. */
+	private static int written(final long result) {
+		return (int) result;
 	}
 }
@@ -35,6 +35,7 @@ import io.scif.UnsupportedCompressionException;
 import io.scif.io.RandomAccessInputStream;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
@@ -188,33 +189,37 @@ public class LosslessJPEGCodec extends AbstractCodec {
 				byte[] toDecode = new byte[(int) (in.length() - in.getFilePointer())];
 				in.read(toDecode);
 
-				// scrub out byte stuffing
+				// scrub out byte stuffing, in place
 
-				final ByteVector b = new ByteVector();
+				int n = 0;
 				for (int i = 0; i < toDecode.length; i++) {
-					b.add(toDecode[i]);
-					if (toDecode[i] == (byte) 0xff && toDecode[i + 1] == 0) i++;
+					toDecode[n++] = toDecode[i];
+					if (toDecode[i] == (byte) 0xff && i + 1 < toDecode.length &&
+						toDecode[i + 1] == 0)
+					{
+						i++;
+					}
 				}
-				toDecode = b.toByteArray();
+				if (n < toDecode.length) toDecode = Arrays.copyOf(toDecode, n);
 
 				final BitBuffer bb = new BitBuffer(toDecode);
 				final HuffmanCodec huffman = codecService.getCodec(HuffmanCodec.class);
-				final HuffmanCodecOptions huffmanOptions = new HuffmanCodecOptions();
-				huffmanOptions.bitsPerSample = bitsPerSample;
-				huffmanOptions.maxBytes = buf.length / nComponents;
+				final HuffmanDecoder[] decoders = new HuffmanDecoder[nComponents];
+				for (int i = 0; i < nComponents; i++) {
+					if (huffmanTables != null && huffmanTables[dcTable[i]] != null) {
+						decoders[i] = huffman.getDecoder(huffmanTables[dcTable[i]]);
+					}
+				}
 
 				int nextSample = 0;
 				while (nextSample < buf.length / nComponents) {
 					for (int i = 0; i < nComponents; i++) {
-						if (huffmanTables != null) {
-							huffmanOptions.table = huffmanTables[dcTable[i]];
-						}
 						int v = 0;
 
-						if (huffmanOptions.table != null) {
-							v = huffman.getSample(bb, huffmanOptions);
+						if (decoders[i] != null) {
+							v = decoders[i].getSample(bb);
 							if (nextSample == 0) {
-								v += (int) Math.pow(2, bitsPerSample - 1);
+								v += 1 << (bitsPerSample - 1);
 							}
 						}
 						else {
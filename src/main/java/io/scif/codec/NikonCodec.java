@@ -180,6 +180,7 @@ public class NikonCodec extends AbstractCodec {
 		}
 
 		final HuffmanCodec huffmanCodec = codecService.getCodec(HuffmanCodec.class);
+		HuffmanDecoder decoder = huffmanCodec.getDecoder(huffman.table);
 
 		final byte[] pix = new byte[nikon.maxBytes];
 		in.read(pix);
@@ -198,12 +199,13 @@ public class NikonCodec extends AbstractCodec {
 						huffman.table = SPLIT_LOSSY_DECODER_CONFIGURATION_12;
 					}
 					else huffman.table = SPLIT_LOSSY_DECODER_CONFIGURATION_14;
+					decoder = huffmanCodec.getDecoder(huffman.table);
 					Arrays.fill(hPredictor, 0);
 				}
 			}
 			for (int col = 0; col < nikon.width; col++) {
 				final int cfaIndex = (2 * (row & 1)) + (col & 1);
-				final int diff = huffmanCodec.getSample(bb, huffman);
+				final int diff = decoder.getSample(bb);
 
 				if (col < 2) {
 					nikon.vPredictor[cfaIndex] += diff;
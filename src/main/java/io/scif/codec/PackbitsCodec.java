@@ -37,6 +37,7 @@ import io.scif.io.RandomAccessInputStream;
 import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.scijava.plugin.Plugin;
 
@@ -96,4 +97,64 @@ public class PackbitsCodec extends AbstractCodec {
 		if (fp + nread < in.length()) in.seek(fp + nread);
 		return output.toByteArray();
 	}
+
+	@Override
+	public int decompress(final ByteBuffer src, final ByteBuffer dst,
+		final CodecOptions options) throws FormatException
+	{
+		final int start = dst.position();
+		while (dst.hasRemaining() && src.hasRemaining()) {
+			final byte n = src.get();
+			if (n >= 0) { // 0 <= n <= 127
+				final int len = Math.min(n + 1, src.remaining());
+				final ByteBuffer literal = src.duplicate();
+				literal.limit(literal.position() + Math.min(len, dst.remaining()));
+				dst.put(literal);
+				src.position(src.position() + len);
+			}
+			else if (n != -128 && src.hasRemaining()) { // -127 <= n <= -1
+				final byte inp = src.get();
+				for (int i = Math.min(-n + 1, dst.remaining()); i > 0; i--) {
+					dst.put(inp);
+				}
+			}
+		}
+		return dst.position() - start;
+	}
+
+	@Override
+	public int decompress(final RandomAccessInputStream in, final ByteBuffer dst,
+		final CodecOptions options) throws FormatException, IOException
+	{
+		if (in == null) throw new IllegalArgumentException("No data to decompress.");
+		final int start = dst.position();
+		final long length = in.length();
+		while (dst.hasRemaining() && in.getFilePointer() < length) {
+			final byte n = in.readByte();
+			if (n >= 0) { // 0 <= n <= 127
+				final int len = Math.min(n + 1, dst.remaining());
+				final int r;
+				if (dst.hasArray()) {
+					r =
+						Math.max(0, in.read(dst.array(), dst.arrayOffset() +
+							dst.position(), len));
+					dst.position(dst.position() + r);
+				}
+				else {
+					final byte[] literal = new byte[len];
+					r = Math.max(0, in.read(literal));
+					dst.put(literal, 0, r);
+				}
+				if (r < len) break;
+				if (len < n + 1) in.skipBytes(n + 1 - len);
+			}
+			else if (n != -128 && in.getFilePointer() < length) { // -127 <= n <= -1
+				final byte inp = in.readByte();
+				for (int i = Math.min(-n + 1, dst.remaining()); i > 0; i--) {
+					dst.put(inp);
+				}
+			}
+		}
+		return dst.position() - start;
+	}
 }
@@ -34,6 +34,7 @@ import io.scif.FormatException;
 import io.scif.io.RandomAccessInputStream;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.scijava.plugin.Plugin;
 
@@ -65,4 +66,26 @@ public class PassthroughCodec extends AbstractCodec {
 		return data;
 	}
 
+	@Override
+	public ByteBuffer compress(final ByteBuffer src, final ByteBuffer dst,
+		final CodecOptions options) throws FormatException
+	{
+		final ByteBuffer out = CodecBuffers.clear(dst, src.remaining());
+		out.put(src);
+		out.flip();
+		return out;
+	}
+
+	@Override
+	public int decompress(final ByteBuffer src, final ByteBuffer dst,
+		final CodecOptions options) throws FormatException
+	{
+		final int n = Math.min(src.remaining(), dst.remaining());
+		final ByteBuffer data = src.duplicate();
+		data.limit(data.position() + n);
+		dst.put(data);
+		src.position(src.limit());
+		return n;
+	}
+
 }
@@ -33,55 +33,286 @@ package io.scif.codec;
 import io.scif.FormatException;
 import io.scif.io.RandomAccessInputStream;
 
-import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
-import java.util.zip.InflaterInputStream;
+import java.util.zip.Inflater;
 
 import org.scijava.plugin.Plugin;
 
 /**
  * This class implements ZLIB decompression.
+ * <p>
+ * {@link Deflater}s and {@link Inflater}s are reset after every call and kept
+ * for reuse, rather than allocating native zlib state per strip. At most one
+ * of each per processor is kept; any others are {@link Deflater#end() ended}
+ * as soon as they are done with.
+ * Compression honors {@link CodecOptions#compressionLevel} and
+ * {@link CodecOptions#compressionStrategy}; decompression inflates straight
+ * into an array of {@link CodecOptions#maxBytes} bytes, when given.
+ * </p>
  *
  * @author Melissa Linkert
  */
 @Plugin(type = Codec.class)
 public class ZlibCodec extends AbstractCodec {
 
+	/** Size of the blocks in which compressed data is read from streams. */
+	private static final int BLOCK_SIZE = 8192;
+
+	/** Maximum number of idle deflaters, and of idle inflaters, to keep. */
+	private static final int MAX_IDLE = Runtime.getRuntime()
+		.availableProcessors();
+
+	// -- Fields --
+
+	/** Deflaters not currently in use. */
+	private final Deque<Deflater> deflaters = new ArrayDeque<>();
+
+	/** Inflaters not currently in use. */
+	private final Deque<Inflater> inflaters = new ArrayDeque<>();
+
+	// -- Codec API methods --
+
 	@Override
 	public byte[] compress(final byte[] data, final CodecOptions options)
 		throws FormatException
 	{
 		if (data == null || data.length == 0) throw new IllegalArgumentException(
 			"No data to compress");
-		final Deflater deflater = new Deflater();
-		deflater.setInput(data);
-		deflater.finish();
-		final byte[] buf = new byte[8192];
-		final ByteVector bytes = new ByteVector();
-		int r = 0;
-		// compress until eof reached
-		while ((r = deflater.deflate(buf, 0, buf.length)) > 0) {
-			bytes.add(buf, 0, r);
-		}
-		return bytes.toByteArray();
+		final Deflater deflater = getDeflater(options);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			byte[] buf = new byte[data.length / 4 + 64];
+			int n = 0;
+			// compress until eof reached
+			while (!deflater.finished()) {
+				if (n == buf.length) buf = Arrays.copyOf(buf, 2 * buf.length);
+				n += deflater.deflate(buf, n, buf.length - n);
+			}
+			return Arrays.copyOf(buf, n);
+		}
+		finally {
+			release(deflater);
+		}
+	}
+
+	/**
+	 * The CodecOptions parameter may have the following field set:
+	 * {@link CodecOptions#maxBytes maxBytes}; data inflating to more bytes is
+	 * truncated.
+	 *
+	 * @see Codec#decompress(byte[], CodecOptions)
+	 */
+	@Override
+	public byte[] decompress(final byte[] data, final CodecOptions options)
+		throws FormatException
+	{
+		final Inflater inflater = getInflater();
+		try {
+			inflater.setInput(data);
+			return inflate(inflater, null, options);
+		}
+		catch (final IOException e) {
+			// cannot happen without a stream
+			throw new FormatException(e);
+		}
+		finally {
+			release(inflater);
+		}
 	}
 
+	/**
+	 * The CodecOptions parameter may have the following field set:
+	 * {@link CodecOptions#maxBytes maxBytes}; data inflating to more bytes is
+	 * truncated.
+	 *
+	 * @see Codec#decompress(RandomAccessInputStream, CodecOptions)
+	 */
 	@Override
 	public byte[] decompress(final RandomAccessInputStream in,
 		final CodecOptions options) throws FormatException, IOException
 	{
-		final InflaterInputStream i = new InflaterInputStream(in);
-		final ByteVector bytes = new ByteVector();
-		final byte[] buf = new byte[8192];
-		int r = 0;
-		// read until eof reached
+		final Inflater inflater = getInflater();
+		try {
+			return inflate(inflater, in, options);
+		}
+		finally {
+			release(inflater);
+		}
+	}
+
+	@Override
+	public ByteBuffer compress(final ByteBuffer src, final ByteBuffer dst,
+		final CodecOptions options) throws FormatException
+	{
+		if (!src.hasArray()) return super.compress(src, dst, options);
+		if (!src.hasRemaining()) throw new IllegalArgumentException(
+			"No data to compress");
+		final Deflater deflater = getDeflater(options);
+		try {
+			deflater.setInput(src.array(), src.arrayOffset() + src.position(), src
+				.remaining());
+			deflater.finish();
+			ByteBuffer out = CodecBuffers.clear(dst, BLOCK_SIZE);
+			if (!out.hasArray()) out = ByteBuffer.allocate(out.capacity());
+			while (!deflater.finished()) {
+				if (!out.hasRemaining()) {
+					// grow the output buffer
+					out.flip();
+					out = ByteBuffer.allocate(2 * out.capacity()).put(out);
+				}
+				final int r =
+					deflater.deflate(out.array(), out.arrayOffset() + out.position(), out
+						.remaining());
+				out.position(out.position() + r);
+			}
+			src.position(src.limit());
+			out.flip();
+			return out;
+		}
+		finally {
+			release(deflater);
+		}
+	}
+
+	@Override
+	public int decompress(final ByteBuffer src, final ByteBuffer dst,
+		final CodecOptions options) throws FormatException
+	{
+		if (!src.hasArray() || !dst.hasArray()) {
+			return super.decompress(src, dst, options);
+		}
+		final Inflater inflater = getInflater();
+		try {
+			inflater.setInput(src.array(), src.arrayOffset() + src.position(), src
+				.remaining());
+			final int start = dst.position();
+			// inflate until the stream or the destination is exhausted
+			while (dst.hasRemaining() && !inflater.finished() &&
+				!inflater.needsInput() && !inflater.needsDictionary())
+			{
+				final int r =
+					inflater.inflate(dst.array(), dst.arrayOffset() + dst.position(), dst
+						.remaining());
+				dst.position(dst.position() + r);
+			}
+			src.position(src.limit() - inflater.getRemaining());
+			return dst.position() - start;
+		}
+		catch (final DataFormatException e) {
+			throw new FormatException(e);
+		}
+		finally {
+			release(inflater);
+		}
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Takes an idle deflater, or creates one, set up with the level and strategy
+	 * of the given options. It must be {@link #release(Deflater) released} once
+	 * done with.
+	 */
+	private Deflater getDeflater(final CodecOptions options) {
+		Deflater deflater;
+		synchronized (deflaters) {
+			deflater = deflaters.poll();
+		}
+		if (deflater == null) deflater = new Deflater();
+		int level = Deflater.DEFAULT_COMPRESSION;
+		int strategy = Deflater.DEFAULT_STRATEGY;
+		if (options != null) {
+			if (options.compressionLevel >= 0) {
+				level = Math.min(options.compressionLevel, Deflater.BEST_COMPRESSION);
+			}
+			if (options.compressionStrategy >= 0) {
+				strategy = options.compressionStrategy;
+			}
+		}
+		deflater.setLevel(level);
+		deflater.setStrategy(strategy);
+		return deflater;
+	}
+
+	/** Resets the given deflater and keeps it for reuse, or ends it. */
+	private void release(final Deflater deflater) {
+		deflater.reset();
+		synchronized (deflaters) {
+			if (deflaters.size() < MAX_IDLE) {
+				deflaters.push(deflater);
+				return;
+			}
+		}
+		deflater.end();
+	}
+
+	/**
+	 * Takes an idle inflater, or creates one. It must be
+	 * {@link #release(Inflater) released} once done with.
+	 */
+	private Inflater getInflater() {
+		Inflater inflater;
+		synchronized (inflaters) {
+			inflater = inflaters.poll();
+		}
+		return inflater == null ? new Inflater() : inflater;
+	}
+
+	/** Resets the given inflater and keeps it for reuse, or ends it. */
+	private void release(final Inflater inflater) {
+		inflater.reset();
+		synchronized (inflaters) {
+			if (inflaters.size() < MAX_IDLE) {
+				inflaters.push(inflater);
+				return;
+			}
+		}
+		inflater.end();
+	}
+
+	/**
+	 * Inflates into an array of {@link CodecOptions#maxBytes} bytes, if given,
+	 * or else one grown as needed. If the inflater runs out of input, it is fed
+	 * from the given stream, if any, which is left after the last byte
+	 * consumed.
+	 *
+	 * @return The inflated bytes, fewer than {@code maxBytes} if the data ends
+	 *         early.
+	 */
+	private byte[] inflate(final Inflater inflater,
+		final RandomAccessInputStream in, final CodecOptions options)
+		throws FormatException, IOException
+	{
+		final int maxBytes = options == null ? 0 : options.maxBytes;
+		byte[] output = new byte[maxBytes > 0 ? maxBytes : BLOCK_SIZE];
+		final byte[] block = in == null ? null : new byte[BLOCK_SIZE];
+		int n = 0;
 		try {
-			while ((r = i.read(buf, 0, buf.length)) > 0)
-				bytes.add(buf, 0, r);
+			while (!inflater.finished() && !inflater.needsDictionary()) {
+				if (n == output.length) {
+					if (maxBytes > 0) break;
+					output = Arrays.copyOf(output, 2 * output.length);
+				}
+				if (inflater.needsInput()) {
+					final int r = in == null ? -1 : in.read(block);
+					if (r <= 0) break;
+					inflater.setInput(block, 0, r);
+				}
+				n += inflater.inflate(output, n, output.length - n);
+			}
+		}
+		catch (final DataFormatException e) {
+			throw new FormatException(e);
 		}
-		catch (final EOFException e) {}
-		return bytes.toByteArray();
+		if (in != null) in.seek(in.getFilePointer() - inflater.getRemaining());
+		return n == output.length ? output : Arrays.copyOf(output, n);
 	}
 
 }
@@ -0,0 +1,838 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.codec;
+
+import io.scif.FormatException;
+import io.scif.io.RandomAccessInputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import org.scijava.plugin.Plugin;
+
+/**
+ * This class implements Zstandard compression and decompression, as specified
+ * by RFC 8878, in pure Java.
+ * <p>
+ * The decompressor reads any frame without a dictionary (see
+ * {@link ZstdDecoder}). The compressor favors speed: it finds matches greedily
+ * through a hash table of 4-byte sequences, stores literals uncompressed and
+ * codes the sequences with the predefined FSE tables. Blocks which would not
+ * shrink are stored raw, so the output is never much larger than the input.
+ * </p>
+ * <p>
+ * Decoders are kept for reuse, at most one per processor. Streams are read
+ * one block at a time, up to the end of the frames decompressed.
+ * </p>
+ */
+@Plugin(type = Codec.class)
+public class ZstdCodec extends AbstractCodec {
+
+	// -- Constants --
+
+	/** Largest frame header: magic, descriptor, window and 8-byte size. */
+	private static final int MAX_HEADER_SIZE = 14;
+
+	/** Log of the window size, within which matches are searched. */
+	private static final int WINDOW_LOG = 23;
+
+	private static final int WINDOW_SIZE = 1 << WINDOW_LOG;
+
+	private static final int MIN_MATCH = 4;
+
+	/**
+	 * Largest number of bytes of output for a byte of input: a 4-byte RLE
+	 * block decompresses to a whole block.
+	 */
+	private static final long MAX_RATIO = ZstdDecoder.MAX_BLOCK_SIZE / 4;
+
+	private static final int HASH_LOG = 14;
+
+	/** Misses after which the match search starts skipping ahead. */
+	private static final int SKIP_TRIGGER = 6;
+
+	private static final int[] LL_CODES = codes(ZstdDecoder.LL_BASE,
+		ZstdDecoder.LL_BITS, 0, 64);
+
+	private static final int[] ML_CODES = codes(ZstdDecoder.ML_BASE,
+		ZstdDecoder.ML_BITS, ZstdDecoder.ML_BASE[0], 128);
+
+	private static final FseEncoder LL_ENCODER = new FseEncoder(
+		ZstdDecoder.LL_DEFAULT, ZstdDecoder.LL_DEFAULT_LOG);
+
+	private static final FseEncoder ML_ENCODER = new FseEncoder(
+		ZstdDecoder.ML_DEFAULT, ZstdDecoder.ML_DEFAULT_LOG);
+
+	private static final FseEncoder OF_ENCODER = new FseEncoder(
+		ZstdDecoder.OF_DEFAULT, ZstdDecoder.OF_DEFAULT_LOG);
+
+	/** Maximum number of idle decoders to keep. */
+	private static final int MAX_IDLE = Runtime.getRuntime()
+		.availableProcessors();
+
+	// -- Fields --
+
+	/** Decoders not currently in use. */
+	private final Deque<ZstdDecoder> decoders = new ArrayDeque<>();
+
+	// -- Codec API methods --
+
+	@Override
+	public byte[] compress(final byte[] data, final CodecOptions options)
+		throws FormatException
+	{
+		if (data == null || data.length == 0) throw new IllegalArgumentException(
+			"No data to compress");
+		final byte[] output = new byte[maxCompressedSize(data.length)];
+		final int n = compress(data, 0, data.length, output, 0);
+		return Arrays.copyOf(output, n);
+	}
+
+	/**
+	 * Compresses straight into the destination's backing array, when it is
+	 * large enough for incompressible data.
+	 *
+	 * @see Codec#compress(ByteBuffer, ByteBuffer, CodecOptions)
+	 */
+	@Override
+	public ByteBuffer compress(final ByteBuffer src, final ByteBuffer dst,
+		final CodecOptions options) throws FormatException
+	{
+		if (!src.hasArray() || !src.hasRemaining()) {
+			return super.compress(src, dst, options);
+		}
+		final int bufferSize = maxCompressedSize(src.remaining());
+		ByteBuffer out = CodecBuffers.clear(dst, bufferSize);
+		if (!out.hasArray()) out = ByteBuffer.allocate(bufferSize);
+		final int n =
+			compress(src.array(), src.arrayOffset() + src.position(), src
+				.remaining(), out.array(), out.arrayOffset());
+		src.position(src.limit());
+		out.position(n);
+		out.flip();
+		return out;
+	}
+
+	/**
+	 * The CodecOptions parameter may have the following field set:
+	 * {@link CodecOptions#maxBytes maxBytes}; data decompressing to more bytes
+	 * is truncated. Otherwise, all frames are decompressed.
+	 *
+	 * @see Codec#decompress(byte[], CodecOptions)
+	 */
+	@Override
+	public byte[] decompress(final byte[] data, CodecOptions options)
+		throws FormatException
+	{
+		if (data == null || data.length == 0) return null;
+		if (options == null) options = CodecOptions.getDefaultOptions();
+		final ZstdDecoder decoder = getDecoder();
+		try {
+			if (options.maxBytes > 0) {
+				final byte[] output = new byte[options.maxBytes];
+				decoder.decompress(data, 0, data.length, output, 0, output.length);
+				return output;
+			}
+			// grow the output until it is not filled, starting one byte past the
+			// recorded size of the first frame
+			final long maxSize = MAX_RATIO * data.length;
+			final long contentSize = ZstdDecoder.contentSize(data, 0, data.length);
+			long size =
+				Math.max(Math.min(contentSize, maxSize) + 1, 4L * data.length);
+			while (true) {
+				final byte[] output =
+					new byte[(int) Math.min(size, Integer.MAX_VALUE)];
+				final int n =
+					(int) decoder.decompress(data, 0, data.length, output, 0,
+						output.length);
+				if (n < output.length) return Arrays.copyOf(output, n);
+				if (size > maxSize) {
+					throw new FormatException("Corrupt Zstandard data");
+				}
+				if (output.length == Integer.MAX_VALUE) {
+					throw new FormatException("Decompressed data exceeds 2 GB");
+				}
+				size = 2L * output.length;
+			}
+		}
+		finally {
+			release(decoder);
+		}
+	}
+
+	/**
+	 * The CodecOptions parameter should have the following fields set:
+	 * {@link CodecOptions#maxBytes maxBytes}
+	 *
+	 * @see Codec#decompress(RandomAccessInputStream, CodecOptions)
+	 */
+	@Override
+	public byte[] decompress(final RandomAccessInputStream in,
+		CodecOptions options) throws FormatException, IOException
+	{
+		if (in == null || in.length() == 0) return null;
+		if (options == null) options = CodecOptions.getDefaultOptions();
+		final byte[] output = new byte[options.maxBytes];
+		decompress(in, output, 0, output.length);
+		return output;
+	}
+
+	@Override
+	public int decompress(final ByteBuffer src, final ByteBuffer dst,
+		final CodecOptions options) throws FormatException
+	{
+		if (!src.hasArray() || !dst.hasArray()) {
+			return super.decompress(src, dst, options);
+		}
+		final ZstdDecoder decoder = getDecoder();
+		final long result;
+		try {
+			result =
+				decoder.decompress(src.array(), src.arrayOffset() + src.position(),
+					src.remaining(), dst.array(), dst.arrayOffset() + dst.position(),
+					dst.remaining());
+		}
+		finally {
+			release(decoder);
+		}
+		src.position(src.position() + (int) (result >>> 32));
+		dst.position(dst.position() + (int) result);
+		return (int) result;
+	}
+
+	@Override
+	public int decompress(final RandomAccessInputStream in, final ByteBuffer dst,
+		final CodecOptions options) throws FormatException, IOException
+	{
+		if (!dst.hasArray()) return super.decompress(in, dst, options);
+		final int n =
+			decompress(in, dst.array(), dst.arrayOffset() + dst.position(), dst
+				.remaining());
+		dst.position(dst.position() + n);
+		return n;
+	}
+
+	// -- Helper methods - stream --
+
+	/** Gets the output buffer size needed to compress the given bytes. */
+	private static int maxCompressedSize(final int length)
+		throws FormatException
+	{
+		// raw blocks cost 3 bytes each
+		final long bufferSize =
+			MAX_HEADER_SIZE + length + 3L * (length / ZstdDecoder.MAX_BLOCK_SIZE +
+				1);
+		if (bufferSize > Integer.MAX_VALUE) {
+			throw new FormatException("Output buffer is greater than 2 GB");
+		}
+		return (int) bufferSize;
+	}
+
+	/**
+	 * Decompresses data from the given stream into {@code len} bytes of
+	 * {@code output}, starting at {@code off}, leaving the stream positioned
+	 * after the last block consumed. Each frame is read block by block, and
+	 * skippable frames are skipped without being read.
+	 *
+	 * @return The number of bytes written to {@code output}.
+	 */
+	private int decompress(final RandomAccessInputStream in,
+		final byte[] output, final int off, final int len) throws FormatException,
+		IOException
+	{
+		final ZstdDecoder decoder = getDecoder();
+		try {
+			final byte[] magic = new byte[8];
+			int n = 0;
+			while (n < len && in.length() - in.getFilePointer() >= 4) {
+				final long fp = in.getFilePointer();
+				in.readFully(magic, 0, 4);
+				if ((readInt(magic, 0) & 0xFFFFFFF0) == ZstdDecoder.SKIPPABLE_MAGIC) {
+					in.readFully(magic, 4, 4);
+					skip(in, readInt(magic, 4) & 0xFFFFFFFFL);
+					continue;
+				}
+				if (readInt(magic, 0) != ZstdDecoder.MAGIC) {
+					throw new FormatException("Not a Zstandard frame");
+				}
+				final byte[] frame = readFrame(in, magic);
+				final long result =
+					decoder.decompress(frame, 0, frame.length, output, off + n, len -
+						n);
+				in.seek(fp + (result >>> 32));
+				n += (int) result;
+			}
+			return n;
+		}
+		finally {
+			release(decoder);
+		}
+	}
+
+	/**
+	 * Reads the rest of a frame whose magic number has just been read from the
+	 * given stream, one block at a time.
+	 *
+	 * @return The whole frame, starting with its magic number.
+	 */
+	private static byte[] readFrame(final RandomAccessInputStream in,
+		final byte[] magic) throws FormatException, IOException
+	{
+		// room for the largest header, with a dictionary ID, and a block header
+		byte[] frame = Arrays.copyOf(magic, 32);
+		read(in, frame, 4, 1);
+		final int descriptor = frame[4] & 0xff;
+		final int sizeFlag = descriptor >>> 6;
+		final boolean singleSegment = (descriptor & 0x20) != 0;
+		final int headerSize =
+			5 + (singleSegment ? 0 : 1) + ((1 << (descriptor & 3)) >> 1) +
+				(sizeFlag == 0 ? (singleSegment ? 1 : 0) : 1 << sizeFlag);
+		read(in, frame, 5, headerSize - 5);
+
+		int size = headerSize;
+		boolean last = false;
+		while (!last) {
+			read(in, frame, size, 3);
+			final int header =
+				(frame[size] & 0xff) | (frame[size + 1] & 0xff) << 8 |
+					(frame[size + 2] & 0xff) << 16;
+			size += 3;
+			last = (header & 1) != 0;
+			final int blockType = (header >>> 1) & 3;
+			if (blockType == 3) {
+				throw new FormatException("Reserved Zstandard block type");
+			}
+			// the content of an RLE block is a single byte
+			final int blockSize = blockType == 1 ? 1 : header >>> 3;
+			// make room for this block, and the next block header or checksum
+			if (size + blockSize + 4 > frame.length) {
+				frame =
+					Arrays.copyOf(frame, Math.max(2 * frame.length, size + blockSize +
+						4));
+			}
+			read(in, frame, size, blockSize);
+			size += blockSize;
+		}
+		if ((descriptor & 0x04) != 0) {
+			// NB: the decoder tolerates a truncated checksum
+			final int checksum = (int) Math.min(4, in.length() - in.getFilePointer());
+			read(in, frame, size, checksum);
+			size += checksum;
+		}
+		return Arrays.copyOf(frame, size);
+	}
+
+	/**
+	 * Reads bytes of a frame from the given stream.
+	 *
+	 * @throws FormatException If the stream ends first.
+	 */
+	private static void read(final RandomAccessInputStream in,
+		final byte[] frame, final int off, final int len) throws FormatException,
+		IOException
+	{
+		if (in.length() - in.getFilePointer() < len) {
+			throw new FormatException("Truncated Zstandard data");
+		}
+		in.readFully(frame, off, len);
+	}
+
+	/**
+	 * Skips bytes of the given stream.
+	 *
+	 * @throws FormatException If the stream ends first.
+	 */
+	private static void skip(final RandomAccessInputStream in, final long len)
+		throws FormatException, IOException
+	{
+		if (in.length() - in.getFilePointer() < len) {
+			throw new FormatException("Truncated Zstandard data");
+		}
+		in.seek(in.getFilePointer() + len);
+	}
+
+	/**
+	 * Takes an idle decoder, or creates one. It must be
+	 * {@link #release(ZstdDecoder) released} once done with.
+	 */
+	private ZstdDecoder getDecoder() {
+		ZstdDecoder decoder;
+		synchronized (decoders) {
+			decoder = decoders.poll();
+		}
+		return decoder == null ? new ZstdDecoder() : decoder;
+	}
+
+	/** Keeps the given decoder for reuse, unless enough are idle already. */
+	private void release(final ZstdDecoder decoder) {
+		synchronized (decoders) {
+			if (decoders.size() < MAX_IDLE) decoders.push(decoder);
+		}
+	}
+
+	// -- Helper methods - compression --
+
+	/**
+	 * Compresses {@code len} bytes of {@code input}, starting at {@code off},
+	 * into a single frame in {@code output} at {@code outOff}, which must have
+	 * room for {@link #maxCompressedSize} bytes.
+	 *
+	 * @return The number of bytes written to {@code output}.
+	 */
+	private static int compress(final byte[] input, final int off,
+		final int len, final byte[] output, final int outOff)
+	{
+		int op = writeFrameHeader(len, output, outOff);
+		final int end = off + len;
+		final int[] table = new int[1 << HASH_LOG];
+		final int[] reps = { 1, 4, 8 };
+		final Block block =
+			new Block(Math.min(len, ZstdDecoder.MAX_BLOCK_SIZE));
+		for (int start = off; start < end; start += ZstdDecoder.MAX_BLOCK_SIZE) {
+			final int blockEnd =
+				Math.min(end, start + ZstdDecoder.MAX_BLOCK_SIZE);
+			final int last = blockEnd == end ? 1 : 0;
+			final int size = blockEnd - start;
+			if (isRun(input, start, blockEnd)) {
+				writeBlockHeader(output, op, last | 1 << 1 | size << 3);
+				output[op + 3] = input[start];
+				op += 4;
+				continue;
+			}
+			final int[] blockReps = reps.clone();
+			findSequences(input, off, start, blockEnd, table, blockReps, block);
+			final int n = block.nbSeq == 0 ? -1 : block.write(output, op + 3, size);
+			if (n >= 0) {
+				writeBlockHeader(output, op, last | 2 << 1 | n << 3);
+				System.arraycopy(blockReps, 0, reps, 0, reps.length);
+				op += 3 + n;
+			}
+			else {
+				writeBlockHeader(output, op, last | size << 3);
+				System.arraycopy(input, start, output, op + 3, size);
+				op += 3 + size;
+			}
+		}
+		return op - outOff;
+	}
+
+	/**
+	 * Writes the frame header, recording the content size. Frames with content
+	 * larger than the window describe the window instead of being a single
+	 * segment.
+	 *
+	 * @return The position after the header.
+	 */
+	private static int writeFrameHeader(final int len, final byte[] output,
+		int op)
+	{
+		writeInt(output, op, ZstdDecoder.MAGIC);
+		op += 4;
+		if (len <= WINDOW_SIZE) {
+			if (len < 256) {
+				output[op++] = 0x20;
+				output[op++] = (byte) len;
+			}
+			else if (len < 65536 + 256) {
+				output[op++] = 0x60;
+				output[op++] = (byte) (len - 256);
+				output[op++] = (byte) ((len - 256) >>> 8);
+			}
+			else {
+				output[op++] = (byte) 0xA0;
+				writeInt(output, op, len);
+				op += 4;
+			}
+		}
+		else {
+			output[op++] = (byte) 0x80;
+			output[op++] = (byte) ((WINDOW_LOG - 10) << 3);
+			writeInt(output, op, len);
+			op += 4;
+		}
+		return op;
+	}
+
+	/**
+	 * Finds the sequences of a block, and the literals between them, greedily:
+	 * the last offset is tried first, then the latest earlier position with
+	 * the same 4 bytes, from the hash table.
+	 */
+	private static void findSequences(final byte[] in, final int frameStart,
+		final int start, final int end, final int[] table, final int[] reps,
+		final Block block)
+	{
+		block.nbSeq = 0;
+		block.litSize = 0;
+		int anchor = start;
+		int ip = start;
+		final int limit = end - MIN_MATCH;
+		while (ip <= limit) {
+			final int v = readInt(in, ip);
+			final int h = hash(v);
+			final int candidate = frameStart + table[h] - 1;
+			table[h] = ip - frameStart + 1;
+			int ref = ip - reps[0];
+			if (ref < frameStart || readInt(in, ref) != v) {
+				ref = candidate;
+				if (ref < frameStart || ip - ref > WINDOW_SIZE ||
+					readInt(in, ref) != v)
+				{
+					ip += 1 + ((ip - anchor) >> SKIP_TRIGGER);
+					continue;
+				}
+			}
+			// extend the match backward, then forward
+			while (ip > anchor && ref > frameStart && in[ip - 1] == in[ref - 1]) {
+				ip--;
+				ref--;
+			}
+			int length = MIN_MATCH;
+			while (ip + length < end && in[ip + length] == in[ref + length]) {
+				length++;
+			}
+			block.add(in, anchor, ip - anchor, ip - ref, length, reps);
+			ip += length;
+			anchor = ip;
+			if (ip - 2 <= limit) {
+				table[hash(readInt(in, ip - 2))] = ip - 2 - frameStart + 1;
+			}
+		}
+		block.addLiterals(in, anchor, end - anchor);
+	}
+
+	private static boolean isRun(final byte[] in, final int start,
+		final int end)
+	{
+		for (int i = start + 1; i < end; i++) {
+			if (in[i] != in[start]) return false;
+		}
+		return true;
+	}
+
+	/** Gets the literals length code of the given length. */
+	private static int llCode(final int length) {
+		return length < LL_CODES.length ? LL_CODES[length] : highBit(length) + 19;
+	}
+
+	/** Gets the match length code of the given length, less 3. */
+	private static int mlCode(final int length) {
+		return length < ML_CODES.length ? ML_CODES[length] : highBit(length) + 36;
+	}
+
+	/**
+	 * Inverts a table of code bases and extra bits, for lengths less than the
+	 * given limit.
+	 */
+	private static int[] codes(final int[] base, final int[] bits,
+		final int minimum, final int limit)
+	{
+		final int[] codes = new int[limit];
+		for (int c = 0; c < base.length; c++) {
+			for (int v = base[c] - minimum; v < limit &&
+				v < base[c] - minimum + (1 << bits[c]); v++)
+			{
+				codes[v] = c;
+			}
+		}
+		return codes;
+	}
+
+	private static int hash(final int v) {
+		return (v * 0x9E3779B1) >>> (32 - HASH_LOG);
+	}
+
+	private static int highBit(final int v) {
+		return 31 - Integer.numberOfLeadingZeros(v);
+	}
+
+	private static int readInt(final byte[] b, final int p) {
+		return (b[p] & 0xff) | (b[p + 1] & 0xff) << 8 | (b[p + 2] & 0xff) << 16 |
+			(b[p + 3] & 0xff) << 24;
+	}
+
+	private static void writeInt(final byte[] b, final int p, final int v) {
+		b[p] = (byte) v;
+		b[p + 1] = (byte) (v >>> 8);
+		b[p + 2] = (byte) (v >>> 16);
+		b[p + 3] = (byte) (v >>> 24);
+	}
+
+	private static void writeBlockHeader(final byte[] b, final int p,
+		final int header)
+	{
+		b[p] = (byte) header;
+		b[p + 1] = (byte) (header >>> 8);
+		b[p + 2] = (byte) (header >>> 16);
+	}
+
+	// -- Helper classes --
+
+	/** The literals and sequences found in a block. */
+	private static final class Block {
+
+		private final byte[] literals;
+
+		private int litSize;
+
+		/** Literals length, match length and offset value of each sequence. */
+		private final int[] ll, ml, of;
+
+		private int nbSeq;
+
+		/** Bit stream of the sequences, written least significant bit first. */
+		private byte[] stream;
+
+		private int streamPos;
+
+		private long bits;
+
+		private int bitCount;
+
+		private Block(final int maxSize) {
+			literals = new byte[maxSize];
+			final int maxSequences = maxSize / MIN_MATCH + 1;
+			ll = new int[maxSequences];
+			ml = new int[maxSequences];
+			of = new int[maxSequences];
+		}
+
+		private void addLiterals(final byte[] in, final int off, final int len) {
+			System.arraycopy(in, off, literals, litSize, len);
+			litSize += len;
+		}
+
+		/**
+		 * Adds a sequence, coding its offset as a repeated offset if it can.
+		 */
+		private void add(final byte[] in, final int off, final int litLen,
+			final int offset, final int matchLen, final int[] reps)
+		{
+			addLiterals(in, off, litLen);
+			int value = offset + 3;
+			if (litLen != 0) {
+				if (offset == reps[0]) value = 1;
+				else if (offset == reps[1]) value = 2;
+				else if (offset == reps[2]) value = 3;
+			}
+			else if (offset == reps[1]) value = 1;
+			else if (offset == reps[2]) value = 2;
+			else if (offset == reps[0] - 1) value = 3;
+			ZstdDecoder.offset(reps, value, litLen);
+			ll[nbSeq] = litLen;
+			ml[nbSeq] = matchLen;
+			of[nbSeq] = value;
+			nbSeq++;
+		}
+
+		/**
+		 * Writes the block content: raw literals, then the sequences coded with
+		 * the predefined tables.
+		 *
+		 * @return The size of the content, or -1 if it would not be smaller
+		 *         than the given size.
+		 */
+		private int write(final byte[] out, final int off, final int size) {
+			// sequences take at most 11 bytes each
+			final int bound = 16 + litSize + 11 * nbSeq;
+			stream = bound < size ? out : new byte[bound];
+			int p = stream == out ? off : 0;
+			final int start = p;
+
+			// literals section header
+			if (litSize < 32) stream[p++] = (byte) (litSize << 3);
+			else if (litSize < 4096) {
+				stream[p++] = (byte) (1 << 2 | litSize << 4);
+				stream[p++] = (byte) (litSize >>> 4);
+			}
+			else {
+				stream[p++] = (byte) (3 << 2 | litSize << 4);
+				stream[p++] = (byte) (litSize >>> 4);
+				stream[p++] = (byte) (litSize >>> 12);
+			}
+			System.arraycopy(literals, 0, stream, p, litSize);
+			p += litSize;
+
+			// sequences section header
+			if (nbSeq < 128) stream[p++] = (byte) nbSeq;
+			else if (nbSeq < 0x7F00) {
+				stream[p++] = (byte) ((nbSeq >>> 8) + 128);
+				stream[p++] = (byte) nbSeq;
+			}
+			else {
+				stream[p++] = (byte) 255;
+				stream[p++] = (byte) (nbSeq - 0x7F00);
+				stream[p++] = (byte) ((nbSeq - 0x7F00) >>> 8);
+			}
+			stream[p++] = 0; // predefined modes
+			streamPos = p;
+			writeSequences();
+
+			final int n = streamPos - start;
+			if (n >= size) return -1;
+			if (stream != out) System.arraycopy(stream, 0, out, off, n);
+			return n;
+		}
+
+		/**
+		 * Writes the sequences in reverse, as the decoder reads the bit stream
+		 * from its end.
+		 */
+		private void writeSequences() {
+			bits = 0;
+			bitCount = 0;
+			final int last = nbSeq - 1;
+			int llCode = llCode(ll[last]);
+			int mlCode = mlCode(ml[last] - 3);
+			int ofCode = highBit(of[last]);
+			int llState = LL_ENCODER.init(llCode);
+			int mlState = ML_ENCODER.init(mlCode);
+			int ofState = OF_ENCODER.init(ofCode);
+			writeExtraBits(last, llCode, mlCode, ofCode);
+			for (int i = last - 1; i >= 0; i--) {
+				llCode = llCode(ll[i]);
+				mlCode = mlCode(ml[i] - 3);
+				ofCode = highBit(of[i]);
+				ofState = OF_ENCODER.encode(this, ofState, ofCode);
+				mlState = ML_ENCODER.encode(this, mlState, mlCode);
+				llState = LL_ENCODER.encode(this, llState, llCode);
+				writeExtraBits(i, llCode, mlCode, ofCode);
+			}
+			addBits(mlState, ML_ENCODER.log);
+			addBits(ofState, OF_ENCODER.log);
+			addBits(llState, LL_ENCODER.log);
+			// end mark, then the last partial byte
+			addBits(1, 1);
+			if (bitCount > 0) stream[streamPos++] = (byte) bits;
+		}
+
+		private void writeExtraBits(final int i, final int llCode,
+			final int mlCode, final int ofCode)
+		{
+			addBits(ll[i] - ZstdDecoder.LL_BASE[llCode],
+				ZstdDecoder.LL_BITS[llCode]);
+			addBits(ml[i] - ZstdDecoder.ML_BASE[mlCode],
+				ZstdDecoder.ML_BITS[mlCode]);
+			addBits(of[i] - (1 << ofCode), ofCode);
+		}
+
+		/** Adds the lowest {@code n} bits of the given value, up to 31. */
+		private void addBits(final int value, final int n) {
+			bits |= (value & ((1L << n) - 1)) << bitCount;
+			bitCount += n;
+			while (bitCount >= 8) {
+				stream[streamPos++] = (byte) bits;
+				bits >>>= 8;
+				bitCount -= 8;
+			}
+		}
+	}
+
+	/** Encoding table of a finite state entropy (FSE) code. */
+	private static final class FseEncoder {
+
+		private final int log;
+
+		/** Next state, by symbol and state bits. */
+		private final int[] states;
+
+		private final int[] deltaBits;
+
+		private final int[] deltaStates;
+
+		private FseEncoder(final short[] counts, final int log) {
+			this.log = log;
+			final int size = 1 << log;
+			final int mask = size - 1;
+
+			// spread the symbols over the states, as the decoder does
+			final int[] symbols = new int[size];
+			final int[] cumul = new int[counts.length + 1];
+			int high = size - 1;
+			for (int s = 0; s < counts.length; s++) {
+				if (counts[s] == -1) {
+					cumul[s + 1] = cumul[s] + 1;
+					symbols[high--] = s;
+				}
+				else cumul[s + 1] = cumul[s] + counts[s];
+			}
+			final int step = (size >>> 1) + (size >>> 3) + 3;
+			int pos = 0;
+			for (int s = 0; s < counts.length; s++) {
+				for (int i = 0; i < counts[s]; i++) {
+					symbols[pos] = s;
+					do {
+						pos = (pos + step) & mask;
+					}
+					while (pos > high);
+				}
+			}
+			states = new int[size];
+			for (int u = 0; u < size; u++) {
+				states[cumul[symbols[u]]++] = size + u;
+			}
+
+			deltaBits = new int[counts.length];
+			deltaStates = new int[counts.length];
+			int total = 0;
+			for (int s = 0; s < counts.length; s++) {
+				if (counts[s] == -1 || counts[s] == 1) {
+					deltaBits[s] = (log << 16) - size;
+					deltaStates[s] = total - 1;
+					total++;
+				}
+				else if (counts[s] > 1) {
+					final int maxBits = log - highBit(counts[s] - 1);
+					deltaBits[s] = (maxBits << 16) - (counts[s] << maxBits);
+					deltaStates[s] = total - counts[s];
+					total += counts[s];
+				}
+			}
+		}
+
+		/** Gets the state to start with, to end on the given symbol. */
+		private int init(final int symbol) {
+			final int n = (deltaBits[symbol] + (1 << 15)) >>> 16;
+			final int value = (n << 16) - deltaBits[symbol];
+			return states[(value >>> n) + deltaStates[symbol]];
+		}
+
+		/** Writes the bits of the given state, and moves to the symbol. */
+		private int encode(final Block block, final int state, final int symbol) {
+			final int n = (state + deltaBits[symbol]) >>> 16;
+			block.addBits(state, n);
+			return states[(state >>> n) + deltaStates[symbol]];
+		}
+	}
+}
@@ -0,0 +1,905 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.codec;
+
+import io.scif.FormatException;
+
+import java.util.Arrays;
+
+/**
+ * Decodes Zstandard frames, as specified by RFC 8878, for {@link ZstdCodec}.
+ * <p>
+ * All block types are supported, including Huffman coded literals and FSE
+ * coded sequences with predefined, RLE, compressed and repeated tables.
+ * Skippable frames are skipped. Dictionaries are not supported, and content
+ * checksums are not verified.
+ * </p>
+ * <p>
+ * A decoder keeps its tables between calls, so it must not be shared between
+ * threads.
+ * </p>
+ */
+final class ZstdDecoder {
+
+	// -- Constants --
+
+	static final int MAGIC = 0xFD2FB528;
+
+	static final int SKIPPABLE_MAGIC = 0x184D2A50;
+
+	/** Largest number of bytes a block may decompress to. */
+	static final int MAX_BLOCK_SIZE = 1 << 17;
+
+	static final int[] LL_BASE = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12,
+		13, 14, 15, 16, 18, 20, 22, 24, 28, 32, 40, 48, 64, 128, 256, 512, 1024,
+		2048, 4096, 8192, 16384, 32768, 65536 };
+
+	static final int[] LL_BITS = { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 1, 1, 1, 1, 2, 2, 3, 3, 4, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16 };
+
+	static final int[] ML_BASE = { 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15,
+		16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32, 33,
+		34, 35, 37, 39, 41, 43, 47, 51, 59, 67, 83, 99, 131, 259, 515, 1027, 2051,
+		4099, 8195, 16387, 32771, 65539 };
+
+	static final int[] ML_BITS = { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 3,
+		3, 4, 4, 5, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16 };
+
+	/** Predefined distribution of the literals length codes. */
+	static final short[] LL_DEFAULT = { 4, 3, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,
+		1, 1, 1, 2, 2, 2, 2, 2, 2, 2, 2, 2, 3, 2, 1, 1, 1, 1, 1, -1, -1, -1, -1 };
+
+	static final int LL_DEFAULT_LOG = 6;
+
+	/** Predefined distribution of the match length codes. */
+	static final short[] ML_DEFAULT = { 1, 4, 3, 2, 2, 2, 2, 2, 2, 1, 1, 1, 1,
+		1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+		1, 1, 1, 1, 1, 1, 1, 1, -1, -1, -1, -1, -1, -1, -1 };
+
+	static final int ML_DEFAULT_LOG = 6;
+
+	/** Predefined distribution of the offset codes. */
+	static final short[] OF_DEFAULT = { 1, 1, 1, 1, 1, 1, 2, 2, 2, 1, 1, 1, 1,
+		1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, -1, -1, -1, -1, -1 };
+
+	static final int OF_DEFAULT_LOG = 5;
+
+	private static final int LL_MAX_LOG = 9;
+
+	private static final int ML_MAX_LOG = 9;
+
+	private static final int OF_MAX_LOG = 8;
+
+	/** Largest offset code this decoder can address within an array. */
+	private static final int OF_MAX_CODE = 30;
+
+	private static final int HUF_MAX_BITS = 11;
+
+	private static final int HUF_MAX_WEIGHT_LOG = 6;
+
+	private static final FseTable LL_PREDEFINED =
+		FseTable.predefined(LL_DEFAULT, LL_DEFAULT_LOG);
+
+	private static final FseTable ML_PREDEFINED =
+		FseTable.predefined(ML_DEFAULT, ML_DEFAULT_LOG);
+
+	private static final FseTable OF_PREDEFINED =
+		FseTable.predefined(OF_DEFAULT, OF_DEFAULT_LOG);
+
+	// -- Fields --
+
+	private final FseTable llOwn = new FseTable(LL_MAX_LOG, LL_BASE.length - 1);
+
+	private final FseTable mlOwn = new FseTable(ML_MAX_LOG, ML_BASE.length - 1);
+
+	private final FseTable ofOwn = new FseTable(OF_MAX_LOG, OF_MAX_CODE + 1);
+
+	private final FseTable weightTable =
+		new FseTable(HUF_MAX_WEIGHT_LOG, HUF_MAX_BITS + 1);
+
+	/** Tables of the last block, for the repeat mode; null if none. */
+	private FseTable llTable, mlTable, ofTable;
+
+	/** Huffman decoding table: symbol and code length, by prefix. */
+	private final byte[] hufSymbols = new byte[1 << HUF_MAX_BITS];
+
+	private final byte[] hufLengths = new byte[1 << HUF_MAX_BITS];
+
+	/** Length of the longest Huffman code, or 0 if there is no table. */
+	private int hufMaxBits;
+
+	private final byte[] weights = new byte[256];
+
+	private byte[] literals = new byte[0];
+
+	/** Repeated offsets. */
+	private final int[] reps = new int[3];
+
+	private byte[] in;
+
+	private byte[] out;
+
+	/** Current position in the output. */
+	private int op;
+
+	/** Start of the output of the current frame. */
+	private int frameStart;
+
+	private int outEnd;
+
+	// Backward bit stream state: the lowest bitCount bits of bits are unread,
+	// and bytes below bitPos, down to bitStart, are yet to be loaded.
+	private long bits;
+
+	private int bitCount;
+
+	private int bitPos;
+
+	private int bitStart;
+
+	// -- ZstdDecoder methods --
+
+	/**
+	 * Decompresses {@code inLen} bytes of {@code input}, starting at
+	 * {@code inOff}, into {@code outLen} bytes of {@code output}, starting at
+	 * {@code outOff}. Decompression stops at the end of input, or at the end of
+	 * the block which fills the output; data which does not fit is discarded.
+	 *
+	 * @return The number of bytes consumed in the upper and the number of bytes
+	 *         written in the lower 32 bits.
+	 * @throws FormatException If the input is not valid Zstandard data.
+	 */
+	long decompress(final byte[] input, final int inOff, final int inLen,
+		final byte[] output, final int outOff, final int outLen)
+		throws FormatException
+	{
+		in = input;
+		out = output;
+		op = outOff;
+		outEnd = outOff + outLen;
+		final int end = inOff + inLen;
+		int ip = inOff;
+		try {
+			while (op < outEnd && end - ip >= 4) {
+				final int magic = readInt(ip);
+				if ((magic & 0xFFFFFFF0) == SKIPPABLE_MAGIC) {
+					check(ip + 8, end);
+					final long size = readInt(ip + 4) & 0xFFFFFFFFL;
+					check(ip + 8 + size, end);
+					ip += 8 + (int) size;
+				}
+				else if (magic == MAGIC) ip = decodeFrame(ip + 4, end);
+				else throw new FormatException("Not a Zstandard frame");
+			}
+		}
+		catch (final ArrayIndexOutOfBoundsException e) {
+			throw new FormatException("Corrupt Zstandard data", e);
+		}
+		finally {
+			in = null;
+			out = null;
+		}
+		return ((long) (ip - inOff) << 32) | (op - outOff);
+	}
+
+	/**
+	 * Gets the content size recorded in the header of the frame at the given
+	 * offset.
+	 *
+	 * @return The content size, or -1 if it is unknown.
+	 */
+	static long contentSize(final byte[] input, final int off, final int len) {
+		if (len < 6 || readInt(input, off) != MAGIC) return -1;
+		final int descriptor = input[off + 4] & 0xff;
+		final int sizeFlag = descriptor >>> 6;
+		final boolean singleSegment = (descriptor & 0x20) != 0;
+		if (sizeFlag == 0 && !singleSegment) return -1;
+		final int[] dictIdSizes = { 0, 1, 2, 4 };
+		final int p =
+			off + 5 + (singleSegment ? 0 : 1) + dictIdSizes[descriptor & 3];
+		final int size = sizeFlag == 0 ? 1 : 1 << sizeFlag;
+		if (p + size > off + len) return -1;
+		long value = 0;
+		for (int i = size - 1; i >= 0; i--) {
+			value = (value << 8) | (input[p + i] & 0xff);
+		}
+		return sizeFlag == 1 ? value + 256 : value;
+	}
+
+	/**
+	 * Updates the repeated offsets with the offset value of a sequence.
+	 *
+	 * @return The offset of the sequence.
+	 */
+	static int offset(final int[] reps, final int value,
+		final int literalsLength)
+	{
+		if (value > 3) {
+			reps[2] = reps[1];
+			reps[1] = reps[0];
+			reps[0] = value - 3;
+			return reps[0];
+		}
+		final int index = value - (literalsLength == 0 ? 0 : 1);
+		if (index == 0) return reps[0];
+		final int offset = index == 3 ? reps[0] - 1 : reps[index];
+		if (index != 1) reps[2] = reps[1];
+		reps[1] = reps[0];
+		reps[0] = offset;
+		return offset;
+	}
+
+	// -- Helper methods - frames and blocks --
+
+	/**
+	 * Decodes the frame whose header starts at the given position.
+	 *
+	 * @return The position after the last block decoded.
+	 */
+	private int decodeFrame(int ip, final int end) throws FormatException {
+		check(ip + 1, end);
+		final int descriptor = in[ip++] & 0xff;
+		if ((descriptor & 0x08) != 0) {
+			throw new FormatException("Reserved Zstandard frame header bit set");
+		}
+		final int sizeFlag = descriptor >>> 6;
+		final boolean singleSegment = (descriptor & 0x20) != 0;
+		final boolean checksum = (descriptor & 0x04) != 0;
+		if (!singleSegment) ip++;
+		final int dictIdSize = (1 << (descriptor & 3)) >> 1;
+		check(ip + dictIdSize, end);
+		for (int i = 0; i < dictIdSize; i++) {
+			if (in[ip + i] != 0) {
+				throw new FormatException("Zstandard dictionaries are not supported");
+			}
+		}
+		ip += dictIdSize + (sizeFlag == 0 ? (singleSegment ? 1 : 0)
+			: 1 << sizeFlag);
+
+		frameStart = op;
+		reps[0] = 1;
+		reps[1] = 4;
+		reps[2] = 8;
+		llTable = mlTable = ofTable = null;
+		hufMaxBits = 0;
+
+		boolean last = false;
+		while (!last) {
+			check(ip + 3, end);
+			final int header =
+				(in[ip] & 0xff) | (in[ip + 1] & 0xff) << 8 | (in[ip + 2] & 0xff) << 16;
+			ip += 3;
+			last = (header & 1) != 0;
+			final int size = header >>> 3;
+			switch ((header >>> 1) & 3) {
+				case 0: // raw
+					check(ip + size, end);
+					final int n = Math.min(size, outEnd - op);
+					System.arraycopy(in, ip, out, op, n);
+					op += n;
+					ip += size;
+					break;
+				case 1: // RLE
+					check(ip + 1, end);
+					final int to = op + Math.min(size, outEnd - op);
+					Arrays.fill(out, op, to, in[ip]);
+					op = to;
+					ip++;
+					break;
+				case 2: // compressed
+					if (size > MAX_BLOCK_SIZE) {
+						throw new FormatException("Zstandard block too large");
+					}
+					check(ip + size, end);
+					decodeBlock(ip, ip + size);
+					ip += size;
+					break;
+				default:
+					throw new FormatException("Reserved Zstandard block type");
+			}
+			if (op == outEnd && !last) return ip;
+		}
+		// NB: the checksum is not verified
+		if (checksum) ip = Math.min(ip + 4, end);
+		return ip;
+	}
+
+	/** Decodes the compressed block between the given positions. */
+	private void decodeBlock(int p, final int end) throws FormatException {
+		// literals section
+		final int b0 = in[p] & 0xff;
+		final int literalsType = b0 & 3;
+		final int sizeFormat = (b0 >>> 2) & 3;
+		final byte[] lit;
+		int litPos;
+		final int litSize;
+		if (literalsType < 2) {
+			switch (sizeFormat) {
+				case 1:
+					litSize = (b0 >>> 4) + ((in[p + 1] & 0xff) << 4);
+					p += 2;
+					break;
+				case 3:
+					litSize =
+						(b0 >>> 4) + ((in[p + 1] & 0xff) << 4) + ((in[p + 2] & 0xff) << 12);
+					p += 3;
+					break;
+				default:
+					litSize = b0 >>> 3;
+					p++;
+			}
+			if (literalsType == 0) {
+				check(p + litSize, end);
+				lit = in;
+				litPos = p;
+				p += litSize;
+			}
+			else {
+				check(p + 1, end);
+				lit = literals(litSize);
+				Arrays.fill(lit, 0, litSize, in[p++]);
+				litPos = 0;
+			}
+		}
+		else {
+			final int headerSize = sizeFormat < 2 ? 3 : sizeFormat + 2;
+			final int sizeBits = sizeFormat < 2 ? 10 : 4 * sizeFormat + 6;
+			check(p + headerSize, end);
+			long header = 0;
+			for (int i = headerSize - 1; i >= 0; i--) {
+				header = (header << 8) | (in[p + i] & 0xff);
+			}
+			final int mask = (1 << sizeBits) - 1;
+			litSize = (int) (header >>> 4) & mask;
+			final int compressedSize = (int) (header >>> (4 + sizeBits)) & mask;
+			p += headerSize;
+			check(p + compressedSize, end);
+			if (litSize > MAX_BLOCK_SIZE) {
+				throw new FormatException("Zstandard literals too large");
+			}
+			lit = literals(litSize);
+			int q = p;
+			if (literalsType == 2) q = readHuffmanTable(p, p + compressedSize);
+			else if (hufMaxBits == 0) {
+				throw new FormatException("No Huffman table to repeat");
+			}
+			decodeLiterals(q, p + compressedSize, litSize, sizeFormat == 0 ? 1
+				: 4);
+			litPos = 0;
+			p += compressedSize;
+		}
+		final int litEnd = litPos + litSize;
+
+		// sequences section
+		check(p + 1, end);
+		int count = in[p++] & 0xff;
+		if (count >= 128) {
+			if (count < 255) {
+				check(p + 1, end);
+				count = ((count - 128) << 8) + (in[p++] & 0xff);
+			}
+			else {
+				check(p + 2, end);
+				count = (in[p] & 0xff) + ((in[p + 1] & 0xff) << 8) + 0x7F00;
+				p += 2;
+			}
+		}
+		if (count > 0) {
+			check(p + 1, end);
+			final int modes = in[p++] & 0xff;
+			if ((modes & 3) != 0) {
+				throw new FormatException("Reserved Zstandard sequence mode bits");
+			}
+			p = readTable(modes >>> 6, p, end, llOwn, LL_PREDEFINED, 0);
+			p = readTable((modes >>> 4) & 3, p, end, ofOwn, OF_PREDEFINED, 1);
+			p = readTable((modes >>> 2) & 3, p, end, mlOwn, ML_PREDEFINED, 2);
+			litPos = decodeSequences(p, end, count, lit, litPos, litEnd);
+			if (litPos < 0) return;
+		}
+		final int n = Math.min(litEnd - litPos, outEnd - op);
+		System.arraycopy(lit, litPos, out, op, n);
+		op += n;
+	}
+
+	/**
+	 * Sets up the table of a sequence code for the given mode.
+	 *
+	 * @param kind 0 for literals lengths, 1 for offsets, 2 for match lengths
+	 * @return The position after the table description.
+	 */
+	private int readTable(final int mode, int p, final int end,
+		final FseTable own, final FseTable predefined, final int kind)
+		throws FormatException
+	{
+		FseTable table;
+		switch (mode) {
+			case 0:
+				table = predefined;
+				break;
+			case 1:
+				check(p + 1, end);
+				if ((in[p] & 0xff) > own.maxSymbol) {
+					throw new FormatException("Invalid Zstandard RLE symbol");
+				}
+				own.rle(in[p++]);
+				table = own;
+				break;
+			case 2:
+				p = own.read(in, p, end);
+				table = own;
+				break;
+			default:
+				table = kind == 0 ? llTable : kind == 1 ? ofTable : mlTable;
+				if (table == null) {
+					throw new FormatException("No Zstandard table to repeat");
+				}
+		}
+		if (kind == 0) llTable = table;
+		else if (kind == 1) ofTable = table;
+		else mlTable = table;
+		return p;
+	}
+
+	/**
+	 * Decodes and executes the sequences of a block.
+	 *
+	 * @return The position of the literals left after the last sequence, or -1
+	 *         if the output is full.
+	 */
+	private int decodeSequences(final int start, final int end,
+		final int count, final byte[] lit, int litPos, final int litEnd)
+		throws FormatException
+	{
+		final FseTable ll = llTable, of = ofTable, ml = mlTable;
+		initBits(start, end);
+		int llState = readBits(ll.log);
+		int ofState = readBits(of.log);
+		int mlState = readBits(ml.log);
+		for (int i = 0; i < count; i++) {
+			final int ofCode = of.symbols[ofState];
+			final int llCode = ll.symbols[llState];
+			final int mlCode = ml.symbols[mlState];
+			if (ofCode > OF_MAX_CODE) {
+				throw new FormatException("Zstandard offset too large");
+			}
+			refill();
+			final int value = (1 << ofCode) + readBits(ofCode);
+			refill();
+			final int matchLength = ML_BASE[mlCode] + readBits(ML_BITS[mlCode]);
+			refill();
+			final int literalsLength = LL_BASE[llCode] + readBits(LL_BITS[llCode]);
+			final int offset = offset(reps, value, literalsLength);
+			if (i < count - 1) {
+				refill();
+				llState = ll.states[llState] + readBits(ll.lengths[llState]);
+				mlState = ml.states[mlState] + readBits(ml.lengths[mlState]);
+				ofState = of.states[ofState] + readBits(of.lengths[ofState]);
+			}
+
+			// copy the literals, then the match
+			if (literalsLength > litEnd - litPos) {
+				throw new FormatException("Zstandard literals overrun");
+			}
+			final int n = Math.min(literalsLength, outEnd - op);
+			System.arraycopy(lit, litPos, out, op, n);
+			op += n;
+			litPos += literalsLength;
+			if (n < literalsLength) return -1;
+			if (offset <= 0 || offset > op - frameStart) {
+				throw new FormatException("Invalid Zstandard offset");
+			}
+			if (!copyMatch(offset, matchLength)) return -1;
+		}
+		if (bitCount != 0) {
+			throw new FormatException("Corrupt Zstandard sequences");
+		}
+		return litPos;
+	}
+
+	/**
+	 * Copies a match of the given offset and length within the output.
+	 *
+	 * @return false if the output is full
+	 */
+	private boolean copyMatch(final int offset, final int length) {
+		final int n = Math.min(length, outEnd - op);
+		final int src = op - offset;
+		if (offset >= n) System.arraycopy(out, src, out, op, n);
+		else {
+			for (int i = 0; i < n; i++) {
+				out[op + i] = out[src + i];
+			}
+		}
+		op += n;
+		return n == length;
+	}
+
+	// -- Helper methods - literals --
+
+	/**
+	 * Reads the description of a Huffman table, and builds its decoding table.
+	 *
+	 * @return The position after the description.
+	 */
+	private int readHuffmanTable(int p, final int end) throws FormatException {
+		final int header = in[p++] & 0xff;
+		int count;
+		if (header < 128) {
+			// weights compressed with FSE
+			final int weightsEnd = p + header;
+			check(weightsEnd, end);
+			final FseTable t = weightTable;
+			initBits(t.read(in, p, weightsEnd), weightsEnd);
+			int state1 = readBits(t.log);
+			int state2 = readBits(t.log);
+			count = 0;
+			while (true) {
+				if (count > weights.length - 2) {
+					throw new FormatException("Too many Huffman weights");
+				}
+				refill();
+				weights[count++] = t.symbols[state1];
+				state1 = t.states[state1] + readBits(t.lengths[state1]);
+				if (bitCount < 0) {
+					weights[count++] = t.symbols[state2];
+					break;
+				}
+				weights[count++] = t.symbols[state2];
+				state2 = t.states[state2] + readBits(t.lengths[state2]);
+				if (bitCount < 0) {
+					weights[count++] = t.symbols[state1];
+					break;
+				}
+			}
+			p = weightsEnd;
+		}
+		else {
+			// weights stored as 4-bit values
+			count = header - 127;
+			check(p + (count + 1) / 2, end);
+			for (int i = 0; i < count; i++) {
+				final int b = in[p + i / 2];
+				weights[i] = (byte) ((i & 1) == 0 ? (b >>> 4) & 15 : b & 15);
+			}
+			p += (count + 1) / 2;
+		}
+		if (count > 255) throw new FormatException("Too many Huffman weights");
+
+		// the weight of the last symbol makes the total a power of 2
+		int total = 0;
+		for (int i = 0; i < count; i++) {
+			if (weights[i] > HUF_MAX_BITS) {
+				throw new FormatException("Invalid Huffman weight");
+			}
+			if (weights[i] > 0) total += 1 << (weights[i] - 1);
+		}
+		if (total == 0) throw new FormatException("Invalid Huffman weights");
+		final int maxBits = highBit(total) + 1;
+		final int rest = (1 << maxBits) - total;
+		if (maxBits > HUF_MAX_BITS || (rest & (rest - 1)) != 0) {
+			throw new FormatException("Invalid Huffman weights");
+		}
+		weights[count++] = (byte) (highBit(rest) + 1);
+
+		// codes are assigned by increasing weight, then symbol
+		int pos = 0;
+		for (int w = 1; w <= maxBits; w++) {
+			for (int s = 0; s < count; s++) {
+				if (weights[s] != w) continue;
+				final int to = pos + (1 << (w - 1));
+				Arrays.fill(hufSymbols, pos, to, (byte) s);
+				Arrays.fill(hufLengths, pos, to, (byte) (maxBits + 1 - w));
+				pos = to;
+			}
+		}
+		hufMaxBits = maxBits;
+		return p;
+	}
+
+	/** Decodes Huffman coded literals from 1 or 4 streams. */
+	private void decodeLiterals(final int p, final int end, final int size,
+		final int streams) throws FormatException
+	{
+		if (streams == 1) {
+			decodeStream(p, end, 0, size);
+			return;
+		}
+		check(p + 6, end);
+		final int start2 = p + 6 + readShort(p);
+		final int start3 = start2 + readShort(p + 2);
+		final int start4 = start3 + readShort(p + 4);
+		check(start4, end);
+		final int segment = (size + 3) / 4;
+		if (size - 3 * segment < 0) {
+			throw new FormatException("Invalid Zstandard literals size");
+		}
+		decodeStream(p + 6, start2, 0, segment);
+		decodeStream(start2, start3, segment, segment);
+		decodeStream(start3, start4, 2 * segment, segment);
+		decodeStream(start4, end, 3 * segment, size - 3 * segment);
+	}
+
+	private void decodeStream(final int start, final int end, final int off,
+		final int length) throws FormatException
+	{
+		initBits(start, end);
+		final byte[] lit = literals;
+		final int maxBits = hufMaxBits;
+		final int mask = (1 << maxBits) - 1;
+		for (int i = off; i < off + length; i++) {
+			if (bitCount < maxBits) refill();
+			final int prefix =
+				(int) (bitCount >= maxBits ? bits >>> (bitCount - maxBits)
+					: bits << (maxBits - bitCount)) & mask;
+			lit[i] = hufSymbols[prefix];
+			bitCount -= hufLengths[prefix];
+		}
+		if (bitCount != 0) throw new FormatException("Corrupt Huffman stream");
+	}
+
+	/** Gets the literals buffer, large enough for the given size. */
+	private byte[] literals(final int size) {
+		if (literals.length < size) literals = new byte[Math.max(size, 4096)];
+		return literals;
+	}
+
+	// -- Helper methods - bit stream --
+
+	/**
+	 * Starts reading the bit stream between the given positions backward,
+	 * skipping the padding of its last byte.
+	 */
+	private void initBits(final int start, final int end)
+		throws FormatException
+	{
+		if (end <= start || in[end - 1] == 0) {
+			throw new FormatException("Corrupt Zstandard bit stream");
+		}
+		bitStart = start;
+		bitPos = end;
+		bits = 0;
+		bitCount = 0;
+		refill();
+		bitCount -= Integer.numberOfLeadingZeros(in[end - 1] & 0xff) - 23;
+	}
+
+	private void refill() {
+		while (bitCount <= 56 && bitPos > bitStart) {
+			bits = (bits << 8) | (in[--bitPos] & 0xff);
+			bitCount += 8;
+		}
+	}
+
+	/**
+	 * Reads the given number of bits. Past the start of the stream, zeros are
+	 * read and the bit count goes negative.
+	 */
+	private int readBits(final int n) {
+		bitCount -= n;
+		final long v = bitCount >= 0 ? bits >>> bitCount : bits << -bitCount;
+		return (int) (v & ((1L << n) - 1));
+	}
+
+	// -- Helper methods - utility --
+
+	private int readInt(final int p) {
+		return readInt(in, p);
+	}
+
+	private int readShort(final int p) {
+		return (in[p] & 0xff) | (in[p + 1] & 0xff) << 8;
+	}
+
+	private static int readInt(final byte[] b, final int p) {
+		return (b[p] & 0xff) | (b[p + 1] & 0xff) << 8 | (b[p + 2] & 0xff) << 16 |
+			(b[p + 3] & 0xff) << 24;
+	}
+
+	private static int highBit(final int v) {
+		return 31 - Integer.numberOfLeadingZeros(v);
+	}
+
+	private static void check(final long pos, final int end)
+		throws FormatException
+	{
+		if (pos > end) throw new FormatException("Truncated Zstandard data");
+	}
+
+	// -- Helper classes --
+
+	/** Decoding table of a finite state entropy (FSE) code. */
+	private static final class FseTable {
+
+		private final int maxLog;
+
+		private final int maxSymbol;
+
+		/** Accuracy log: the table has 2^log states. */
+		private int log;
+
+		/** Symbol decoded in each state. */
+		private final byte[] symbols;
+
+		/** Bits to read, and base of the next state, for each state. */
+		private final byte[] lengths;
+
+		private final int[] states;
+
+		private final short[] counts;
+
+		private final int[] next;
+
+		private FseTable(final int maxLog, final int maxSymbol) {
+			this.maxLog = maxLog;
+			this.maxSymbol = maxSymbol;
+			symbols = new byte[1 << maxLog];
+			lengths = new byte[1 << maxLog];
+			states = new int[1 << maxLog];
+			counts = new short[maxSymbol + 1];
+			next = new int[maxSymbol + 1];
+		}
+
+		private static FseTable predefined(final short[] counts, final int log) {
+			final FseTable table = new FseTable(log, counts.length - 1);
+			System.arraycopy(counts, 0, table.counts, 0, counts.length);
+			try {
+				table.build(log);
+			}
+			catch (final FormatException e) {
+				throw new IllegalStateException(e);
+			}
+			return table;
+		}
+
+		/** Sets up a table always decoding the given symbol, without bits. */
+		private void rle(final byte symbol) {
+			log = 0;
+			symbols[0] = symbol;
+			lengths[0] = 0;
+			states[0] = 0;
+		}
+
+		/**
+		 * Reads a table description from the given data, and builds the table.
+		 *
+		 * @return The position after the description.
+		 */
+		private int read(final byte[] data, final int p, final int end)
+			throws FormatException
+		{
+			long bit = 8L * p;
+			final long endBit = 8L * end;
+			final int accuracy = bits(data, bit, 4, end) + 5;
+			bit += 4;
+			if (accuracy > maxLog) {
+				throw new FormatException("FSE accuracy log too large");
+			}
+			int remaining = (1 << accuracy) + 1;
+			int threshold = 1 << accuracy;
+			int n = accuracy + 1;
+			int s = 0;
+			boolean previousZero = false;
+			while (remaining > 1 && s <= maxSymbol) {
+				if (previousZero) {
+					int repeat;
+					do {
+						repeat = bits(data, bit, 2, end);
+						bit += 2;
+						for (int i = 0; i < repeat; i++) {
+							if (s > maxSymbol) {
+								throw new FormatException("Too many FSE symbols");
+							}
+							counts[s++] = 0;
+						}
+					}
+					while (repeat == 3 && bit < endBit);
+					if (s > maxSymbol) break;
+				}
+				final int max = 2 * threshold - 1 - remaining;
+				final int v = bits(data, bit, n, end);
+				int count;
+				if ((v & (threshold - 1)) < max) {
+					count = v & (threshold - 1);
+					bit += n - 1;
+				}
+				else {
+					count = v & (2 * threshold - 1);
+					if (count >= threshold) count -= max;
+					bit += n;
+				}
+				count--;
+				remaining -= Math.abs(count);
+				if (remaining < 1) throw new FormatException("Corrupt FSE table");
+				counts[s++] = (short) count;
+				previousZero = count == 0;
+				while (remaining < threshold) {
+					n--;
+					threshold >>= 1;
+				}
+			}
+			if (remaining != 1 || bit > endBit) {
+				throw new FormatException("Corrupt FSE table");
+			}
+			Arrays.fill(counts, s, counts.length, (short) 0);
+			build(accuracy);
+			return (int) ((bit + 7) >>> 3);
+		}
+
+		/** Spreads the symbols of the normalized counts over the states. */
+		private void build(final int accuracy) throws FormatException {
+			log = accuracy;
+			final int size = 1 << accuracy;
+			final int mask = size - 1;
+			int high = size - 1;
+			for (int s = 0; s <= maxSymbol; s++) {
+				if (counts[s] == -1) {
+					symbols[high--] = (byte) s;
+					next[s] = 1;
+				}
+				else next[s] = counts[s];
+			}
+			final int step = (size >>> 1) + (size >>> 3) + 3;
+			int pos = 0;
+			for (int s = 0; s <= maxSymbol; s++) {
+				for (int i = 0; i < counts[s]; i++) {
+					symbols[pos] = (byte) s;
+					do {
+						pos = (pos + step) & mask;
+					}
+					while (pos > high);
+				}
+			}
+			if (pos != 0) throw new FormatException("Corrupt FSE table");
+			for (int u = 0; u < size; u++) {
+				final int x = next[symbols[u] & 0xff]++;
+				final int length = accuracy - highBit(x);
+				lengths[u] = (byte) length;
+				states[u] = (x << length) - size;
+			}
+		}
+
+		/**
+		 * Reads {@code n} bits, least significant first, from the given bit
+		 * position. Bytes past the end read as zeros.
+		 */
+		private static int bits(final byte[] data, final long bit, final int n,
+			final int end)
+		{
+			final int p = (int) (bit >>> 3);
+			int v = 0;
+			for (int i = 3; i >= 0; i--) {
+				v = (v << 8) | (p + i < end ? data[p + i] & 0xff : 0);
+			}
+			return (v >>> (bit & 7)) & ((1 << n) - 1);
+		}
+	}
+}
@@ -87,6 +87,11 @@ public class SCIFIOConfig extends HashMap<String, Object> {
 
 	private boolean saveOriginalMetadata;
 
+	// Reader
+	private int decodeThreads = 1;
+
+	private boolean readAhead = false;
+
 	// Writer
 	private boolean writeSequential = false;
 
@@ -98,6 +103,10 @@ public class SCIFIOConfig extends HashMap<String, Object> {
 
 	private CodecOptions options = null;
 
+	private int compressionThreads = 1;
+
+	private boolean writeBehind = false;
+
 	// Groupable
 	/** Whether or not to group multi-file formats. */
 	private boolean group = false;
@@ -140,12 +149,21 @@ public class SCIFIOConfig extends HashMap<String, Object> {
 	// Whether or not to use a MinMaxFilter
 	private boolean computeMinMax = false;
 
+	// Maximum number of threads a MinMaxFilter uses per plane
+	private int minMaxThreads = 1;
+
 	// Custom plane converter
 	private PlaneConverter planeConverter = null;
 
 	// Custom heuristic for choosing an ImgFactory
 	private ImgFactoryHeuristic imgFactoryHeuristic = null;
 
+	// Maximum number of readers to open on the same dataset
+	private int readerCount = 1;
+
+	// Bytes of cell data to keep in memory per SCIFIOCellImg
+	private long cellCacheBytes = 0;
+
 	// ImgSaver
 	private boolean writeRGB = true;
 
@@ -167,18 +185,25 @@ public class SCIFIOConfig extends HashMap<String, Object> {
 		level = config.level;
 		filterMetadata = config.filterMetadata;
 		saveOriginalMetadata = config.saveOriginalMetadata;
+		decodeThreads = config.decodeThreads;
+		readAhead = config.readAhead;
 		writeSequential = config.writeSequential;
 		model = config.model;
 		fps = config.fps;
 		compression = config.compression;
 		options = config.options;
+		compressionThreads = config.compressionThreads;
+		writeBehind = config.writeBehind;
 		group = config.group;
 		imgModes = config.imgModes;
 		range = config.range;
 		region = config.region;
 		computeMinMax = config.computeMinMax;
+		minMaxThreads = config.minMaxThreads;
 		planeConverter = config.planeConverter;
 		imgFactoryHeuristic = config.imgFactoryHeuristic;
+		readerCount = config.readerCount;
+		cellCacheBytes = config.cellCacheBytes;
 		writeRGB = config.writeRGB;
 	}
 
@@ -245,6 +270,52 @@ public class SCIFIOConfig extends HashMap<String, Object> {
 		return this;
 	}
 
+	// -- Reader methods --
+
+	/**
+	 * Sets the maximum number of threads a reader may use to decode a single
+	 * plane. This is a hint: readers whose planes consist of independently
+	 * compressed blocks (e.g. TIFF tiles or strips) can decode those blocks
+	 * concurrently, while all other readers ignore it.
+	 *
+	 * @param decodeThreads Maximum number of decoding threads. Values less than
+	 *          2 disable concurrent decoding.
+	 * @return This SCIFIOConfig for method chaining.
+	 */
+	public SCIFIOConfig readerSetDecodeThreads(final int decodeThreads) {
+		this.decodeThreads = decodeThreads;
+		return this;
+	}
+
+	/**
+	 * @return The maximum number of threads a reader may use to decode a single
+	 *         plane. Default: 1
+	 */
+	public int readerGetDecodeThreads() {
+		return decodeThreads;
+	}
+
+	/**
+	 * Sets whether a reader's stream prefetches data on a background thread
+	 * while its planes are read in order, overlapping the reading of each plane
+	 * from disk with the decoding of the previous one. Reading ahead costs
+	 * memory and disk bandwidth when planes are not read in order.
+	 *
+	 * @param readAhead Whether to read ahead.
+	 * @return This SCIFIOConfig for method chaining.
+	 */
+	public SCIFIOConfig readerSetReadAhead(final boolean readAhead) {
+		this.readAhead = readAhead;
+		return this;
+	}
+
+	/**
+	 * @return Whether a reader's stream reads ahead. Default: false
+	 */
+	public boolean readerIsReadAhead() {
+		return readAhead;
+	}
+
 	// -- Writer methods --
 
 	/**
@@ -331,6 +402,55 @@ public class SCIFIOConfig extends HashMap<String, Object> {
 		return options;
 	}
 
+	/**
+	 * Sets the maximum number of threads a writer may use to compress a single
+	 * plane. This is a hint: writers whose planes consist of independently
+	 * compressed blocks (e.g. TIFF tiles or strips) can compress those blocks
+	 * concurrently, and when also writing sequentially may write one plane
+	 * while the next one is being compressed. Errors compressing a plane
+	 * may then only be reported when the next plane is saved or the writer is
+	 * closed. All other writers ignore it.
+	 *
+	 * @param compressionThreads Maximum number of compression threads. Values
+	 *          less than 2 disable concurrent compression.
+	 * @return This SCIFIOConfig for method chaining.
+	 */
+	public SCIFIOConfig writerSetCompressionThreads(final int compressionThreads)
+	{
+		this.compressionThreads = compressionThreads;
+		return this;
+	}
+
+	/**
+	 * @return The maximum number of threads a writer may use to compress a
+	 *         single plane. Default: 1
+	 */
+	public int writerGetCompressionThreads() {
+		return compressionThreads;
+	}
+
+	/**
+	 * Sets whether a writer's stream collects written data in large buffers,
+	 * which are passed on to disk by a background thread, so that the writer
+	 * rarely waits for the disk. The data is complete on disk once the writer
+	 * is closed.
+	 *
+	 * @param writeBehind Whether to write behind.
+	 * @return This SCIFIOConfig for method chaining.
+	 * @see io.scif.io.RandomAccessOutputStream#setWriteBehind
+	 */
+	public SCIFIOConfig writerSetWriteBehind(final boolean writeBehind) {
+		this.writeBehind = writeBehind;
+		return this;
+	}
+
+	/**
+	 * @return Whether a writer's stream writes behind. Default: false
+	 */
+	public boolean writerIsWriteBehind() {
+		return writeBehind;
+	}
+
 	// -- Groupable methods --
 
 	/**
@@ -390,6 +510,28 @@ public class SCIFIOConfig extends HashMap<String, Object> {
 		return this;
 	}
 
+	/**
+	 * @return The maximum number of threads used to compute the min/max values
+	 *         of a single plane. Default: 1
+	 */
+	public int imgOpenerGetMinMaxThreads() {
+		return minMaxThreads;
+	}
+
+	/**
+	 * Sets the maximum number of threads used to compute the min/max values of
+	 * a single plane, when {@link #imgOpenerIsComputeMinMax() computing them}.
+	 * Only planes of at least several hundred KiB are split between threads.
+	 *
+	 * @param minMaxThreads Maximum number of threads per plane.
+	 * @return This SCIFIOConfig for method chaining.
+	 * @see io.scif.filters.MinMaxFilter#setThreadCount(int)
+	 */
+	public SCIFIOConfig imgOpenerSetMinMaxThreads(final int minMaxThreads) {
+		this.minMaxThreads = Math.max(1, minMaxThreads);
+		return this;
+	}
+
 	/**
 	 * Returns a {@link ImageRegion} specifying dimension constraints. This may be
 	 * of a different dimensionality than the underlying image, in which case the
@@ -502,6 +644,52 @@ public class SCIFIOConfig extends HashMap<String, Object> {
 		return this;
 	}
 
+	/**
+	 * @return The maximum number of readers to open on the same dataset.
+	 *         Default: 1
+	 */
+	public int imgOpenerGetReaderCount() {
+		return readerCount;
+	}
+
+	/**
+	 * @param readerCount Maximum number of readers to open on the same dataset,
+	 *          allowing cells of a {@link io.scif.img.cell.SCIFIOCellImg} to be
+	 *          loaded, or the planes of an array or planar image to be read,
+	 *          from that many threads at once. Each additional reader parses its
+	 *          own copy of the metadata, and is only created when needed. A
+	 *          custom {@link #imgOpenerSetPlaneConverter plane converter} must
+	 *          then tolerate being called for different planes concurrently.
+	 *          Default: 1
+	 * @return This SCIFIOConfig for method chaining.
+	 */
+	public SCIFIOConfig imgOpenerSetReaderCount(final int readerCount) {
+		this.readerCount = Math.max(1, readerCount);
+		return this;
+	}
+
+	/**
+	 * @return The number of bytes of cell data each
+	 *         {@link io.scif.img.cell.SCIFIOCellImg} keeps in memory. Default: 0
+	 */
+	public long imgOpenerGetCellCacheBytes() {
+		return cellCacheBytes;
+	}
+
+	/**
+	 * @param cellCacheBytes Number of bytes of recently used cell data each
+	 *          {@link io.scif.img.cell.SCIFIOCellImg} keeps in memory. Cells
+	 *          beyond this budget are released when memory runs low; if 0,
+	 *          they are released at the next garbage collection. As the budget
+	 *          applies to every opened image separately, it should be chosen
+	 *          with the number of images open at once in mind.
+	 * @return This SCIFIOConfig for method chaining.
+	 */
+	public SCIFIOConfig imgOpenerSetCellCacheBytes(final long cellCacheBytes) {
+		this.cellCacheBytes = Math.max(0, cellCacheBytes);
+		return this;
+	}
+
 	// -- ImgSaver methods --
 
 	/**
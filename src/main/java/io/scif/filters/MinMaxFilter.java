@@ -43,11 +43,16 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import net.imagej.axis.AxisType;
 import net.imagej.axis.CalibratedAxis;
 
+import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
+import org.scijava.thread.ThreadService;
 import org.scijava.util.ArrayUtils;
 import org.scijava.util.Bytes;
 
@@ -85,8 +90,38 @@ public class MinMaxFilter extends AbstractReaderFilter {
 	 */
 	private int[] minMaxDone;
 
+	/** Maximum number of threads to compute the min/max values of a plane. */
+	private int threadCount = 1;
+
+	// -- Constants --
+
+	/** Minimum number of bytes worth handing to a separate thread. */
+	private static final int MIN_BYTES_PER_TASK = 1 << 18;
+
+	// -- Parameters --
+
+	@Parameter
+	private ThreadService threadService;
+
 	// -- MinMaxFilter API methods --
 
+	/**
+	 * Sets the maximum number of threads used to compute the min/max values of
+	 * a single plane. Large planes are split into bands of rows, whose partial
+	 * results are merged. Default: 1
+	 */
+	public void setThreadCount(final int threadCount) {
+		this.threadCount = Math.max(1, threadCount);
+	}
+
+	/**
+	 * @return The maximum number of threads used to compute the min/max values
+	 *         of a single plane.
+	 */
+	public int getThreadCount() {
+		return threadCount;
+	}
+
 	/**
 	 * Retrieves a specified planar axis's global minimum. Returns null if some of
 	 * the image planes have not been read.
@@ -227,9 +262,10 @@ public class MinMaxFilter extends AbstractReaderFilter {
 //		FormatTools.assertId(getCurrentFile(), true, 2);
 		super.openPlane(imageIndex, planeIndex, plane, offsets, lengths, config);
 
-		updateMinMax(imageIndex, planeIndex, plane.getBytes(), FormatTools
-			.getBytesPerPixel(getMetadata().get(imageIndex).getPixelType()) *
-			ArrayUtils.safeMultiply32(lengths));
+		updateMinMax(imageIndex, planeIndex, plane.getBytes(), offsets, lengths,
+			FormatTools.getBytesPerPixel(getMetadata().get(imageIndex)
+				.getPixelType()) *
+				ArrayUtils.safeMultiply32(lengths));
 		return plane;
 	}
 
@@ -259,12 +295,16 @@ public class MinMaxFilter extends AbstractReaderFilter {
 	 * @param imageIndex the image index within the dataset
 	 * @param planeIndex the plane index within the image.
 	 * @param buf a pre-allocated buffer.
+	 * @param offsets the position of the region held by {@code buf} within the
+	 *          plane.
+	 * @param lengths the extents of the region held by {@code buf}.
 	 * @param len as <code>buf</code> may be larger than the actual pixel count
 	 *          having been written to it, the length (in bytes) of the those
 	 *          pixels.
 	 */
 	private void updateMinMax(final int imageIndex, final long planeIndex,
-		final byte[] buf, final int len)
+		final byte[] buf, final long[] offsets, final long[] lengths, final int len)
+		throws IOException
 	{
 		if (buf == null) return;
 		initMinMax();
@@ -280,60 +320,111 @@ public class MinMaxFilter extends AbstractReaderFilter {
 		if (len == planeSize &&
 			!Double.isNaN(planeMin[imageIndex][(int) planeIndex])) return;
 
-		final boolean little = iMeta.isLittleEndian();
-
-		final int pixels = len / bpp;
+		final List<CalibratedAxis> axes = iMeta.getAxesPlanar();
+		final double[][] axisMin = new double[axes.size()][];
+		final double[][] axisMax = new double[axes.size()][];
+		for (int a = 0; a < axisMin.length; a++) {
+			final AxisType type = axes.get(a).type();
+			axisMin[a] = planarAxisMin.get(imageIndex).get(type);
+			axisMax[a] = planarAxisMax.get(imageIndex).get(type);
+		}
 
-		// populate the plane min/max to default values
-		planeMin[imageIndex][(int) planeIndex] = Double.POSITIVE_INFINITY;
-		planeMax[imageIndex][(int) planeIndex] = Double.NEGATIVE_INFINITY;
+		final int rows = len / bpp / (int) lengths[0];
+		final PlaneScanner scanner =
+			new PlaneScanner(buf, pixelType, iMeta.isLittleEndian(), offsets,
+				lengths);
 
-		final boolean signed = FormatTools.isSigned(pixelType);
-		final long threshold = (long) Math.pow(2, bpp * 8 - 1);
+		final int tasks =
+			Math.min(threadCount, Math.min(rows, len / MIN_BYTES_PER_TASK));
+		final double[] minMax;
+		if (tasks <= 1) {
+			minMax = scanner.scan(0, rows, axisMin, axisMax);
+		}
+		else {
+			minMax = scanConcurrently(scanner, rows, tasks, axisMin, axisMax);
+		}
 
-		for (int i = 0; i < pixels; i++) {
-			// get the value for this pixel
-			final int idx = bpp * i;
-			long bits = Bytes.toLong(buf, idx, bpp, little);
-			if (signed) {
-				if (bits >= threshold) bits -= 2 * threshold;
-			}
-			double v = bits;
-			if (pixelType == FormatTools.FLOAT) {
-				v = Float.intBitsToFloat((int) bits);
-			}
-			else if (pixelType == FormatTools.DOUBLE) {
-				v = Double.longBitsToDouble(bits);
-			}
+		planeMin[imageIndex][(int) planeIndex] = minMax[0];
+		planeMax[imageIndex][(int) planeIndex] = minMax[1];
 
-			// Update the appropriate planar axis min/max if necessary
-			final long[] planarPositions =
-				FormatTools.rasterToPosition(iMeta.getAxesLengthsPlanar(), i);
+		// Set the number of planes complete for this image
+		minMaxDone[imageIndex] =
+			Math.max(minMaxDone[imageIndex], (int) planeIndex + 1);
+	}
 
-			for (int axis = 0; axis < planarPositions.length; axis++) {
-				final AxisType type = iMeta.getAxis(axis).type();
-				final double[] planarMin = planarAxisMin.get(imageIndex).get(type);
-				if (planarMin[(int) planarPositions[axis]] > v) {
-					planarMin[(int) planarPositions[axis]] = v;
-				}
-				final double[] planarMax = planarAxisMax.get(imageIndex).get(type);
-				if (planarMax[(int) planarPositions[axis]] < v) {
-					planarMax[(int) planarPositions[axis]] = v;
+	/**
+	 * Splits the rows of a plane across several threads, each of which computes
+	 * partial min/max values, then merges the partial values into the given
+	 * planar axis min/max arrays.
+	 *
+	 * @return The plane minimum and maximum.
+	 */
+	private double[] scanConcurrently(final PlaneScanner scanner,
+		final int rows, final int tasks, final double[][] axisMin,
+		final double[][] axisMax) throws IOException
+	{
+		final List<Future<double[][][]>> futures = new ArrayList<>();
+		for (int t = 0; t < tasks; t++) {
+			final int rowStart = (int) ((long) rows * t / tasks);
+			final int rowEnd = (int) ((long) rows * (t + 1) / tasks);
+			futures.add(threadService.run(new Callable<double[][][]>() {
+
+				@Override
+				public double[][][] call() {
+					final double[][] partialMin = filled(axisMin,
+						Double.POSITIVE_INFINITY);
+					final double[][] partialMax = filled(axisMax,
+						Double.NEGATIVE_INFINITY);
+					final double[] minMax =
+						scanner.scan(rowStart, rowEnd, partialMin, partialMax);
+					return new double[][][] { partialMin, partialMax, { minMax } };
 				}
-			}
+			}));
+		}
 
-			// Update the plane min/max if necessary
-			if (v > planeMax[imageIndex][(int) planeIndex]) {
-				planeMax[imageIndex][(int) planeIndex] = v;
-			}
-			if (v < planeMin[imageIndex][(int) planeIndex]) {
-				planeMin[imageIndex][(int) planeIndex] = v;
+		final double[] minMax =
+			{ Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+		try {
+			for (final Future<double[][][]> future : futures) {
+				final double[][][] partial = future.get();
+				for (int a = 0; a < axisMin.length; a++) {
+					for (int i = 0; i < axisMin[a].length; i++) {
+						if (partial[0][a][i] < axisMin[a][i]) {
+							axisMin[a][i] = partial[0][a][i];
+						}
+						if (partial[1][a][i] > axisMax[a][i]) {
+							axisMax[a][i] = partial[1][a][i];
+						}
+					}
+				}
+				if (partial[2][0][0] < minMax[0]) minMax[0] = partial[2][0][0];
+				if (partial[2][0][1] > minMax[1]) minMax[1] = partial[2][0][1];
 			}
 		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while computing min/max values", e);
+		}
+		catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			throw new IOException(cause);
+		}
+		return minMax;
+	}
 
-		// Set the number of planes complete for this image
-		minMaxDone[imageIndex] =
-			Math.max(minMaxDone[imageIndex], (int) planeIndex + 1);
+	/**
+	 * @return Arrays of the same shape as the given ones, filled with the given
+	 *         value.
+	 */
+	private static double[][] filled(final double[][] shape, final double value)
+	{
+		final double[][] result = new double[shape.length][];
+		for (int a = 0; a < shape.length; a++) {
+			result[a] = new double[shape[a].length];
+			Arrays.fill(result[a], value);
+		}
+		return result;
 	}
 
 	/**
@@ -447,4 +538,194 @@ public class MinMaxFilter extends AbstractReaderFilter {
 
 		return planeValues[imageIndex][(int) planeIndex];
 	}
+
+	// -- Helper classes --
+
+	/**
+	 * Computes min/max values of a region of a plane, one row (along the first
+	 * planar axis) at a time. Pixels are decoded by a loop specialized for the
+	 * pixel type, and the positions along the other planar axes are tracked by
+	 * counters.
+	 */
+	private static class PlaneScanner {
+
+		private final byte[] buf;
+
+		private final int pixelType;
+
+		private final int bpp;
+
+		private final boolean little;
+
+		private final int[] offsets;
+
+		private final int[] lengths;
+
+		public PlaneScanner(final byte[] buf, final int pixelType,
+			final boolean little, final long[] offsets, final long[] lengths)
+		{
+			this.buf = buf;
+			this.pixelType = pixelType;
+			this.bpp = FormatTools.getBytesPerPixel(pixelType);
+			this.little = little;
+			this.offsets = new int[offsets.length];
+			this.lengths = new int[lengths.length];
+			for (int a = 0; a < lengths.length; a++) {
+				this.offsets[a] = (int) offsets[a];
+				this.lengths[a] = (int) lengths[a];
+			}
+		}
+
+		/**
+		 * Folds the values of the given rows into the given planar axis min/max
+		 * arrays.
+		 *
+		 * @return The minimum and maximum of the given rows.
+		 */
+		public double[] scan(final int rowStart, final int rowEnd,
+			final double[][] axisMin, final double[][] axisMax)
+		{
+			final int n = lengths.length;
+			final int rowLength = lengths[0];
+
+			// position of the first row along each non-row axis
+			final int[] pos = new int[n];
+			int r = rowStart;
+			for (int a = 1; a < n; a++) {
+				pos[a] = r % lengths[a];
+				r /= lengths[a];
+			}
+
+			final double[] rowMinMax = new double[2];
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int row = rowStart; row < rowEnd; row++) {
+				rowMinMax[0] = Double.POSITIVE_INFINITY;
+				rowMinMax[1] = Double.NEGATIVE_INFINITY;
+				scanRow(row * rowLength * bpp, rowLength, axisMin[0], axisMax[0],
+					offsets[0], rowMinMax);
+
+				for (int a = 1; a < n; a++) {
+					final int idx = offsets[a] + pos[a];
+					if (rowMinMax[0] < axisMin[a][idx]) axisMin[a][idx] = rowMinMax[0];
+					if (rowMinMax[1] > axisMax[a][idx]) axisMax[a][idx] = rowMinMax[1];
+				}
+				if (rowMinMax[0] < min) min = rowMinMax[0];
+				if (rowMinMax[1] > max) max = rowMinMax[1];
+
+				// advance to the next row
+				for (int a = 1; a < n; a++) {
+					if (++pos[a] < lengths[a]) break;
+					pos[a] = 0;
+				}
+			}
+			return new double[] { min, max };
+		}
+
+		/**
+		 * Folds the values of one row into the min/max arrays of the first planar
+		 * axis, and the given row minimum and maximum.
+		 */
+		private void scanRow(final int start, final int count, final double[] min,
+			final double[] max, final int offset, final double[] rowMinMax)
+		{
+			double lo = rowMinMax[0];
+			double hi = rowMinMax[1];
+			int i = start;
+			final int end = offset + count;
+			switch (pixelType) {
+				case FormatTools.INT8:
+					for (int x = offset; x < end; x++) {
+						final double v = buf[i++];
+						if (v < min[x]) min[x] = v;
+						if (v > max[x]) max[x] = v;
+						if (v < lo) lo = v;
+						if (v > hi) hi = v;
+					}
+					break;
+				case FormatTools.UINT8:
+					for (int x = offset; x < end; x++) {
+						final double v = buf[i++] & 0xff;
+						if (v < min[x]) min[x] = v;
+						if (v > max[x]) max[x] = v;
+						if (v < lo) lo = v;
+						if (v > hi) hi = v;
+					}
+					break;
+				case FormatTools.INT16:
+				case FormatTools.UINT16:
+					final int mask16 = pixelType == FormatTools.INT16 ? -1 : 0xffff;
+					for (int x = offset; x < end; x++, i += 2) {
+						final double v = toShort(i) & mask16;
+						if (v < min[x]) min[x] = v;
+						if (v > max[x]) max[x] = v;
+						if (v < lo) lo = v;
+						if (v > hi) hi = v;
+					}
+					break;
+				case FormatTools.INT32:
+				case FormatTools.UINT32:
+					final long mask32 =
+						pixelType == FormatTools.INT32 ? -1L : 0xffffffffL;
+					for (int x = offset; x < end; x++, i += 4) {
+						final double v = toInt(i) & mask32;
+						if (v < min[x]) min[x] = v;
+						if (v > max[x]) max[x] = v;
+						if (v < lo) lo = v;
+						if (v > hi) hi = v;
+					}
+					break;
+				case FormatTools.FLOAT:
+					for (int x = offset; x < end; x++, i += 4) {
+						final double v = Float.intBitsToFloat(toInt(i));
+						if (v < min[x]) min[x] = v;
+						if (v > max[x]) max[x] = v;
+						if (v < lo) lo = v;
+						if (v > hi) hi = v;
+					}
+					break;
+				case FormatTools.DOUBLE:
+					for (int x = offset; x < end; x++, i += 8) {
+						final double v = Double.longBitsToDouble(toLong(i));
+						if (v < min[x]) min[x] = v;
+						if (v > max[x]) max[x] = v;
+						if (v < lo) lo = v;
+						if (v > hi) hi = v;
+					}
+					break;
+				default:
+					final boolean signed = FormatTools.isSigned(pixelType);
+					final long threshold = (long) Math.pow(2, bpp * 8 - 1);
+					for (int x = offset; x < end; x++, i += bpp) {
+						long bits = Bytes.toLong(buf, i, bpp, little);
+						if (signed && bits >= threshold) bits -= 2 * threshold;
+						final double v = bits;
+						if (v < min[x]) min[x] = v;
+						if (v > max[x]) max[x] = v;
+						if (v < lo) lo = v;
+						if (v > hi) hi = v;
+					}
+			}
+			rowMinMax[0] = lo;
+			rowMinMax[1] = hi;
+		}
+
+		private short toShort(final int i) {
+			return little ? (short) ((buf[i] & 0xff) | (buf[i + 1] << 8))
+				: (short) ((buf[i] << 8) | (buf[i + 1] & 0xff));
+		}
+
+		private int toInt(final int i) {
+			return little ? (buf[i] & 0xff) | (buf[i + 1] & 0xff) << 8 |
+				(buf[i + 2] & 0xff) << 16 | buf[i + 3] << 24 : buf[i] << 24 |
+				(buf[i + 1] & 0xff) << 16 | (buf[i + 2] & 0xff) << 8 |
+				(buf[i + 3] & 0xff);
+		}
+
+		private long toLong(final int i) {
+			final long a = toInt(i) & 0xffffffffL;
+			final long b = toInt(i + 4) & 0xffffffffL;
+			return little ? b << 32 | a : a << 32 | b;
+		}
+	}
 }
@@ -361,6 +361,12 @@ public class APNGFormat extends AbstractFormat {
 			return false;
 		}
 
+		@Override
+		public byte[][] getSignatures() {
+			return new byte[][] { { (byte) 0x89, 0x50, 0x4e, 0x47, 0x0d, 0x0a,
+				0x1a, 0x0a } };
+		}
+
 		@Override
 		public boolean isFormat(final RandomAccessInputStream stream)
 			throws IOException
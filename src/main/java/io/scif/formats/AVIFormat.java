@@ -436,6 +436,11 @@ public class AVIFormat extends AbstractFormat {
 			return false;
 		}
 
+		@Override
+		public byte[][] getSignatures() {
+			return new byte[][] { AVI_MAGIC_STRING.getBytes() };
+		}
+
 		@Override
 		public boolean isFormat(final RandomAccessInputStream stream)
 			throws IOException
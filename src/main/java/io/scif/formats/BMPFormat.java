@@ -206,6 +206,11 @@ public class BMPFormat extends AbstractFormat {
 
 	public static class Checker extends AbstractChecker {
 
+		@Override
+		public byte[][] getSignatures() {
+			return new byte[][] { BMP_MAGIC_STRING.getBytes() };
+		}
+
 		@Override
 		public boolean isFormat(final RandomAccessInputStream stream)
 			throws IOException
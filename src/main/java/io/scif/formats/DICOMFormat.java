@@ -57,6 +57,7 @@ import io.scif.services.InitializeService;
 import io.scif.util.FormatTools;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Hashtable;
 import java.util.Vector;
@@ -1096,8 +1097,9 @@ public class DICOMFormat extends AbstractFormat {
 						.getElementLength() + 1);
 					meta.shortLut[ndx] = new short[tag.getElementLength() / 2];
 					meta.lut[ndx] = new byte[tag.getElementLength() / 2];
+					getSource().readShorts(meta.shortLut[ndx], 0,
+						meta.shortLut[ndx].length);
 					for (int i = 0; i < meta.lut[ndx].length; i++) {
-						meta.shortLut[ndx][i] = getSource().readShort();
 						meta.lut[ndx][i] = (byte) (meta.shortLut[ndx][i] & 0xff);
 					}
 					getSource().seek(fp);
@@ -1342,16 +1344,29 @@ public class DICOMFormat extends AbstractFormat {
 						}
 					}
 					else {
-						t = codec.decompress(getStream(), options);
-						if (t.length < (bytes / ec)) {
-							final byte[] tmp = t;
+						// decompress straight into the plane if it is not cropped
+						final boolean whole = x == 0 && y == 0 && w == meta.get(
+							imageIndex).getAxisLength(Axes.X) && h == meta.get(imageIndex)
+								.getAxisLength(Axes.Y);
+						final ByteBuffer dst;
+						if (whole) {
+							dst = ByteBuffer.wrap(plane.getBytes(), c * (bytes / ec),
+								bytes / ec);
+						}
+						else {
 							t = new byte[bytes / ec];
-							System.arraycopy(tmp, 0, t, 0, tmp.length);
+							dst = ByteBuffer.wrap(t);
+						}
+						codec.decompress(getStream(), dst, options);
+						if (whole) {
+							Arrays.fill(plane.getBytes(), dst.position(), dst.limit(),
+								(byte) 0);
 						}
 						if (planeIndex < meta.getImagesPerFile() - 1 || c < ec - 1) {
 							while (getStream().read() == 0) { /* Read to non-0 data */}
 							getStream().seek(getStream().getFilePointer() - 1);
 						}
+						if (whole) continue;
 					}
 
 					final int rowLen = w * bpp;
@@ -350,6 +350,11 @@ public class GIFFormat extends AbstractFormat {
 
 		// -- Checker API methods --
 
+		@Override
+		public byte[][] getSignatures() {
+			return new byte[][] { GIF_MAGIC_STRING.getBytes() };
+		}
+
 		@Override
 		public boolean isFormat(final RandomAccessInputStream in)
 			throws IOException
@@ -1820,7 +1820,7 @@ public class ICSFormat extends AbstractFormat {
 			else if (FormatTools.checkSuffix(currentId, "ics")) {
 				final RandomAccessInputStream in =
 					new RandomAccessInputStream(getContext(), currentId);
-				in.findString("\nend\n");
+				in.findOffset("\nend\n");
 				pixelOffset = in.getFilePointer();
 				in.close();
 			}
@@ -108,6 +108,11 @@ public class JPEGFormat extends ImageIOFormat {
 			return FormatTools.checkSuffix(name, getFormat().getSuffixes());
 		}
 
+		@Override
+		public byte[][] getSignatures() {
+			return new byte[][] { { (byte) 0xff, (byte) 0xd8, (byte) 0xff } };
+		}
+
 		@Override
 		public boolean isFormat(final RandomAccessInputStream stream)
 			throws IOException
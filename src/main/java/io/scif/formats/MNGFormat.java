@@ -143,6 +143,12 @@ public class MNGFormat extends AbstractFormat {
 
 		// -- Checker API Methods --
 
+		@Override
+		public byte[][] getSignatures() {
+			return new byte[][] { { (byte) 0x8a, 0x4d, 0x4e, 0x47, 0x0d, 0x0a,
+				0x1a, 0x0a } };
+		}
+
 		@Override
 		public boolean isFormat(final RandomAccessInputStream stream)
 			throws IOException
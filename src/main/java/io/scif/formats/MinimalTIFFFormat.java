@@ -383,6 +383,14 @@ public class MinimalTIFFFormat extends AbstractFormat {
 			return false;
 		}
 
+		@Override
+		public byte[][] getSignatures() {
+			// II or MM, followed by the TIFF or BigTIFF magic number
+			return new byte[][] { { 0x49, 0x49, 0x2a, 0x00 },
+				{ 0x49, 0x49, 0x2b, 0x00 }, { 0x4d, 0x4d, 0x00, 0x2a },
+				{ 0x4d, 0x4d, 0x00, 0x2b } };
+		}
+
 		@Override
 		public boolean isFormat(final RandomAccessInputStream stream) {
 			return new TiffParser(getContext(), stream).isValidHeader();
@@ -620,6 +628,7 @@ public class MinimalTIFFFormat extends AbstractFormat {
 				setResolutionLevel(ifd);
 			}
 
+			tiffParser.setDecodeThreads(config.readerGetDecodeThreads());
 			tiffParser.getSamples(ifd, buf, x, y, w, h);
 
 			final boolean float16 =
@@ -40,6 +40,7 @@ import io.scif.Format;
 import io.scif.FormatException;
 import io.scif.ImageMetadata;
 import io.scif.config.SCIFIOConfig;
+import io.scif.io.FileRange;
 import io.scif.io.RandomAccessInputStream;
 import io.scif.util.FormatTools;
 
@@ -454,12 +455,13 @@ public class OBFFormat extends AbstractFormat {
 				}
 			}
 			else {
+				final List<FileRange> ranges = new ArrayList<>();
 				for (int row = 0; row != h; ++row) {
-					getStream().seek(
-						stack.getPosition() +
-							((planeIndex * rows + row + y) * columns + x) * bytesPerPixel);
-					getStream().read(buffer, row * w * bytesPerPixel, w * bytesPerPixel);
+					ranges.add(new FileRange(stack.getPosition() +
+						((planeIndex * rows + row + y) * columns + x) * bytesPerPixel,
+						buffer, row * w * bytesPerPixel, w * bytesPerPixel));
 				}
+				getStream().readVectored(ranges);
 			}
 
 			return plane;
@@ -154,6 +154,11 @@ public class PCXFormat extends AbstractFormat {
 
 		// -- Checker API Methods --
 
+		@Override
+		public byte[][] getSignatures() {
+			return new byte[][] { { PCX_MAGIC_BYTE } };
+		}
+
 		@Override
 		public boolean isFormat(final RandomAccessInputStream stream)
 			throws IOException
@@ -132,6 +132,11 @@ public class PGMFormat extends AbstractFormat {
 			return false;
 		}
 
+		@Override
+		public byte[][] getSignatures() {
+			return new byte[][] { { PGM_MAGIC_CHAR } };
+		}
+
 		@Override
 		public boolean isFormat(final RandomAccessInputStream stream)
 			throws IOException
@@ -1347,6 +1347,15 @@ public class TIFFFormat extends AbstractFormat {
 	 * turned on or off, BigTIFF will be written if the output dataset is larger
 	 * than 2GB in size.
 	 * </p>
+	 * <p>
+	 * Likewise, horizontal differencing of integer samples before LZW, zlib or
+	 * Zstandard compression can be turned on via the
+	 * {@link #setPredictor(boolean)} method, or the {@link Writer#PREDICTOR_KEY}
+	 * configuration key. Zlib compression is tuned through the
+	 * {@link io.scif.codec.CodecOptions#compressionLevel level} and
+	 * {@link io.scif.codec.CodecOptions#compressionStrategy strategy} of the
+	 * writer's codec options.
+	 * </p>
 	 */
 	public static class Writer<M extends Metadata> extends AbstractWriter<M> {
 
@@ -1367,13 +1376,24 @@ public class TIFFFormat extends AbstractFormat {
 		public static final String COMPRESSION_JPEG = //
 			CompressionType.JPEG.getCompression();
 
+		public static final String COMPRESSION_ZLIB = //
+			CompressionType.ZLIB.getCompression();
+
+		public static final String COMPRESSION_ZSTD = //
+			CompressionType.ZSTD.getCompression();
+
 		public static final String BIG_TIFF_KEY = "WRITE_BIG_TIFF";
 
+		public static final String PREDICTOR_KEY = "WRITE_TIFF_PREDICTOR";
+
 		// -- Fields --
 
 		/** Whether or not the output file is a BigTIFF file. */
 		private Boolean isBigTIFF = null;
 
+		/** Whether or not to difference samples before compressing them. */
+		private boolean predictor;
+
 		/** The TiffSaver that will do most of the writing. */
 		private TiffSaver tiffSaver;
 
@@ -1388,7 +1408,8 @@ public class TIFFFormat extends AbstractFormat {
 		@Override
 		protected String[] makeCompressionTypes() {
 			return new String[] { COMPRESSION_UNCOMPRESSED, COMPRESSION_LZW,
-				COMPRESSION_J2K, COMPRESSION_J2K_LOSSY, COMPRESSION_JPEG };
+				COMPRESSION_J2K, COMPRESSION_J2K_LOSSY, COMPRESSION_JPEG,
+				COMPRESSION_ZLIB, COMPRESSION_ZSTD };
 		}
 
 		// -- TIFFWriter API Methods --
@@ -1408,6 +1429,23 @@ public class TIFFFormat extends AbstractFormat {
 			return isBigTIFF == null ? false : isBigTIFF;
 		}
 
+		/**
+		 * Sets whether or not integer samples are horizontally differenced before
+		 * LZW or zlib compression, which often makes them compress better. This
+		 * flag is not reset when close() is called.
+		 */
+		public void setPredictor(final boolean predictor) {
+			this.predictor = predictor;
+		}
+
+		/**
+		 * @return Whether or not this Writer differences integer samples before
+		 *         LZW or zlib compression.
+		 */
+		public boolean isPredictor() {
+			return predictor;
+		}
+
 		/**
 		 * Saves the given image to the specified series in the current file. The
 		 * IFD hashtable allows specification of TIFF parameters such as bit depth,
@@ -1451,18 +1489,13 @@ public class TIFFFormat extends AbstractFormat {
 			// array
 			// at one time.
 			synchronized (this) {
-				if (!isInitialized(imageIndex, (int) planeIndex)) {
-
-					final RandomAccessInputStream tmp =
-						new RandomAccessInputStream(getContext(), getMetadata()
-							.getDatasetName());
-					if (tmp.length() == 0) {
-						synchronized (this) {
-							// write TIFF header
-							tiffSaver.writeHeader();
-						}
-					}
-					tmp.close();
+				// NB: the output stream's length includes data it writes behind,
+				// unlike the length of the file on disk
+				if (!isInitialized(imageIndex, (int) planeIndex) &&
+					tiffSaver.getStream().length() == 0)
+				{
+					// write TIFF header
+					tiffSaver.writeHeader();
 				}
 			}
 		}
@@ -1477,24 +1510,17 @@ public class TIFFFormat extends AbstractFormat {
 			super.setDest(dest, imageIndex, config);
 			synchronized (this) {
 				setupTiffSaver(dest, imageIndex);
+				tiffSaver.setCompressionThreads(config.writerGetCompressionThreads());
 			}
 
 			// Check if a bigTIFF setting was requested
 			isBigTIFF = null;
 			if (config.containsKey(BIG_TIFF_KEY)) {
-				final Object o = config.get(BIG_TIFF_KEY);
-				if (o instanceof Boolean) {
-					isBigTIFF = (Boolean) o;
-				}
-				else {
-					final String v = String.valueOf(o).toLowerCase();
-					if (v.startsWith("t")) {
-						isBigTIFF = true;
-					}
-					else if (v.startsWith("f")) {
-						isBigTIFF = false;
-					}
-				}
+				isBigTIFF = toBoolean(config.get(BIG_TIFF_KEY));
+			}
+			if (config.containsKey(PREDICTOR_KEY)) {
+				final Boolean b = toBoolean(config.get(PREDICTOR_KEY));
+				if (b != null) predictor = b;
 			}
 
 			// if isBigTIFF is not explicitly set and the dataset is > 2GB,
@@ -1555,20 +1581,30 @@ public class TIFFFormat extends AbstractFormat {
 
 		@Override
 		public void close() throws IOException {
-			super.close();
-			if (in != null) {
-				in.close();
+			try {
+				if (tiffSaver != null) tiffSaver.flush();
+			}
+			catch (final FormatException e) {
+				throw new IOException(e);
+			}
+			finally {
+				super.close();
+				if (in != null) {
+					in.close();
+				}
 			}
 		}
 
 		// -- Helper methods --
 
 		/**
-		 * Sets the compression code for the specified IFD.
+		 * Sets the compression code, and the predictor if requested, for the
+		 * specified IFD.
 		 *
 		 * @param ifd The IFD table to handle.
+		 * @param type The pixel type of the plane to write.
 		 */
-		private void formatCompression(final IFD ifd) {
+		private void formatCompression(final IFD ifd, final int type) {
 			TiffCompression compressType = TiffCompression.UNCOMPRESSED;
 			if (getCompression() != null) {
 				if (getCompression().equals(COMPRESSION_LZW)) {
@@ -1583,10 +1619,38 @@ public class TIFFFormat extends AbstractFormat {
 				else if (getCompression().equals(COMPRESSION_JPEG)) {
 					compressType = TiffCompression.JPEG;
 				}
+				else if (getCompression().equals(COMPRESSION_ZLIB)) {
+					compressType = TiffCompression.DEFLATE;
+				}
+				else if (getCompression().equals(COMPRESSION_ZSTD)) {
+					compressType = TiffCompression.ZSTD;
+				}
 			}
 			final Object v = ifd.get(new Integer(IFD.COMPRESSION));
 			if (v == null) ifd.put(new Integer(IFD.COMPRESSION), compressType
 				.getCode());
+			if (predictor && !FormatTools.isFloatingPoint(type) &&
+				(compressType == TiffCompression.LZW ||
+					compressType == TiffCompression.DEFLATE ||
+					compressType == TiffCompression.ZSTD) &&
+				ifd.get(IFD.PREDICTOR) == null)
+			{
+				ifd.putIFDValue(IFD.PREDICTOR, 2);
+			}
+		}
+
+		/**
+		 * Interprets a configuration value as a boolean, if it is a
+		 * {@link Boolean} or a string starting with "t" or "f".
+		 *
+		 * @return The value, or null if it is neither true nor false.
+		 */
+		private static Boolean toBoolean(final Object o) {
+			if (o instanceof Boolean) return (Boolean) o;
+			final String v = String.valueOf(o).toLowerCase();
+			if (v.startsWith("t")) return true;
+			if (v.startsWith("f")) return false;
+			return null;
 		}
 
 		/**
@@ -1599,6 +1663,10 @@ public class TIFFFormat extends AbstractFormat {
 			final int y, final int w, final int h) throws IOException,
 			FormatException
 		{
+			// NB: the saver may not have written the previous plane yet, but it
+			// knows where that plane will end
+			final long end = tiffSaver.getEndOffset();
+
 			final byte[] buf = plane.getBytes();
 			final Metadata meta = getMetadata();
 			final Boolean bigEndian = !meta.get(imageIndex).isLittleEndian();
@@ -1615,7 +1683,7 @@ public class TIFFFormat extends AbstractFormat {
 				c = buf.length / (w * h * bytesPerPixel);
 			}
 
-			formatCompression(ifd);
+			formatCompression(ifd, type);
 			final byte[][] lut = AWTImageTools.get8BitLookupTable(getColorModel());
 			if (lut != null) {
 				final int[] colorMap = new int[lut.length * lut[0].length];
@@ -1645,7 +1713,7 @@ public class TIFFFormat extends AbstractFormat {
 
 			if (!isBigTiff()) {
 				isBigTIFF =
-					(getStream().length() + 2 * (width * height * c * bytesPerPixel)) >= 4294967296L;
+					(end + 2 * (width * height * c * bytesPerPixel)) >= 4294967296L;
 				if (isBigTiff()) {
 					throw new FormatException(
 						"File is too large for 32-bit TIFF but BigTIFF support was "
@@ -1657,8 +1725,8 @@ public class TIFFFormat extends AbstractFormat {
 			// write the image
 			ifd.put(new Integer(IFD.LITTLE_ENDIAN), Boolean.valueOf(littleEndian));
 			if (!ifd.containsKey(IFD.REUSE)) {
-				ifd.put(IFD.REUSE, getStream().length());
-				getStream().seek(getStream().length());
+				ifd.put(IFD.REUSE, end);
+				getStream().seek(end);
 			}
 			else {
 				getStream().seek((Long) ifd.get(IFD.REUSE));
@@ -50,6 +50,9 @@ import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -59,7 +62,6 @@ import net.imagej.axis.Axes;
 import org.scijava.log.LogService;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
-import org.scijava.util.Bytes;
 
 /**
  * Reader for text files containing tables of data. All image planes are stored
@@ -421,16 +423,13 @@ public class TextFormat extends AbstractFormat {
 				(int) planeMax[xAxis], h = (int) planeMax[yAxis];
 			// copy floating point data into byte buffer
 			final float[] planeFloats = getMetadata().getData()[(int) planeIndex];
-			int q = 0;
+			final FloatBuffer out =
+				ByteBuffer.wrap(buf).order(
+					TextUtils.LITTLE_ENDIAN ? ByteOrder.LITTLE_ENDIAN
+						: ByteOrder.BIG_ENDIAN).asFloatBuffer();
+			final int sizeX = (int) meta.get(0).getAxisLength(Axes.X);
 			for (int j = 0; j < h; j++) {
-				final int yy = y + j;
-				for (int i = 0; i < w; i++) {
-					final int xx = x + i;
-					final int index = yy * (int) meta.get(0).getAxisLength(Axes.X) + xx;
-					final int bits = Float.floatToIntBits(planeFloats[index]);
-					Bytes.unpack(bits, buf, q, 4, TextUtils.LITTLE_ENDIAN);
-					q += 4;
-				}
+				out.put(planeFloats, (y + j) * sizeX + x, w);
 			}
 
 			return plane;
@@ -43,6 +43,7 @@ import io.scif.Plane;
 import io.scif.config.SCIFIOConfig;
 import io.scif.io.IRandomAccess;
 import io.scif.io.RandomAccessInputStream;
+import io.scif.io.ZipDirectory;
 import io.scif.io.ZipHandle;
 import io.scif.services.FormatService;
 import io.scif.services.InitializeService;
@@ -288,12 +289,20 @@ public class ZipFormat extends AbstractFormat {
 			final RandomAccessInputStream stream, final List<String> mappedFiles)
 			throws IOException
 		{
-			final ZipInputStream zip = new ZipInputStream(stream);
-			ZipEntry ze = null;
+			List<ZipEntry> entries;
+			try {
+				entries = new ArrayList<>();
+				for (final ZipDirectory.Entry e : ZipDirectory.get(stream).getEntries())
+				{
+					entries.add(e.toZipEntry());
+				}
+			}
+			catch (final IOException e) {
+				// NB: list the entries by reading through the archive instead
+				entries = listEntries(stream);
+			}
 
-			while (true) {
-				ze = zip.getNextEntry();
-				if (ze == null) break;
+			for (final ZipEntry ze : entries) {
 				final ZipHandle handle =
 					new ZipHandle(locationService.getContext(), stream.getFileName(), ze);
 				locationService.mapFile(ze.getName(), handle);
@@ -308,6 +317,20 @@ public class ZipFormat extends AbstractFormat {
 			return id;
 		}
 
+		/** Lists the entries of an archive by reading through it. */
+		private static List<ZipEntry> listEntries(
+			final RandomAccessInputStream stream) throws IOException
+		{
+			final List<ZipEntry> entries = new ArrayList<>();
+			final ZipInputStream zip = new ZipInputStream(stream);
+			while (true) {
+				final ZipEntry ze = zip.getNextEntry();
+				if (ze == null) break;
+				entries.add(ze);
+			}
+			return entries;
+		}
+
 		/**
 		 * Returns a new RandomAccessInputStream around the raw handle underlying
 		 * the provided stream, instead of using a zip handle.
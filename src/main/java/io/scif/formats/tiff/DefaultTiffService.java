@@ -58,7 +58,8 @@ public class DefaultTiffService extends AbstractService implements TiffService {
 		if (predictor == 2) {
 			log.debug("performing horizontal differencing");
 			final int[] bitsPerSample = ifd.getBitsPerSample();
-			final long width = ifd.getImageWidth();
+			// NB: each row of a tile is differenced on its own
+			final long width = ifd.getTileWidth();
 			final boolean little = ifd.isLittleEndian();
 			final int planarConfig = ifd.getPlanarConfiguration();
 			final int bytes = ifd.getBytesPerSample()[0];
@@ -79,13 +80,20 @@ public class DefaultTiffService extends AbstractService implements TiffService {
 	@Override
 	public void undifference(final byte[] input, final IFD ifd)
 		throws FormatException
+	{
+		undifference(input, input.length, ifd);
+	}
+
+	@Override
+	public void undifference(final byte[] input, final int length,
+		final IFD ifd) throws FormatException
 	{
 		final int predictor = ifd.getIFDIntValue(IFD.PREDICTOR, 1);
 		if (predictor == 2) {
 			log.debug("reversing horizontal differencing");
 			final int[] bitsPerSample = ifd.getBitsPerSample();
 			int len = bitsPerSample.length;
-			final long width = ifd.getImageWidth();
+			final long width = ifd.getTileWidth();
 			final boolean little = ifd.isLittleEndian();
 			final int planarConfig = ifd.getPlanarConfiguration();
 
@@ -94,7 +102,7 @@ public class DefaultTiffService extends AbstractService implements TiffService {
 			if (planarConfig == 2 || bitsPerSample[len - 1] == 0) len = 1;
 			len *= bytes;
 
-			for (int b = 0; b <= input.length - bytes; b += bytes) {
+			for (int b = 0; b <= length - bytes; b += bytes) {
 				if (b / len % width == 0) continue;
 				int value = Bytes.toInt(input, b, bytes, little);
 				value += Bytes.toInt(input, b - len, bytes, little);
@@ -44,12 +44,15 @@ import io.scif.codec.NikonCodec;
 import io.scif.codec.PackbitsCodec;
 import io.scif.codec.PassthroughCodec;
 import io.scif.codec.ZlibCodec;
+import io.scif.codec.ZstdCodec;
 import io.scif.enumeration.CodedEnum;
 import io.scif.enumeration.EnumException;
 
+import java.nio.ByteBuffer;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.Deflater;
 
 /**
  * Utility class for performing compression operations with a TIFF file.
@@ -185,8 +188,8 @@ public enum TiffCompression implements CodedEnum {
 			}
 
 		},
-		NIKON(34713, NikonCodec.class, "Nikon"), LURAWAVE(65535,
-			LuraWaveCodec.class, "LuraWave");
+		NIKON(34713, NikonCodec.class, "Nikon"), ZSTD(50000, ZstdCodec.class,
+			"Zstandard"), LURAWAVE(65535, LuraWaveCodec.class, "LuraWave");
 
 	// -- Fields --
 
@@ -264,13 +267,21 @@ public enum TiffCompression implements CodedEnum {
 	public byte[] decompress(final CodecService codecService, final byte[] input,
 		final CodecOptions options) throws FormatException
 	{
-		if (codecClass == null) {
-			throw new UnsupportedCompressionException("Sorry, " + getCodecName() +
-				" compression mode is not supported");
-		}
+		return getCodec(codecService).decompress(input, options);
+	}
 
-		final Codec codec = codecService.getCodec(codecClass);
-		return codec.decompress(input, options);
+	/**
+	 * Decodes a strip of data straight into the remaining space of the given
+	 * buffer.
+	 *
+	 * @return The number of bytes decoded.
+	 * @see Codec#decompress(ByteBuffer, ByteBuffer, CodecOptions)
+	 */
+	public int decompress(final CodecService codecService,
+		final ByteBuffer input, final ByteBuffer output, final CodecOptions options)
+		throws FormatException
+	{
+		return getCodec(codecService).decompress(input, output, options);
 	}
 
 	// -- TiffCompression methods - compression --
@@ -310,6 +321,13 @@ public enum TiffCompression implements CodedEnum {
 		options.littleEndian = ifd.isLittleEndian();
 		options.interleaved = true;
 		options.signed = false;
+		// differenced samples are mostly small values, which deflate better
+		// when favoring Huffman coding over string matching
+		if (options.compressionStrategy < 0 && codecClass == ZlibCodec.class &&
+			ifd.getIFDIntValue(IFD.PREDICTOR, 1) == 2)
+		{
+			options.compressionStrategy = Deflater.FILTERED;
+		}
 		return options;
 	}
 
@@ -325,4 +343,16 @@ public enum TiffCompression implements CodedEnum {
 		return codec.compress(input, options);
 	}
 
+	// -- Helper methods --
+
+	private Codec getCodec(final CodecService codecService)
+		throws FormatException
+	{
+		if (codecClass == null) {
+			throw new UnsupportedCompressionException("Sorry, " + getCodecName() +
+				" compression mode is not supported");
+		}
+		return codecService.getCodec(codecClass);
+	}
+
 }
@@ -34,13 +34,22 @@ import io.scif.FormatException;
 import io.scif.SCIFIO;
 import io.scif.codec.BitBuffer;
 import io.scif.codec.CodecOptions;
+import io.scif.codec.JPEG2000CodecOptions;
 import io.scif.common.Constants;
 import io.scif.enumeration.EnumException;
 import io.scif.io.RandomAccessInputStream;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.scijava.AbstractContextual;
 import org.scijava.Context;
@@ -91,6 +100,9 @@ public class TiffParser extends AbstractContextual {
 	/** Codec options to be used when decoding compressed pixel data. */
 	private CodecOptions codecOptions = CodecOptions.getDefaultOptions();
 
+	/** Maximum number of threads to use when decoding tiles or strips. */
+	private int decodeThreads = 1;
+
 	// -- Constructors --
 
 	/** Constructs a new TIFF parser from the given file name. */
@@ -145,6 +157,27 @@ public class TiffParser extends AbstractContextual {
 		return codecOptions;
 	}
 
+	/**
+	 * Sets the maximum number of threads to use when decoding the tiles or
+	 * strips of a single {@link #getSamples} call. Compressed data is always
+	 * read from the stream in order on the calling thread; only decompression
+	 * and unpacking are done concurrently. Values less than 2 (the default)
+	 * decode everything on the calling thread.
+	 *
+	 * @param decodeThreads Maximum number of decoding threads.
+	 */
+	public void setDecodeThreads(final int decodeThreads) {
+		this.decodeThreads = decodeThreads;
+	}
+
+	/**
+	 * @return The maximum number of threads used to decode tiles or strips.
+	 * @see #setDecodeThreads(int)
+	 */
+	public int getDecodeThreads() {
+		return decodeThreads;
+	}
+
 	/** Sets whether or not IFD entries should be cached. */
 	public void setDoCaching(final boolean doCaching) {
 		this.doCaching = doCaching;
@@ -520,20 +553,25 @@ public class TiffParser extends AbstractContextual {
 		else if (type == IFDType.SHORT) {
 			// 16-bit (2-byte) unsigned integer
 			if (count == 1) return new Integer(in.readUnsignedShort());
+			final short[] values = new short[count];
+			in.readShorts(values, 0, count);
 			final int[] shorts = new int[count];
 			for (int j = 0; j < count; j++) {
-				shorts[j] = in.readUnsignedShort();
+				shorts[j] = values[j] & 0xffff;
 			}
 			return shorts;
 		}
 		else if (type == IFDType.LONG || type == IFDType.IFD) {
 			// 32-bit (4-byte) unsigned integer
 			if (count == 1) return new Long(in.readInt());
+			// NB: values past the end of the stream are left at 0
+			final long available = (in.length() - in.getFilePointer()) / 4;
+			final int n = (int) Math.max(0, Math.min(count, available));
+			final int[] values = new int[n];
+			in.readInts(values, 0, n);
 			final long[] longs = new long[count];
-			for (int j = 0; j < count; j++) {
-				if (in.getFilePointer() + 4 <= in.length()) {
-					longs[j] = in.readInt();
-				}
+			for (int j = 0; j < n; j++) {
+				longs[j] = values[j];
 			}
 			return longs;
 		}
@@ -558,8 +596,7 @@ public class TiffParser extends AbstractContextual {
 			}
 			else {
 				longs = new long[count];
-				for (int j = 0; j < count; j++)
-					longs[j] = in.readLong();
+				in.readLongs(longs, 0, count);
 			}
 			return longs;
 		}
@@ -567,9 +604,11 @@ public class TiffParser extends AbstractContextual {
 			// Two LONGs or SLONGs: the first represents the numerator
 			// of a fraction; the second, the denominator
 			if (count == 1) return new TiffRational(in.readInt(), in.readInt());
+			final int[] values = new int[2 * count];
+			in.readInts(values, 0, values.length);
 			final TiffRational[] rationals = new TiffRational[count];
 			for (int j = 0; j < count; j++) {
-				rationals[j] = new TiffRational(in.readInt(), in.readInt());
+				rationals[j] = new TiffRational(values[2 * j], values[2 * j + 1]);
 			}
 			return rationals;
 		}
@@ -586,33 +625,28 @@ public class TiffParser extends AbstractContextual {
 			// A 16-bit (2-byte) signed (twos-complement) integer
 			if (count == 1) return new Short(in.readShort());
 			final short[] sshorts = new short[count];
-			for (int j = 0; j < count; j++)
-				sshorts[j] = in.readShort();
+			in.readShorts(sshorts, 0, count);
 			return sshorts;
 		}
 		else if (type == IFDType.SLONG) {
 			// A 32-bit (4-byte) signed (twos-complement) integer
 			if (count == 1) return new Integer(in.readInt());
 			final int[] slongs = new int[count];
-			for (int j = 0; j < count; j++)
-				slongs[j] = in.readInt();
+			in.readInts(slongs, 0, count);
 			return slongs;
 		}
 		else if (type == IFDType.FLOAT) {
 			// Single precision (4-byte) IEEE format
 			if (count == 1) return new Float(in.readFloat());
 			final float[] floats = new float[count];
-			for (int j = 0; j < count; j++)
-				floats[j] = in.readFloat();
+			in.readFloats(floats, 0, count);
 			return floats;
 		}
 		else if (type == IFDType.DOUBLE) {
 			// Double precision (8-byte) IEEE format
 			if (count == 1) return new Double(in.readDouble());
 			final double[] doubles = new double[count];
-			for (int j = 0; j < count; j++) {
-				doubles[j] = in.readDouble();
-			}
+			in.readDoubles(doubles, 0, count);
 			return doubles;
 		}
 
@@ -635,99 +669,19 @@ public class TiffParser extends AbstractContextual {
 		getTile(final IFD ifd, byte[] buf, final int row, final int col)
 			throws FormatException, IOException
 	{
-		final byte[] jpegTable = (byte[]) ifd.getIFDValue(IFD.JPEG_TABLES);
-
 		codecOptions.interleaved = true;
 		codecOptions.littleEndian = ifd.isLittleEndian();
 
-		final long tileWidth = ifd.getTileWidth();
-		final long tileLength = ifd.getTileLength();
-		final int samplesPerPixel = ifd.getSamplesPerPixel();
-		final int planarConfig = ifd.getPlanarConfiguration();
-		final TiffCompression compression = ifd.getCompression();
-
-		final long numTileCols = ifd.getTilesPerRow();
-
-		final int pixel = ifd.getBytesPerSample()[0];
-		final int effectiveChannels = planarConfig == 2 ? 1 : samplesPerPixel;
+		final byte[] tile = readTileBytes(ifd, row, col);
 
-		final long[] stripByteCounts = ifd.getStripByteCounts();
-		final long[] rowsPerStrip = ifd.getRowsPerStrip();
-
-		final int offsetIndex = (int) (row * numTileCols + col);
-		int countIndex = offsetIndex;
-		if (equalStrips) {
-			countIndex = 0;
-		}
-		if (stripByteCounts[countIndex] == (rowsPerStrip[0] * tileWidth) &&
-			pixel > 1)
-		{
-			stripByteCounts[countIndex] *= pixel;
-		}
-
-		long stripOffset = 0;
-		long nStrips = 0;
-
-		if (ifd.getOnDemandStripOffsets() != null) {
-			final OnDemandLongArray stripOffsets = ifd.getOnDemandStripOffsets();
-			stripOffset = stripOffsets.get(offsetIndex);
-			nStrips = stripOffsets.size();
-		}
-		else {
-			final long[] stripOffsets = ifd.getStripOffsets();
-			stripOffset = stripOffsets[offsetIndex];
-			nStrips = stripOffsets.length;
-		}
-
-		final int size = (int) (tileWidth * tileLength * pixel * effectiveChannels);
-
-		if (buf == null) buf = new byte[size];
-		if (stripByteCounts[countIndex] == 0 || stripOffset >= in.length()) {
+		if (buf == null) buf = new byte[getTileSize(ifd)];
+		if (tile == null) {
+			// NB: a tile without data is blank, as when decoding concurrently
+			Arrays.fill(buf, (byte) 0);
 			return buf;
 		}
-		byte[] tile = new byte[(int) stripByteCounts[countIndex]];
-
-		log.debug("Reading tile Length " + tile.length + " Offset " + stripOffset);
-		in.seek(stripOffset);
-		in.read(tile);
-
-		codecOptions.maxBytes = Math.max(size, tile.length);
-		codecOptions.ycbcr =
-			ifd.getPhotometricInterpretation() == PhotoInterp.Y_CB_CR &&
-				ifd.getIFDIntValue(IFD.Y_CB_CR_SUB_SAMPLING) == 1 && ycbcrCorrection;
-
-		if (jpegTable != null) {
-			final byte[] q = new byte[jpegTable.length + tile.length - 4];
-			System.arraycopy(jpegTable, 0, q, 0, jpegTable.length - 2);
-			System.arraycopy(tile, 2, q, jpegTable.length - 2, tile.length - 2);
-			tile = compression.decompress(scifio.codec(), q, codecOptions);
-		}
-		else tile = compression.decompress(scifio.codec(), tile, codecOptions);
-		scifio.tiff().undifference(tile, ifd);
-		unpackBytes(buf, 0, tile, ifd);
-
-		if (planarConfig == 2 && !ifd.isTiled() && ifd.getSamplesPerPixel() > 1) {
-			final int channel = (int) (row % nStrips);
-			if (channel < ifd.getBytesPerSample().length) {
-				final int realBytes = ifd.getBytesPerSample()[channel];
-				if (realBytes != pixel) {
-					// re-pack pixels to account for differing bits per sample
-
-					final boolean littleEndian = ifd.isLittleEndian();
-					final int[] samples = new int[buf.length / pixel];
-					for (int i = 0; i < samples.length; i++) {
-						samples[i] =
-							Bytes.toInt(buf, i * realBytes, realBytes, littleEndian);
-					}
-
-					for (int i = 0; i < samples.length; i++) {
-						Bytes.unpack(samples[i], buf, i * pixel, pixel,
-							littleEndian);
-					}
-				}
-			}
-		}
 
+		decodeTile(ifd, tile, buf, row, codecOptions);
 		return buf;
 	}
 
@@ -850,28 +804,17 @@ public class TiffParser extends AbstractContextual {
 
 		final IntRect imageBounds = new IntRect(x, y, (int) width, (int) height);
 
-		final int endX = (int) width + x;
-		final int endY = (int) height + y;
-
-		final long w = tileWidth;
-		final long h = tileLength;
-		final int rowLen = pixel * (int) w;// tileWidth;
-		final int tileSize = (int) (rowLen * h);// tileLength);
-
-		final int planeSize = (int) (width * height * pixel);
-		final int outputRowLen = (int) (pixel * width);
-
 		int bufferSizeSamplesPerPixel = samplesPerPixel;
 		if (ifd.getPlanarConfiguration() == 2) bufferSizeSamplesPerPixel = 1;
 		final int bpp = ifd.getBytesPerSample()[0];
 		final int bufferSize =
 			(int) tileWidth * (int) tileLength * bufferSizeSamplesPerPixel * bpp;
 
-		cachedTileBuffer = new byte[bufferSize];
-
 		final IntRect tileBounds =
 			new IntRect(0, 0, (int) tileWidth, (int) tileLength);
 
+		// determine which tiles intersect the requested region, in file order
+		final List<int[]> tiles = new ArrayList<>();
 		for (int row = 0; row < numTileRows; row++) {
 			// make the first row shorter to account for row overlap
 			if (row == 0) {
@@ -893,54 +836,28 @@ public class TiffParser extends AbstractContextual {
 
 				if (!imageBounds.intersects(tileBounds)) continue;
 
-				getTile(ifd, cachedTileBuffer, row, col);
-
-				// adjust tile bounds, if necessary
-
-				final int tileX = Math.max(tileBounds.x, x);
-				final int tileY = Math.max(tileBounds.y, y);
-				int realX = tileX % (int) (tileWidth - overlapX);
-				int realY = tileY % (int) (tileLength - overlapY);
-
-				int twidth = (int) Math.min(endX - tileX, tileWidth - realX);
-				if (twidth <= 0) {
-					twidth = (int) Math.max(endX - tileX, tileWidth - realX);
-				}
-				int theight = (int) Math.min(endY - tileY, tileLength - realY);
-				if (theight <= 0) {
-					theight = (int) Math.max(endY - tileY, tileLength - realY);
-				}
-
-				// copy appropriate portion of the tile to the output buffer
+				tiles.add(new int[] { row, col, tileBounds.x, tileBounds.y });
+			}
+		}
 
-				final int copy = pixel * twidth;
+		final TileLayout layout =
+			new TileLayout(pixel, tileWidth, tileLength, x, y, width, height,
+				overlapX, overlapY, effectiveChannels, planarConfig, nrows);
 
-				realX *= pixel;
-				realY *= rowLen;
+		// overlapping tiles must be copied in order, so they are never decoded
+		// concurrently
+		if (decodeThreads > 1 && tiles.size() > 1 && overlapX == 0 &&
+			overlapY == 0)
+		{
+			decodeTilesConcurrently(ifd, tiles, layout, buf, bufferSize);
+			return adjustFillOrder(ifd, buf);
+		}
 
-				for (int q = 0; q < effectiveChannels; q++) {
-					int src = q * tileSize + realX + realY;
-					int dest =
-						q * planeSize + pixel * (tileX - x) + outputRowLen * (tileY - y);
-					if (planarConfig == 2) dest += (planeSize * (row / nrows));
+		cachedTileBuffer = new byte[bufferSize];
 
-					// copying the tile directly will only work if there is no
-					// overlap;
-					// otherwise, we may be overwriting a previous tile
-					// (or the current tile may be overwritten by a subsequent
-					// tile)
-					if (rowLen == outputRowLen && overlapX == 0 && overlapY == 0) {
-						System.arraycopy(cachedTileBuffer, src, buf, dest, copy * theight);
-					}
-					else {
-						for (int tileRow = 0; tileRow < theight; tileRow++) {
-							System.arraycopy(cachedTileBuffer, src, buf, dest, copy);
-							src += rowLen;
-							dest += outputRowLen;
-						}
-					}
-				}
-			}
+		for (final int[] tile : tiles) {
+			getTile(ifd, cachedTileBuffer, tile[0], tile[1]);
+			layout.copyTile(cachedTileBuffer, buf, tile);
 		}
 
 		return adjustFillOrder(ifd, buf);
@@ -973,8 +890,219 @@ public class TiffParser extends AbstractContextual {
 		return new TiffIFDEntry(entryTag, entryType, valueCount, offset);
 	}
 
+	// -- Helper methods - tile decoding --
+
+	/** Computes the size in bytes of a single decoded tile of the given IFD. */
+	private int getTileSize(final IFD ifd) throws FormatException {
+		final int samplesPerPixel = ifd.getSamplesPerPixel();
+		final int effectiveChannels =
+			ifd.getPlanarConfiguration() == 2 ? 1 : samplesPerPixel;
+		final int pixel = ifd.getBytesPerSample()[0];
+		return (int) (ifd.getTileWidth() * ifd.getTileLength() * pixel *
+			effectiveChannels);
+	}
+
+	/**
+	 * Reads the still-compressed bytes of the given tile from the input stream.
+	 *
+	 * @return The raw tile bytes, or null if the tile contains no data.
+	 */
+	private byte[] readTileBytes(final IFD ifd, final int row, final int col)
+		throws FormatException, IOException
+	{
+		final long tileWidth = ifd.getTileWidth();
+		final long numTileCols = ifd.getTilesPerRow();
+		final int pixel = ifd.getBytesPerSample()[0];
+
+		final long[] stripByteCounts = ifd.getStripByteCounts();
+		final long[] rowsPerStrip = ifd.getRowsPerStrip();
+
+		final int offsetIndex = (int) (row * numTileCols + col);
+		int countIndex = offsetIndex;
+		if (equalStrips) {
+			countIndex = 0;
+		}
+		if (stripByteCounts[countIndex] == (rowsPerStrip[0] * tileWidth) &&
+			pixel > 1)
+		{
+			stripByteCounts[countIndex] *= pixel;
+		}
+
+		long stripOffset = 0;
+		if (ifd.getOnDemandStripOffsets() != null) {
+			stripOffset = ifd.getOnDemandStripOffsets().get(offsetIndex);
+		}
+		else {
+			stripOffset = ifd.getStripOffsets()[offsetIndex];
+		}
+
+		if (stripByteCounts[countIndex] == 0 || stripOffset >= in.length()) {
+			return null;
+		}
+		final byte[] tile = new byte[(int) stripByteCounts[countIndex]];
+
+		log.debug("Reading tile Length " + tile.length + " Offset " + stripOffset);
+		in.seek(stripOffset);
+		in.read(tile);
+		return tile;
+	}
+
+	/**
+	 * Decompresses, undifferences and unpacks the given raw tile bytes into
+	 * {@code buf}. Touches no state other than {@code buf} and {@code options},
+	 * so it may be called concurrently as long as neither is shared.
+	 */
+	private void decodeTile(final IFD ifd, byte[] tile, final byte[] buf,
+		final int row, final CodecOptions options) throws FormatException,
+		IOException
+	{
+		final byte[] jpegTable = (byte[]) ifd.getIFDValue(IFD.JPEG_TABLES);
+		final TiffCompression compression = ifd.getCompression();
+		final int planarConfig = ifd.getPlanarConfiguration();
+		final int pixel = ifd.getBytesPerSample()[0];
+
+		options.maxBytes = Math.max(getTileSize(ifd), tile.length);
+		options.ycbcr =
+			ifd.getPhotometricInterpretation() == PhotoInterp.Y_CB_CR &&
+				ifd.getIFDIntValue(IFD.Y_CB_CR_SUB_SAMPLING) == 1 && ycbcrCorrection;
+
+		if (jpegTable != null) {
+			final byte[] q = new byte[jpegTable.length + tile.length - 4];
+			System.arraycopy(jpegTable, 0, q, 0, jpegTable.length - 2);
+			System.arraycopy(tile, 2, q, jpegTable.length - 2, tile.length - 2);
+			tile = q;
+		}
+		if (isUnpackedAsIs(ifd)) {
+			// decompress straight into the tile buffer
+			final int n =
+				compression.decompress(scifio.codec(), ByteBuffer.wrap(tile),
+					ByteBuffer.wrap(buf), options);
+			scifio.tiff().undifference(buf, n, ifd);
+		}
+		else {
+			tile = compression.decompress(scifio.codec(), tile, options);
+			scifio.tiff().undifference(tile, ifd);
+			unpackBytes(buf, 0, tile, ifd);
+		}
+
+		if (planarConfig == 2 && !ifd.isTiled() && ifd.getSamplesPerPixel() > 1) {
+			final long nStrips;
+			if (ifd.getOnDemandStripOffsets() != null) {
+				nStrips = ifd.getOnDemandStripOffsets().size();
+			}
+			else {
+				nStrips = ifd.getStripOffsets().length;
+			}
+			final int channel = (int) (row % nStrips);
+			if (channel < ifd.getBytesPerSample().length) {
+				final int realBytes = ifd.getBytesPerSample()[channel];
+				if (realBytes != pixel) {
+					// re-pack pixels to account for differing bits per sample
+
+					final boolean littleEndian = ifd.isLittleEndian();
+					final int[] samples = new int[buf.length / pixel];
+					for (int i = 0; i < samples.length; i++) {
+						samples[i] =
+							Bytes.toInt(buf, i * realBytes, realBytes, littleEndian);
+					}
+
+					for (int i = 0; i < samples.length; i++) {
+						Bytes.unpack(samples[i], buf, i * pixel, pixel,
+							littleEndian);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the given tiles from the input stream in file order, then decodes
+	 * them on up to {@link #getDecodeThreads()} threads. Each thread uses its
+	 * own tile buffer and {@link CodecOptions}, and copies its decoded tiles
+	 * straight into {@code buf}; this is only safe because the tiles do not
+	 * overlap.
+	 */
+	private void decodeTilesConcurrently(final IFD ifd, final List<int[]> tiles,
+		final TileLayout layout, final byte[] buf, final int bufferSize)
+		throws FormatException, IOException
+	{
+		// NB: keep all I/O on the calling thread, and strictly sequential
+		final byte[][] rawTiles = new byte[tiles.size()][];
+		for (int i = 0; i < rawTiles.length; i++) {
+			final int[] tile = tiles.get(i);
+			rawTiles[i] = readTileBytes(ifd, tile[0], tile[1]);
+		}
+
+		final AtomicInteger nextTile = new AtomicInteger();
+		final int nThreads = Math.min(decodeThreads, rawTiles.length);
+		final List<Future<Void>> futures = new ArrayList<>(nThreads);
+		for (int t = 0; t < nThreads; t++) {
+			final CodecOptions options = copyCodecOptions(codecOptions);
+			options.interleaved = true;
+			options.littleEndian = ifd.isLittleEndian();
+
+			futures.add(scifio.thread().run(new Callable<Void>() {
+
+				@Override
+				public Void call() throws FormatException, IOException {
+					final byte[] tileBuffer = new byte[bufferSize];
+					int i;
+					while ((i = nextTile.getAndIncrement()) < rawTiles.length) {
+						final int[] tile = tiles.get(i);
+						if (rawTiles[i] == null) Arrays.fill(tileBuffer, (byte) 0);
+						else decodeTile(ifd, rawTiles[i], tileBuffer, tile[0], options);
+						rawTiles[i] = null;
+						layout.copyTile(tileBuffer, buf, tile);
+					}
+					return null;
+				}
+			}));
+		}
+
+		for (final Future<Void> future : futures) {
+			try {
+				future.get();
+			}
+			catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while decoding tiles", e);
+			}
+			catch (final ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof FormatException) throw (FormatException) cause;
+				if (cause instanceof IOException) throw (IOException) cause;
+				if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+				throw new FormatException(cause);
+			}
+		}
+	}
+
+	/** Creates an independent copy of the given codec options. */
+	private static CodecOptions copyCodecOptions(final CodecOptions options) {
+		if (options instanceof JPEG2000CodecOptions) {
+			return new JPEG2000CodecOptions(options);
+		}
+		return new CodecOptions(options);
+	}
+
 	// -- Helper methods - byte stream decoding --
 
+	/**
+	 * Whether {@link #unpackBytes} copies the decoded bytes of the given IFD as
+	 * they are, up to the length of the destination, so that they may be
+	 * decoded straight into it instead.
+	 */
+	private boolean isUnpackedAsIs(final IFD ifd) throws FormatException {
+		final int[] bitsPerSample = ifd.getBitsPerSample();
+		final PhotoInterp photoInterp =
+			ifd.getCompression() == TiffCompression.JPEG ? PhotoInterp.RGB : ifd
+				.getPhotometricInterpretation();
+		return (bitsPerSample[0] == 8 || bitsPerSample[0] == 16) &&
+			(bitsPerSample.length == 1 || ifd.getPlanarConfiguration() == 2) &&
+			photoInterp != PhotoInterp.WHITE_IS_ZERO &&
+			photoInterp != PhotoInterp.CMYK && photoInterp != PhotoInterp.Y_CB_CR;
+	}
+
 	/**
 	 * Extracts pixel information from the given byte array according to the bits
 	 * per sample, photometric interpretation and color map IFD directory entry
@@ -1206,4 +1334,113 @@ public class TiffParser extends AbstractContextual {
 		return buf;
 	}
 
+
+	// -- Helper classes --
+
+	/**
+	 * Geometry of a {@link #getSamples} request, used to copy decoded tiles into
+	 * the output buffer.
+	 */
+	private static class TileLayout {
+
+		private final int pixel;
+		private final long tileWidth;
+		private final long tileLength;
+		private final int x;
+		private final int y;
+		private final int endX;
+		private final int endY;
+		private final int overlapX;
+		private final int overlapY;
+		private final int effectiveChannels;
+		private final int planarConfig;
+		private final long nrows;
+		private final int rowLen;
+		private final int tileSize;
+		private final int planeSize;
+		private final int outputRowLen;
+
+		public TileLayout(final int pixel, final long tileWidth,
+			final long tileLength, final int x, final int y, final long width,
+			final long height, final int overlapX, final int overlapY,
+			final int effectiveChannels, final int planarConfig, final long nrows)
+		{
+			this.pixel = pixel;
+			this.tileWidth = tileWidth;
+			this.tileLength = tileLength;
+			this.x = x;
+			this.y = y;
+			this.endX = (int) width + x;
+			this.endY = (int) height + y;
+			this.overlapX = overlapX;
+			this.overlapY = overlapY;
+			this.effectiveChannels = effectiveChannels;
+			this.planarConfig = planarConfig;
+			this.nrows = nrows;
+			rowLen = pixel * (int) tileWidth;
+			tileSize = (int) (rowLen * tileLength);
+			planeSize = (int) (width * height * pixel);
+			outputRowLen = (int) (pixel * width);
+		}
+
+		/**
+		 * Copies the appropriate portion of a decoded tile to the output buffer.
+		 *
+		 * @param tileBuffer The decoded tile.
+		 * @param buf The output buffer.
+		 * @param tile The tile's row, column, and x and y bounds.
+		 */
+		public void copyTile(final byte[] tileBuffer, final byte[] buf,
+			final int[] tile)
+		{
+			final int row = tile[0];
+
+			// adjust tile bounds, if necessary
+
+			final int tileX = Math.max(tile[2], x);
+			final int tileY = Math.max(tile[3], y);
+			int realX = tileX % (int) (tileWidth - overlapX);
+			int realY = tileY % (int) (tileLength - overlapY);
+
+			int twidth = (int) Math.min(endX - tileX, tileWidth - realX);
+			if (twidth <= 0) {
+				twidth = (int) Math.max(endX - tileX, tileWidth - realX);
+			}
+			int theight = (int) Math.min(endY - tileY, tileLength - realY);
+			if (theight <= 0) {
+				theight = (int) Math.max(endY - tileY, tileLength - realY);
+			}
+
+			// copy appropriate portion of the tile to the output buffer
+
+			final int copy = pixel * twidth;
+
+			realX *= pixel;
+			realY *= rowLen;
+
+			for (int q = 0; q < effectiveChannels; q++) {
+				int src = q * tileSize + realX + realY;
+				int dest =
+					q * planeSize + pixel * (tileX - x) + outputRowLen * (tileY - y);
+				if (planarConfig == 2) dest += (planeSize * (row / nrows));
+
+				// copying the tile directly will only work if there is no
+				// overlap;
+				// otherwise, we may be overwriting a previous tile
+				// (or the current tile may be overwritten by a subsequent
+				// tile)
+				if (rowLen == outputRowLen && overlapX == 0 && overlapY == 0) {
+					System.arraycopy(tileBuffer, src, buf, dest, copy * theight);
+				}
+				else {
+					for (int tileRow = 0; tileRow < theight; tileRow++) {
+						System.arraycopy(tileBuffer, src, buf, dest, copy);
+						src += rowLen;
+						dest += outputRowLen;
+					}
+				}
+			}
+		}
+	}
+
 }
@@ -38,13 +38,15 @@ import io.scif.io.RandomAccessInputStream;
 import io.scif.io.RandomAccessOutputStream;
 import io.scif.util.FormatTools;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.scijava.AbstractContextual;
 import org.scijava.Context;
@@ -79,6 +81,12 @@ public class TiffSaver extends AbstractContextual {
 	/** The codec options if set. */
 	private CodecOptions options;
 
+	/** Maximum number of threads to use when compressing strips. */
+	private int compressionThreads = 1;
+
+	/** Image whose strips are still being compressed, waiting to be written. */
+	private PendingImage pendingImage;
+
 	private SCIFIO scifio;
 
 	private LogService log;
@@ -152,6 +160,33 @@ public class TiffSaver extends AbstractContextual {
 		sequentialWrite = sequential;
 	}
 
+	/**
+	 * Sets the maximum number of threads to use when compressing the strips or
+	 * tiles of an image. Strips are always written to the stream in order, each
+	 * as soon as it has been compressed. If planes are also being written
+	 * sequentially, each plane is appended to the end of the stream while the
+	 * next one is being compressed; in that case the IFD passed to
+	 * {@code writeImage} must not be modified afterwards, and {@link #flush()}
+	 * must be called once all planes have been passed. Errors compressing such
+	 * a plane are thrown by whichever of {@code writeImage},
+	 * {@link #getEndOffset()}, {@link #writePendingImage()} and
+	 * {@link #flush()} is called next. Values
+	 * less than 2 (the default) compress everything on the calling thread.
+	 *
+	 * @param compressionThreads Maximum number of compression threads.
+	 */
+	public void setCompressionThreads(final int compressionThreads) {
+		this.compressionThreads = compressionThreads;
+	}
+
+	/**
+	 * @return The maximum number of threads used to compress strips or tiles.
+	 * @see #setCompressionThreads(int)
+	 */
+	public int getCompressionThreads() {
+		return compressionThreads;
+	}
+
 	/** Gets the stream from which TIFF data is being saved. */
 	public RandomAccessOutputStream getStream() {
 		return out;
@@ -293,12 +328,10 @@ public class TiffSaver extends AbstractContextual {
 
 		// These operations are synchronized
 		TiffCompression compression;
-		int tileWidth, tileHeight, nStrips;
+		int tileWidth, tileHeight, tilesPerRow, nStrips, bytesPerPixel;
 		boolean interleaved;
-		ByteArrayOutputStream[] stripBuf;
 		synchronized (this) {
-			final int bytesPerPixel = FormatTools.getBytesPerPixel(pixelType);
-			final int blockSize = w * h * bytesPerPixel;
+			bytesPerPixel = FormatTools.getBytesPerPixel(pixelType);
 			if (nChannels == null) {
 				nChannels = buf.length / (w * h * bytesPerPixel);
 			}
@@ -306,65 +339,51 @@ public class TiffSaver extends AbstractContextual {
 
 			makeValidIFD(ifd, pixelType, nChannels);
 
-			// create pixel output buffers
-
 			compression = ifd.getCompression();
 			tileWidth = (int) ifd.getTileWidth();
 			tileHeight = (int) ifd.getTileLength();
-			final int tilesPerRow = (int) ifd.getTilesPerRow();
-			final int rowsPerStrip = (int) ifd.getRowsPerStrip()[0];
-			int stripSize = rowsPerStrip * tileWidth * bytesPerPixel;
+			tilesPerRow = (int) ifd.getTilesPerRow();
 			nStrips =
 				((w + tileWidth - 1) / tileWidth) * ((h + tileHeight - 1) / tileHeight);
+			if (!interleaved) nStrips *= nChannels;
+		}
 
-			if (interleaved) stripSize *= nChannels;
-			else nStrips *= nChannels;
-
-			stripBuf = new ByteArrayOutputStream[nStrips];
-			final DataOutputStream[] stripOut = new DataOutputStream[nStrips];
-			for (int strip = 0; strip < nStrips; strip++) {
-				stripBuf[strip] = new ByteArrayOutputStream(stripSize);
-				stripOut[strip] = new DataOutputStream(stripBuf[strip]);
+		// Copy pixel strips to output buffers. This operation is NOT
+		// synchronized: it only touches the caller's buffer and fresh strips.
+		// NB: makeValidIFD guarantees that every channel has bytesPerPixel bytes
+		// per sample, so each row of a strip or tile can be copied in bulk.
+		final byte[][] strips = new byte[nStrips][];
+		final int effectiveStrips = !interleaved ? nStrips / nChannels : nStrips;
+		if (effectiveStrips == 1 && copyDirectly) {
+			strips[0] = buf.clone();
+			for (int strip = 1; strip < nStrips; strip++) {
+				strips[strip] = new byte[0];
 			}
-			final int[] bps = ifd.getBitsPerSample();
-			int off;
-
-			// write pixel strips to output buffers
-			final int effectiveStrips = !interleaved ? nStrips / nChannels : nStrips;
-			if (effectiveStrips == 1 && copyDirectly) {
-				stripOut[0].write(buf);
+		}
+		else {
+			final int pixelBytes =
+				interleaved ? nChannels * bytesPerPixel : bytesPerPixel;
+			final int blockSize = w * h * bytesPerPixel;
+			final int stripRowLen = tileWidth * pixelBytes;
+			for (int strip = 0; strip < nStrips; strip++) {
+				strips[strip] = new byte[tileHeight * stripRowLen];
 			}
-			else {
-				for (int strip = 0; strip < effectiveStrips; strip++) {
-					final int xOffset = (strip % tilesPerRow) * tileWidth;
-					final int yOffset = (strip / tilesPerRow) * tileHeight;
-					for (int row = 0; row < tileHeight; row++) {
-						for (int col = 0; col < tileWidth; col++) {
-							final int ndx =
-								((row + yOffset) * w + col + xOffset) * bytesPerPixel;
-							for (int c = 0; c < nChannels; c++) {
-								for (int n = 0; n < bps[c] / 8; n++) {
-									if (interleaved) {
-										off = ndx * nChannels + c * bytesPerPixel + n;
-										if (row >= h || col >= w) {
-											stripOut[strip].writeByte(0);
-										}
-										else {
-											stripOut[strip].writeByte(buf[off]);
-										}
-									}
-									else {
-										off = c * blockSize + ndx + n;
-										if (row >= h || col >= w) {
-											stripOut[strip].writeByte(0);
-										}
-										else {
-											stripOut[c * (nStrips / nChannels) + strip]
-												.writeByte(buf[off]);
-										}
-									}
-								}
-							}
+			for (int strip = 0; strip < effectiveStrips; strip++) {
+				final int xOffset = (strip % tilesPerRow) * tileWidth;
+				final int yOffset = (strip / tilesPerRow) * tileHeight;
+				// rows and columns beyond the image are left zero-padded
+				final int rows = Math.min(tileHeight, h - yOffset);
+				final int rowLen = Math.min(tileWidth, w - xOffset) * pixelBytes;
+				for (int row = 0; row < rows; row++) {
+					final int ndx = ((row + yOffset) * w + xOffset) * pixelBytes;
+					if (interleaved) {
+						System.arraycopy(buf, ndx, strips[strip], row * stripRowLen,
+							rowLen);
+					}
+					else {
+						for (int c = 0; c < nChannels; c++) {
+							System.arraycopy(buf, c * blockSize + ndx, strips[c *
+								effectiveStrips + strip], row * stripRowLen, rowLen);
 						}
 					}
 				}
@@ -372,32 +391,87 @@ public class TiffSaver extends AbstractContextual {
 		}
 
 		// Compress strips according to given differencing and compression
-		// schemes,
-		// this operation is NOT synchronized and is the ONLY portion of the
-		// TiffWriter.saveBytes() --> TiffSaver.writeImage() stack that is NOT
-		// synchronized.
-		final byte[][] strips = new byte[nStrips][];
-		for (int strip = 0; strip < nStrips; strip++) {
-			strips[strip] = stripBuf[strip].toByteArray();
-			scifio.tiff().difference(strips[strip], ifd);
-			final CodecOptions codecOptions =
-				compression.getCompressionCodecOptions(ifd, options);
-			codecOptions.height = tileHeight;
-			codecOptions.width = tileWidth;
-			codecOptions.channels = interleaved ? nChannels : 1;
-
-			strips[strip] =
-				compression.compress(scifio.codec(), strips[strip], codecOptions);
-			if (log.isDebug()) {
-				log.debug(String.format("Compressed strip %d/%d length %d", strip + 1,
-					nStrips, strips[strip].length));
+		// schemes; this operation is NOT synchronized either.
+		final List<Future<byte[]>> compressed =
+			compressStrips(strips, ifd, compression, tileWidth, tileHeight,
+				interleaved ? nChannels : 1);
+
+		// This operation is synchronized
+		synchronized (this) {
+			if (compressionThreads > 1 && sequentialWrite) {
+				// write the previous plane while this one is being compressed
+				writePendingImage();
+				pendingImage =
+					new PendingImage(ifd, planeIndex, compressed, nChannels, last, x, y);
+				if (last) writePendingImage();
+			}
+			else {
+				writePendingImage();
+				writeImageIFD(ifd, planeIndex, compressed, nChannels, last, x, y);
 			}
 		}
+	}
 
-		// This operation is synchronized
+	/**
+	 * Appends the image whose strips are still being compressed, if any, to the
+	 * end of the stream, so that the stream's length includes it. Unlike
+	 * {@link #flush()}, this does not flush the stream itself. An error
+	 * compressing the pending image is reported here.
+	 */
+	public synchronized void writePendingImage() throws FormatException,
+		IOException
+	{
+		if (pendingImage == null) return;
+		final PendingImage image = pendingImage;
+		pendingImage = null;
+		// NB: the stream was positioned for this image before the previous one
+		// was written; sequential images always go at the end.
+		out.seek(out.length());
+		writeImageIFD(image.ifd, image.planeIndex, image.strips, image.nChannels,
+			image.last, image.x, image.y);
+	}
+
+	/**
+	 * Gets the offset at which the next image will be appended: the end of the
+	 * stream, once the pending image, if any, has been written. This waits for
+	 * the strips of the pending image to be compressed, but does not write
+	 * them, so that they can be written while the next image is compressed.
+	 * An error compressing the pending image is reported here, and the image is
+	 * discarded.
+	 */
+	public synchronized long getEndOffset() throws FormatException,
+		IOException
+	{
+		long end = out.length();
+		if (pendingImage == null) return end;
+		try {
+			for (final Future<byte[]> strip : pendingImage.strips) {
+				end += getStrip(strip).length;
+			}
+		}
+		catch (final FormatException | IOException e) {
+			pendingImage = null;
+			throw e;
+		}
+		final IFD ifd = new IFD(pendingImage.ifd, log);
+		putStripEntries(ifd, pendingImage.nChannels, new ArrayList<Long>(),
+			new ArrayList<Long>());
+		return end + getIFDSize(ifd);
+	}
+
+	/**
+	 * Writes out any image whose strips are still pending. Only needed when
+	 * writing sequentially with more than one compression thread, in which case
+	 * each plane is written during the {@code writeImage} call of the next one;
+	 * this must be called after the last plane unless it was flagged as such.
+	 * Also drains the output stream, so that data it writes behind can be read
+	 * back from the file.
+	 */
+	public void flush() throws FormatException, IOException {
 		synchronized (this) {
-			writeImageIFD(ifd, planeIndex, strips, nChannels, last, x, y);
+			writePendingImage();
 		}
+		out.drain();
 	}
 
 	/**
@@ -406,7 +480,7 @@ public class TiffSaver extends AbstractContextual {
 	 *
 	 * @param ifd The Image File Directories. Mustn't be <code>null</code>.
 	 * @param planeIndex The image index within the current file, starting from 0.
-	 * @param strips The strips to write to the file.
+	 * @param strips The strips to write to the file, in order.
 	 * @param last Pass <code>true</code> if it is the last image,
 	 *          <code>false</code> otherwise.
 	 * @param x The initial X offset of the strips/tiles to write.
@@ -415,16 +489,16 @@ public class TiffSaver extends AbstractContextual {
 	 * @throws IOException
 	 */
 	private void writeImageIFD(IFD ifd, final long planeIndex,
-		final byte[][] strips, final int nChannels, final boolean last,
+		final List<Future<byte[]>> strips, final int nChannels, final boolean last,
 		final int x, final int y) throws FormatException, IOException
 	{
 		log.debug("Attempting to write image IFD.");
 		final int tilesPerRow = (int) ifd.getTilesPerRow();
-		final int tilesPerColumn = (int) ifd.getTilesPerColumn();
-		final boolean interleaved = ifd.getPlanarConfiguration() == 1;
 		final boolean isTiled = ifd.isTiled();
 
 		if (!sequentialWrite) {
+			// NB: the IFDs written so far are read back from the file
+			out.drain();
 			RandomAccessInputStream in = null;
 			if (filename != null) {
 				in = new RandomAccessInputStream(getContext(), filename);
@@ -456,68 +530,28 @@ public class TiffSaver extends AbstractContextual {
 
 		final List<Long> byteCounts = new ArrayList<>();
 		final List<Long> offsets = new ArrayList<>();
-		long totalTiles = tilesPerRow * tilesPerColumn;
-
-		if (!interleaved) {
-			totalTiles *= nChannels;
-		}
-
-		if (ifd.containsKey(IFD.STRIP_BYTE_COUNTS) ||
-			ifd.containsKey(IFD.TILE_BYTE_COUNTS))
-		{
-			final long[] ifdByteCounts =
-				isTiled ? ifd.getIFDLongArray(IFD.TILE_BYTE_COUNTS) : ifd
-					.getStripByteCounts();
-			for (final long stripByteCount : ifdByteCounts) {
-				byteCounts.add(stripByteCount);
-			}
-		}
-		else {
-			while (byteCounts.size() < totalTiles) {
-				byteCounts.add(0L);
-			}
-		}
+		final long totalTiles =
+			putStripEntries(ifd, nChannels, byteCounts, offsets);
 		final int tileOrStripOffsetX = x / (int) ifd.getTileWidth();
 		final int tileOrStripOffsetY = y / (int) ifd.getTileLength();
 		final int firstOffset =
 			(tileOrStripOffsetY * tilesPerRow) + tileOrStripOffsetX;
-		if (ifd.containsKey(IFD.STRIP_OFFSETS) || ifd.containsKey(IFD.TILE_OFFSETS))
-		{
-			final long[] ifdOffsets =
-				isTiled ? ifd.getIFDLongArray(IFD.TILE_OFFSETS) : ifd.getStripOffsets();
-			for (final long ifdOffset : ifdOffsets) {
-				offsets.add(ifdOffset);
-			}
-		}
-		else {
-			while (offsets.size() < totalTiles) {
-				offsets.add(0L);
-			}
-		}
-
-		if (isTiled) {
-			ifd.putIFDValue(IFD.TILE_BYTE_COUNTS, toPrimitiveArray(byteCounts));
-			ifd.putIFDValue(IFD.TILE_OFFSETS, toPrimitiveArray(offsets));
-		}
-		else {
-			ifd.putIFDValue(IFD.STRIP_BYTE_COUNTS, toPrimitiveArray(byteCounts));
-			ifd.putIFDValue(IFD.STRIP_OFFSETS, toPrimitiveArray(offsets));
-		}
 
 		final long fp = out.getFilePointer();
 		writeIFD(ifd, 0);
 
-		for (int i = 0; i < strips.length; i++) {
+		for (int i = 0; i < strips.size(); i++) {
+			final byte[] strip = getStrip(strips.get(i));
 			out.seek(out.length());
 			final int thisOffset = firstOffset + i;
 			offsets.set(thisOffset, out.getFilePointer());
-			byteCounts.set(thisOffset, new Long(strips[i].length));
+			byteCounts.set(thisOffset, new Long(strip.length));
 			if (log.isDebug()) {
 				log.debug(String.format("Writing tile/strip %d/%d size: %d offset: %d",
 					thisOffset + 1, totalTiles, byteCounts.get(thisOffset), offsets
 						.get(thisOffset)));
 			}
-			out.write(strips[i]);
+			out.write(strip);
 		}
 		if (isTiled) {
 			ifd.putIFDValue(IFD.TILE_BYTE_COUNTS, toPrimitiveArray(byteCounts));
@@ -750,6 +784,7 @@ public class TiffSaver extends AbstractContextual {
 		throws FormatException, IOException
 	{
 		if (raf == null) throw new FormatException("Output cannot be null");
+		flush();
 		final TiffParser parser = new TiffParser(getContext(), raf);
 		parser.getIFDOffsets();
 		out.seek(raf.getFilePointer() - (bigTiff ? 8 : 4));
@@ -769,6 +804,7 @@ public class TiffSaver extends AbstractContextual {
 		IOException
 	{
 		if (raf == null) throw new FormatException("Output cannot be null");
+		flush();
 		log.debug("overwriteIFDValue (ifd=" + ifd + "; tag=" + tag + "; value=" +
 			value + ")");
 
@@ -894,6 +930,181 @@ public class TiffSaver extends AbstractContextual {
 
 	// -- Helper methods --
 
+	/**
+	 * Differences and compresses the given strips, on up to
+	 * {@link #getCompressionThreads()} threads.
+	 *
+	 * @return One future per strip, in strip order.
+	 */
+	private List<Future<byte[]>> compressStrips(final byte[][] strips,
+		final IFD ifd, final TiffCompression compression, final int tileWidth,
+		final int tileHeight, final int channels) throws FormatException
+	{
+		final int nStrips = strips.length;
+		final List<Future<byte[]>> compressed = new ArrayList<>(nStrips);
+
+		if (compressionThreads <= 1 || nStrips <= 1) {
+			for (int strip = 0; strip < nStrips; strip++) {
+				compressed.add(CompletableFuture.completedFuture(compressStrip(
+					strips[strip], ifd, compression, tileWidth, tileHeight, channels)));
+				strips[strip] = null;
+				logCompressedStrip(strip, nStrips, compressed.get(strip));
+			}
+			return compressed;
+		}
+
+		// NB: the IFD is updated while earlier strips are being written, so the
+		// compression threads work on a snapshot of it.
+		final IFD stripIFD = new IFD(ifd, log);
+		final List<CompletableFuture<byte[]>> results = new ArrayList<>(nStrips);
+		for (int strip = 0; strip < nStrips; strip++) {
+			results.add(new CompletableFuture<byte[]>());
+		}
+		final AtomicInteger nextStrip = new AtomicInteger();
+		final int nThreads = Math.min(compressionThreads, nStrips);
+		for (int t = 0; t < nThreads; t++) {
+			scifio.thread().run(new Runnable() {
+
+				@Override
+				public void run() {
+					int strip;
+					while ((strip = nextStrip.getAndIncrement()) < nStrips) {
+						try {
+							final byte[] bytes = strips[strip];
+							strips[strip] = null;
+							results.get(strip).complete(compressStrip(bytes, stripIFD,
+								compression, tileWidth, tileHeight, channels));
+						}
+						catch (final Throwable exc) {
+							results.get(strip).completeExceptionally(exc);
+						}
+						logCompressedStrip(strip, nStrips, results.get(strip));
+					}
+				}
+			});
+		}
+		compressed.addAll(results);
+		return compressed;
+	}
+
+	/** Differences and compresses a single strip. */
+	private byte[] compressStrip(final byte[] strip, final IFD ifd,
+		final TiffCompression compression, final int tileWidth,
+		final int tileHeight, final int channels) throws FormatException
+	{
+		scifio.tiff().difference(strip, ifd);
+		final CodecOptions codecOptions =
+			compression.getCompressionCodecOptions(ifd, options);
+		codecOptions.height = tileHeight;
+		codecOptions.width = tileWidth;
+		codecOptions.channels = channels;
+		return compression.compress(scifio.codec(), strip, codecOptions);
+	}
+
+	private void logCompressedStrip(final int strip, final int nStrips,
+		final Future<byte[]> compressed)
+	{
+		if (log.isDebug() && compressed.isDone()) {
+			try {
+				log.debug(String.format("Compressed strip %d/%d length %d",
+					strip + 1, nStrips, compressed.get().length));
+			}
+			catch (final InterruptedException | ExecutionException e) {
+				// NB: reported when the strip is written
+			}
+		}
+	}
+
+	/** Waits for the given strip to be compressed. */
+	private byte[] getStrip(final Future<byte[]> strip) throws FormatException,
+		IOException
+	{
+		try {
+			return strip.get();
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while compressing strips", e);
+		}
+		catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof FormatException) throw (FormatException) cause;
+			if (cause instanceof IOException) throw (IOException) cause;
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			throw new FormatException(cause);
+		}
+	}
+
+	/**
+	 * Fills the given lists with the strip or tile byte counts and offsets of
+	 * the given IFD, or with zeros if it has none yet, and puts them back into
+	 * the IFD, which then has all the entries it is written with.
+	 *
+	 * @return The number of strips or tiles of the image.
+	 */
+	private long putStripEntries(final IFD ifd, final int nChannels,
+		final List<Long> byteCounts, final List<Long> offsets)
+		throws FormatException
+	{
+		final boolean isTiled = ifd.isTiled();
+		long totalTiles = ifd.getTilesPerRow() * ifd.getTilesPerColumn();
+		if (ifd.getPlanarConfiguration() != 1) totalTiles *= nChannels;
+
+		if (ifd.containsKey(IFD.STRIP_BYTE_COUNTS) ||
+			ifd.containsKey(IFD.TILE_BYTE_COUNTS))
+		{
+			final long[] ifdByteCounts =
+				isTiled ? ifd.getIFDLongArray(IFD.TILE_BYTE_COUNTS) : ifd
+					.getStripByteCounts();
+			for (final long stripByteCount : ifdByteCounts) {
+				byteCounts.add(stripByteCount);
+			}
+		}
+		else {
+			while (byteCounts.size() < totalTiles) {
+				byteCounts.add(0L);
+			}
+		}
+		if (ifd.containsKey(IFD.STRIP_OFFSETS) || ifd.containsKey(IFD.TILE_OFFSETS))
+		{
+			final long[] ifdOffsets =
+				isTiled ? ifd.getIFDLongArray(IFD.TILE_OFFSETS) : ifd.getStripOffsets();
+			for (final long ifdOffset : ifdOffsets) {
+				offsets.add(ifdOffset);
+			}
+		}
+		else {
+			while (offsets.size() < totalTiles) {
+				offsets.add(0L);
+			}
+		}
+
+		if (isTiled) {
+			ifd.putIFDValue(IFD.TILE_BYTE_COUNTS, toPrimitiveArray(byteCounts));
+			ifd.putIFDValue(IFD.TILE_OFFSETS, toPrimitiveArray(offsets));
+		}
+		else {
+			ifd.putIFDValue(IFD.STRIP_BYTE_COUNTS, toPrimitiveArray(byteCounts));
+			ifd.putIFDValue(IFD.STRIP_OFFSETS, toPrimitiveArray(offsets));
+		}
+		return totalTiles;
+	}
+
+	/**
+	 * Gets the number of bytes {@link #writeIFD(IFD, long)} writes for the
+	 * given IFD, which only depends on the number of values of its entries.
+	 */
+	private long getIFDSize(final IFD ifd) throws FormatException,
+		IOException
+	{
+		final ByteArrayHandle handle = new ByteArrayHandle();
+		final TiffSaver saver =
+			new TiffSaver(new RandomAccessOutputStream(handle), handle);
+		saver.setBigTiff(bigTiff);
+		saver.writeIFD(ifd, 0);
+		return handle.length();
+	}
+
 	/**
 	 * Coverts a list to a primitive array.
 	 *
@@ -974,4 +1185,31 @@ public class TiffSaver extends AbstractContextual {
 		}
 	}
 
+	// -- Helper classes --
+
+	/** An image whose strips have been submitted for compression. */
+	private static class PendingImage {
+
+		private final IFD ifd;
+		private final long planeIndex;
+		private final List<Future<byte[]>> strips;
+		private final int nChannels;
+		private final boolean last;
+		private final int x;
+		private final int y;
+
+		public PendingImage(final IFD ifd, final long planeIndex,
+			final List<Future<byte[]>> strips, final int nChannels,
+			final boolean last, final int x, final int y)
+		{
+			this.ifd = ifd;
+			this.planeIndex = planeIndex;
+			this.strips = strips;
+			this.nChannels = nChannels;
+			this.last = last;
+			this.x = x;
+			this.y = y;
+		}
+	}
+
 }
@@ -46,4 +46,10 @@ public interface TiffService extends SCIFIOService {
 	/** Undoes in-place differencing according to the given predictor value. */
 	void undifference(byte[] input, IFD ifd) throws FormatException;
 
+	/**
+	 * Undoes in-place differencing of the first {@code length} bytes of the
+	 * given array, according to the given predictor value.
+	 */
+	void undifference(byte[] input, int length, IFD ifd) throws FormatException;
+
 }
@@ -30,6 +30,7 @@
 
 package io.scif.img;
 
+import io.scif.Format;
 import io.scif.FormatException;
 import io.scif.Metadata;
 import io.scif.Plane;
@@ -51,16 +52,23 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.imagej.ImgPlus;
 import net.imagej.axis.Axes;
 import net.imagej.axis.AxisType;
 import net.imagej.axis.CalibratedAxis;
+import net.imglib2.display.ColorTable;
 import net.imglib2.exception.IncompatibleTypeException;
 import net.imglib2.img.Img;
 import net.imglib2.img.ImgFactory;
+import net.imglib2.img.array.ArrayImg;
 import net.imglib2.img.basictypeaccess.PlanarAccess;
 import net.imglib2.img.cell.AbstractCellImgFactory;
+import net.imglib2.img.planar.PlanarImg;
 import net.imglib2.type.NativeType;
 import net.imglib2.type.Type;
 import net.imglib2.type.numeric.RealType;
@@ -68,6 +76,7 @@ import net.imglib2.type.numeric.RealType;
 import org.scijava.Context;
 import org.scijava.app.StatusService;
 import org.scijava.plugin.Parameter;
+import org.scijava.thread.ThreadService;
 
 /**
  * Reads in an {@link ImgPlus} using SCIFIO.
@@ -88,6 +97,9 @@ public class ImgOpener extends AbstractImgIOComponent {
 	@Parameter
 	private InitializeService initializeService;
 
+	@Parameter
+	private ThreadService threadService;
+
 	// -- Constructors --
 
 	public ImgOpener() {
@@ -350,6 +362,12 @@ public class ImgOpener extends AbstractImgIOComponent {
 				((SCIFIOCellImgFactory<?>) imgFactory).setReader(reader, i(imageIndex));
 				((SCIFIOCellImgFactory<?>) imgFactory).setSubRegion(config
 					.imgOpenerGetRegion());
+				((SCIFIOCellImgFactory<?>) imgFactory).setCacheBytes(config
+					.imgOpenerGetCellCacheBytes());
+				final ReaderPool pool = createReaderPool(reader, config);
+				if (pool != null) {
+					((SCIFIOCellImgFactory<?>) imgFactory).setReaderPool(pool);
+				}
 			}
 			final Img<T> img = imgFactory.create(dimLengths, type);
 			final SCIFIOImgPlus<T> imgPlus =
@@ -553,16 +571,38 @@ public class ImgOpener extends AbstractImgIOComponent {
 	private Reader createReader(final String source, final SCIFIOConfig config)
 		throws ImgIOException
 	{
+		return createReader(null, source, config);
+	}
+
+	/**
+	 * @param format - Format to open the dataset with, or null to detect it
+	 * @param source - Dataset source to open
+	 * @param config - Options object for opening this dataset
+	 * @return A Reader initialized to open the specified id
+	 */
+	private Reader createReader(final Format format, final String source,
+		final SCIFIOConfig config) throws ImgIOException
+	{
 
 		final boolean computeMinMax = config.imgOpenerIsComputeMinMax();
 		statusService.showStatus("Initializing " + source);
 
 		ReaderFilter r = null;
 		try {
-			r = initializeService.initializeReader(source, config);
+			if (format == null) {
+				r = initializeService.initializeReader(source, config);
+			}
+			else {
+				final Reader base = format.createReader();
+				base.setSource(source, config);
+				r = new ReaderFilter(base);
+			}
 			r.enable(ChannelFiller.class);
 			r.enable(PlaneSeparator.class).separate(axesToSplit(r));
-			if (computeMinMax) r.enable(MinMaxFilter.class);
+			if (computeMinMax) {
+				r.enable(MinMaxFilter.class).setThreadCount(config
+					.imgOpenerGetMinMaxThreads());
+			}
 		}
 		catch (final FormatException e) {
 			throw new ImgIOException(e);
@@ -573,6 +613,39 @@ public class ImgOpener extends AbstractImgIOComponent {
 		return r;
 	}
 
+	/**
+	 * Additional readers are opened with the primary reader's format and the
+	 * filters this opener enables. A reader supplied by the caller may have
+	 * been set up differently, in which case the pool discards the mismatched
+	 * reader and keeps using the primary one alone.
+	 *
+	 * @param reader - Initialized reader to use as the pool's primary reader
+	 * @param config - Options object for opening this dataset
+	 * @return A ReaderPool opening additional readers on the dataset of the
+	 *         given reader, or null if only one reader should be used
+	 */
+	private ReaderPool createReaderPool(final Reader reader,
+		final SCIFIOConfig config)
+	{
+		final String source = reader.getCurrentFile();
+		final int readerCount = config.imgOpenerGetReaderCount();
+		if (source == null || readerCount <= 1) return null;
+
+		final Format format = reader.getFormat();
+		final SCIFIOConfig poolConfig = new SCIFIOConfig(config);
+		return new ReaderPool(reader, readerCount, () -> {
+			try {
+				return createReader(format, source, poolConfig);
+			}
+			catch (final ImgIOException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof FormatException) throw (FormatException) cause;
+				if (cause instanceof IOException) throw (IOException) cause;
+				throw new IOException(e);
+			}
+		});
+	}
+
 	/**
 	 * Returns a list of all AxisTypes that should be split out. This is a list of
 	 * all non-X,Y planar axes. Always tries to split {@link Axes#CHANNEL}.
@@ -782,11 +855,167 @@ public class ImgOpener extends AbstractImgIOComponent {
 			else converter = pcService.getDefaultConverter();
 		}
 
-		read(imageIndex, imgPlus, r, config, converter, planarMin, planarLength,
-			npRanges, npIndices);
+		// A reader supplied by the caller may lack the MinMaxFilter, which only
+		// sees the planes read after it is enabled; readers created for the pool
+		// have it already
+		if (config.imgOpenerIsComputeMinMax()) {
+			((ReaderFilter) r).enable(MinMaxFilter.class).setThreadCount(config
+				.imgOpenerGetMinMaxThreads());
+		}
+
+		// Planes of array and planar images are stored independently of each
+		// other, so they can be populated in any order
+		final Img<T> img = imgPlus.getImg();
+		final ReaderPool pool =
+			img instanceof ArrayImg || img instanceof PlanarImg ? createReaderPool(
+				r, config) : null;
+
+		if (pool == null) {
+			read(imageIndex, imgPlus, r, config, converter, planarMin, planarLength,
+				npRanges, npIndices);
 
-		if (config.imgOpenerIsComputeMinMax()) populateMinMax(r, imgPlus,
-			imageIndex);
+			if (config.imgOpenerIsComputeMinMax()) populateMinMax(r, imgPlus,
+				imageIndex);
+		}
+		else {
+			try {
+				final List<Reader> used =
+					readConcurrently(imageIndex, imgPlus, pool, config, converter,
+						planarMin, planarLength, planeIndices(r, npRanges, npIndices));
+				if (config.imgOpenerIsComputeMinMax()) populateMinMax(used, imgPlus,
+					imageIndex);
+			}
+			finally {
+				pool.close();
+			}
+		}
+	}
+
+	/**
+	 * Lists the rasterized indices of the planes to read, in the order they are
+	 * stored in the destination image: the first non-planar axis varying
+	 * fastest.
+	 */
+	private int[] planeIndices(final Reader r, final Range[] npRanges,
+		final long[] npIndices)
+	{
+		int count = 1;
+		for (final Range range : npRanges) {
+			count *= range.size();
+		}
+		final int[] planeIndices = new int[count];
+		final int[] position = new int[npRanges.length];
+		for (int p = 0; p < count; p++) {
+			for (int a = 0; a < npRanges.length; a++) {
+				npIndices[a] = npRanges[a].get(position[a]);
+			}
+			planeIndices[p] = (int) FormatTools.positionToRaster(0, r, npIndices);
+			for (int a = 0; a < npRanges.length; a++) {
+				if (++position[a] < npRanges[a].size()) break;
+				position[a] = 0;
+			}
+		}
+		return planeIndices;
+	}
+
+	/**
+	 * Reads the given planes into the specified {@link ImgPlus} using as many
+	 * threads as the given {@link ReaderPool} has readers. Each thread holds on
+	 * to one reader and takes the next unread plane until none are left.
+	 *
+	 * @return The readers which were used.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private List<Reader> readConcurrently(final int imageIndex,
+		final ImgPlus imgPlus, final ReaderPool pool, final SCIFIOConfig config,
+		final PlaneConverter converter, final long[] planarMin,
+		final long[] planarLength, final int[] planeIndices)
+		throws FormatException, IOException
+	{
+		final AtomicInteger nextPlane = new AtomicInteger();
+		final ColorTable[] colorTables = new ColorTable[planeIndices.length];
+		final int threads = Math.min(pool.getMaxReaders(), planeIndices.length);
+		final List<Future<Reader>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			futures.add(threadService.run(() -> {
+				final Reader r = pool.acquire();
+				try {
+					Plane tmpPlane = null;
+					int p;
+					while ((p = nextPlane.getAndIncrement()) < planeIndices.length) {
+						if (Thread.currentThread().isInterrupted()) break;
+						tmpPlane = tmpPlane == null ? r.openPlane(imageIndex,
+							planeIndices[p], planarMin, planarLength) : r.openPlane(
+								imageIndex, planeIndices[p], tmpPlane, planarMin,
+								planarLength, config);
+						converter.populatePlane(r, imageIndex, p, tmpPlane.getBytes(),
+							imgPlus, config);
+						colorTables[p] = tmpPlane.getColorTable();
+					}
+					return r;
+				}
+				finally {
+					pool.release(r);
+				}
+			}));
+		}
+
+		final List<Reader> used = new ArrayList<>();
+		try {
+			for (final Future<Reader> future : futures) {
+				used.add(future.get());
+			}
+		}
+		catch (final InterruptedException e) {
+			// NB: interrupting a worker would close the channels of its reader,
+			// so stop the workers from taking further planes instead
+			nextPlane.set(planeIndices.length);
+			for (final Future<Reader> future : futures) {
+				future.cancel(false);
+			}
+			awaitAll(futures);
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading planes", e);
+		}
+		catch (final ExecutionException e) {
+			// stop the remaining threads from taking further planes, and let
+			// them finish the ones they hold before the readers are closed
+			nextPlane.set(planeIndices.length);
+			awaitAll(futures);
+			final Throwable cause = e.getCause();
+			if (cause instanceof FormatException) throw (FormatException) cause;
+			if (cause instanceof IOException) throw (IOException) cause;
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			throw new IOException(cause);
+		}
+
+		for (int p = 0; p < colorTables.length; p++) {
+			imgPlus.setColorTable(colorTables[p], p);
+		}
+		return used;
+	}
+
+	/**
+	 * Waits for all of the given futures to complete, regardless of their
+	 * outcome or of interrupts, which are restored afterwards.
+	 */
+	private void awaitAll(final List<? extends Future<?>> futures) {
+		boolean interrupted = false;
+		for (final Future<?> future : futures) {
+			while (true) {
+				try {
+					future.get();
+					break;
+				}
+				catch (final InterruptedException e) {
+					interrupted = true;
+				}
+				catch (final ExecutionException | CancellationException e) {
+					break;
+				}
+			}
+		}
+		if (interrupted) Thread.currentThread().interrupt();
 	}
 
 	@SuppressWarnings("rawtypes")
@@ -853,16 +1082,35 @@ public class ImgOpener extends AbstractImgIOComponent {
 
 	private void populateMinMax(final Reader r, final ImgPlus<?> imgPlus,
 		final int imageIndex)
+	{
+		final List<Reader> readers = new ArrayList<>();
+		readers.add(r);
+		populateMinMax(readers, imgPlus, imageIndex);
+	}
+
+	/**
+	 * Sets the channel min/max values of the given {@link ImgPlus} from the
+	 * values known to the {@link MinMaxFilter}s of the given readers, which may
+	 * each have read a different subset of the planes.
+	 */
+	private void populateMinMax(final List<Reader> readers,
+		final ImgPlus<?> imgPlus, final int imageIndex)
 	{
 		final int sizeC =
-			(int) r.getMetadata().get(imageIndex).getAxisLength(Axes.CHANNEL);
-		final ReaderFilter rf = (ReaderFilter) r;
-		final MinMaxFilter minMax = rf.enable(MinMaxFilter.class);
+			(int) readers.get(0).getMetadata().get(imageIndex).getAxisLength(
+				Axes.CHANNEL);
 		for (int c = 0; c < sizeC; c++) {
-			final Double min =
-				minMax.getAxisKnownMinimum(imageIndex, Axes.CHANNEL, c);
-			final Double max =
-				minMax.getAxisKnownMinimum(imageIndex, Axes.CHANNEL, c);
+			Double min = null, max = null;
+			for (final Reader r : readers) {
+				final MinMaxFilter minMax =
+					((ReaderFilter) r).enable(MinMaxFilter.class);
+				final Double rMin =
+					minMax.getAxisKnownMinimum(imageIndex, Axes.CHANNEL, c);
+				final Double rMax =
+					minMax.getAxisKnownMaximum(imageIndex, Axes.CHANNEL, c);
+				if (rMin != null && (min == null || rMin < min)) min = rMin;
+				if (rMax != null && (max == null || rMax > max)) max = rMax;
+			}
 			imgPlus.setChannelMinimum(c, min == null ? Double.NaN : min);
 			imgPlus.setChannelMaximum(c, max == null ? Double.NaN : max);
 		}
@@ -0,0 +1,262 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.img;
+
+import io.scif.FormatException;
+import io.scif.ImageMetadata;
+import io.scif.Metadata;
+import io.scif.Reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A bounded pool of {@link Reader}s on the same dataset, allowing planes to be
+ * read from several threads at once without serializing on a single reader.
+ * <p>
+ * The pool always contains the reader it was constructed with. Additional
+ * readers are created on demand, up to {@link #getMaxReaders()}, by the
+ * pool's {@link ReaderFactory}. Every reader has its own stream, so each
+ * additional reader parses its own {@link io.scif.Metadata}; readers are only
+ * created when all existing ones are busy, so a pool that is never used
+ * concurrently costs nothing beyond its primary reader.
+ * </p>
+ * <p>
+ * A reader obtained from {@link #acquire()} is used by a single thread until
+ * it is handed back via {@link #release(Reader)}.
+ * </p>
+ * <p>
+ * Plane indices are only meaningful if every reader presents the dataset the
+ * same way, which the factory cannot always guarantee: e.g., the primary
+ * reader may have been supplied by the caller with filters of its own. Each
+ * created reader is therefore compared against the primary one, and if its
+ * images differ in count, axes, lengths or pixel type it is closed and the
+ * pool stops growing.
+ * </p>
+ */
+public class ReaderPool implements Closeable {
+
+	// -- Fields --
+
+	/** The reader this pool was created with. Never closed by the pool. */
+	private final Reader reader;
+
+	/** Maximum number of readers in this pool, including the primary one. */
+	private int maxReaders;
+
+	/** Creates additional readers, or null if this pool may not grow. */
+	private final ReaderFactory factory;
+
+	/** Readers not currently acquired by any thread. */
+	private final Deque<Reader> idle = new ArrayDeque<>();
+
+	/** Readers created by this pool, which it is responsible for closing. */
+	private final List<Reader> created = new ArrayList<>();
+
+	/** Number of readers in existence (or being created). */
+	private int readerCount;
+
+	// -- Constructors --
+
+	/**
+	 * Creates a pool consisting of the given reader only. Threads acquiring it
+	 * take turns, as if synchronizing on the reader.
+	 */
+	public ReaderPool(final Reader reader) {
+		this(reader, 1, null);
+	}
+
+	/**
+	 * @param reader Initialized reader to use first.
+	 * @param maxReaders Maximum number of readers to have open at once.
+	 * @param factory Factory for additional readers, which should be
+	 *          equivalent to {@code reader}: same source, same format, same
+	 *          filters. Readers that do not match are discarded.
+	 */
+	public ReaderPool(final Reader reader, final int maxReaders,
+		final ReaderFactory factory)
+	{
+		if (reader == null) throw new IllegalArgumentException("Null reader");
+		this.reader = reader;
+		this.maxReaders = factory == null ? 1 : Math.max(1, maxReaders);
+		this.factory = factory;
+		idle.push(reader);
+		readerCount = 1;
+	}
+
+	// -- ReaderPool methods --
+
+	/**
+	 * @return The reader this pool was created with.
+	 */
+	public Reader getReader() {
+		return reader;
+	}
+
+	/**
+	 * @return The maximum number of readers this pool will have open at once.
+	 */
+	public synchronized int getMaxReaders() {
+		return maxReaders;
+	}
+
+	/**
+	 * Takes a reader out of the pool, creating one if all existing readers are
+	 * busy and the pool has not reached its maximum size, or waiting for one to
+	 * be released otherwise.
+	 *
+	 * @return A reader for exclusive use by the calling thread, which must be
+	 *         passed to {@link #release(Reader)} when done.
+	 */
+	public Reader acquire() throws FormatException, IOException {
+		while (true) {
+			synchronized (this) {
+				while (idle.isEmpty() && readerCount >= maxReaders) {
+					try {
+						wait();
+					}
+					catch (final InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new IOException("Interrupted while waiting for a reader",
+							e);
+					}
+				}
+				if (!idle.isEmpty()) return idle.pop();
+				readerCount++;
+			}
+
+			// NB: initializing a reader parses the dataset, so do it unlocked
+			final Reader r;
+			try {
+				r = factory.create();
+			}
+			catch (final FormatException | IOException | RuntimeException e) {
+				synchronized (this) {
+					readerCount--;
+					notifyAll();
+				}
+				throw e;
+			}
+
+			if (matches(r)) {
+				synchronized (this) {
+					created.add(r);
+				}
+				return r;
+			}
+
+			// The factory's readers see a different dataset layout than the
+			// primary reader, so make do with the readers we have
+			try {
+				r.close();
+			}
+			finally {
+				synchronized (this) {
+					readerCount--;
+					maxReaders = readerCount;
+					notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a reader obtained from {@link #acquire()} to the pool.
+	 */
+	public synchronized void release(final Reader r) {
+		idle.push(r);
+		notifyAll();
+	}
+
+	// -- Closeable methods --
+
+	/**
+	 * Closes all readers created by this pool. The primary reader is left open,
+	 * and the pool remains usable.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		for (final Reader r : created) {
+			idle.remove(r);
+			r.close();
+		}
+		readerCount -= created.size();
+		created.clear();
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * @return true iff the given reader presents the same images as the primary
+	 *         reader, so that plane indices mean the same thing to both.
+	 */
+	private boolean matches(final Reader r) {
+		final Metadata expected = reader.getMetadata();
+		final Metadata actual = r.getMetadata();
+		if (actual == null || expected.getImageCount() != actual.getImageCount()) {
+			return false;
+		}
+		for (int i = 0; i < expected.getImageCount(); i++) {
+			final ImageMetadata e = expected.get(i);
+			final ImageMetadata a = actual.get(i);
+			if (e.getPixelType() != a.getPixelType() || e.getPlanarAxisCount() != a
+				.getPlanarAxisCount() || !Arrays.equals(e.getAxesLengths(), a
+					.getAxesLengths()))
+			{
+				return false;
+			}
+			for (int d = 0; d < e.getAxes().size(); d++) {
+				if (!e.getAxis(d).type().equals(a.getAxis(d).type())) return false;
+			}
+		}
+		return true;
+	}
+
+	// -- Helper classes --
+
+	/**
+	 * Creates readers equivalent to a pool's primary reader. The pool stops
+	 * growing as soon as a created reader does not match it.
+	 */
+	public interface ReaderFactory {
+
+		/**
+		 * @return A new, initialized reader.
+		 */
+		Reader create() throws FormatException, IOException;
+	}
+
+}
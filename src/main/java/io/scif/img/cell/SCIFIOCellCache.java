@@ -35,9 +35,14 @@ import io.scif.img.cell.cache.CacheService;
 import io.scif.img.cell.loaders.SCIFIOArrayLoader;
 import io.scif.refs.RefManagerService;
 
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
 
@@ -49,6 +54,18 @@ import org.scijava.thread.ThreadService;
 /**
  * {@link CellCache} implementation for {@link SCIFIOCell}s. Loads the requested
  * cell if it is not already in the cache.
+ * <p>
+ * Cells are looked up in three tiers: a bounded in-memory tier, which holds
+ * the most recently used cells strongly up to a byte budget; references to
+ * any other cells still in memory; and finally the {@link CacheService}, which
+ * may deserialize a cell from disk. Cells evicted from the in-memory tier are
+ * only softly referenced, so they stay available until the JVM needs the
+ * memory, and are then handed to the {@link CacheService} as usual.
+ * </p>
+ * <p>
+ * With a budget of 0 the in-memory tier is disabled and cells are only weakly
+ * referenced, i.e. they are released at the first garbage collection.
+ * </p>
  *
  * @author Mark Hiner
  */
@@ -82,24 +99,58 @@ public class SCIFIOCellCache<A extends ArrayDataAccess<?>> implements
 	 */
 	final private String cacheId = this.toString();
 
-	// TODO: would be nice to replace this with another soft reference cache
-	// that
-	// was more configurable
-	// e.g. controlling max elements and such.
-	// In-memory cache.
-	final private Map<Integer, WeakReference<SCIFIOCell<A>>> map =
+	// In-memory cache. Weak references if there is no memory budget, soft
+	// references otherwise.
+	final private Map<Integer, Reference<SCIFIOCell<A>>> map =
 		new ConcurrentHashMap<>();
 
+	/**
+	 * Maximum number of bytes of cell data to hold strongly in memory.
+	 */
+	final private long maxBytes;
+
+	/**
+	 * Strongly held cells, in least- to most-recently used order. Guarded by
+	 * its own monitor.
+	 */
+	final private LinkedHashMap<Integer, SCIFIOCell<A>> recent =
+		new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Bytes of cell data currently held in {@link #recent}.
+	 */
+	private long bytes;
+
+	// Statistics on in-memory cache use
+	final private AtomicLong hits = new AtomicLong();
+
+	final private AtomicLong misses = new AtomicLong();
+
+	final private AtomicLong evictions = new AtomicLong();
+
 	// -- Constructor --
 
+	/**
+	 * Creates a new SCIFIOCellCache, without an in-memory budget, and makes it
+	 * available to the current CacheService
+	 */
+	public SCIFIOCellCache(final Context context,
+		final SCIFIOArrayLoader<A> loader)
+	{
+		this(context, loader, 0);
+	}
+
 	/**
 	 * Creates a new SCIFIOCellCache and makes it available to the current
 	 * CacheService
+	 *
+	 * @param maxBytes - number of bytes of cell data to keep in memory
 	 */
 	public SCIFIOCellCache(final Context context,
-		final SCIFIOArrayLoader<A> loader)
+		final SCIFIOArrayLoader<A> loader, final long maxBytes)
 	{
 		this.loader = loader;
+		this.maxBytes = Math.max(0, maxBytes);
 		context.inject(this);
 		cacheService.addCache(cacheId);
 		refManagerService.manage(this);
@@ -142,6 +193,7 @@ public class SCIFIOCellCache<A extends ArrayDataAccess<?>> implements
 			return cell;
 		}
 
+		misses.incrementAndGet();
 		cell =
 			new SCIFIOCell<>(cacheService, cacheId, index, cellDims, cellMin, loader
 				.loadArray(cellDims, cellMin));
@@ -160,24 +212,111 @@ public class SCIFIOCellCache<A extends ArrayDataAccess<?>> implements
 		return cacheId;
 	}
 
+	/**
+	 * @return The maximum number of bytes of cell data held in memory.
+	 */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * @return The number of bytes of cell data currently held in memory.
+	 */
+	public long getBytes() {
+		synchronized (recent) {
+			return bytes;
+		}
+	}
+
+	/**
+	 * @return The number of requested cells that were found in memory.
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * @return The number of requested cells that were in neither memory nor the
+	 *         {@link CacheService}, and so had to be loaded.
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * @return The number of cells evicted from the in-memory tier to stay within
+	 *         {@link #getMaxBytes()}.
+	 */
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	/**
+	 * Drops all strongly held cells. They remain softly referenced.
+	 */
+	public void trim() {
+		synchronized (recent) {
+			recent.clear();
+			bytes = 0;
+		}
+	}
+
 	// -- Helper Methods --
 
 	/**
-	 * Maps a weak reference to the given cell. This ensures the cell can be
-	 * garbage collected when it's no longer in use, but can still be returned
-	 * from memory until that point.
+	 * Maps a weak, or soft, reference to the given cell. This ensures the cell
+	 * can be garbage collected when it's no longer in use, but can still be
+	 * returned from memory until that point. The cell is also held strongly
+	 * within the memory budget.
 	 *
 	 * @param k - Key to map to the given cell
 	 * @param cell - Cell to put in the in-memory cache
 	 */
 	private void cache(final Integer k, final SCIFIOCell<A> cell) {
-		map.put(k, new WeakReference<>(cell));
+		map.put(k, maxBytes > 0 ? new SoftReference<>(cell)
+			: new WeakReference<>(cell));
 		refManagerService.manage(cell, k, map);
+		hold(k, cell);
 	}
 
 	/**
-	 * First checks the local (weak) map. If empty, cache service is checked -
-	 * which can potentially deserialize from disk.
+	 * Marks the given cell as the most recently used one, holding it strongly
+	 * and evicting the least recently used cells beyond the memory budget.
+	 */
+	private void hold(final Integer k, final SCIFIOCell<A> cell) {
+		final long size = cell.getElementSize();
+		if (maxBytes == 0 || size < 0 || size > maxBytes) return;
+
+		synchronized (recent) {
+			final SCIFIOCell<A> old = recent.put(k, cell);
+			if (old != null) bytes -= old.getElementSize();
+			bytes += size;
+
+			final Iterator<SCIFIOCell<A>> iter = recent.values().iterator();
+			while (bytes > maxBytes && iter.hasNext()) {
+				final SCIFIOCell<A> eldest = iter.next();
+				if (eldest == cell) break;
+				bytes -= eldest.getElementSize();
+				iter.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * @return The strongly held cell for the given key, if any, marking it as
+	 *         the most recently used one.
+	 */
+	private SCIFIOCell<A> recent(final Integer k) {
+		if (maxBytes == 0) return null;
+		synchronized (recent) {
+			return recent.get(k);
+		}
+	}
+
+	/**
+	 * First checks the local (strong, then soft or weak) maps. If empty, cache
+	 * service is checked - which can potentially deserialize from disk.
 	 *
 	 * @param id - cache id to look up
 	 * @param index - cell index
@@ -188,7 +327,15 @@ public class SCIFIOCellCache<A extends ArrayDataAccess<?>> implements
 		SCIFIOCell<A> cell = null;
 
 		final Integer k = cacheService.getKey(id, index);
-		WeakReference<SCIFIOCell<A>> ref = null;
+
+		// Check the strongly held cells
+		cell = recent(k);
+		if (cell != null) {
+			hits.incrementAndGet();
+			return cell;
+		}
+
+		Reference<SCIFIOCell<A>> ref = null;
 		// Check the local cache
 		synchronized (map) {
 			ref = map.get(k);
@@ -205,6 +352,12 @@ public class SCIFIOCellCache<A extends ArrayDataAccess<?>> implements
 			}
 		}
 
+		if (cell != null) {
+			hits.incrementAndGet();
+			hold(k, cell);
+			return cell;
+		}
+
 		// Check the cache manager
 		if (cell == null) {
 			cell = (SCIFIOCell<A>) cacheService.retrieve(id, index);
@@ -32,6 +32,7 @@ package io.scif.img.cell;
 
 import io.scif.FormatException;
 import io.scif.Reader;
+import io.scif.img.ReaderPool;
 import io.scif.img.cell.loaders.SCIFIOArrayLoader;
 import io.scif.refs.RefManagerService;
 
@@ -59,6 +60,8 @@ public class SCIFIOCellImg<T extends NativeType<T>, A, C extends AbstractCell<A>
 
 	private final Reader reader;
 
+	private final ReaderPool readers;
+
 	private SCIFIOArrayLoader<?> loader;
 
 	// -- Constructor --
@@ -68,6 +71,7 @@ public class SCIFIOCellImg<T extends NativeType<T>, A, C extends AbstractCell<A>
 	{
 		super(factory, cells);
 		reader = factory.reader();
+		readers = factory.readers();
 		reader.getContext().getService(RefManagerService.class).manage(this);
 	}
 
@@ -126,6 +130,7 @@ public class SCIFIOCellImg<T extends NativeType<T>, A, C extends AbstractCell<A>
 	@Override
 	public void dispose() {
 		try {
+			if (readers != null) readers.close();
 			reader.close();
 		}
 		catch (final IOException e) {}
@@ -33,6 +33,7 @@ package io.scif.img.cell;
 import io.scif.Reader;
 import io.scif.filters.ReaderFilter;
 import io.scif.img.ImageRegion;
+import io.scif.img.ReaderPool;
 import io.scif.img.cell.loaders.ByteArrayLoader;
 import io.scif.img.cell.loaders.CharArrayLoader;
 import io.scif.img.cell.loaders.DoubleArrayLoader;
@@ -72,8 +73,12 @@ public final class SCIFIOCellImgFactory<T extends NativeType<T>> extends
 
 	private Reader reader;
 
+	private ReaderPool readers;
+
 	private ImageRegion subregion;
 
+	private long cacheBytes;
+
 	// -- Constuctors --
 
 	public SCIFIOCellImgFactory() {}
@@ -92,7 +97,7 @@ public final class SCIFIOCellImgFactory<T extends NativeType<T>> extends
 	public SCIFIOCellImg<T, ByteArray, SCIFIOCell<ByteArray>> createByteInstance(
 		final long[] dimensions, final Fraction entitiesPerPixel)
 	{
-		return createInstance(new ByteArrayLoader(reader(), subregion), dimensions,
+		return createInstance(new ByteArrayLoader(readers, subregion), dimensions,
 			entitiesPerPixel);
 	}
 
@@ -100,7 +105,7 @@ public final class SCIFIOCellImgFactory<T extends NativeType<T>> extends
 	public SCIFIOCellImg<T, CharArray, SCIFIOCell<CharArray>> createCharInstance(
 		final long[] dimensions, final Fraction entitiesPerPixel)
 	{
-		return createInstance(new CharArrayLoader(reader(), subregion), dimensions,
+		return createInstance(new CharArrayLoader(readers, subregion), dimensions,
 			entitiesPerPixel);
 	}
 
@@ -109,7 +114,7 @@ public final class SCIFIOCellImgFactory<T extends NativeType<T>> extends
 		SCIFIOCellImg<T, ShortArray, SCIFIOCell<ShortArray>>
 		createShortInstance(final long[] dimensions, final Fraction entitiesPerPixel)
 	{
-		return createInstance(new ShortArrayLoader(reader(), subregion),
+		return createInstance(new ShortArrayLoader(readers, subregion),
 			dimensions, entitiesPerPixel);
 	}
 
@@ -117,7 +122,7 @@ public final class SCIFIOCellImgFactory<T extends NativeType<T>> extends
 	public SCIFIOCellImg<T, IntArray, SCIFIOCell<IntArray>> createIntInstance(
 		final long[] dimensions, final Fraction entitiesPerPixel)
 	{
-		return createInstance(new IntArrayLoader(reader(), subregion), dimensions,
+		return createInstance(new IntArrayLoader(readers, subregion), dimensions,
 			entitiesPerPixel);
 	}
 
@@ -125,7 +130,7 @@ public final class SCIFIOCellImgFactory<T extends NativeType<T>> extends
 	public SCIFIOCellImg<T, LongArray, SCIFIOCell<LongArray>> createLongInstance(
 		final long[] dimensions, final Fraction entitiesPerPixel)
 	{
-		return createInstance(new LongArrayLoader(reader(), subregion), dimensions,
+		return createInstance(new LongArrayLoader(readers, subregion), dimensions,
 			entitiesPerPixel);
 	}
 
@@ -134,7 +139,7 @@ public final class SCIFIOCellImgFactory<T extends NativeType<T>> extends
 		SCIFIOCellImg<T, FloatArray, SCIFIOCell<FloatArray>>
 		createFloatInstance(final long[] dimensions, final Fraction entitiesPerPixel)
 	{
-		return createInstance(new FloatArrayLoader(reader(), subregion),
+		return createInstance(new FloatArrayLoader(readers, subregion),
 			dimensions, entitiesPerPixel);
 	}
 
@@ -143,7 +148,7 @@ public final class SCIFIOCellImgFactory<T extends NativeType<T>> extends
 		createDoubleInstance(final long[] dimensions,
 			final Fraction entitiesPerPixel)
 	{
-		return createInstance(new DoubleArrayLoader(reader(), subregion),
+		return createInstance(new DoubleArrayLoader(readers, subregion),
 			dimensions, entitiesPerPixel);
 	}
 
@@ -185,6 +190,7 @@ public final class SCIFIOCellImgFactory<T extends NativeType<T>> extends
 	 */
 	public void setReader(Reader r, final int imageIndex) {
 		reader = r;
+		readers = new ReaderPool(r);
 		index = imageIndex;
 
 		if (r instanceof ReaderFilter) r = ((ReaderFilter) r).getTail();
@@ -194,6 +200,29 @@ public final class SCIFIOCellImgFactory<T extends NativeType<T>> extends
 				(int) reader.getOptimalTileHeight(imageIndex), 1, 1, 1 };
 	}
 
+	/**
+	 * @return The {@link ReaderPool} used by created {@link SCIFIOCellImg}s to
+	 *         load cells.
+	 */
+	public ReaderPool readers() {
+		return readers;
+	}
+
+	/**
+	 * Allows created {@link SCIFIOCellImg}s to load cells from multiple threads
+	 * at once. Must be called after {@link #setReader(Reader, int)}, with a pool
+	 * whose primary reader is the reader set there.
+	 *
+	 * @param pool Pool of readers to use for cell loading.
+	 */
+	public void setReaderPool(final ReaderPool pool) {
+		if (pool.getReader() != reader) {
+			throw new IllegalArgumentException(
+				"ReaderPool does not match this factory's Reader");
+		}
+		readers = pool;
+	}
+
 	/**
 	 * @param region The {@link ImageRegion} that will be operated on by any
 	 *          created {@link SCIFIOCellImg}s.
@@ -202,6 +231,24 @@ public final class SCIFIOCellImgFactory<T extends NativeType<T>> extends
 		subregion = region;
 	}
 
+	/**
+	 * @return The number of bytes of cell data each created
+	 *         {@link SCIFIOCellImg} keeps strongly in memory.
+	 */
+	public long getCacheBytes() {
+		return cacheBytes;
+	}
+
+	/**
+	 * @param bytes The number of bytes of cell data each created
+	 *          {@link SCIFIOCellImg} keeps strongly in memory. If 0, cells are
+	 *          only weakly referenced once they are no longer in use.
+	 * @see SCIFIOCellCache
+	 */
+	public void setCacheBytes(final long bytes) {
+		cacheBytes = bytes;
+	}
+
 	// -- Helper Methods --
 
 	private <A extends ArrayDataAccess<?>, L extends SCIFIOArrayLoader<A>>
@@ -214,7 +261,7 @@ public final class SCIFIOCellImgFactory<T extends NativeType<T>> extends
 		loader.setIndex(index);
 
 		final SCIFIOCellCache<A> c =
-			new SCIFIOCellCache<>(reader.getContext(), loader);
+			new SCIFIOCellCache<>(reader.getContext(), loader, cacheBytes);
 
 		final SCIFIOCellImg<T, A, SCIFIOCell<A>> cellImg =
 			new SCIFIOCellImg<>(this, new SCIFIOImgCells<>(c,
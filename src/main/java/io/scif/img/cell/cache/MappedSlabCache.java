@@ -0,0 +1,803 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.img.cell.cache;
+
+import io.scif.FormatException;
+import io.scif.codec.Codec;
+import io.scif.codec.CodecOptions;
+import io.scif.img.cell.SCIFIOCell;
+import io.scif.refs.RefManagerService;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.basictypeaccess.array.ByteArray;
+import net.imglib2.img.basictypeaccess.array.CharArray;
+import net.imglib2.img.basictypeaccess.array.DoubleArray;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.img.basictypeaccess.array.LongArray;
+import net.imglib2.img.basictypeaccess.array.ShortArray;
+
+import org.scijava.Priority;
+import org.scijava.log.LogService;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.service.Service;
+import org.scijava.thread.ThreadService;
+
+/**
+ * {@link CacheService} implementation storing the raw primitive arrays of
+ * {@link SCIFIOCell}s in a memory-mapped temporary file, without Java
+ * serialization.
+ * <p>
+ * The file is divided into slabs which are mapped as they are needed. Space
+ * within the slabs is handed out by a first-fit allocator which coalesces
+ * freed ranges, and each cached cell is recorded in an in-memory index by its
+ * slab and offset. Cells are written behind: {@link #cache} takes a copy of
+ * the cell's data and returns, and a background thread copies it into the
+ * slab. Until then, the cell is retrieved from the pending copy. Once the
+ * pending copies exceed {@link #setMaxPendingBytes(long) a limit}, further
+ * cells are written by the caller instead, straight from their arrays.
+ * </p>
+ * <p>
+ * Cells can be compressed as they are written, by setting a {@link Codec}
+ * with {@link #setCodec(Codec)}; a fast one such as
+ * {@link io.scif.codec.LZ4Codec} suits cells which are written and read back
+ * often.
+ * </p>
+ * <p>
+ * This service has a lower priority than {@link MapDBCache}. To use it, list
+ * it explicitly when creating the {@link org.scijava.Context}, before any
+ * service which depends on a {@link CacheService}.
+ * </p>
+ */
+@Plugin(type = Service.class, priority = Priority.LOW_PRIORITY)
+public class MappedSlabCache extends AbstractCacheService<SCIFIOCell<?>> {
+
+	// -- Constants --
+
+	/** Default size of a slab, in bytes. Larger cells get their own slab. */
+	private static final int SLAB_SIZE = 64 * 1024 * 1024;
+
+	/** Alignment of allocations within a slab, in bytes. */
+	private static final int ALIGNMENT = 8;
+
+	/** Default limit of the cell data waiting to be written, in bytes. */
+	private static final long MAX_PENDING_BYTES = 64 * 1024 * 1024;
+
+	// -- Parameters --
+
+	@Parameter
+	private ThreadService threadService;
+
+	@Parameter
+	private RefManagerService refManagerService;
+
+	@Parameter
+	private LogService logService;
+
+	// -- Fields --
+
+	/** List of caches. */
+	private final Set<String> caches = ConcurrentHashMap.newKeySet();
+
+	/** Index of all stored cells, by key. */
+	private final Map<Integer, Entry> index = new ConcurrentHashMap<>();
+
+	/**
+	 * Keys of all cells that have been retrieved so far. These entries are OK
+	 * to delete from disk.
+	 */
+	private final Set<Integer> retrievedKeys = ConcurrentHashMap.newKeySet();
+
+	/** Entries waiting to be written to their slab. */
+	private final Queue<Entry> writeQueue = new ConcurrentLinkedQueue<>();
+
+	/** Whether the write-behind task is running. */
+	private final AtomicBoolean writing = new AtomicBoolean();
+
+	/** Number of bytes of all stored cells, pending or written. */
+	private final AtomicLong storedBytes = new AtomicLong();
+
+	/** Number of bytes of the cells in the write queue. */
+	private final AtomicLong pendingBytes = new AtomicLong();
+
+	/** Limit of {@link #pendingBytes}, beyond which cells are written inline. */
+	private volatile long maxPendingBytes = MAX_PENDING_BYTES;
+
+	/** Maximum cache size, in bytes. */
+	private long maxCacheSize = Long.MAX_VALUE;
+
+	/** Backing file of the slabs, or null if not yet created. */
+	private File file;
+
+	private RandomAccessFile raf;
+
+	/** Codec compressing the cells written to slabs, or null if none. */
+	private volatile Codec codec;
+
+	/** Mapped slabs, in file order. Guarded by this service's monitor. */
+	private final List<Slab> slabs = new ArrayList<>();
+
+	// -- CacheService API Methods --
+
+	@Override
+	public void clearCache(final String cacheId) {
+		for (final Iterator<Entry> iter = index.values().iterator(); iter
+			.hasNext();)
+		{
+			final Entry e = iter.next();
+			if (e.cacheId.equals(cacheId)) {
+				iter.remove();
+				retrievedKeys.remove(e.key);
+				drop(e);
+			}
+		}
+	}
+
+	@Override
+	public void clearAllCaches() {
+		for (final String cache : caches) {
+			clearCache(cache);
+		}
+	}
+
+	@Override
+	public void dropCache(final String cacheId) {
+		if (caches.remove(cacheId)) clearCache(cacheId);
+	}
+
+	@Override
+	public void addCache(final String cacheId) {
+		caches.add(cacheId);
+	}
+
+	@Override
+	public CacheResult cache(final String cacheId, final int index,
+		final SCIFIOCell<?> cell)
+	{
+		if (!cell.isEnabled()[0]) {
+			return CacheResult.CELL_DISABLED;
+		}
+
+		// Calculate the current hash for the given cell's data
+		cell.update();
+
+		// If the cell isn't dirty and caching isn't forced, we can return.
+		if (!(cacheAll() || cell.dirty())) {
+			return CacheResult.NOT_DIRTY;
+		}
+		if (!caches.contains(cacheId)) {
+			return CacheResult.CACHE_NOT_FOUND;
+		}
+
+		// Check to see if we have the latest version of this cell already
+		final Integer key = getKey(cacheId, index);
+		final Entry known = this.index.get(key);
+		if (known != null && known.currentHash == cell.getCurrentHash()) {
+			return CacheResult.DUPLICATE_FOUND;
+		}
+
+		final Object array = storageOf(cell.getData());
+		if (array == null) {
+			logService.debug("MappedSlabCache: unsupported data type: " +
+				cell.getData().getClass().getName());
+			return CacheResult.CELL_DISABLED;
+		}
+		final long bytes = byteCount(array);
+
+		// Will another object fit? If not, try to make room by removing
+		// entries that have been retrieved already.
+		long size = storedBytes.get() - (known == null ? 0 : known.bytes);
+		if (size + bytes > maxCacheSize && !retrievedKeys.isEmpty()) {
+			cleanRetrieved(cacheId);
+			size = storedBytes.get() - (known == null ? 0 : known.bytes);
+		}
+		diskIsFull(size + bytes > maxCacheSize || bytes > Integer.MAX_VALUE);
+
+		if (!enabled()) {
+			return CacheResult.CACHE_DISABLED;
+		}
+		if (diskFull()) {
+			return CacheResult.DISK_FULL;
+		}
+
+		final int n = cell.dimCount();
+		final int[] dims = new int[n];
+		final long[] min = new long[n];
+		cell.dimensions(dims);
+		cell.min(min);
+
+		// NB: a cell written inline needs no copy of its data, as it is stored
+		// before this method returns.
+		final boolean inline = pendingBytes.get() + bytes > maxPendingBytes;
+		final Entry e =
+			new Entry(cacheId, key, dims, min, cell.getCleanHash(), cell
+				.getCurrentHash(), cell.getElementSize(), inline ? array
+					: copyOf(array), (int) bytes);
+		storedBytes.addAndGet(bytes);
+		final Entry old = this.index.put(key, e);
+		if (old != null) drop(old);
+
+		// Ensure this entry is not deleted before it's retrieved.
+		retrievedKeys.remove(key);
+
+		if (inline) write(e);
+		else writeBehind(e);
+		return CacheResult.SUCCESS;
+	}
+
+	@Override
+	public SCIFIOCell<?> retrieve(final String cacheId, final int index) {
+		final SCIFIOCell<?> cell = getCell(cacheId, index);
+
+		if (cell != null) {
+			// Mark this entry for possible deletion in the future
+			retrievedKeys.add(getKey(cacheId, index));
+			refManagerService.manage(cell);
+		}
+		return cell;
+	}
+
+	@Override
+	public SCIFIOCell<?> retrieveNoRecache(final String cacheId, final int index)
+	{
+		final SCIFIOCell<?> cell = getCell(cacheId, index);
+
+		if (cell != null) {
+			// Mark this entry for possible deletion in the future
+			retrievedKeys.add(getKey(cacheId, index));
+			// Ensure this cell is not cached again
+			cell.cacheOnFinalize(false);
+			refManagerService.manage(cell);
+		}
+		return cell;
+	}
+
+	/**
+	 * Frees the slab space of all retrieved entries. Unlike
+	 * {@link MapDBCache#cleanRetrieved(String)}, this happens immediately.
+	 */
+	@Override
+	public void cleanRetrieved(final String cacheId) {
+		for (final Iterator<Integer> iter = retrievedKeys.iterator(); iter
+			.hasNext();)
+		{
+			final Entry e = index.remove(iter.next());
+			iter.remove();
+			if (e != null) drop(e);
+		}
+	}
+
+	@Override
+	public void setMaxBytesOnDisk(final long maxBytes) {
+		maxCacheSize = maxBytes;
+	}
+
+	@Override
+	public void dispose() {
+		caches.clear();
+		index.clear();
+		retrievedKeys.clear();
+		writeQueue.clear();
+		pendingBytes.set(0);
+		synchronized (this) {
+			slabs.clear();
+			if (raf != null) {
+				try {
+					raf.close();
+				}
+				catch (final IOException e) {
+					logService.debug(e);
+				}
+				raf = null;
+			}
+			// NB: mapped files can not be deleted on all platforms until the
+			// mappings are garbage collected.
+			if (file != null && !file.delete()) file.deleteOnExit();
+			file = null;
+		}
+	}
+
+	// -- MappedSlabCache API Methods --
+
+	/**
+	 * Sets the codec compressing cells as they are written to the slabs, or
+	 * null to store them uncompressed, which is the default. Cells which do not
+	 * shrink are stored uncompressed either way. Cells already written keep
+	 * their storage.
+	 * <p>
+	 * NB: the limit of {@link #setMaxBytesOnDisk(long)} still applies to the
+	 * uncompressed size of the cells, which is known before they are written.
+	 * </p>
+	 */
+	public void setCodec(final Codec codec) {
+		this.codec = codec;
+	}
+
+	/** @return The codec compressing cells written to the slabs, or null. */
+	public Codec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * Sets the number of bytes of cell data which may wait to be written to the
+	 * slabs at once (default: 64 MiB). While more is waiting, {@link #cache}
+	 * writes cells itself rather than queueing copies of them, so that the
+	 * copies cannot pile up when cells are cached faster than they are
+	 * written.
+	 */
+	public void setMaxPendingBytes(final long maxBytes) {
+		maxPendingBytes = maxBytes;
+	}
+
+	/** @return The number of bytes of cell data which may wait to be written. */
+	public long getMaxPendingBytes() {
+		return maxPendingBytes;
+	}
+
+	// -- Helper Methods --
+
+	private SCIFIOCell<?> getCell(final String cacheId, final int index) {
+		final Entry e = this.index.get(getKey(cacheId, index));
+		if (e == null) return null;
+
+		final ArrayDataAccess<?> data = e.read();
+		if (data == null) return null;
+
+		final SCIFIOCell<?> cell = makeCell(data, e);
+
+		// Set the transient fields of the cell
+		cell.setCacheId(cacheId);
+		cell.setIndex(index);
+		cell.setService(this);
+		cell.cacheOnFinalize(true);
+
+		return cell;
+	}
+
+	private <A extends ArrayDataAccess<?>> SCIFIOCell<A> makeCell(
+		final A data, final Entry e)
+	{
+		return new SCIFIOCell<>(data, e.currentHash, e.cleanHash, e.elementSize,
+			e.dims.clone(), e.min.clone());
+	}
+
+	/**
+	 * Queues the given entry to be written to a slab, starting the write-behind
+	 * task if needed.
+	 */
+	private void writeBehind(final Entry e) {
+		pendingBytes.addAndGet(e.bytes);
+		writeQueue.add(e);
+		if (writing.compareAndSet(false, true)) {
+			threadService.run(new Runnable() {
+
+				@Override
+				public void run() {
+					do {
+						Entry next;
+						while ((next = writeQueue.poll()) != null) {
+							write(next);
+							pendingBytes.addAndGet(-next.bytes);
+						}
+						writing.set(false);
+						// NB: catch entries queued after the last poll
+					}
+					while (!writeQueue.isEmpty() && writing.compareAndSet(false, true));
+				}
+			});
+		}
+	}
+
+	/** Copies the pending data of the given entry into a slab. */
+	private void write(final Entry e) {
+		try {
+			e.write();
+		}
+		catch (final IOException exc) {
+			logService.error("MappedSlabCache: could not write cell", exc);
+			if (index.remove(e.key, e)) drop(e);
+		}
+	}
+
+	/** Releases the storage of an entry which has been removed from the index. */
+	private void drop(final Entry e) {
+		if (e.drop()) storedBytes.addAndGet(-e.bytes);
+	}
+
+	/**
+	 * Allocates the given number of bytes in a slab, mapping a new slab if none
+	 * has room.
+	 */
+	private synchronized Slab allocate(final int bytes, final int[] offset)
+		throws IOException
+	{
+		final int size = align(bytes);
+		for (final Slab slab : slabs) {
+			offset[0] = slab.allocate(size);
+			if (offset[0] >= 0) return slab;
+		}
+
+		if (raf == null) {
+			file = File.createTempFile("scifio-cache", ".slab");
+			file.deleteOnExit();
+			raf = new RandomAccessFile(file, "rw");
+		}
+		final long position =
+			slabs.isEmpty() ? 0 : slabs.get(slabs.size() - 1).end();
+		final Slab slab =
+			new Slab(raf.getChannel().map(MapMode.READ_WRITE, position,
+				Math.max(SLAB_SIZE, size)), position);
+		slabs.add(slab);
+		offset[0] = slab.allocate(size);
+		return slab;
+	}
+
+	private static int align(final int bytes) {
+		return (int) Math.min(Integer.MAX_VALUE & ~(ALIGNMENT - 1),
+			(bytes + ALIGNMENT - 1L) & ~(ALIGNMENT - 1L));
+	}
+
+	/**
+	 * @return The primitive array backing the given data, or null if it is not
+	 *         of a supported type.
+	 */
+	private static Object storageOf(final ArrayDataAccess<?> data) {
+		if (data instanceof ByteArray) {
+			return ((ByteArray) data).getCurrentStorageArray();
+		}
+		if (data instanceof CharArray) {
+			return ((CharArray) data).getCurrentStorageArray();
+		}
+		if (data instanceof ShortArray) {
+			return ((ShortArray) data).getCurrentStorageArray();
+		}
+		if (data instanceof IntArray) {
+			return ((IntArray) data).getCurrentStorageArray();
+		}
+		if (data instanceof LongArray) {
+			return ((LongArray) data).getCurrentStorageArray();
+		}
+		if (data instanceof FloatArray) {
+			return ((FloatArray) data).getCurrentStorageArray();
+		}
+		if (data instanceof DoubleArray) {
+			return ((DoubleArray) data).getCurrentStorageArray();
+		}
+		return null;
+	}
+
+	/** @return A copy of the given primitive array. */
+	private static Object copyOf(final Object array) {
+		final int length = Array.getLength(array);
+		final Object copy =
+			Array.newInstance(array.getClass().getComponentType(), length);
+		System.arraycopy(array, 0, copy, 0, length);
+		return copy;
+	}
+
+	/** @return The size, in bytes, of the given primitive array. */
+	private static long byteCount(final Object array) {
+		if (array instanceof byte[]) return ((byte[]) array).length;
+		if (array instanceof char[]) return 2L * ((char[]) array).length;
+		if (array instanceof short[]) return 2L * ((short[]) array).length;
+		if (array instanceof int[]) return 4L * ((int[]) array).length;
+		if (array instanceof long[]) return 8L * ((long[]) array).length;
+		if (array instanceof float[]) return 4L * ((float[]) array).length;
+		return 8L * ((double[]) array).length;
+	}
+
+	/** Copies the given primitive array into the buffer. */
+	private static void put(final ByteBuffer dst, final Object array) {
+		if (array instanceof byte[]) dst.put((byte[]) array);
+		else if (array instanceof char[]) dst.asCharBuffer().put((char[]) array);
+		else if (array instanceof short[]) dst.asShortBuffer().put(
+			(short[]) array);
+		else if (array instanceof int[]) dst.asIntBuffer().put((int[]) array);
+		else if (array instanceof long[]) dst.asLongBuffer().put((long[]) array);
+		else if (array instanceof float[]) dst.asFloatBuffer().put(
+			(float[]) array);
+		else dst.asDoubleBuffer().put((double[]) array);
+	}
+
+	/**
+	 * Reads a primitive array of the given type and byte count from the buffer,
+	 * wrapped in the matching {@link ArrayDataAccess}.
+	 */
+	private static ArrayDataAccess<?> get(final ByteBuffer src,
+		final Class<?> type, final int bytes)
+	{
+		if (type == byte[].class) {
+			final byte[] a = new byte[bytes];
+			src.get(a);
+			return new ByteArray(a);
+		}
+		if (type == char[].class) {
+			final char[] a = new char[bytes / 2];
+			src.asCharBuffer().get(a);
+			return new CharArray(a);
+		}
+		if (type == short[].class) {
+			final short[] a = new short[bytes / 2];
+			src.asShortBuffer().get(a);
+			return new ShortArray(a);
+		}
+		if (type == int[].class) {
+			final int[] a = new int[bytes / 4];
+			src.asIntBuffer().get(a);
+			return new IntArray(a);
+		}
+		if (type == long[].class) {
+			final long[] a = new long[bytes / 8];
+			src.asLongBuffer().get(a);
+			return new LongArray(a);
+		}
+		if (type == float[].class) {
+			final float[] a = new float[bytes / 4];
+			src.asFloatBuffer().get(a);
+			return new FloatArray(a);
+		}
+		final double[] a = new double[bytes / 8];
+		src.asDoubleBuffer().get(a);
+		return new DoubleArray(a);
+	}
+
+	/** @return A copy of the given primitive array, wrapped for a cell. */
+	private static ArrayDataAccess<?> wrap(final Object array) {
+		if (array instanceof byte[]) return new ByteArray(((byte[]) array).clone());
+		if (array instanceof char[]) return new CharArray(((char[]) array).clone());
+		if (array instanceof short[]) {
+			return new ShortArray(((short[]) array).clone());
+		}
+		if (array instanceof int[]) return new IntArray(((int[]) array).clone());
+		if (array instanceof long[]) return new LongArray(((long[]) array).clone());
+		if (array instanceof float[]) {
+			return new FloatArray(((float[]) array).clone());
+		}
+		return new DoubleArray(((double[]) array).clone());
+	}
+
+	// -- Helper classes --
+
+	/**
+	 * A mapped region of the backing file, with a free list of ranges within
+	 * it.
+	 */
+	private static class Slab {
+
+		private final MappedByteBuffer buffer;
+
+		private final long position;
+
+		/** Free ranges: offset to length. Guarded by the service's monitor. */
+		private final TreeMap<Integer, Integer> free = new TreeMap<>();
+
+		public Slab(final MappedByteBuffer buffer, final long position) {
+			this.buffer = buffer;
+			this.position = position;
+			free.put(0, buffer.capacity());
+		}
+
+		/** @return The end of this slab within the backing file. */
+		public long end() {
+			return position + buffer.capacity();
+		}
+
+		/**
+		 * @return A view of the given range of this slab, in native byte order.
+		 */
+		public ByteBuffer view(final int offset, final int length) {
+			final ByteBuffer b = buffer.duplicate();
+			b.position(offset);
+			b.limit(offset + length);
+			return b.slice().order(ByteOrder.nativeOrder());
+		}
+
+		/** @return The offset of a free range of the given size, or -1. */
+		public int allocate(final int size) {
+			for (final Map.Entry<Integer, Integer> range : free.entrySet()) {
+				if (range.getValue() >= size) {
+					final int offset = range.getKey();
+					free.remove(offset);
+					if (range.getValue() > size) {
+						free.put(offset + size, range.getValue() - size);
+					}
+					return offset;
+				}
+			}
+			return -1;
+		}
+
+		/** Returns a range to the free list, merging it with its neighbors. */
+		public void release(int offset, int size) {
+			final Map.Entry<Integer, Integer> before = free.floorEntry(offset);
+			if (before != null && before.getKey() + before.getValue() == offset) {
+				free.remove(before.getKey());
+				offset = before.getKey();
+				size += before.getValue();
+			}
+			final Integer after = free.get(offset + size);
+			if (after != null) {
+				free.remove(offset + size);
+				size += after;
+			}
+			free.put(offset, size);
+		}
+	}
+
+	/**
+	 * Index record of a stored cell. Holds the cell's data until it has been
+	 * written to a slab.
+	 */
+	private class Entry {
+
+		private final String cacheId;
+
+		private final Integer key;
+
+		private final int[] dims;
+
+		private final long[] min;
+
+		private final int cleanHash;
+
+		private final int currentHash;
+
+		private final long elementSize;
+
+		private final Class<?> type;
+
+		private final int bytes;
+
+		/** Data not yet written to a slab. */
+		private Object pending;
+
+		private Slab slab;
+
+		private int offset;
+
+		/** Number of bytes taken in the slab. */
+		private int stored;
+
+		/** Codec which compressed the stored data, or null if none did. */
+		private Codec storedCodec;
+
+		private boolean dropped;
+
+		public Entry(final String cacheId, final Integer key, final int[] dims,
+			final long[] min, final int cleanHash, final int currentHash,
+			final long elementSize, final Object pending, final int bytes)
+		{
+			this.cacheId = cacheId;
+			this.key = key;
+			this.dims = dims;
+			this.min = min;
+			this.cleanHash = cleanHash;
+			this.currentHash = currentHash;
+			this.elementSize = elementSize;
+			this.pending = pending;
+			this.type = pending.getClass();
+			this.bytes = bytes;
+		}
+
+		/** Moves the pending data into a slab, compressed if it shrinks. */
+		public synchronized void write() throws IOException {
+			if (dropped || pending == null) return;
+			final Codec c = codec;
+			ByteBuffer compressed = null;
+			if (c != null && bytes > 0) {
+				final ByteBuffer raw =
+					ByteBuffer.allocate(bytes).order(ByteOrder.nativeOrder());
+				put(raw, pending);
+				raw.clear();
+				try {
+					compressed = c.compress(raw, null, null);
+					if (compressed.remaining() >= bytes) compressed = null;
+				}
+				catch (final FormatException exc) {
+					logService.debug("MappedSlabCache: could not compress cell", exc);
+				}
+			}
+			final int length = compressed == null ? bytes : compressed.remaining();
+			final int[] o = new int[1];
+			final Slab s = allocate(length, o);
+			if (compressed == null) put(s.view(o[0], length), pending);
+			else s.view(o[0], length).put(compressed);
+			slab = s;
+			offset = o[0];
+			stored = length;
+			storedCodec = compressed == null ? null : c;
+			pending = null;
+		}
+
+		/** @return A copy of the stored data, or null if dropped. */
+		public synchronized ArrayDataAccess<?> read() {
+			if (dropped) return null;
+			if (pending != null) return wrap(pending);
+			ByteBuffer data = slab.view(offset, stored);
+			if (storedCodec != null) {
+				final CodecOptions options = new CodecOptions();
+				options.maxBytes = bytes;
+				final ByteBuffer raw =
+					ByteBuffer.allocate(bytes).order(ByteOrder.nativeOrder());
+				try {
+					storedCodec.decompress(data, raw, options);
+				}
+				catch (final FormatException exc) {
+					logService.error("MappedSlabCache: could not decompress cell", exc);
+					return null;
+				}
+				raw.clear();
+				data = raw;
+			}
+			return get(data, type, bytes);
+		}
+
+		/**
+		 * Releases this entry's storage.
+		 *
+		 * @return true if this entry had not been dropped already
+		 */
+		public synchronized boolean drop() {
+			if (dropped) return false;
+			dropped = true;
+			pending = null;
+			if (slab != null) {
+				synchronized (MappedSlabCache.this) {
+					slab.release(offset, align(stored));
+				}
+				slab = null;
+			}
+			return true;
+		}
+	}
+}
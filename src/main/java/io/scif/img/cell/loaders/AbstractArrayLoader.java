@@ -36,6 +36,7 @@ import io.scif.Plane;
 import io.scif.Reader;
 import io.scif.img.ImageRegion;
 import io.scif.img.ImgUtilityService;
+import io.scif.img.ReaderPool;
 import io.scif.img.Range;
 import io.scif.util.FormatTools;
 
@@ -56,6 +57,10 @@ import org.scijava.plugin.Parameter;
  * to each subclass's array conversion method. See
  * {@link #convertBytes(Object, byte[], int)}.
  * </p>
+ * <p>
+ * Planes are read through a {@link ReaderPool}, so cells can be loaded from
+ * several threads at once when the pool holds more than one reader.
+ * </p>
  *
  * @author Mark Hiner
  */
@@ -65,6 +70,8 @@ public abstract class AbstractArrayLoader<A> implements SCIFIOArrayLoader<A> {
 
 	final private Reader reader;
 
+	final private ReaderPool readers;
+
 	final private ImageRegion subRegion;
 
 	final private boolean compatible;
@@ -77,7 +84,14 @@ public abstract class AbstractArrayLoader<A> implements SCIFIOArrayLoader<A> {
 	private boolean[][] loadedTable;
 
 	public AbstractArrayLoader(final Reader reader, final ImageRegion subRegion) {
-		this.reader = reader;
+		this(new ReaderPool(reader), subRegion);
+	}
+
+	public AbstractArrayLoader(final ReaderPool readers,
+		final ImageRegion subRegion)
+	{
+		this.readers = readers;
+		this.reader = readers.getReader();
 		this.subRegion = subRegion;
 		reader.getContext().inject(this);
 		final RealType<?> inputType =
@@ -102,9 +116,16 @@ public abstract class AbstractArrayLoader<A> implements SCIFIOArrayLoader<A> {
 			for (int i = 0; i < planeMax.length; i++)
 				planeMax[i] = 1;
 
-			ct =
-				reader.openPlane(imageIndex, planeIndex, planeMin, planeMax)
-					.getColorTable();
+			final Reader r = readers.acquire();
+			try {
+				synchronized (r) {
+					ct = r.openPlane(imageIndex, planeIndex, planeMin, planeMax)
+						.getColorTable();
+				}
+			}
+			finally {
+				readers.release(r);
+			}
 
 			addTable(imageIndex, planeIndex, ct);
 		}
@@ -113,8 +134,15 @@ public abstract class AbstractArrayLoader<A> implements SCIFIOArrayLoader<A> {
 
 	@Override
 	public A loadArray(final int[] dimensions, final long[] min) {
-		synchronized (reader) {
-			final Metadata meta = reader.getMetadata();
+		final Reader r;
+		try {
+			r = readers.acquire();
+		}
+		catch (final FormatException | IOException e) {
+			throw new IllegalStateException("Could not obtain a reader", e);
+		}
+		try {
+			final Metadata meta = r.getMetadata();
 
 			int entities = 1;
 
@@ -169,8 +197,11 @@ public abstract class AbstractArrayLoader<A> implements SCIFIOArrayLoader<A> {
 
 			data = emptyArray(entities);
 
+			// NB: the primary reader is also reachable outside of the pool
 			try {
-				read(data, planarMin, planarLength, npRanges, npIndices);
+				synchronized (r) {
+					read(r, data, planarMin, planarLength, npRanges, npIndices);
+				}
 			}
 			catch (final FormatException e) {
 				throw new IllegalStateException(
@@ -183,24 +214,29 @@ public abstract class AbstractArrayLoader<A> implements SCIFIOArrayLoader<A> {
 
 			return data;
 		}
+		finally {
+			readers.release(r);
+		}
 	}
 
 	/**
 	 * Entry point for
-	 * {@link #read(Object, Plane, long[], long[], Range[], long[], int, int)}
+	 * {@link #read(Reader, Object, Plane, long[], long[], Range[], long[], int,
+	 * int)}
 	 */
-	private void read(final A data, final long[] planarMin,
+	private void read(final Reader r, final A data, final long[] planarMin,
 		final long[] planarLength, final Range[] npRanges, final long[] npIndices)
 		throws FormatException, IOException
 	{
-		read(data, null, planarMin, planarLength, npRanges, npIndices, 0, 0);
+		read(r, data, null, planarMin, planarLength, npRanges, npIndices, 0, 0);
 	}
 
 	/**
 	 * Recurses over all the provided {@link Range}s, reading the corresponding
 	 * bytes and storing them in the provided data object.
 	 */
-	private void read(final A data, Plane tmpPlane, final long[] planarMin,
+	private void read(final Reader r, final A data, Plane tmpPlane,
+		final long[] planarMin,
 		final long[] planarLength, final Range[] npRanges, final long[] npIndices,
 		final int depth, int planeCount) throws FormatException, IOException
 	{
@@ -211,30 +247,28 @@ public abstract class AbstractArrayLoader<A> implements SCIFIOArrayLoader<A> {
 			final int npPosition = npRanges.length - 1 - depth;
 			for (int i = 0; i < npRanges[npPosition].size(); i++) {
 				npIndices[npPosition] = npRanges[npPosition].get(i);
-				read(data, tmpPlane, planarMin, planarLength, npRanges, npIndices,
-					depth + 1, planeCount);
+				read(r, data, tmpPlane, planarMin, planarLength, npRanges,
+					npIndices, depth + 1, planeCount);
 				planeCount++;
 			}
 		}
 		else if (inSubregion(npIndices)) {
 			final int planeIndex =
-				(int) FormatTools.positionToRaster(0, reader, npIndices);
+				(int) FormatTools.positionToRaster(0, r, npIndices);
 
 			if (tmpPlane == null) tmpPlane =
-				reader.openPlane(index, planeIndex, planarMin, planarLength);
+				r.openPlane(index, planeIndex, planarMin, planarLength);
 			else tmpPlane =
-				reader.openPlane(index, planeIndex, tmpPlane, planarMin, planarLength);
+				r.openPlane(index, planeIndex, tmpPlane, planarMin, planarLength);
 			convertBytes(data, tmpPlane.getBytes(), planeCount);
 
 			// update color table
-			if (!loadedTable()[index][planeIndex]) {
-				addTable(index, planeIndex, tmpPlane.getColorTable());
-			}
+			addTableIfAbsent(index, planeIndex, tmpPlane.getColorTable());
 		}
 
 	}
 
-	private boolean[][] loadedTable() {
+	private synchronized boolean[][] loadedTable() {
 		if (loadedTable == null) {
 			final Metadata m = reader.getMetadata();
 			loadedTable =
@@ -257,7 +291,9 @@ public abstract class AbstractArrayLoader<A> implements SCIFIOArrayLoader<A> {
 	 * @return the possibly null {@link ColorTable} at the specified image and
 	 *         plane indices
 	 */
-	private ColorTable getTable(final int imageIndex, final int planeIndex) {
+	private synchronized ColorTable getTable(final int imageIndex,
+		final int planeIndex)
+	{
 		final List<List<ColorTable>> tables = tables();
 
 		// Ensure capacity
@@ -275,8 +311,8 @@ public abstract class AbstractArrayLoader<A> implements SCIFIOArrayLoader<A> {
 	/**
 	 * Inserts the given {@link ColorTable} at the specified indices.
 	 */
-	private void addTable(final int imageIndex, final int planeIndex,
-		final ColorTable colorTable)
+	private synchronized void addTable(final int imageIndex,
+		final int planeIndex, final ColorTable colorTable)
 	{
 		final ColorTable ct = getTable(imageIndex, planeIndex);
 		if (ct == null) {
@@ -296,6 +332,18 @@ public abstract class AbstractArrayLoader<A> implements SCIFIOArrayLoader<A> {
 		}
 	}
 
+	/**
+	 * Inserts the given {@link ColorTable} unless one was already loaded for
+	 * the specified indices.
+	 */
+	private synchronized void addTableIfAbsent(final int imageIndex,
+		final int planeIndex, final ColorTable colorTable)
+	{
+		if (!loadedTable()[imageIndex][planeIndex]) {
+			addTable(imageIndex, planeIndex, colorTable);
+		}
+	}
+
 	/**
 	 * Returns true if this loader's {@link ImageRegion} contains all of the given
 	 * indices
@@ -335,6 +383,13 @@ public abstract class AbstractArrayLoader<A> implements SCIFIOArrayLoader<A> {
 		return reader;
 	}
 
+	/**
+	 * @return Pool of readers used for plane loading
+	 */
+	protected ReaderPool readers() {
+		return readers;
+	}
+
 	/**
 	 * @return true iff the byte[]'s passed to convertBytes will match the generic
 	 *         type of this loader.
@@ -0,0 +1,219 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.scijava.log.LogService;
+
+/**
+ * Index of the blocks of a bzip2 file, allowing decompression to start at the
+ * block containing any uncompressed position instead of at the start of the
+ * file.
+ * <p>
+ * bzip2 compresses each block of up to 900 kB independently, so a block can be
+ * decompressed knowing only where its header begins in the compressed file.
+ * Headers are not byte-aligned; the index records their offsets down to the
+ * bit, along with the uncompressed position of each block's first byte. Both
+ * are collected during a single pass of decompression through the file.
+ * </p>
+ */
+class BZip2Index {
+
+	// -- Fields --
+
+	/** The bzip2 file. */
+	private final File file;
+
+	/** Block size of the file, in units of 100000 bytes. */
+	private int blockSize100k;
+
+	/** Bit offsets of the block headers in the compressed file. */
+	private long[] headers = new long[16];
+
+	/** Uncompressed positions of the first byte of each block. */
+	private long[] positions = new long[16];
+
+	/** Number of indexed blocks. */
+	private int blocks;
+
+	/** Uncompressed length of the file, or -1 if not yet known. */
+	private long length = -1;
+
+	// -- Constructor --
+
+	/** Creates an empty index of the given bzip2 file. */
+	public BZip2Index(final File file) {
+		this.file = file;
+	}
+
+	// -- BZip2Index methods --
+
+	/**
+	 * Opens a stream decompressing the whole file, which indexes each block as
+	 * it is reached. Once the stream has been read to its end, the index must be
+	 * completed with {@link #setLength}.
+	 */
+	public InputStream scan(final LogService log) throws IOException {
+		blocks = 0;
+		length = -1;
+		final CountingInputStream counter =
+			new CountingInputStream(new BufferedInputStream(new FileInputStream(
+				file), RandomAccessInputStream.MAX_OVERHEAD));
+		// skip the "BZ" magic
+		if (counter.read() < 0 || counter.read() < 0) {
+			counter.close();
+			throw new IOException("Unexpected end of " + file);
+		}
+		final CBZip2InputStream in =
+			new CBZip2InputStream(counter, log, (position, bitsRead) -> add(8 *
+				counter.count - bitsRead, position));
+		blockSize100k = in.getBlockSize100k();
+		return in;
+	}
+
+	/** Completes the index with the uncompressed length of the file. */
+	public void setLength(final long length) {
+		this.length = length;
+	}
+
+	/**
+	 * @return The uncompressed length of the file, or -1 if the index does not
+	 *         cover the whole file yet.
+	 */
+	public long length() {
+		return length;
+	}
+
+	/** @return The number of indexed blocks. */
+	public int blockCount() {
+		return blocks;
+	}
+
+	/**
+	 * @return The index of the block containing the given uncompressed
+	 *         position, or -1 if it precedes all indexed blocks.
+	 */
+	public int blockAt(final long pos) {
+		final int i = Arrays.binarySearch(positions, 0, blocks, pos);
+		return i >= 0 ? i : -i - 2;
+	}
+
+	/** @return The uncompressed position of the given block's first byte. */
+	public long blockStart(final int block) {
+		return positions[block];
+	}
+
+	/**
+	 * @return The uncompressed position following the given block's last byte.
+	 */
+	public long blockEnd(final int block) {
+		return block + 1 < blocks ? positions[block + 1] : length;
+	}
+
+	/**
+	 * Opens a stream decompressing the file from the start of the given block
+	 * to the end of the file.
+	 */
+	public InputStream open(final int block, final LogService log)
+		throws IOException
+	{
+		final FileInputStream in = new FileInputStream(file);
+		try {
+			in.getChannel().position(headers[block] >>> 3);
+			return new CBZip2InputStream(new BufferedInputStream(in,
+				RandomAccessInputStream.MAX_OVERHEAD), log, blockSize100k,
+				(int) (headers[block] & 7));
+		}
+		catch (final IOException | RuntimeException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	// -- Helper methods --
+
+	private void add(final long header, final long position) {
+		if (blocks == headers.length) {
+			headers = Arrays.copyOf(headers, 2 * blocks);
+			positions = Arrays.copyOf(positions, 2 * blocks);
+		}
+		headers[blocks] = header;
+		positions[blocks] = position;
+		blocks++;
+	}
+
+	// -- Helper classes --
+
+	/** Keeps track of the number of bytes read from a stream. */
+	private static class CountingInputStream extends FilterInputStream {
+
+		private long count;
+
+		public CountingInputStream(final InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			final int b = in.read();
+			if (b >= 0) count++;
+			return b;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len)
+			throws IOException
+		{
+			final int n = in.read(b, off, len);
+			if (n > 0) count += n;
+			return n;
+		}
+
+		@Override
+		public long skip(final long n) throws IOException {
+			final long skipped = in.skip(n);
+			count += skipped;
+			return skipped;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of fixed-size blocks of remote data, bounded by
+ * the total number of cached bytes. Blocks are identified by the key of the
+ * resource they belong to and their index within it. Instances are
+ * thread-safe.
+ */
+class BlockCache {
+
+	// -- Fields --
+
+	/** Cached blocks, least recently used first. */
+	private final LinkedHashMap<BlockKey, byte[]> blocks =
+		new LinkedHashMap<>(64, 0.75f, true);
+
+	/** Maximum total size of the cached blocks. */
+	private long capacity;
+
+	/** Total size of the cached blocks. */
+	private long size;
+
+	// -- Constructor --
+
+	public BlockCache(final long capacity) {
+		this.capacity = capacity;
+	}
+
+	// -- BlockCache methods --
+
+	/** @return The given block, or null if not cached. */
+	public synchronized byte[] get(final String key, final long index) {
+		return blocks.get(new BlockKey(key, index));
+	}
+
+	/** Caches the given block, evicting the least recently used ones. */
+	public synchronized void put(final String key, final long index,
+		final byte[] block)
+	{
+		final byte[] old = blocks.put(new BlockKey(key, index), block);
+		if (old != null) size -= old.length;
+		size += block.length;
+		trim();
+	}
+
+	/** Sets the maximum total size of the cached blocks, in bytes. */
+	public synchronized void setCapacity(final long capacity) {
+		this.capacity = capacity;
+		trim();
+	}
+
+	/** Discards all cached blocks. */
+	public synchronized void clear() {
+		blocks.clear();
+		size = 0;
+	}
+
+	// -- Helper methods --
+
+	private void trim() {
+		final Iterator<Map.Entry<BlockKey, byte[]>> iter =
+			blocks.entrySet().iterator();
+		while (size > capacity && iter.hasNext()) {
+			size -= iter.next().getValue().length;
+			iter.remove();
+		}
+	}
+
+	// -- Helper classes --
+
+	private static final class BlockKey {
+
+		private final String key;
+
+		private final long index;
+
+		public BlockKey(final String key, final long index) {
+			this.key = key;
+			this.index = index;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof BlockKey)) return false;
+			final BlockKey other = (BlockKey) o;
+			return index == other.index && key.equals(other.key);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * key.hashCode() + Long.hashCode(index);
+		}
+	}
+}
@@ -37,6 +37,7 @@ import java.io.IOException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.List;
 
 /**
  * A wrapper for a byte array that implements the IRandomAccess interface.
@@ -106,6 +107,31 @@ public class ByteArrayHandle extends AbstractNIOHandle {
 		return buffer;
 	}
 
+	// -- Helper methods --
+
+	/**
+	 * @return How many of the requested bytes can be read at the given position
+	 *         of the given backing buffer.
+	 */
+	private int available(final ByteBuffer bytes, final long pos, final int len)
+	{
+		return (int) Math.min(len, bytes.limit() - pos);
+	}
+
+	/**
+	 * Creates an independent view of the given range of the given backing
+	 * buffer, so that it can be read without touching the buffer's position.
+	 */
+	private ByteBuffer view(final ByteBuffer bytes, final long pos,
+		final int len)
+	{
+		final ByteBuffer view = bytes.duplicate();
+		view.clear();
+		view.position((int) pos);
+		view.limit((int) pos + len);
+		return view;
+	}
+
 	// -- AbstractNIOHandle API methods --
 
 	@Override
@@ -171,6 +197,38 @@ public class ByteArrayHandle extends AbstractNIOHandle {
 		return len;
 	}
 
+	@Override
+	public int read(final long pos, final byte[] b, final int off,
+		final int len) throws IOException
+	{
+		final ByteBuffer bytes = buffer;
+		final int n = available(bytes, pos, len);
+		if (n <= 0) return 0;
+		if (bytes.hasArray()) {
+			System.arraycopy(bytes.array(), bytes.arrayOffset() + (int) pos, b, off,
+				n);
+		}
+		else {
+			view(bytes, pos, n).get(b, off, n);
+		}
+		return n;
+	}
+
+	@Override
+	public int read(final long pos, final ByteBuffer buf) throws IOException {
+		final ByteBuffer bytes = buffer;
+		final int n = available(bytes, pos, buf.remaining());
+		if (n <= 0) return 0;
+		buf.put(view(bytes, pos, n));
+		return n;
+	}
+
+	@Override
+	public long readVectored(final List<FileRange> ranges) throws IOException {
+		// NB: each range is copied straight out of the array
+		return StreamTools.readVectored(this, ranges, -1, true);
+	}
+
 	@Override
 	public void seek(final long pos) throws IOException {
 		if (pos > length()) setLength(pos);
@@ -0,0 +1,212 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+
+/**
+ * Searches streams for the earliest of several byte patterns at once. The
+ * patterns are compiled into an Aho-Corasick automaton, so each byte of the
+ * stream is examined once, however many patterns there are.
+ * <p>
+ * Of several overlapping occurrences, the one starting first wins; of several
+ * patterns occurring at the same position, the one given first.
+ * </p>
+ */
+class BytePatternMatcher {
+
+	// -- Constants --
+
+	/** Number of bytes read by the first block of a search. */
+	private static final int MIN_BLOCK_SIZE = 8192;
+
+	// -- Fields --
+
+	/** Lengths of the patterns. */
+	private final int[] lengths;
+
+	/** Length of the longest pattern. */
+	private final int maxLength;
+
+	/** Next state of the automaton, by state and byte. */
+	private final int[][] transitions;
+
+	/**
+	 * Index of the longest pattern ending in each state, i.e. the one which
+	 * started first, or -1 if none does.
+	 */
+	private final int[] matches;
+
+	// -- Constructor --
+
+	/** Compiles the given patterns, ignoring any empty ones. */
+	BytePatternMatcher(final byte[]... patterns) {
+		lengths = new int[patterns.length];
+		int states = 1, longest = 0;
+		for (int p = 0; p < patterns.length; p++) {
+			lengths[p] = patterns[p].length;
+			states += lengths[p];
+			longest = Math.max(longest, lengths[p]);
+		}
+		maxLength = longest;
+		transitions = new int[states][];
+		matches = new int[states];
+		Arrays.fill(matches, -1);
+
+		// build the trie of the patterns
+		transitions[0] = newState();
+		int count = 1;
+		for (int p = 0; p < patterns.length; p++) {
+			if (lengths[p] == 0) continue;
+			int state = 0;
+			for (final byte b : patterns[p]) {
+				final int c = b & 0xff;
+				if (transitions[state][c] < 0) {
+					transitions[count] = newState();
+					transitions[state][c] = count++;
+				}
+				state = transitions[state][c];
+			}
+			if (matches[state] < 0) matches[state] = p;
+		}
+
+		// turn it into a complete automaton, breadth first along failure links
+		final int[] failures = new int[count];
+		final Queue<Integer> queue = new ArrayDeque<>();
+		for (int c = 0; c < 256; c++) {
+			final int next = transitions[0][c];
+			if (next < 0) transitions[0][c] = 0;
+			else queue.add(next);
+		}
+		while (!queue.isEmpty()) {
+			final int state = queue.remove();
+			final int failure = failures[state];
+			// a pattern ending here is longer than any ending at the failure
+			if (matches[state] < 0) matches[state] = matches[failure];
+			for (int c = 0; c < 256; c++) {
+				final int next = transitions[state][c];
+				if (next < 0) transitions[state][c] = transitions[failure][c];
+				else {
+					failures[next] = transitions[failure][c];
+					queue.add(next);
+				}
+			}
+		}
+	}
+
+	// -- BytePatternMatcher methods --
+
+	/**
+	 * Searches the given handle from its current position for the first
+	 * occurrence of any pattern, reading at most {@code maxLen} bytes in blocks
+	 * of up to {@code blockSize} bytes. Afterwards, the handle is positioned
+	 * after the occurrence, or after the bytes searched if there is none.
+	 *
+	 * @param out Stream receiving the bytes searched, from the initial position
+	 *          through at least the end of the occurrence, or null to discard
+	 *          them.
+	 * @return The offset of the occurrence relative to the initial position,
+	 *         or -1 if there is none.
+	 */
+	long find(final IRandomAccess handle, final long maxLen, final int blockSize,
+		final OutputStream out) throws IOException
+	{
+		final long startPos = handle.getFilePointer();
+		final byte[] buf =
+			new byte[(int) Math.max(1, Math.min(blockSize, maxLen))];
+		int block = Math.min(buf.length, MIN_BLOCK_SIZE);
+		int state = 0;
+		long scanned = 0, matchStart = -1;
+		int match = -1;
+		while (scanned < maxLen) {
+			final int r =
+				handle.read(buf, 0, (int) Math.min(block, maxLen - scanned));
+			if (r <= 0) throw new IOException("Cannot read from stream: " + r);
+			for (int i = 0; i < r; i++) {
+				state = transitions[state][buf[i] & 0xff];
+				final int m = matches[state];
+				if (m >= 0) {
+					final long start = scanned + i + 1 - lengths[m];
+					if (match < 0 || start < matchStart || start == matchStart &&
+						m < match)
+					{
+						matchStart = start;
+						match = m;
+					}
+				}
+				// NB: no occurrence starting earlier, or at the same position, can
+				// end past this point
+				if (match >= 0 && scanned + i + 1 >= matchStart + maxLength) {
+					return found(handle, startPos, buf, scanned, matchStart, match, out);
+				}
+			}
+			if (out != null) out.write(buf, 0, r);
+			scanned += r;
+			block = Math.min(buf.length, 2 * block);
+		}
+		if (match >= 0) {
+			return found(handle, startPos, buf, scanned, matchStart, match, out);
+		}
+		return -1;
+	}
+
+	// -- Helper methods --
+
+	private static int[] newState() {
+		final int[] state = new int[256];
+		Arrays.fill(state, -1);
+		return state;
+	}
+
+	/**
+	 * Positions the handle after an occurrence, and completes the output
+	 * through its end from the current block.
+	 *
+	 * @param scanned Number of bytes already written to the output, preceding
+	 *          the current block.
+	 */
+	private long found(final IRandomAccess handle, final long startPos,
+		final byte[] buf, final long scanned, final long matchStart,
+		final int match, final OutputStream out)
+		throws IOException
+	{
+		final long end = matchStart + lengths[match];
+		if (out != null && end > scanned) {
+			out.write(buf, 0, (int) (end - scanned));
+		}
+		handle.seek(startPos + end);
+		return matchStart;
+	}
+}
@@ -237,6 +237,18 @@ public class CBZip2InputStream extends InputStream {
 	 */
 	private CBZip2InputStream.Data data;
 
+	/** Number of decompressed bytes returned so far. */
+	private long position;
+
+	/**
+	 * Whether decompression started at a block rather than at the stream header,
+	 * so that the combined CRC cannot be verified.
+	 */
+	private boolean partial;
+
+	/** Notified whenever a new block is started, or null. */
+	private BlockListener blockListener;
+
 	/**
 	 * Constructs a new CBZip2InputStream which decompresses bytes read from the
 	 * specified stream.
@@ -261,6 +273,61 @@ public class CBZip2InputStream extends InputStream {
 		init();
 	}
 
+	/**
+	 * Constructs a new CBZip2InputStream which decompresses bytes read from the
+	 * specified stream, starting with the block whose header begins within its
+	 * next byte. As blocks are compressed independently, decompression can start
+	 * at any of them; it then continues up to the end of the BZip2 stream.
+	 *
+	 * @param blockSize100k the block size of the stream, i.e. the digit following
+	 *          the <tt>"BZh"</tt> magic.
+	 * @param skipBits number of bits (0-7) preceding the block header within the
+	 *          next byte of the stream.
+	 * @throws IOException if no block header is found at the given position, or
+	 *           an I/O error occurs.
+	 */
+	public CBZip2InputStream(final InputStream in, final LogService log,
+		final int blockSize100k, final int skipBits) throws IOException
+	{
+		super();
+
+		if (blockSize100k < 1 || blockSize100k > 9) {
+			throw new IllegalArgumentException("Illegal block size: " +
+				blockSize100k);
+		}
+		this.in = in;
+		this.log = log;
+		this.blockSize100k = blockSize100k;
+		this.partial = true;
+		bsR(skipBits);
+		initBlock();
+		setupBlock();
+	}
+
+	/**
+	 * Constructs a new CBZip2InputStream, like
+	 * {@link #CBZip2InputStream(InputStream, LogService)}, whose blocks are
+	 * reported to the given listener as they are reached; including the first
+	 * one, before this constructor returns.
+	 */
+	CBZip2InputStream(final InputStream in, final LogService log,
+		final BlockListener blockListener) throws IOException
+	{
+		super();
+
+		this.in = in;
+		this.log = log;
+		this.blockListener = blockListener;
+		init();
+	}
+
+	// -- CBZip2InputStream API methods --
+
+	/** Gets the block size of the stream, in units of 100000 bytes. */
+	public int getBlockSize100k() {
+		return blockSize100k;
+	}
+
 	@Override
 	public int read() throws IOException {
 		if (this.in != null) return read0();
@@ -295,6 +362,7 @@ public class CBZip2InputStream extends InputStream {
 	private int read0() throws IOException {
 		final int retChar = this.currentChar;
 
+		if (this.currentState != EOF) this.position++;
 		switch (this.currentState) {
 			case EOF:
 				return -1;
@@ -374,6 +442,10 @@ public class CBZip2InputStream extends InputStream {
 			throw new IOException("bad block header");
 		}
 		else {
+			if (this.blockListener != null) {
+				// the header's 48 bits have been consumed, plus any still buffered
+				this.blockListener.blockStarted(this.position, this.bsLive + 48);
+			}
 			this.storedBlockCRC = bsGetInt();
 			this.blockRandomised = bsR(1) == 1;
 
@@ -415,7 +487,7 @@ public class CBZip2InputStream extends InputStream {
 		this.currentState = EOF;
 		this.data = null;
 
-		if (this.storedCombinedCRC != this.computedCombinedCRC) {
+		if (!this.partial && this.storedCombinedCRC != this.computedCombinedCRC) {
 			reportCRCError();
 		}
 	}
@@ -957,6 +1029,22 @@ public class CBZip2InputStream extends InputStream {
 		}
 	}
 
+	/**
+	 * Callback through which the blocks of a stream can be indexed.
+	 */
+	interface BlockListener {
+
+		/**
+		 * Called when the header of a block has been read.
+		 *
+		 * @param position offset of the block's first byte in the decompressed
+		 *          data.
+		 * @param bitsRead number of bits read from the underlying stream since
+		 *          the first bit of the block header.
+		 */
+		void blockStarted(long position, int bitsRead);
+	}
+
 	private static final class Data extends Object {
 
 		// (with blockSize 900k)
@@ -0,0 +1,170 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.scijava.log.LogService;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.service.AbstractService;
+import org.scijava.service.Service;
+
+/**
+ * Default {@link IOMetricsService} implementation.
+ * <p>
+ * Metrics are disabled unless the {@code ioMetrics} system property is set to
+ * true, or they are enabled through {@link #setEnabled(boolean)}. Streams
+ * which are never closed stop counting towards the {@link #total()} once they
+ * are garbage collected.
+ * </p>
+ */
+@Plugin(type = Service.class)
+public class DefaultIOMetricsService extends AbstractService implements
+	IOMetricsService
+{
+
+	// -- Fields --
+
+	@Parameter
+	private LogService log;
+
+	private volatile boolean enabled = Boolean.parseBoolean(System
+		.getProperty("ioMetrics"));
+
+	/** Metrics of the streams still open. */
+	private final Set<IOMetrics> open = Collections.newSetFromMap(
+		new WeakHashMap<IOMetrics, Boolean>());
+
+	/** Sum of the metrics of the closed streams. */
+	private IOMetrics.Snapshot closed = empty();
+
+	private final List<IOMetricsListener> listeners =
+		new CopyOnWriteArrayList<>();
+
+	// -- IOMetricsService API methods --
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(final boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	@Override
+	public IOMetrics create(final String name) {
+		if (!enabled) return null;
+		final IOMetrics metrics = new IOMetrics(name);
+		synchronized (open) {
+			open.add(metrics);
+		}
+		return metrics;
+	}
+
+	@Override
+	public void close(final IOMetrics metrics) {
+		if (metrics == null) return;
+		final IOMetrics.Snapshot snapshot = metrics.snapshot();
+		synchronized (open) {
+			if (!open.remove(metrics)) return;
+			closed = closed.plus(snapshot);
+		}
+		if (log.isDebug()) log.debug("I/O: " + snapshot);
+		for (final IOMetricsListener listener : listeners) {
+			listener.metricsClosed(snapshot);
+		}
+	}
+
+	@Override
+	public List<IOMetrics.Snapshot> snapshot() {
+		final List<IOMetrics.Snapshot> snapshots = new ArrayList<>();
+		synchronized (open) {
+			for (final IOMetrics metrics : open) {
+				snapshots.add(metrics.snapshot());
+			}
+		}
+		return snapshots;
+	}
+
+	@Override
+	public IOMetrics.Snapshot total() {
+		synchronized (open) {
+			IOMetrics.Snapshot total = closed;
+			for (final IOMetrics metrics : open) {
+				total = total.plus(metrics.snapshot());
+			}
+			return total;
+		}
+	}
+
+	@Override
+	public void reset() {
+		synchronized (open) {
+			for (final IOMetrics metrics : open) {
+				metrics.reset();
+			}
+			closed = empty();
+		}
+	}
+
+	@Override
+	public void report() {
+		for (final IOMetrics.Snapshot snapshot : snapshot()) {
+			log.info("I/O: " + snapshot);
+		}
+		log.info("I/O: " + total());
+	}
+
+	@Override
+	public void addListener(final IOMetricsListener listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public void removeListener(final IOMetricsListener listener) {
+		listeners.remove(listener);
+	}
+
+	// -- Helper methods --
+
+	private static IOMetrics.Snapshot empty() {
+		return new IOMetrics("total").snapshot();
+	}
+
+}
@@ -32,8 +32,13 @@ package io.scif.io;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.scijava.log.LogService;
 import org.scijava.plugin.Parameter;
@@ -44,6 +49,14 @@ import org.scijava.service.Service;
 /**
  * Default service for working with the {@link java.nio} package, particularly
  * NIO {@link ByteBuffer} objects.
+ * <p>
+ * If the {@code recycleBuffers} system property is set to true, buffers handed
+ * back to {@link #allocate(FileChannel, MapMode, long, int, ByteBuffer)} are
+ * refilled rather than replaced. If the {@code directBuffers} system
+ * property is set to true, buffers are allocated outside of the heap, and
+ * those {@link #release released} are kept in a pool of up to
+ * {@code directPoolBytes} bytes (default: 64 MiB) for reuse.
+ * </p>
  *
  * @author Chris Allan
  * @author Curtis Rueden
@@ -60,6 +73,24 @@ public class DefaultNIOService extends AbstractService implements NIOService {
 	private final boolean useMappedByteBuffer = Boolean.parseBoolean(System
 		.getProperty("mappedBuffers"));
 
+	/** Whether or not to refill buffers which are no longer in use. */
+	private final boolean recycleBuffers = Boolean.parseBoolean(System
+		.getProperty("recycleBuffers"));
+
+	/** Whether or not to allocate direct buffers, and pool released ones. */
+	private final boolean useDirectBuffers = Boolean.parseBoolean(System
+		.getProperty("directBuffers"));
+
+	/** Maximum number of bytes of released direct buffers to keep. */
+	private final long maxPoolBytes = Long.getLong("directPoolBytes",
+		64 * 1024 * 1024);
+
+	/** Released direct buffers, by capacity. */
+	private final TreeMap<Integer, Deque<ByteBuffer>> pool = new TreeMap<>();
+
+	/** Total capacity of the pooled buffers. */
+	private long poolBytes;
+
 	// -- NIOService API methods --
 
 	@Override
@@ -75,6 +106,41 @@ public class DefaultNIOService extends AbstractService implements NIOService {
 		return allocateDirect(channel, bufferStartPosition, newSize);
 	}
 
+	@Override
+	public ByteBuffer allocate(final FileChannel channel,
+		final MapMode mapMode, final long bufferStartPosition, final int newSize,
+		final ByteBuffer recycle) throws IOException
+	{
+		if (useMappedByteBuffer) {
+			return allocate(channel, mapMode, bufferStartPosition, newSize);
+		}
+		if (recycleBuffers && recycle != null && recycle.capacity() >= newSize) {
+			return fill(channel, recycle, bufferStartPosition, newSize);
+		}
+		release(recycle);
+		return allocateDirect(channel, bufferStartPosition, newSize);
+	}
+
+	@Override
+	public void release(final ByteBuffer buffer) {
+		// NB: direct buffers are MappedByteBuffers too, so check the mode instead
+		if (!useDirectBuffers || useMappedByteBuffer || buffer == null ||
+			!buffer.isDirect())
+		{
+			return;
+		}
+		synchronized (pool) {
+			if (poolBytes + buffer.capacity() > maxPoolBytes) return;
+			Deque<ByteBuffer> buffers = pool.get(buffer.capacity());
+			if (buffers == null) {
+				buffers = new ArrayDeque<>();
+				pool.put(buffer.capacity(), buffers);
+			}
+			buffers.push(buffer);
+			poolBytes += buffer.capacity();
+		}
+	}
+
 	// -- Helper methods --
 
 	/**
@@ -90,11 +156,60 @@ public class DefaultNIOService extends AbstractService implements NIOService {
 	private ByteBuffer allocateDirect(final FileChannel channel,
 		final long bufferStartPosition, final int newSize) throws IOException
 	{
-		final ByteBuffer buffer = ByteBuffer.allocate(newSize);
-		channel.read(buffer, bufferStartPosition);
+		if (!useDirectBuffers) {
+			final ByteBuffer buffer = ByteBuffer.allocate(newSize);
+			channel.read(buffer, bufferStartPosition);
+			return buffer;
+		}
+		ByteBuffer buffer = takePooled(newSize);
+		if (buffer == null) buffer = ByteBuffer.allocateDirect(newSize);
+		return fill(channel, buffer, bufferStartPosition, newSize);
+	}
+
+	/**
+	 * Reads file data into an existing buffer.
+	 *
+	 * @param channel File channel to read from.
+	 * @param buffer The buffer to fill, which must hold at least {@code newSize}
+	 *          bytes.
+	 * @param bufferStartPosition The absolute position of the start of the
+	 *          buffer.
+	 * @param newSize The number of bytes to read.
+	 * @return The given buffer, limited to {@code newSize} bytes.
+	 * @throws IOException If there is an issue reading the data.
+	 */
+	private ByteBuffer fill(final FileChannel channel, final ByteBuffer buffer,
+		final long bufferStartPosition, final int newSize) throws IOException
+	{
+		buffer.clear();
+		buffer.limit(newSize);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, bufferStartPosition + buffer.position()) <= 0) {
+				break;
+			}
+		}
 		return buffer;
 	}
 
+	/**
+	 * Removes the smallest pooled buffer holding at least the given number of
+	 * bytes from the pool.
+	 *
+	 * @return The buffer, or null if there is none.
+	 */
+	private ByteBuffer takePooled(final int size) {
+		synchronized (pool) {
+			final Map.Entry<Integer, Deque<ByteBuffer>> entry =
+				pool.ceilingEntry(size);
+			// NB: don't waste a large buffer on a small request
+			if (entry == null || entry.getKey() > 2L * size) return null;
+			final ByteBuffer buffer = entry.getValue().pop();
+			if (entry.getValue().isEmpty()) pool.remove(entry.getKey());
+			poolBytes -= buffer.capacity();
+			return buffer.order(ByteOrder.BIG_ENDIAN);
+		}
+	}
+
 	/**
 	 * Memory maps the desired file data into memory.
 	 *
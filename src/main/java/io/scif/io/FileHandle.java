@@ -36,6 +36,8 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.List;
 
 /**
  * A wrapper for RandomAccessFile that implements the IRandomAccess interface.
@@ -124,6 +126,31 @@ public class FileHandle implements IRandomAccess {
 		return n;
 	}
 
+	@Override
+	public int read(final long pos, final byte[] b, final int off,
+		final int len) throws IOException
+	{
+		return read(pos, ByteBuffer.wrap(b, off, len));
+	}
+
+	@Override
+	public int read(final long pos, final ByteBuffer buffer) throws IOException {
+		final FileChannel channel = raf.getChannel();
+		int total = 0;
+		while (buffer.hasRemaining()) {
+			final int n = channel.read(buffer, pos + total);
+			if (n <= 0) break;
+			total += n;
+		}
+		return total;
+	}
+
+	@Override
+	public long readVectored(final List<FileRange> ranges) throws IOException {
+		// NB: ranges a few pages apart are cheaper to read at once
+		return StreamTools.readVectored(this, ranges, 32 * 1024, true);
+	}
+
 	@Override
 	public void seek(final long pos) throws IOException {
 		raf.seek(pos);
@@ -0,0 +1,95 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+/**
+ * A range of bytes to read from a given position of a stream into a given
+ * part of an array, as one of several ranges passed to
+ * {@link IRandomAccess#readVectored}.
+ */
+public class FileRange {
+
+	// -- Fields --
+
+	private final long offset;
+
+	private final byte[] dest;
+
+	private final int destOffset;
+
+	private final int length;
+
+	// -- Constructor --
+
+	/**
+	 * @param offset Position in the stream of the first byte to read.
+	 * @param dest Array to read the bytes into.
+	 * @param destOffset Index in {@code dest} of the first byte to read.
+	 * @param length Number of bytes to read.
+	 */
+	public FileRange(final long offset, final byte[] dest, final int destOffset,
+		final int length)
+	{
+		if (offset < 0 || length < 0 || destOffset < 0 ||
+			destOffset + length > dest.length)
+		{
+			throw new IndexOutOfBoundsException("Invalid range: offset=" + offset +
+				", destOffset=" + destOffset + ", length=" + length);
+		}
+		this.offset = offset;
+		this.dest = dest;
+		this.destOffset = destOffset;
+		this.length = length;
+	}
+
+	// -- FileRange methods --
+
+	public long getOffset() {
+		return offset;
+	}
+
+	public byte[] getDest() {
+		return dest;
+	}
+
+	public int getDestOffset() {
+		return destOffset;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	/** @return The position in the stream following the last byte to read. */
+	public long getEnd() {
+		return offset + length;
+	}
+}
@@ -32,6 +32,7 @@ package io.scif.io;
 
 import java.io.BufferedInputStream;
 import java.io.DataInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.zip.GZIPInputStream;
@@ -43,6 +44,15 @@ import org.scijava.util.Bytes;
 /**
  * StreamHandle implementation for reading from gzip-compressed files or byte
  * arrays. Instances of GZipHandle are read-only.
+ * <p>
+ * Seeking is made cheap by an index of checkpoints, one every
+ * {@link #setCheckpointSpacing checkpoint spacing} bytes of uncompressed data,
+ * from which inflating can resume. The index is built the first time a
+ * position is sought backwards, and only as far as that position; seeking
+ * restarts from the closest checkpoint instead of from the start of the file.
+ * The index can optionally be {@link #setPersistIndex persisted} next to the
+ * file.
+ * </p>
  *
  * @see StreamHandle
  * @author Melissa Linkert
@@ -50,6 +60,19 @@ import org.scijava.util.Bytes;
 @Plugin(type = IStreamAccess.class)
 public class GZipHandle extends StreamHandle {
 
+	// -- Static fields --
+
+	/** Number of uncompressed bytes between index checkpoints. */
+	private static long checkpointSpacing = 4 * 1024 * 1024;
+
+	/** Whether indices are saved next to the files, and reused. */
+	private static boolean persistIndex = false;
+
+	// -- Fields --
+
+	/** Checkpoints into the current file. */
+	private GZipIndex index;
+
 	// -- Constructor --
 
 	/**
@@ -77,6 +100,28 @@ public class GZipHandle extends StreamHandle {
 		setFile(file);
 	}
 
+	// -- GZipHandle API methods --
+
+	/**
+	 * Sets the number of uncompressed bytes between the checkpoints of
+	 * subsequently opened files. Each checkpoint keeps up to 32 KiB of
+	 * (compressed) data in memory; at most this many bytes must be inflated
+	 * after restarting from a checkpoint. Default: 4 MiB
+	 */
+	public static void setCheckpointSpacing(final long spacing) {
+		checkpointSpacing = spacing;
+	}
+
+	/**
+	 * Sets whether the checkpoint indices of subsequently opened files are saved
+	 * next to them when closed, and loaded again when the same, unchanged file is
+	 * next opened. A saved index also spares the pass over the file needed to
+	 * determine its uncompressed length. Default: false
+	 */
+	public static void setPersistIndex(final boolean persist) {
+		persistIndex = persist;
+	}
+
 	// -- IStreamAccess API methods --
 
 	@Override
@@ -108,9 +153,18 @@ public class GZipHandle extends StreamHandle {
 			throw new HandleException(file + " is not a gzip file.");
 		}
 
+		if (index != null) index.close();
+		index = persistIndex ? GZipIndex.load(new File(file)) : null;
+		if (index == null) index = new GZipIndex(new File(file), checkpointSpacing);
+
 		resetStream();
 
-		int length = 0;
+		if (index.length() >= 0) {
+			setLength(index.length());
+			return;
+		}
+
+		long length = 0;
 		while (true) {
 			final int skip = getStream().skipBytes(1024);
 			if (skip <= 0) break;
@@ -118,8 +172,48 @@ public class GZipHandle extends StreamHandle {
 		}
 
 		setLength(length);
+		index.setLength(length);
 
 		resetStream();
 	}
 
+	// -- IRandomAccess API methods --
+
+	@Override
+	public synchronized void seek(final long pos) throws IOException {
+		final long fp = getFp();
+		if (index != null && (pos < fp || pos - fp > checkpointSpacing)) {
+			// only decode ahead of the index for backwards seeks; forward seeks
+			// are as fast when skipping through the current stream
+			final GZipIndex.Checkpoint cp = index.checkpointBefore(pos, pos < fp);
+			if (cp != null && (pos < fp || cp.getPosition() > fp)) {
+				if (getStream() != null) getStream().close();
+				setStream(new DataInputStream(new BufferedInputStream(index.open(cp),
+					RandomAccessInputStream.MAX_OVERHEAD)));
+				setFp(cp.getPosition());
+			}
+		}
+		super.seek(pos);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (index != null) {
+			if (persistIndex) {
+				try {
+					index.save();
+				}
+				catch (final IOException e) {
+					// NB: the index is only an optimization
+					if (getContext() != null) {
+						log().warn("Could not save index of " + getFile(), e);
+					}
+				}
+			}
+			index.close();
+			index = null;
+		}
+		super.close();
+	}
+
 }
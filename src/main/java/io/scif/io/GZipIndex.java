@@ -0,0 +1,864 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Index of restart points into a gzip file, allowing reading to resume close
+ * to any uncompressed position instead of inflating from the start of the
+ * file.
+ * <p>
+ * Each checkpoint records where a deflate block begins, both in the
+ * compressed file (down to the bit) and in the uncompressed data, along with
+ * the 32 KiB of uncompressed data preceding it, which later blocks may refer
+ * back to. Block boundaries are not exposed by {@link Inflater}, so the index
+ * is built by a small deflate decoder of its own, which only decodes as far as
+ * the furthest position requested so far. Reading from a checkpoint is done by
+ * a regular {@link Inflater}, primed with the checkpoint's data and with a few
+ * empty deflate blocks aligning the checkpoint's bit position to a byte.
+ * </p>
+ * <p>
+ * An index can be saved next to the gzip file and loaded again as long as the
+ * gzip file is unchanged, sparing both the decoding and the pass over the file
+ * needed to determine its uncompressed length.
+ * </p>
+ */
+class GZipIndex {
+
+	// -- Constants --
+
+	/** Size of the deflate history window. */
+	private static final int WINDOW_SIZE = 32768;
+
+	/** Identifies a saved index. */
+	private static final int MAGIC = 0x53475a49;
+
+	private static final int VERSION = 2;
+
+	/** Extension of saved index files. */
+	private static final String SUFFIX = ".gzindex";
+
+	// -- Fields --
+
+	/** The gzip file. */
+	private final File file;
+
+	/** Minimum number of uncompressed bytes between checkpoints. */
+	private final long spacing;
+
+	/** Checkpoints, in increasing order. */
+	private final List<Checkpoint> checkpoints = new ArrayList<>();
+
+	/** Uncompressed length of the file, or -1 if not yet known. */
+	private long length = -1;
+
+	/** Whether the checkpoints cover the whole file. */
+	private boolean complete;
+
+	/** Decoder extending the index, or null if not started or done. */
+	private Scanner scanner;
+
+	/** Whether checkpoints were added since the index was loaded. */
+	private boolean modified;
+
+	// -- Constructors --
+
+	/**
+	 * Creates an empty index of the given gzip file.
+	 *
+	 * @param spacing Minimum number of uncompressed bytes between checkpoints.
+	 */
+	public GZipIndex(final File file, final long spacing) {
+		this.file = file;
+		this.spacing = Math.max(WINDOW_SIZE, spacing);
+	}
+
+	// -- GZipIndex methods --
+
+	/**
+	 * @return The uncompressed length of the file, or -1 if it is not known
+	 *         yet.
+	 */
+	public synchronized long length() {
+		return length;
+	}
+
+	/**
+	 * Records the uncompressed length of the file, as found by reading through
+	 * it, so that a saved index spares the next reader that pass.
+	 */
+	public synchronized void setLength(final long length) {
+		if (this.length == length) return;
+		this.length = length;
+		modified = true;
+	}
+
+	/**
+	 * Finds the last checkpoint at or before the given uncompressed position.
+	 *
+	 * @param pos Uncompressed position to read from.
+	 * @param extend Whether to decode the file up to {@code pos} if the index
+	 *          does not reach that far yet.
+	 * @return The checkpoint, or null if there is none.
+	 */
+	public synchronized Checkpoint checkpointBefore(final long pos,
+		final boolean extend) throws IOException
+	{
+		if (extend && !complete) {
+			if (scanner == null) {
+				scanner =
+					new Scanner(checkpoints.isEmpty() ? null : checkpoints
+						.get(checkpoints.size() - 1));
+			}
+			final long reached = scanner.scan(pos);
+			if (reached >= 0) {
+				if (length != reached) modified = true;
+				length = reached;
+				complete = true;
+				scanner.close();
+				scanner = null;
+			}
+		}
+		Checkpoint best = null;
+		for (final Checkpoint cp : checkpoints) {
+			if (cp.out > pos) break;
+			best = cp;
+		}
+		return best;
+	}
+
+	/**
+	 * Opens a stream of the uncompressed data starting at the given checkpoint.
+	 */
+	public InputStream open(final Checkpoint cp) throws IOException {
+		return new ResumedStream(cp);
+	}
+
+	/** Releases the resources used to extend the index. */
+	public synchronized void close() throws IOException {
+		if (scanner != null) scanner.close();
+		scanner = null;
+	}
+
+	/**
+	 * Saves this index next to the gzip file, if it was extended since it was
+	 * created or loaded.
+	 */
+	public synchronized void save() throws IOException {
+		if (!modified) return;
+		try (DataOutputStream out =
+			new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+				indexFile(file)))))
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(file.length());
+			out.writeLong(file.lastModified());
+			out.writeLong(spacing);
+			out.writeLong(length);
+			out.writeBoolean(complete);
+			out.writeInt(checkpoints.size());
+			for (final Checkpoint cp : checkpoints) {
+				out.writeLong(cp.in);
+				out.writeByte(cp.bits);
+				out.writeLong(cp.out);
+				out.writeInt(cp.windowLength);
+				out.writeInt(cp.window.length);
+				out.write(cp.window);
+			}
+		}
+		modified = false;
+	}
+
+	/**
+	 * Loads the saved index of the given gzip file.
+	 *
+	 * @return The index, or null if there is no saved index, or it does not
+	 *         match the current state of the file.
+	 */
+	public static GZipIndex load(final File file) {
+		final File indexFile = indexFile(file);
+		if (!indexFile.isFile()) return null;
+		try (DataInputStream in =
+			new DataInputStream(new BufferedInputStream(new FileInputStream(
+				indexFile))))
+		{
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+			if (in.readLong() != file.length() ||
+				in.readLong() != file.lastModified())
+			{
+				return null;
+			}
+			final GZipIndex index = new GZipIndex(file, in.readLong());
+			index.length = in.readLong();
+			index.complete = in.readBoolean();
+			final int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				final long cpIn = in.readLong();
+				final int bits = in.readByte();
+				final long out = in.readLong();
+				final int windowLength = in.readInt();
+				final byte[] window = new byte[in.readInt()];
+				in.readFully(window);
+				index.checkpoints.add(new Checkpoint(cpIn, bits, out, window,
+					windowLength));
+			}
+			return index;
+		}
+		catch (final IOException e) {
+			return null;
+		}
+	}
+
+	// -- Helper methods --
+
+	private static File indexFile(final File file) {
+		return new File(file.getPath() + SUFFIX);
+	}
+
+	private synchronized void add(final Checkpoint cp) {
+		if (!checkpoints.isEmpty() &&
+			checkpoints.get(checkpoints.size() - 1).out >= cp.out)
+		{
+			return;
+		}
+		checkpoints.add(cp);
+		modified = true;
+	}
+
+	/**
+	 * Skips a gzip member header.
+	 *
+	 * @return Whether a header was found.
+	 */
+	private static boolean skipHeader(final InputStream in) throws IOException {
+		final int id1 = in.read(), id2 = in.read();
+		if (id1 != 0x1f || id2 != 0x8b) return false;
+		final int method = in.read();
+		final int flags = in.read();
+		if (method != 8 || flags < 0) throw new IOException("Invalid gzip header");
+		// modification time, extra flags, OS
+		skip(in, 6);
+		if ((flags & 4) != 0) {
+			final int xlen = in.read() | in.read() << 8;
+			skip(in, xlen);
+		}
+		// file name, comment
+		if ((flags & 8) != 0) while (readByte(in) != 0) {}
+		if ((flags & 16) != 0) while (readByte(in) != 0) {}
+		// header CRC
+		if ((flags & 2) != 0) skip(in, 2);
+		return true;
+	}
+
+	private static void skip(final InputStream in, final int n)
+		throws IOException
+	{
+		for (int i = 0; i < n; i++) {
+			readByte(in);
+		}
+	}
+
+	private static int readByte(final InputStream in) throws IOException {
+		final int b = in.read();
+		if (b < 0) throw new EOFException("Truncated gzip file");
+		return b;
+	}
+
+	// -- Helper classes --
+
+	/** A position at which inflating can be resumed. */
+	public static class Checkpoint {
+
+		/** Offset of the byte containing the first bit of the block. */
+		private final long in;
+
+		/** Number of bits of that byte belonging to the previous block. */
+		private final int bits;
+
+		/** Uncompressed position of the block. */
+		private final long out;
+
+		/** Deflated copy of the uncompressed data preceding the block. */
+		private final byte[] window;
+
+		/** Uncompressed length of {@link #window}. */
+		private final int windowLength;
+
+		private Checkpoint(final long in, final int bits, final long out,
+			final byte[] window, final int windowLength)
+		{
+			this.in = in;
+			this.bits = bits;
+			this.out = out;
+			this.window = window;
+			this.windowLength = windowLength;
+		}
+
+		/** @return The uncompressed position of this checkpoint. */
+		public long getPosition() {
+			return out;
+		}
+
+		private byte[] inflateWindow() throws IOException {
+			final byte[] data = new byte[windowLength];
+			if (windowLength == 0) return data;
+			final Inflater inflater = new Inflater();
+			try {
+				inflater.setInput(window);
+				int n = 0;
+				while (n < windowLength && !inflater.finished()) {
+					n += inflater.inflate(data, n, windowLength - n);
+				}
+			}
+			catch (final DataFormatException e) {
+				throw new IOException(e);
+			}
+			finally {
+				inflater.end();
+			}
+			return data;
+		}
+
+		private static byte[] deflateWindow(final byte[] data, final int len) {
+			final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+			try {
+				deflater.setInput(data, 0, len);
+				deflater.finish();
+				final byte[] buf = new byte[len + 64];
+				int n = 0;
+				while (!deflater.finished()) {
+					n += deflater.deflate(buf, n, buf.length - n);
+				}
+				final byte[] result = new byte[n];
+				System.arraycopy(buf, 0, result, 0, n);
+				return result;
+			}
+			finally {
+				deflater.end();
+			}
+		}
+	}
+
+	/**
+	 * Input stream inflating a gzip file from a checkpoint onwards, including
+	 * any following gzip members.
+	 */
+	private class ResumedStream extends InputStream {
+
+		private final RandomAccessFile raf;
+
+		private final Inflater inflater = new Inflater(true);
+
+		private final byte[] buf = new byte[65536];
+
+		/** File offset following the data last handed to the inflater. */
+		private long pos;
+
+		private boolean eof;
+
+		private final byte[] single = new byte[1];
+
+		private ResumedStream(final Checkpoint cp) throws IOException {
+			raf = new RandomAccessFile(file, "r");
+			pos = cp.in;
+			if (cp.windowLength > 0) inflater.setDictionary(cp.inflateWindow());
+			if (cp.bits != 0) {
+				raf.seek(pos++);
+				inflater.setInput(alignmentPrefix(cp.bits, raf.read()));
+			}
+		}
+
+		@Override
+		public int read() throws IOException {
+			return read(single, 0, 1) <= 0 ? -1 : single[0] & 0xff;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len)
+			throws IOException
+		{
+			if (len == 0) return 0;
+			try {
+				while (!eof) {
+					final int n = inflater.inflate(b, off, len);
+					if (n > 0) return n;
+					if (inflater.finished()) nextMember();
+					else if (inflater.needsInput()) fill();
+					else if (inflater.needsDictionary()) {
+						throw new IOException("Corrupt gzip index");
+					}
+				}
+			}
+			catch (final DataFormatException e) {
+				throw new IOException(e);
+			}
+			return -1;
+		}
+
+		@Override
+		public void close() throws IOException {
+			inflater.end();
+			raf.close();
+		}
+
+		private void fill() throws IOException {
+			raf.seek(pos);
+			final int n = raf.read(buf);
+			if (n <= 0) throw new EOFException("Truncated gzip file");
+			pos += n;
+			inflater.setInput(buf, 0, n);
+		}
+
+		/** Skips the trailer of a gzip member, and the header of the next one. */
+		private void nextMember() throws IOException {
+			// NB: the final block cannot end within the alignment prefix
+			pos -= inflater.getRemaining();
+			raf.seek(pos + 8);
+			final InputStream in = new InputStream() {
+
+				@Override
+				public int read() throws IOException {
+					return raf.read();
+				}
+			};
+			if (raf.getFilePointer() >= raf.length() || !skipHeader(in)) {
+				eof = true;
+				return;
+			}
+			pos = raf.getFilePointer();
+			inflater.reset();
+		}
+	}
+
+	/**
+	 * Empty deflate blocks of every length modulo 8 bits: a fixed Huffman block
+	 * is 10 bits long, and the dynamic one below 93.
+	 */
+	private static byte[] alignmentPrefix(final int bits, final int first) {
+		final BitPacker p = new BitPacker();
+		if ((bits & 1) != 0) {
+			// empty dynamic block: literal/length code holding only end-of-block,
+			// distance code holding a single unused code, and a code length code
+			// of the two symbols needed to describe them
+			p.put(0, 1);
+			p.put(2, 2);
+			p.put(0, 5);
+			p.put(0, 5);
+			p.put(15, 4);
+			// code length code lengths, in order: 16, 17, 18, 0, 8, 7, 9, 6, 10, 5,
+			// 11, 4, 12, 3, 13, 2, 14, 1, 15
+			for (int i = 0; i < 19; i++) {
+				p.put(i == 2 || i == 17 ? 1 : 0, 3);
+			}
+			// 256 zero lengths, then a length of 1 for both end-of-block and the
+			// distance code (code 0 is symbol 1, code 1 is symbol 18)
+			p.put(1, 1);
+			p.put(138 - 11, 7);
+			p.put(1, 1);
+			p.put(118 - 11, 7);
+			p.put(0, 1);
+			p.put(0, 1);
+			// end-of-block
+			p.put(0, 1);
+		}
+		// empty fixed Huffman blocks
+		while ((p.count + 8 - bits) % 8 != 0) {
+			p.put(0, 1);
+			p.put(1, 2);
+			p.put(0, 7);
+		}
+		p.put(first >>> bits, 8 - bits);
+		return p.toByteArray();
+	}
+
+	/** Packs bits least significant first, as deflate does. */
+	private static class BitPacker {
+
+		private final byte[] bytes = new byte[32];
+
+		private int count;
+
+		private void put(final int value, final int n) {
+			for (int i = 0; i < n; i++, count++) {
+				if ((value >>> i & 1) != 0) bytes[count >> 3] |= 1 << (count & 7);
+			}
+		}
+
+		private byte[] toByteArray() {
+			final byte[] result = new byte[count >> 3];
+			System.arraycopy(bytes, 0, result, 0, result.length);
+			return result;
+		}
+	}
+
+	/**
+	 * Deflate decoder recording checkpoints at block boundaries. It only keeps
+	 * track of the last 32 KiB of output.
+	 */
+	private class Scanner {
+
+		private final InputStream in;
+
+		/** Number of bytes read from the file. */
+		private long inCount;
+
+		private long bitBuf;
+
+		private int bitCount;
+
+		private final byte[] window = new byte[WINDOW_SIZE];
+
+		/** Number of bytes output. */
+		private long out;
+
+		/** Output position of the current gzip member's start. */
+		private long memberOut;
+
+		/** Output position of the last checkpoint. */
+		private long lastCheckpoint = -1;
+
+		/** Whether the next block starts a new gzip member. */
+		private boolean memberStart = true;
+
+		private final Huffman lencode = new Huffman(288);
+
+		private final Huffman distcode = new Huffman(30);
+
+		/**
+		 * @param from Checkpoint to start decoding from, or null to start from the
+		 *          beginning of the file.
+		 */
+		private Scanner(final Checkpoint from) throws IOException {
+			final FileInputStream fis = new FileInputStream(file);
+			in = new BufferedInputStream(fis, 65536);
+			if (from == null) return;
+
+			long n = from.in;
+			while (n > 0) {
+				final long s = fis.skip(n);
+				if (s <= 0) throw new EOFException("Truncated gzip file");
+				n -= s;
+			}
+			inCount = from.in;
+			if (from.bits != 0) bits(from.bits);
+			final byte[] data = from.inflateWindow();
+			out = from.out - data.length;
+			for (final byte b : data) {
+				put(b);
+			}
+			memberOut = from.out - from.windowLength;
+			lastCheckpoint = from.out;
+			memberStart = false;
+		}
+
+		/**
+		 * Decodes blocks until the output reaches the given position.
+		 *
+		 * @return The uncompressed length of the file if its end was reached, or
+		 *         -1 otherwise.
+		 */
+		private long scan(final long target) throws IOException {
+			while (out <= target) {
+				if (memberStart) {
+					if (!nextMember()) return out;
+					memberStart = false;
+				}
+				if (lastCheckpoint < 0 || out - lastCheckpoint >= spacing) {
+					checkpoint();
+				}
+				if (block()) {
+					// final block: skip to the member trailer
+					bitBuf = 0;
+					bitCount = 0;
+					skip(in, 8);
+					inCount += 8;
+					memberStart = true;
+				}
+			}
+			return -1;
+		}
+
+		private void close() throws IOException {
+			in.close();
+		}
+
+		private boolean nextMember() throws IOException {
+			in.mark(2);
+			if (in.read() < 0) return false;
+			in.reset();
+			final CountingStream counting = new CountingStream(in);
+			if (!skipHeader(counting)) return false;
+			inCount += counting.count;
+			memberOut = out;
+			// NB: blocks of a new member never refer to earlier data
+			lastCheckpoint = -1;
+			return true;
+		}
+
+		private void checkpoint() {
+			final long bitPos = inCount * 8 - bitCount;
+			final int len = (int) Math.min(WINDOW_SIZE, out - memberOut);
+			final byte[] data = new byte[len];
+			for (int i = 0; i < len; i++) {
+				data[i] = window[(int) (out - len + i) & (WINDOW_SIZE - 1)];
+			}
+			add(new Checkpoint(bitPos >> 3, (int) (bitPos & 7), out, Checkpoint
+				.deflateWindow(data, len), len));
+			lastCheckpoint = out;
+		}
+
+		/**
+		 * Decodes one deflate block.
+		 *
+		 * @return Whether it was the final block.
+		 */
+		private boolean block() throws IOException {
+			final boolean last = bits(1) == 1;
+			switch (bits(2)) {
+				case 0:
+					stored();
+					break;
+				case 1:
+					fixed();
+					codes();
+					break;
+				case 2:
+					dynamic();
+					codes();
+					break;
+				default:
+					throw new IOException("Invalid deflate block type");
+			}
+			return last;
+		}
+
+		private void stored() throws IOException {
+			bitBuf >>>= bitCount & 7;
+			bitCount -= bitCount & 7;
+			final int len = bits(16);
+			if ((len ^ 0xffff) != bits(16)) {
+				throw new IOException("Invalid stored block length");
+			}
+			for (int i = 0; i < len; i++) {
+				put((byte) bits(8));
+			}
+		}
+
+		private void fixed() {
+			final short[] lengths = new short[288];
+			for (int i = 0; i < 288; i++) {
+				lengths[i] = (short) (i < 144 ? 8 : i < 256 ? 9 : i < 280 ? 7 : 8);
+			}
+			lencode.build(lengths, 0, 288);
+			for (int i = 0; i < 30; i++) {
+				lengths[i] = 5;
+			}
+			distcode.build(lengths, 0, 30);
+		}
+
+		private void dynamic() throws IOException {
+			final int nlen = bits(5) + 257;
+			final int ndist = bits(5) + 1;
+			final int ncode = bits(4) + 4;
+			final short[] lengths = new short[320];
+			for (int i = 0; i < ncode; i++) {
+				lengths[ORDER[i]] = (short) bits(3);
+			}
+			final Huffman lencodeCode = new Huffman(19);
+			lencodeCode.build(lengths, 0, 19);
+
+			final short[] codeLengths = new short[nlen + ndist];
+			int index = 0;
+			while (index < nlen + ndist) {
+				int symbol = decode(lencodeCode);
+				if (symbol < 16) {
+					codeLengths[index++] = (short) symbol;
+					continue;
+				}
+				short len = 0;
+				if (symbol == 16) {
+					if (index == 0) throw new IOException("Invalid code lengths");
+					len = codeLengths[index - 1];
+					symbol = 3 + bits(2);
+				}
+				else if (symbol == 17) symbol = 3 + bits(3);
+				else symbol = 11 + bits(7);
+				if (index + symbol > nlen + ndist) {
+					throw new IOException("Invalid code lengths");
+				}
+				while (symbol-- > 0) {
+					codeLengths[index++] = len;
+				}
+			}
+			lencode.build(codeLengths, 0, nlen);
+			distcode.build(codeLengths, nlen, ndist);
+		}
+
+		private void codes() throws IOException {
+			while (true) {
+				int symbol = decode(lencode);
+				if (symbol < 256) {
+					put((byte) symbol);
+					continue;
+				}
+				if (symbol == 256) return;
+				symbol -= 257;
+				if (symbol >= 29) throw new IOException("Invalid length code");
+				final int len = LENGTH_BASE[symbol] + bits(LENGTH_EXTRA[symbol]);
+				symbol = decode(distcode);
+				if (symbol >= 30) throw new IOException("Invalid distance code");
+				final int dist = DIST_BASE[symbol] + bits(DIST_EXTRA[symbol]);
+				if (dist > out - memberOut) {
+					throw new IOException("Invalid distance");
+				}
+				for (int i = 0; i < len; i++) {
+					put(window[(int) (out - dist) & (WINDOW_SIZE - 1)]);
+				}
+			}
+		}
+
+		private void put(final byte b) {
+			window[(int) out & (WINDOW_SIZE - 1)] = b;
+			out++;
+		}
+
+		private int bits(final int n) throws IOException {
+			while (bitCount < n) {
+				final int b = in.read();
+				if (b < 0) throw new EOFException("Truncated gzip file");
+				inCount++;
+				bitBuf |= (long) b << bitCount;
+				bitCount += 8;
+			}
+			final int value = (int) (bitBuf & ((1L << n) - 1));
+			bitBuf >>>= n;
+			bitCount -= n;
+			return value;
+		}
+
+		/** Decodes a symbol with the given canonical Huffman code. */
+		private int decode(final Huffman h) throws IOException {
+			int code = 0, first = 0, index = 0;
+			for (int len = 1; len <= 15; len++) {
+				code |= bits(1);
+				final int count = h.count[len];
+				if (code - count < first) return h.symbol[index + (code - first)];
+				index += count;
+				first += count;
+				first <<= 1;
+				code <<= 1;
+			}
+			throw new IOException("Invalid Huffman code");
+		}
+	}
+
+	/** Canonical Huffman code, as counts of codes per length. */
+	private static class Huffman {
+
+		private final short[] count = new short[16];
+
+		private final short[] symbol;
+
+		private Huffman(final int size) {
+			symbol = new short[size];
+		}
+
+		private void build(final short[] lengths, final int offset, final int n) {
+			Arrays.fill(count, (short) 0);
+			for (int i = 0; i < n; i++) {
+				count[lengths[offset + i]]++;
+			}
+			final short[] offs = new short[16];
+			for (int len = 1; len < 15; len++) {
+				offs[len + 1] = (short) (offs[len] + count[len]);
+			}
+			for (int i = 0; i < n; i++) {
+				if (lengths[offset + i] != 0) {
+					symbol[offs[lengths[offset + i]]++] = (short) i;
+				}
+			}
+		}
+	}
+
+	/** Input stream counting the bytes read through it. */
+	private static class CountingStream extends InputStream {
+
+		private final InputStream in;
+
+		private int count;
+
+		private CountingStream(final InputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		public int read() throws IOException {
+			final int b = in.read();
+			if (b >= 0) count++;
+			return b;
+		}
+	}
+
+	private static final int[] ORDER = { 16, 17, 18, 0, 8, 7, 9, 6, 10, 5, 11,
+		4, 12, 3, 13, 2, 14, 1, 15 };
+
+	private static final short[] LENGTH_BASE = { 3, 4, 5, 6, 7, 8, 9, 10, 11,
+		13, 15, 17, 19, 23, 27, 31, 35, 43, 51, 59, 67, 83, 99, 115, 131, 163, 195,
+		227, 258 };
+
+	private static final short[] LENGTH_EXTRA = { 0, 0, 0, 0, 0, 0, 0, 0, 1, 1,
+		1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 4, 4, 4, 4, 5, 5, 5, 5, 0 };
+
+	private static final short[] DIST_BASE = { 1, 2, 3, 4, 5, 7, 9, 13, 17, 25,
+		33, 49, 65, 97, 129, 193, 257, 385, 513, 769, 1025, 1537, 2049, 3073, 4097,
+		6145, 8193, 12289, 16385, 24577 };
+
+	private static final short[] DIST_EXTRA = { 0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4,
+		4, 5, 5, 6, 6, 7, 7, 8, 8, 9, 9, 10, 10, 11, 11, 12, 12, 13, 13 };
+}
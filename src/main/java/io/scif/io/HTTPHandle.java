@@ -0,0 +1,396 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import org.scijava.Context;
+import org.scijava.Priority;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Provides random access to HTTP resources using the IRandomAccess interface.
+ * Instances of HTTPHandle are read-only.
+ * <p>
+ * Rather than streaming the resource from its start as {@link URLHandle} does,
+ * data is requested in aligned blocks of {@link #setBlockSize block size}
+ * bytes using HTTP range requests, so seeking is free. Blocks are kept in a
+ * least recently used cache shared by all handles to the same resource; see
+ * {@link #setCacheSize}. When a read needs several adjacent blocks which are
+ * not cached, they are requested at once.
+ * </p>
+ * <p>
+ * A resource is only handled here if a HEAD request reports its length and
+ * support for byte ranges; any other URL is left to {@link URLHandle}. Block
+ * requests are conditional on the version of the resource seen when it was
+ * opened, so blocks of a resource which changes afterwards are never mixed;
+ * reading then fails instead.
+ * </p>
+ *
+ * @see IRandomAccess
+ * @see StreamHandle
+ */
+@Plugin(type = IStreamAccess.class, priority = Priority.HIGH_PRIORITY)
+public class HTTPHandle extends StreamHandle {
+
+	// -- Constants --
+
+	private static final String[] SUPPORTED_PROTOCOLS = { "http:", "https:" };
+
+	// -- Static fields --
+
+	/** Size of the blocks requested by subsequently opened handles. */
+	private static int defaultBlockSize = 64 * 1024;
+
+	/** Blocks of all resources, shared by all handles. */
+	private static final BlockCache CACHE = new BlockCache(64 * 1024 * 1024);
+
+	// -- Fields --
+
+	/** URL of the resource. */
+	private URL url;
+
+	/** Identifies the blocks of this version of the resource in the cache. */
+	private String key;
+
+	/** Validator of this version of the resource, for If-Range, or null. */
+	private String validator;
+
+	/** The URL most recently probed by {@link #isConstructable}. */
+	private String probedId;
+
+	/** Length of the probed resource, or -1 if it can not be handled. */
+	private long probedLength = -1;
+
+	/** ETag or Last-Modified date of the probed resource, or null. */
+	private String probedValidator;
+
+	/** Size of the requested blocks. */
+	private int blockSize;
+
+	/** Stream reading from the blocks at the file pointer. */
+	private BlockInputStream blocks;
+
+	// -- Constructors --
+
+	/**
+	 * Zero-parameter constructor. This instructor can be used first to see if a
+	 * given URL is constructable from this handle. If so, setFile can then be
+	 * used.
+	 */
+	public HTTPHandle() {
+		super();
+	}
+
+	public HTTPHandle(final Context context) {
+		super(context);
+	}
+
+	/**
+	 * Constructs a new HTTPHandle for the given URL.
+	 */
+	public HTTPHandle(final Context context, final String url)
+		throws IOException
+	{
+		super(context);
+		setFile(url);
+	}
+
+	// -- HTTPHandle API methods --
+
+	/**
+	 * Sets the size of the blocks requested by subsequently opened handles.
+	 * Default: 64 KiB
+	 */
+	public static void setBlockSize(final int size) {
+		defaultBlockSize = size;
+	}
+
+	/**
+	 * Sets the maximum number of bytes of cached blocks, across all handles.
+	 * Default: 64 MiB
+	 */
+	public static void setCacheSize(final long size) {
+		CACHE.setCapacity(size);
+	}
+
+	/** Discards all cached blocks. */
+	public static void clearCache() {
+		CACHE.clear();
+	}
+
+	// -- IStreamAccess API methods --
+
+	/**
+	 * Also sends a HEAD request to check that the resource has a known length
+	 * and that the server accepts byte range requests for it.
+	 */
+	@Override
+	public boolean isConstructable(final String id) throws IOException {
+		boolean http = false;
+		for (final String protocol : SUPPORTED_PROTOCOLS) {
+			if (id.startsWith(protocol)) http = true;
+		}
+		if (!http) return false;
+		if (!id.equals(probedId)) probe(id);
+		return probedLength >= 0;
+	}
+
+	@Override
+	public void setFile(final String file) throws IOException {
+		super.setFile(file);
+		if (!isConstructable(file)) {
+			throw new HandleException(file +
+				" is not an HTTP URL supporting range requests.");
+		}
+
+		url = new URL(file);
+		blockSize = defaultBlockSize;
+		setLength(probedLength);
+		validator = probedValidator;
+		// cached blocks of other versions of the resource must not be used
+		key = file + "\n" + probedLength + "\n" + validator;
+		probedId = null;
+
+		resetStream();
+	}
+
+	@Override
+	public void resetStream() throws IOException {
+		blocks = new BlockInputStream();
+		setStream(new DataInputStream(blocks));
+		setFp(0);
+		setMark(0);
+	}
+
+	// -- IRandomAccess API methods --
+
+	@Override
+	public int read(final long pos, final byte[] b, final int off, final int len)
+		throws IOException
+	{
+		final long end = Math.min(pos + len, length());
+		if (pos >= end) return 0;
+
+		final long first = pos / blockSize;
+		final byte[][] data = getBlocks(first, (end - 1) / blockSize);
+		int n = 0;
+		for (int i = 0; i < data.length; i++) {
+			final long blockStart = (first + i) * blockSize;
+			final int from = (int) Math.max(0, pos - blockStart);
+			final int to = (int) Math.min(data[i].length, end - blockStart);
+			System.arraycopy(data[i], from, b, off + n, to - from);
+			n += to - from;
+		}
+		return n;
+	}
+
+	@Override
+	public synchronized void seek(final long pos) throws IOException {
+		blocks.pos = pos;
+		setFp(pos);
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		url = null;
+		key = null;
+		validator = null;
+		blocks = null;
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Gets the given range of blocks, from the cache if possible. Missing blocks
+	 * are requested, adjacent ones together.
+	 */
+	private byte[][] getBlocks(final long first, final long last)
+		throws IOException
+	{
+		final byte[][] data = new byte[(int) (last - first + 1)][];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = CACHE.get(key, first + i);
+		}
+		int i = 0;
+		while (i < data.length) {
+			if (data[i] != null) {
+				i++;
+				continue;
+			}
+			int j = i;
+			while (j + 1 < data.length && data[j + 1] == null) {
+				j++;
+			}
+			request(first + i, first + j, data, first);
+			i = j + 1;
+		}
+		return data;
+	}
+
+	/**
+	 * Requests the given range of blocks, caching them and storing them into
+	 * the given array, whose first element is block {@code offset}.
+	 */
+	private void request(final long first, final long last, final byte[][] data,
+		final long offset) throws IOException
+	{
+		final long start = first * blockSize;
+		final long end = Math.min((last + 1) * blockSize, length());
+		final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+		conn.setRequestProperty("Range", "bytes=" + start + "-" + (end - 1));
+		if (validator != null) conn.setRequestProperty("If-Range", validator);
+
+		final int code = conn.getResponseCode();
+		if (code != HttpURLConnection.HTTP_PARTIAL) {
+			// NB: a 200 reply carries the whole (possibly changed) resource;
+			// drop the connection rather than draining it
+			conn.disconnect();
+			if (code == HttpURLConnection.HTTP_OK) {
+				throw new IOException(url + " has changed or ignored the range " +
+					"request");
+			}
+			throw new IOException("HTTP " + code + " for " + url);
+		}
+
+		// NB: closing the fully read stream, rather than disconnecting, keeps
+		// the connection alive for the next request
+		try (InputStream in = conn.getInputStream()) {
+			for (long block = first; block <= last; block++) {
+				final byte[] b =
+					new byte[(int) Math.min(blockSize, end - block * blockSize)];
+				readFully(in, b);
+				CACHE.put(key, block, b);
+				data[(int) (block - offset)] = b;
+			}
+		}
+	}
+
+	/**
+	 * Sends a HEAD request for the given URL, recording its length and version
+	 * if the server supports range requests for it.
+	 */
+	private void probe(final String id) {
+		probedId = id;
+		probedLength = -1;
+		probedValidator = null;
+		try {
+			final HttpURLConnection conn =
+				(HttpURLConnection) new URL(id).openConnection();
+			conn.setRequestMethod("HEAD");
+			final int code = conn.getResponseCode();
+			final InputStream in = code < HttpURLConnection.HTTP_BAD_REQUEST ? conn
+				.getInputStream() : conn.getErrorStream();
+			if (in != null) in.close();
+			if (code != HttpURLConnection.HTTP_OK) return;
+			if (!"bytes".equalsIgnoreCase(conn.getHeaderField("Accept-Ranges"))) {
+				return;
+			}
+			final long length = conn.getContentLengthLong();
+			if (length < 0) return;
+
+			// NB: If-Range only accepts strong entity tags
+			String version = conn.getHeaderField("ETag");
+			if (version == null || version.startsWith("W/")) {
+				version = conn.getHeaderField("Last-Modified");
+			}
+			probedValidator = version;
+			probedLength = length;
+		}
+		catch (final IOException e) {
+			// not reachable this way; leave the URL to other handles
+		}
+	}
+
+	private static void readFully(final InputStream in, final byte[] b)
+		throws IOException
+	{
+		int n = 0;
+		while (n < b.length) {
+			final int r = in.read(b, n, b.length - n);
+			if (r < 0) throw new EOFException();
+			n += r;
+		}
+	}
+
+	// -- Helper classes --
+
+	/** Reads from the blocks of the resource. */
+	private class BlockInputStream extends InputStream {
+
+		private long pos;
+
+		/** Most recently read block, and its index. */
+		private byte[] block;
+
+		private long index = -1;
+
+		@Override
+		public int read() throws IOException {
+			if (pos >= length()) return -1;
+			final long i = pos / blockSize;
+			if (i != index) {
+				block = getBlocks(i, i)[0];
+				index = i;
+			}
+			return block[(int) (pos++ - i * blockSize)] & 0xff;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len)
+			throws IOException
+		{
+			if (len == 0) return 0;
+			final int n = HTTPHandle.this.read(pos, b, off, len);
+			if (n == 0) return -1;
+			pos += n;
+			return n;
+		}
+
+		@Override
+		public long skip(final long n) throws IOException {
+			final long skipped = Math.max(0, Math.min(n, length() - pos));
+			pos += skipped;
+			return skipped;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return (int) Math.min(Integer.MAX_VALUE, Math.max(0, length() - pos));
+		}
+	}
+}
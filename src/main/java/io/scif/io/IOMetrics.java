@@ -0,0 +1,329 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters describing the I/O performed through one stream: bytes read and
+ * written, seeks and the distance they covered, misses of the handle's
+ * buffered windows, and time spent in bulk reads and writes. Streams whose
+ * source is read by a {@link io.scif.Reader} also count the planes opened,
+ * and how much of the time taken to open them was spent in I/O rather than
+ * decoding.
+ * <p>
+ * Counters are updated without locking, so that metrics are cheap enough to
+ * collect all the time. Only bulk transfers (of arrays and buffers) are
+ * timed; single values are counted but not timed, as reading the clock would
+ * cost more than the read itself.
+ * </p>
+ *
+ * @see IOMetricsService
+ */
+public class IOMetrics {
+
+	// -- Fields --
+
+	private final String name;
+
+	private final LongAdder bytesRead = new LongAdder();
+
+	private final LongAdder bytesWritten = new LongAdder();
+
+	private final LongAdder reads = new LongAdder();
+
+	private final LongAdder writes = new LongAdder();
+
+	private final LongAdder seeks = new LongAdder();
+
+	private final LongAdder seekDistance = new LongAdder();
+
+	private final LongAdder windowMisses = new LongAdder();
+
+	private final LongAdder ioNanos = new LongAdder();
+
+	private final LongAdder planes = new LongAdder();
+
+	private final LongAdder planeNanos = new LongAdder();
+
+	private final LongAdder planeIONanos = new LongAdder();
+
+	// -- Constructor --
+
+	/**
+	 * @param name Name of the source or destination of the stream, used when
+	 *          reporting the metrics.
+	 */
+	public IOMetrics(final String name) {
+		this.name = name;
+	}
+
+	// -- IOMetrics methods --
+
+	public String getName() {
+		return name;
+	}
+
+	/** Counts a bulk read of the given number of bytes taking the given time. */
+	public void read(final long bytes, final long nanos) {
+		bytesRead.add(bytes);
+		reads.increment();
+		ioNanos.add(nanos);
+	}
+
+	/** Counts a read of a single value of the given size. */
+	public void read(final int bytes) {
+		bytesRead.add(bytes);
+	}
+
+	/**
+	 * Counts a bulk write of the given number of bytes taking the given time.
+	 */
+	public void write(final long bytes, final long nanos) {
+		bytesWritten.add(bytes);
+		writes.increment();
+		ioNanos.add(nanos);
+	}
+
+	/** Counts a write of a single value of the given size. */
+	public void write(final int bytes) {
+		bytesWritten.add(bytes);
+	}
+
+	/**
+	 * Counts a seek or skip over the given number of bytes, which is negative
+	 * for backward seeks. Seeks to the current offset are not counted.
+	 */
+	public void seek(final long distance) {
+		if (distance == 0) return;
+		seeks.increment();
+		seekDistance.add(Math.abs(distance));
+	}
+
+	/** Counts a read which the handle's buffered windows could not satisfy. */
+	public void windowMiss() {
+		windowMisses.increment();
+	}
+
+	/**
+	 * Counts an opened plane.
+	 *
+	 * @param nanos Time taken to open the plane.
+	 * @param ioNanos Time spent in I/O while opening the plane.
+	 */
+	public void plane(final long nanos, final long ioNanos) {
+		planes.increment();
+		planeNanos.add(nanos);
+		planeIONanos.add(ioNanos);
+	}
+
+	/** Gets the time spent in bulk reads and writes so far. */
+	public long getIONanos() {
+		return ioNanos.sum();
+	}
+
+	/**
+	 * Gets the current values of all counters. Counts updated concurrently with
+	 * this call may or may not be included.
+	 */
+	public Snapshot snapshot() {
+		return new Snapshot(name, bytesRead.sum(), bytesWritten.sum(), reads
+			.sum(), writes.sum(), seeks.sum(), seekDistance.sum(), windowMisses
+				.sum(), ioNanos.sum(), planes.sum(), planeNanos.sum(), planeIONanos
+					.sum());
+	}
+
+	/** Sets all counters back to zero. */
+	public void reset() {
+		bytesRead.reset();
+		bytesWritten.reset();
+		reads.reset();
+		writes.reset();
+		seeks.reset();
+		seekDistance.reset();
+		windowMisses.reset();
+		ioNanos.reset();
+		planes.reset();
+		planeNanos.reset();
+		planeIONanos.reset();
+	}
+
+	// -- Object methods --
+
+	@Override
+	public String toString() {
+		return snapshot().toString();
+	}
+
+	// -- Helper classes --
+
+	/** Immutable values of the counters of an {@link IOMetrics} object. */
+	public static class Snapshot {
+
+		private final String name;
+
+		private final long bytesRead;
+
+		private final long bytesWritten;
+
+		private final long reads;
+
+		private final long writes;
+
+		private final long seeks;
+
+		private final long seekDistance;
+
+		private final long windowMisses;
+
+		private final long ioNanos;
+
+		private final long planes;
+
+		private final long planeNanos;
+
+		private final long planeIONanos;
+
+		public Snapshot(final String name, final long bytesRead,
+			final long bytesWritten, final long reads, final long writes,
+			final long seeks, final long seekDistance, final long windowMisses,
+			final long ioNanos, final long planes, final long planeNanos,
+			final long planeIONanos)
+		{
+			this.name = name;
+			this.bytesRead = bytesRead;
+			this.bytesWritten = bytesWritten;
+			this.reads = reads;
+			this.writes = writes;
+			this.seeks = seeks;
+			this.seekDistance = seekDistance;
+			this.windowMisses = windowMisses;
+			this.ioNanos = ioNanos;
+			this.planes = planes;
+			this.planeNanos = planeNanos;
+			this.planeIONanos = planeIONanos;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getBytesRead() {
+			return bytesRead;
+		}
+
+		public long getBytesWritten() {
+			return bytesWritten;
+		}
+
+		/** Gets the number of bulk reads. */
+		public long getReads() {
+			return reads;
+		}
+
+		/** Gets the number of bulk writes. */
+		public long getWrites() {
+			return writes;
+		}
+
+		public long getSeeks() {
+			return seeks;
+		}
+
+		/** Gets the total number of bytes skipped over, forwards or backwards. */
+		public long getSeekDistance() {
+			return seekDistance;
+		}
+
+		public long getWindowMisses() {
+			return windowMisses;
+		}
+
+		/** Gets the time spent in bulk reads and writes. */
+		public long getIONanos() {
+			return ioNanos;
+		}
+
+		public long getPlanes() {
+			return planes;
+		}
+
+		/** Gets the total time taken to open planes. */
+		public long getPlaneNanos() {
+			return planeNanos;
+		}
+
+		/** Gets the part of the time taken to open planes spent in I/O. */
+		public long getPlaneIONanos() {
+			return planeIONanos;
+		}
+
+		/** Gets the part of the time taken to open planes spent decoding. */
+		public long getDecodeNanos() {
+			return planeNanos - planeIONanos;
+		}
+
+		/**
+		 * Adds the counts of the given snapshot to those of this one.
+		 *
+		 * @return A snapshot of the sums, named after this one.
+		 */
+		public Snapshot plus(final Snapshot s) {
+			return new Snapshot(name, bytesRead + s.bytesRead, bytesWritten +
+				s.bytesWritten, reads + s.reads, writes + s.writes, seeks + s.seeks,
+				seekDistance + s.seekDistance, windowMisses + s.windowMisses,
+				ioNanos + s.ioNanos, planes + s.planes, planeNanos + s.planeNanos,
+				planeIONanos + s.planeIONanos);
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder sb = new StringBuilder();
+			sb.append(name);
+			sb.append(": read=").append(bytesRead);
+			sb.append(" B in ").append(reads);
+			sb.append(", written=").append(bytesWritten);
+			sb.append(" B in ").append(writes);
+			sb.append(", seeks=").append(seeks);
+			sb.append(" over ").append(seekDistance);
+			sb.append(" B, windowMisses=").append(windowMisses);
+			sb.append(", io=").append(ioNanos / 1000000).append(" ms");
+			if (planes > 0) {
+				sb.append(", planes=").append(planes);
+				sb.append(" (io=").append(planeIONanos / 1000000);
+				sb.append(" ms, decode=").append(getDecodeNanos() / 1000000);
+				sb.append(" ms)");
+			}
+			return sb.toString();
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import io.scif.SCIFIOService;
+
+import java.util.List;
+
+/**
+ * Interface for services collecting {@link IOMetrics} for the streams opened
+ * in an application context, such as each {@link RandomAccessInputStream} and
+ * {@link RandomAccessOutputStream}, and thereby each reader and writer.
+ */
+public interface IOMetricsService extends SCIFIOService {
+
+	/** Gets whether streams opened from now on collect metrics. */
+	boolean isEnabled();
+
+	/**
+	 * Sets whether streams opened from now on collect metrics. Streams already
+	 * open are unaffected.
+	 */
+	void setEnabled(boolean enabled);
+
+	/**
+	 * Creates the metrics for a new stream, if enabled.
+	 *
+	 * @param name Name of the stream's source or destination.
+	 * @return The new metrics, or null if metrics are disabled.
+	 */
+	IOMetrics create(String name);
+
+	/**
+	 * Reports the final values of the given metrics of a stream which has been
+	 * closed, to the log at debug level and to all listeners, and adds them to
+	 * the {@link #total()}.
+	 *
+	 * @param metrics Metrics obtained from {@link #create(String)}, or null.
+	 */
+	void close(IOMetrics metrics);
+
+	/** Gets the current metrics of each stream which is still open. */
+	List<IOMetrics.Snapshot> snapshot();
+
+	/**
+	 * Gets the sum of the metrics of all streams, both open and closed, since
+	 * the service was created or last {@link #reset()}.
+	 */
+	IOMetrics.Snapshot total();
+
+	/** Resets the metrics of all open streams, and the {@link #total()}. */
+	void reset();
+
+	/** Logs the metrics of each open stream, and the total, at info level. */
+	void report();
+
+	/** Registers a listener to be notified as streams are closed. */
+	void addListener(IOMetricsListener listener);
+
+	/** Unregisters a previously registered listener. */
+	void removeListener(IOMetricsListener listener);
+
+}
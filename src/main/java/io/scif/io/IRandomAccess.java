@@ -35,6 +35,7 @@ import java.io.DataOutput;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.List;
 
 /**
  * Interface for random access into structures (e.g., files or arrays).
@@ -96,6 +97,97 @@ public interface IRandomAccess extends DataInput, DataOutput {
 	 */
 	int read(ByteBuffer buffer, int offset, int len) throws IOException;
 
+	/**
+	 * Reads up to len bytes of data, starting at the given position in this
+	 * stream, into an array of bytes, without using or changing the stream
+	 * pointer. Unlike the other read methods, this method may be called by
+	 * several threads at once.
+	 * <p>
+	 * The default implementation seeks to the given position, reads, and seeks
+	 * back, holding this object's lock throughout. It is therefore only safe
+	 * alongside other methods which also synchronize on this object, and
+	 * implementations able to read at a given position should override it.
+	 * </p>
+	 *
+	 * @param pos the position in this stream to start reading at.
+	 * @return the total number of bytes read into the array, which is less than
+	 *         len only if the end of the stream was reached.
+	 */
+	default int read(final long pos, final byte[] b, final int off,
+		final int len) throws IOException
+	{
+		synchronized (this) {
+			final int n = (int) Math.min(len, length() - pos);
+			if (n <= 0) return 0;
+			final long fp = getFilePointer();
+			try {
+				seek(pos);
+				int total = 0;
+				while (total < n) {
+					final int r = read(b, off + total, n - total);
+					if (r <= 0) break;
+					total += r;
+				}
+				return total;
+			}
+			finally {
+				seek(fp);
+			}
+		}
+	}
+
+	/**
+	 * Reads bytes, starting at the given position in this stream, into the
+	 * remaining space of a ByteBuffer, without using or changing the stream
+	 * pointer. This method is safe to call from several threads at once, like
+	 * {@link #read(long, byte[], int, int)}.
+	 *
+	 * @param pos the position in this stream to start reading at.
+	 * @return the total number of bytes read into the buffer, which is less
+	 *         than {@code buffer.remaining()} only if the end of the stream was
+	 *         reached.
+	 */
+	default int read(final long pos, final ByteBuffer buffer)
+		throws IOException
+	{
+		if (buffer.hasArray()) {
+			final int n = read(pos, buffer.array(), buffer.arrayOffset() + buffer
+				.position(), buffer.remaining());
+			buffer.position(buffer.position() + n);
+			return n;
+		}
+		// NB: copy through a small array rather than one as large as the buffer
+		final byte[] b = new byte[Math.min(buffer.remaining(), 8192)];
+		int total = 0;
+		while (buffer.hasRemaining()) {
+			final int n = read(pos + total, b, 0, Math.min(b.length, buffer
+				.remaining()));
+			if (n <= 0) break;
+			buffer.put(b, 0, n);
+			total += n;
+		}
+		return total;
+	}
+
+	/**
+	 * Reads several ranges of this stream into arrays, using as few underlying
+	 * reads as this stream allows: nearby ranges are read together. Afterwards,
+	 * the stream pointer is at the end of the range ending furthest into the
+	 * stream.
+	 * <p>
+	 * The default implementation seeks to each range in order of offset,
+	 * reading ranges which touch or overlap at once.
+	 * </p>
+	 *
+	 * @param ranges the ranges to read, in any order.
+	 * @return the total number of bytes read, which is less than the total
+	 *         length of the ranges only if the end of the stream was reached.
+	 * @see StreamTools#readVectored
+	 */
+	default long readVectored(final List<FileRange> ranges) throws IOException {
+		return StreamTools.readVectored(this, ranges, 0, false);
+	}
+
 	/**
 	 * Sets the stream pointer offset, measured from the beginning of this stream,
 	 * at which the next read or write occurs.
@@ -40,6 +40,10 @@ import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+
+import org.scijava.thread.ThreadService;
 
 /**
  * A wrapper for buffered NIO logic that implements the IRandomAccess interface.
@@ -60,6 +64,12 @@ public class NIOFileHandle extends AbstractNIOHandle {
 	 */
 	private static int defaultRWBufferSize = 8192;
 
+	/** Default number of buffered windows for read-only files. */
+	private static int defaultWindowCount = 2;
+
+	/** Maximum number of bytes prefetched at once when reading ahead. */
+	private static int maxReadAhead = 16 * 1024 * 1024;
+
 	// -- Fields --
 
 	/** The random access file object backing this FileHandle. */
@@ -80,6 +90,24 @@ public class NIOFileHandle extends AbstractNIOHandle {
 	/** The buffer itself. */
 	private ByteBuffer buffer;
 
+	/**
+	 * All buffered windows of the file, including the current one. Windows
+	 * which are not valid are kept so that their buffers may be refilled.
+	 */
+	private final ByteBuffer[] windows;
+
+	/** Start positions of the windows, or {@link #INVALID} if not valid. */
+	private final long[] windowStarts;
+
+	/** When each window was last used, for evicting the least recent one. */
+	private final long[] windowUses;
+
+	/** Index of the current window. */
+	private int window;
+
+	/** Counter of window switches, for tracking the least recent window. */
+	private long uses;
+
 	/** The default map mode for the file. */
 	private FileChannel.MapMode mapMode = FileChannel.MapMode.READ_ONLY;
 
@@ -89,6 +117,23 @@ public class NIOFileHandle extends AbstractNIOHandle {
 	/** Service which provides NIO byte buffers, allocated or memory mapped. */
 	private final NIOService nioService;
 
+	/** Prefetcher of sequential bulk reads, or null if not reading ahead. */
+	private ReadAhead readAhead;
+
+	/** Metrics counting window misses, or null. */
+	private IOMetrics metrics;
+
+	// -- Constants --
+
+	/** Start position of a window not holding valid data. */
+	private static final long INVALID = Long.MIN_VALUE;
+
+	/**
+	 * Maximum number of bytes between ranges of a vectored read which are read
+	 * at once; about as long as a few pages take to read.
+	 */
+	private static final int MAX_GAP = 32 * 1024;
+
 	// -- Constructors --
 
 	/**
@@ -97,10 +142,29 @@ public class NIOFileHandle extends AbstractNIOHandle {
 	 */
 	public NIOFileHandle(final NIOService nioService, final File file,
 		final String mode, final int bufferSize) throws IOException
+	{
+		this(nioService, file, mode, bufferSize, mode.equals("rw") ? 1
+			: defaultWindowCount);
+	}
+
+	/**
+	 * Creates a random access file stream to read from, and optionally to write
+	 * to, the file specified by the File argument, buffering up to the given
+	 * number of separate regions of the file at once. Read/write files always
+	 * use a single window.
+	 */
+	public NIOFileHandle(final NIOService nioService, final File file,
+		final String mode, final int bufferSize, final int windowCount)
+		throws IOException
 	{
 		this.nioService = nioService;
 		this.bufferSize = bufferSize;
 		validateMode(mode);
+		final int count = mode.equals("rw") ? 1 : Math.max(1, windowCount);
+		windows = new ByteBuffer[count];
+		windowStarts = new long[count];
+		windowUses = new long[count];
+		Arrays.fill(windowStarts, INVALID);
 		if (mode.equals("rw")) {
 			mapMode = FileChannel.MapMode.READ_WRITE;
 		}
@@ -150,6 +214,58 @@ public class NIOFileHandle extends AbstractNIOHandle {
 		defaultRWBufferSize = size;
 	}
 
+	/**
+	 * Set the default number of windows buffered at once for read-only files,
+	 * allowing reads which alternate between distant regions of a file (e.g.
+	 * metadata tables and pixel data) to be served without reloading the buffer
+	 * each time. Subsequent uses of the constructors without a window count
+	 * will use this number of windows.
+	 */
+	public static void setDefaultWindowCount(final int count) {
+		defaultWindowCount = Math.max(1, count);
+	}
+
+	/**
+	 * Set the maximum number of bytes prefetched at once by handles reading
+	 * ahead. Handles already reading ahead keep their previous maximum. Default:
+	 * 16 MiB
+	 */
+	public static void setMaxReadAhead(final int size) {
+		maxReadAhead = size;
+	}
+
+	/**
+	 * Enables or disables reading ahead. While enabled, bulk reads (of byte
+	 * arrays and buffers, but not of single values) which follow each other
+	 * sequentially, or at a constant stride, cause the data expected to be read
+	 * next to be prefetched on a background thread. Read/write files never read
+	 * ahead.
+	 *
+	 * @param threadService Service running the prefetching, or null to disable
+	 *          reading ahead.
+	 */
+	public void setReadAhead(final ThreadService threadService) {
+		if (readAhead != null) readAhead.invalidate();
+		readAhead =
+			threadService == null || mapMode == FileChannel.MapMode.READ_WRITE
+				? null : new ReadAhead(channel, threadService, maxReadAhead);
+	}
+
+	/** Gets whether this handle reads ahead. */
+	public boolean isReadAhead() {
+		return readAhead != null;
+	}
+
+	/**
+	 * Sets the metrics to which each read needing a buffered window to be
+	 * (re)filled from the file is counted as a window miss.
+	 *
+	 * @param metrics The metrics, or null to stop counting.
+	 */
+	public void setMetrics(final IOMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 	// -- FileHandle and Channel API methods --
 
 	/** Gets the random access file object backing this FileHandle. */
@@ -167,13 +283,18 @@ public class NIOFileHandle extends AbstractNIOHandle {
 		return bufferSize;
 	}
 
+	/** Gets the maximum number of windows buffered at once. */
+	public int getWindowCount() {
+		return windows.length;
+	}
+
 	// -- AbstractNIOHandle API methods --
 
 	@Override
 	public void setLength(final long length) throws IOException {
 		raf.seek(length - 1);
 		raf.write((byte) 0);
-		buffer = null;
+		invalidate();
 	}
 
 	// -- IRandomAccess API methods --
@@ -181,6 +302,11 @@ public class NIOFileHandle extends AbstractNIOHandle {
 	@Override
 	public void close() throws IOException {
 		raf.close();
+		for (int i = 0; i < windows.length; i++) {
+			nioService.release(windows[i]);
+			windows[i] = null;
+		}
+		invalidate();
 	}
 
 	@Override
@@ -201,8 +327,8 @@ public class NIOFileHandle extends AbstractNIOHandle {
 	@Override
 	public void setOrder(final ByteOrder order) {
 		this.order = order;
-		if (buffer != null) {
-			buffer.order(order);
+		for (final ByteBuffer b : windows) {
+			if (b != null) b.order(order);
 		}
 	}
 
@@ -229,8 +355,12 @@ public class NIOFileHandle extends AbstractNIOHandle {
 	{
 		buf.position(off);
 		buf.limit(off + len);
-		channel.position(position);
-		final int readLength = channel.read(buf);
+		final int readLength;
+		if (readAhead != null) readLength = readAhead.read(position, buf);
+		else {
+			channel.position(position);
+			readLength = channel.read(buf);
+		}
 		buffer(position + readLength, 0);
 		// Return value of NIO channel's is -1 when zero bytes are read at the
 		// end
@@ -238,6 +368,32 @@ public class NIOFileHandle extends AbstractNIOHandle {
 		return readLength == -1 ? 0 : readLength;
 	}
 
+	@Override
+	public int read(final long pos, final byte[] b, final int off,
+		final int len) throws IOException
+	{
+		return read(pos, ByteBuffer.wrap(b, off, len));
+	}
+
+	@Override
+	public int read(final long pos, final ByteBuffer buf) throws IOException {
+		if (readAhead != null) return readAhead.read(pos, buf);
+		// NB: positional channel reads neither use nor change the channel
+		// position, and may proceed concurrently
+		int total = 0;
+		while (buf.hasRemaining()) {
+			final int n = channel.read(buf, pos + total);
+			if (n <= 0) break;
+			total += n;
+		}
+		return total;
+	}
+
+	@Override
+	public long readVectored(final List<FileRange> ranges) throws IOException {
+		return StreamTools.readVectored(this, ranges, MAX_GAP, true);
+	}
+
 	@Override
 	public void seek(final long pos) throws IOException {
 		if (mapMode == FileChannel.MapMode.READ_WRITE && pos > length()) {
@@ -426,7 +582,7 @@ public class NIOFileHandle extends AbstractNIOHandle {
 		buf.limit(off + len);
 		buf.position(off);
 		position += channel.write(buf, position);
-		buffer = null;
+		invalidate();
 	}
 
 	@Override
@@ -506,7 +662,7 @@ public class NIOFileHandle extends AbstractNIOHandle {
 		raf.seek(position);
 		raf.writeUTF(str);
 		position += strlen;
-		buffer = null;
+		invalidate();
 	}
 
 	/**
@@ -521,8 +677,9 @@ public class NIOFileHandle extends AbstractNIOHandle {
 	private void buffer(long offset, final int size) throws IOException {
 		position = offset;
 		final long newPosition = offset + size;
-		if (newPosition < bufferStartPosition ||
-			newPosition > bufferStartPosition + bufferSize || buffer == null)
+		if ((offset < bufferStartPosition ||
+			newPosition > bufferStartPosition + bufferSize || buffer == null) &&
+			!switchWindow(offset, newPosition))
 		{
 			bufferStartPosition = offset;
 			long currentLength = length();
@@ -535,11 +692,16 @@ public class NIOFileHandle extends AbstractNIOHandle {
 				newSize = currentLength - bufferStartPosition;
 			}
 			offset = bufferStartPosition;
-			final ByteOrder byteOrder = buffer == null ? order : getOrder();
+			final ByteOrder byteOrder = getOrder();
+			window = leastRecentWindow();
 			buffer =
 				nioService.allocate(channel, mapMode, bufferStartPosition,
-					(int) newSize);
+					(int) newSize, windows[window]);
+			windows[window] = buffer;
+			windowStarts[window] = bufferStartPosition;
+			windowUses[window] = ++uses;
 			if (byteOrder != null) setOrder(byteOrder);
+			if (metrics != null) metrics.windowMiss();
 		}
 		buffer.position((int) (offset - bufferStartPosition));
 		if (buffer.position() + size > buffer.limit() &&
@@ -549,6 +711,50 @@ public class NIOFileHandle extends AbstractNIOHandle {
 		}
 	}
 
+	/**
+	 * Makes another buffered window containing the given range the current one,
+	 * if there is such a window.
+	 *
+	 * @return Whether the current window was changed.
+	 */
+	private boolean switchWindow(final long offset, final long newPosition) {
+		for (int i = 0; i < windows.length; i++) {
+			final long start = windowStarts[i];
+			if (i == window || windows[i] == null || start == INVALID) continue;
+			if (offset >= start && newPosition <= start + bufferSize) {
+				window = i;
+				buffer = windows[i];
+				bufferStartPosition = start;
+				windowUses[i] = ++uses;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return The index of the window to load new data into: one not holding
+	 *         valid data if possible, or else the least recently used one.
+	 */
+	private int leastRecentWindow() {
+		int lru = 0;
+		for (int i = 0; i < windows.length; i++) {
+			if (windowStarts[i] == INVALID) return i;
+			if (windowUses[i] < windowUses[lru]) lru = i;
+		}
+		return lru;
+	}
+
+	/**
+	 * Marks all buffered windows as out of date, e.g. after the file has been
+	 * written to.
+	 */
+	private void invalidate() {
+		Arrays.fill(windowStarts, INVALID);
+		buffer = null;
+		if (readAhead != null) readAhead.invalidate();
+	}
+
 	private void writeSetup(final int length) throws IOException {
 		validateLength(length);
 		buffer(position, length);
@@ -32,12 +32,12 @@ package io.scif.io;
 
 import io.scif.common.Constants;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.channels.Channel;
 
 /**
@@ -232,79 +232,28 @@ public class NIOInputStream extends InputStream implements DataInput {
 	public String findString(final boolean saveString, final int blockSize,
 		final String... terminators) throws IOException
 	{
-		final StringBuilder out = new StringBuilder();
 		final long startPos = getFilePointer();
-		long bytesDropped = 0;
-		final long inputLen = length();
-		long maxLen = inputLen - startPos;
+		long maxLen = length() - startPos;
 		final boolean tooLong = saveString && maxLen > MAX_SEARCH_SIZE;
 		if (tooLong) maxLen = MAX_SEARCH_SIZE;
-		boolean match = false;
-		int maxTermLen = 0;
-		for (final String term : terminators) {
-			final int len = term.length();
-			if (len > maxTermLen) maxTermLen = len;
-		}
 
-		final InputStreamReader in =
-			new InputStreamReader(this, Constants.ENCODING);
-		final char[] buf = new char[blockSize];
-		long loc = 0;
-		while (loc < maxLen) {
-			final long pos = startPos + loc;
-
-			// if we're not saving the string, drop any old, unnecessary output
-			if (!saveString) {
-				final int outLen = out.length();
-				if (outLen >= maxTermLen) {
-					final int dropIndex = outLen - maxTermLen + 1;
-					final String last = out.substring(dropIndex, outLen);
-					out.setLength(0);
-					out.append(last);
-					bytesDropped += dropIndex;
-				}
-			}
-
-			// read block from stream
-			int num = blockSize;
-			if (pos + blockSize > inputLen) num = (int) (inputLen - pos);
-			final int r = in.read(buf, 0, num);
-			if (r <= 0) throw new IOException("Cannot read from stream: " + r);
-
-			// append block to output
-			out.append(buf, 0, r);
-
-			// check output, returning smallest possible string
-			int min = Integer.MAX_VALUE, tagLen = 0;
-			for (final String terminator : terminators) {
-				final int len = terminator.length();
-				final int start = (int) (loc - bytesDropped - len);
-				final int value = out.indexOf(terminator, start < 0 ? 0 : start);
-				if (value >= 0 && value < min) {
-					match = true;
-					min = value;
-					tagLen = len;
-				}
-			}
-
-			if (match) {
-				// reset stream to proper location
-				seek(startPos + bytesDropped + min + tagLen);
-
-				// trim output string
-				if (saveString) {
-					out.setLength(min + tagLen);
-					return out.toString();
-				}
-				return null;
-			}
-
-			loc += r;
+		final byte[][] patterns = new byte[terminators.length][];
+		for (int i = 0; i < patterns.length; i++) {
+			patterns[i] = terminators[i].getBytes(Constants.ENCODING);
 		}
-
-		// no match
-		if (tooLong) throw new IOException("Maximum search length reached.");
-		return null;
+		final ByteArrayOutputStream out =
+			saveString ? new ByteArrayOutputStream() : null;
+		final long match =
+			new BytePatternMatcher(patterns).find(raf, maxLen, blockSize, out);
+
+		if (match < 0) {
+			// no match
+			if (tooLong) throw new IOException("Maximum search length reached.");
+			return null;
+		}
+		if (!saveString) return null;
+		return new String(out.toByteArray(), 0,
+			(int) (getFilePointer() - startPos), Constants.ENCODING);
 	}
 
 	// -- DataInput API methods --
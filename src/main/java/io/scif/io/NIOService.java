@@ -69,4 +69,41 @@ public interface NIOService extends SCIFIOService {
 	ByteBuffer allocate(FileChannel channel, MapMode mapMode,
 		long bufferStartPosition, int newSize) throws IOException;
 
+	/**
+	 * Allocates or maps the desired file data into memory, as
+	 * {@link #allocate(FileChannel, MapMode, long, int)} does, but may refill
+	 * the given buffer instead of allocating a new one. The default
+	 * implementation ignores {@code recycle} and always allocates.
+	 *
+	 * @param channel File channel to allocate or map byte buffers from.
+	 * @param mapMode The map mode. Required but only used if memory mapped I/O is
+	 *          to occur.
+	 * @param bufferStartPosition The absolute position of the start of the
+	 *          buffer.
+	 * @param newSize The buffer size.
+	 * @param recycle A buffer previously obtained from this service which is no
+	 *          longer in use by the caller, or null.
+	 * @return The refilled {@code recycle} buffer, or a newly allocated or
+	 *         mapped NIO byte buffer.
+	 * @throws IOException If there is an issue mapping, aligning or allocating
+	 *           the buffer.
+	 */
+	default ByteBuffer allocate(final FileChannel channel,
+		final MapMode mapMode, final long bufferStartPosition, final int newSize,
+		final ByteBuffer recycle) throws IOException
+	{
+		return allocate(channel, mapMode, bufferStartPosition, newSize);
+	}
+
+	/**
+	 * Hands a buffer obtained from this service back to it, once the caller no
+	 * longer uses it. The service may pool the buffer for future allocations;
+	 * the default implementation does nothing.
+	 *
+	 * @param buffer The buffer to release, or null.
+	 */
+	default void release(final ByteBuffer buffer) {
+		// NB: No implementation needed.
+	}
+
 }
@@ -33,12 +33,14 @@ package io.scif.io;
 import io.scif.SCIFIO;
 import io.scif.common.Constants;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.List;
 
 import org.scijava.Context;
 import org.scijava.log.LogService;
@@ -62,6 +64,9 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
 	/** Maximum number of bytes to search when searching through the stream. */
 	public static final int MAX_SEARCH_SIZE = 512 * 1024 * 1024; // 512 MB
 
+	/** Size of the buffer through which primitive arrays are read. */
+	private static final int BULK_BUFFER_SIZE = 64 * 1024; // 64 KB
+
 	// -- Fields --
 
 	private IRandomAccess raf;
@@ -79,6 +84,14 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
 
 	private final LogService log;
 
+	/** Buffer through which primitive arrays are read, allocated on demand. */
+	private ByteBuffer bulkBuffer;
+
+	private final IOMetricsService metricsService;
+
+	/** Metrics of the I/O through this stream, or null if not collected. */
+	private final IOMetrics metrics;
+
 	// -- Constructors --
 
 	/**
@@ -111,6 +124,13 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
 		}
 		this.file = file;
 		raf = handle;
+		metricsService = context.getService(IOMetricsService.class);
+		metrics =
+			metricsService == null ? null : metricsService.create(file == null
+				? handle.getClass().getSimpleName() : file);
+		if (metrics != null && raf instanceof NIOFileHandle) {
+			((NIOFileHandle) raf).setMetrics(metrics);
+		}
 		raf.setOrder(ByteOrder.BIG_ENDIAN);
 		seek(0);
 		length = -1;
@@ -136,6 +156,7 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
 
 	/** Seeks to the given offset within the stream. */
 	public void seek(final long pos) throws IOException {
+		if (metrics != null) metrics.seek(pos - raf.getFilePointer());
 		raf.seek(pos);
 	}
 
@@ -167,12 +188,43 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
 		if (log.isTrace()) {
 			log.trace("RandomAccessInputStream " + hashCode() + " CLOSE");
 		}
+		if (metricsService != null) metricsService.close(metrics);
 		if (scifio.location().getMappedFile(file) != null) return;
 		if (raf != null) raf.close();
 		raf = null;
 		markedPos = -1;
 	}
 
+	/**
+	 * Enables or disables reading ahead, if the underlying handle supports it.
+	 * While enabled, bulk reads which proceed sequentially through the stream
+	 * prefetch the data expected to be read next on a background thread, so
+	 * that e.g. decoding one plane overlaps with reading the next one from
+	 * disk. Only handles of local files currently read ahead.
+	 *
+	 * @see NIOFileHandle#setReadAhead
+	 */
+	public void setReadAhead(final boolean readAhead) {
+		if (raf instanceof NIOFileHandle) {
+			((NIOFileHandle) raf).setReadAhead(readAhead ? scifio.thread() : null);
+		}
+	}
+
+	/** Gets whether the stream reads ahead. */
+	public boolean isReadAhead() {
+		return raf instanceof NIOFileHandle && ((NIOFileHandle) raf).isReadAhead();
+	}
+
+	/**
+	 * Gets the metrics of the I/O through this stream.
+	 *
+	 * @return The metrics, or null if the {@link IOMetricsService} was disabled
+	 *         when the stream was opened.
+	 */
+	public IOMetrics getMetrics() {
+		return metrics;
+	}
+
 	/** Sets the endianness of the stream. */
 	public void order(final boolean little) {
 		if (raf != null) {
@@ -265,74 +317,43 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
 	public String findString(final boolean saveString, final int blockSize,
 		final String... terminators) throws IOException
 	{
-		final StringBuilder out = new StringBuilder();
 		final long startPos = getFilePointer();
-		long bytesDropped = 0;
-		final long inputLen = length();
-		long maxLen = inputLen - startPos;
+		long maxLen = length() - startPos;
 		final boolean tooLong = saveString && maxLen > MAX_SEARCH_SIZE;
 		if (tooLong) maxLen = MAX_SEARCH_SIZE;
-		boolean match = false;
-		int maxTermLen = 0;
-		for (final String term : terminators) {
-			final int len = term.length();
-			if (len > maxTermLen) maxTermLen = len;
-		}
 
-		final InputStreamReader in = new InputStreamReader(this, encoding);
-		final char[] buf = new char[blockSize];
-		long loc = 0;
-		while (loc < maxLen && getFilePointer() < length() - 1) {
-			// if we're not saving the string, drop any old, unnecessary output
-			if (!saveString) {
-				final int outLen = out.length();
-				if (outLen >= maxTermLen) {
-					final int dropIndex = outLen - maxTermLen + 1;
-					final String last = out.substring(dropIndex, outLen);
-					out.setLength(0);
-					out.append(last);
-					bytesDropped += dropIndex;
-				}
-			}
-
-			// read block from stream
-			final int r = in.read(buf, 0, blockSize);
-			if (r <= 0) throw new IOException("Cannot read from stream: " + r);
-
-			// append block to output
-			out.append(buf, 0, r);
-
-			// check output, returning smallest possible string
-			int min = Integer.MAX_VALUE, tagLen = 0;
-			for (final String t : terminators) {
-				final int len = t.length();
-				final int start = (int) (loc - bytesDropped - len);
-				final int value = out.indexOf(t, start < 0 ? 0 : start);
-				if (value >= 0 && value < min) {
-					match = true;
-					min = value;
-					tagLen = len;
-				}
-			}
-
-			if (match) {
-				// reset stream to proper location
-				seek(startPos + bytesDropped + min + tagLen);
-
-				// trim output string
-				if (saveString) {
-					out.setLength(min + tagLen);
-					return out.toString();
-				}
-				return null;
-			}
-
-			loc += r;
+		final ByteArrayOutputStream out =
+			saveString ? new ByteArrayOutputStream() : null;
+		final long start = metrics == null ? 0 : System.nanoTime();
+		final long match =
+			matcher(terminators).find(raf, maxLen, blockSize, out);
+		if (metrics != null) countSearch(startPos, start);
+		if (match < 0 && tooLong) {
+			throw new IOException("Maximum search length reached.");
 		}
+		if (!saveString) return null;
+		// NB: the output may extend past the terminating sequence
+		return new String(out.toByteArray(), 0,
+			(int) (getFilePointer() - startPos), encoding);
+	}
 
-		// no match
-		if (tooLong) throw new IOException("Maximum search length reached.");
-		return saveString ? out.toString() : null;
+	/**
+	 * Skips past the first of the given terminating substrings, without
+	 * collecting the bytes before it.
+	 *
+	 * @param terminators The strings for which to search.
+	 * @return The offset in the stream at which the terminating sequence begins,
+	 *         or -1 if none is found, in which case the stream pointer is left
+	 *         at the end of the stream.
+	 */
+	public long findOffset(final String... terminators) throws IOException {
+		final long startPos = getFilePointer();
+		final long start = metrics == null ? 0 : System.nanoTime();
+		final long match =
+			matcher(terminators).find(raf, length() - startPos, DEFAULT_BLOCK_SIZE,
+				null);
+		if (metrics != null) countSearch(startPos, start);
+		return match < 0 ? -1 : startPos + match;
 	}
 
 	// -- DataInput API methods --
@@ -340,36 +361,42 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
 	/** Read an input byte and return true if the byte is nonzero. */
 	@Override
 	public boolean readBoolean() throws IOException {
+		if (metrics != null) metrics.read(1);
 		return raf.readBoolean();
 	}
 
 	/** Read one byte and return it. */
 	@Override
 	public byte readByte() throws IOException {
+		if (metrics != null) metrics.read(1);
 		return raf.readByte();
 	}
 
 	/** Read an input char. */
 	@Override
 	public char readChar() throws IOException {
+		if (metrics != null) metrics.read(2);
 		return raf.readChar();
 	}
 
 	/** Read eight bytes and return a double value. */
 	@Override
 	public double readDouble() throws IOException {
+		if (metrics != null) metrics.read(8);
 		return raf.readDouble();
 	}
 
 	/** Read four bytes and return a float value. */
 	@Override
 	public float readFloat() throws IOException {
+		if (metrics != null) metrics.read(4);
 		return raf.readFloat();
 	}
 
 	/** Read four input bytes and return an int value. */
 	@Override
 	public int readInt() throws IOException {
+		if (metrics != null) metrics.read(4);
 		return raf.readInt();
 	}
 
@@ -398,24 +425,28 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
 	/** Read eight input bytes and return a long value. */
 	@Override
 	public long readLong() throws IOException {
+		if (metrics != null) metrics.read(8);
 		return raf.readLong();
 	}
 
 	/** Read two input bytes and return a short value. */
 	@Override
 	public short readShort() throws IOException {
+		if (metrics != null) metrics.read(2);
 		return raf.readShort();
 	}
 
 	/** Read an input byte and zero extend it appropriately. */
 	@Override
 	public int readUnsignedByte() throws IOException {
+		if (metrics != null) metrics.read(1);
 		return raf.readUnsignedByte();
 	}
 
 	/** Read two bytes and return an int in the range 0 through 65535. */
 	@Override
 	public int readUnsignedShort() throws IOException {
+		if (metrics != null) metrics.read(2);
 		return raf.readUnsignedShort();
 	}
 
@@ -428,13 +459,17 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
 	/** Skip n bytes within the stream. */
 	@Override
 	public int skipBytes(final int n) throws IOException {
-		return raf.skipBytes(n);
+		final int skipped = raf.skipBytes(n);
+		if (metrics != null) metrics.seek(skipped);
+		return skipped;
 	}
 
 	/** Read bytes from the stream into the given array. */
 	@Override
 	public int read(final byte[] array) throws IOException {
+		final long start = metrics == null ? 0 : System.nanoTime();
 		int rtn = raf.read(array);
+		if (metrics != null) countRead(rtn, start);
 		if (rtn == 0 && raf.getFilePointer() >= raf.length() - 1) rtn = -1;
 		return rtn;
 	}
@@ -446,14 +481,20 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
 	public int read(final byte[] array, final int offset, final int n)
 		throws IOException
 	{
+		final long start = metrics == null ? 0 : System.nanoTime();
 		int rtn = raf.read(array, offset, n);
+		if (metrics != null) countRead(rtn, start);
 		if (rtn == 0 && raf.getFilePointer() >= raf.length() - 1) rtn = -1;
 		return rtn;
 	}
 
 	/** Read bytes from the stream into the given buffer. */
 	public int read(final ByteBuffer buf) throws IOException {
-		return raf.read(buf);
+		if (metrics == null) return raf.read(buf);
+		final long start = System.nanoTime();
+		final int r = raf.read(buf);
+		countRead(r, start);
+		return r;
 	}
 
 	/**
@@ -462,13 +503,70 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
 	public int read(final ByteBuffer buf, final int offset, final int n)
 		throws IOException
 	{
-		return raf.read(buf, offset, n);
+		if (metrics == null) return raf.read(buf, offset, n);
+		final long start = System.nanoTime();
+		final int r = raf.read(buf, offset, n);
+		countRead(r, start);
+		return r;
+	}
+
+	/**
+	 * Read up to n bytes from the given position of the stream into the given
+	 * array at the specified offset, leaving the stream pointer unchanged. This
+	 * method may be called from several threads at once.
+	 *
+	 * @return The number of bytes read, which is less than n only if the end of
+	 *         the stream was reached.
+	 * @see IRandomAccess#read(long, byte[], int, int)
+	 */
+	public int read(final long pos, final byte[] array, final int offset,
+		final int n) throws IOException
+	{
+		if (metrics == null) return raf.read(pos, array, offset, n);
+		final long start = System.nanoTime();
+		final int r = raf.read(pos, array, offset, n);
+		countRead(r, start);
+		return r;
+	}
+
+	/**
+	 * Read bytes from the given position of the stream into the remaining space
+	 * of the given buffer, leaving the stream pointer unchanged. This method may
+	 * be called from several threads at once.
+	 *
+	 * @return The number of bytes read.
+	 * @see IRandomAccess#read(long, ByteBuffer)
+	 */
+	public int read(final long pos, final ByteBuffer buf) throws IOException {
+		if (metrics == null) return raf.read(pos, buf);
+		final long start = System.nanoTime();
+		final int r = raf.read(pos, buf);
+		countRead(r, start);
+		return r;
+	}
+
+	/**
+	 * Read several ranges of the stream into arrays, using as few reads of the
+	 * underlying handle as possible. Afterwards, the stream pointer is at the
+	 * end of the range ending furthest into the stream.
+	 *
+	 * @return The total number of bytes read.
+	 * @see IRandomAccess#readVectored(List)
+	 */
+	public long readVectored(final List<FileRange> ranges) throws IOException {
+		if (metrics == null) return raf.readVectored(ranges);
+		final long start = System.nanoTime();
+		final long r = raf.readVectored(ranges);
+		countRead(r, start);
+		return r;
 	}
 
 	/** Read bytes from the stream into the given array. */
 	@Override
 	public void readFully(final byte[] array) throws IOException {
+		final long start = metrics == null ? 0 : System.nanoTime();
 		raf.readFully(array);
+		if (metrics != null) countRead(array.length, start);
 	}
 
 	/**
@@ -478,7 +576,93 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
 	public void readFully(final byte[] array, final int offset, final int n)
 		throws IOException
 	{
+		final long start = metrics == null ? 0 : System.nanoTime();
 		raf.readFully(array, offset, n);
+		if (metrics != null) countRead(n, start);
+	}
+
+	/**
+	 * Read n shorts from the stream into the given array at the specified
+	 * offset, in the stream's byte order.
+	 *
+	 * @throws EOFException If the end of the stream is reached first.
+	 */
+	public void readShorts(final short[] array, final int offset, final int n)
+		throws IOException
+	{
+		for (int done = 0; done < n;) {
+			final int count = Math.min(n - done, BULK_BUFFER_SIZE / 2);
+			fillBulkBuffer(count * 2).asShortBuffer().get(array, offset + done,
+				count);
+			done += count;
+		}
+	}
+
+	/**
+	 * Read n ints from the stream into the given array at the specified offset,
+	 * in the stream's byte order.
+	 *
+	 * @throws EOFException If the end of the stream is reached first.
+	 */
+	public void readInts(final int[] array, final int offset, final int n)
+		throws IOException
+	{
+		for (int done = 0; done < n;) {
+			final int count = Math.min(n - done, BULK_BUFFER_SIZE / 4);
+			fillBulkBuffer(count * 4).asIntBuffer().get(array, offset + done, count);
+			done += count;
+		}
+	}
+
+	/**
+	 * Read n longs from the stream into the given array at the specified
+	 * offset, in the stream's byte order.
+	 *
+	 * @throws EOFException If the end of the stream is reached first.
+	 */
+	public void readLongs(final long[] array, final int offset, final int n)
+		throws IOException
+	{
+		for (int done = 0; done < n;) {
+			final int count = Math.min(n - done, BULK_BUFFER_SIZE / 8);
+			fillBulkBuffer(count * 8).asLongBuffer().get(array, offset + done,
+				count);
+			done += count;
+		}
+	}
+
+	/**
+	 * Read n floats from the stream into the given array at the specified
+	 * offset, in the stream's byte order.
+	 *
+	 * @throws EOFException If the end of the stream is reached first.
+	 */
+	public void readFloats(final float[] array, final int offset, final int n)
+		throws IOException
+	{
+		for (int done = 0; done < n;) {
+			final int count = Math.min(n - done, BULK_BUFFER_SIZE / 4);
+			fillBulkBuffer(count * 4).asFloatBuffer().get(array, offset + done,
+				count);
+			done += count;
+		}
+	}
+
+	/**
+	 * Read n doubles from the stream into the given array at the specified
+	 * offset, in the stream's byte order.
+	 *
+	 * @throws EOFException If the end of the stream is reached first.
+	 */
+	public void readDoubles(final double[] array, final int offset, final int n)
+		throws IOException
+	{
+		for (int done = 0; done < n;) {
+			final int count = Math.min(n - done, BULK_BUFFER_SIZE / 8);
+			fillBulkBuffer(count * 8).asDoubleBuffer().get(array, offset + done,
+				count);
+			done += count;
+		}
 	}
 
 	// -- InputStream API methods --
@@ -521,4 +705,51 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
 	public String getFileName() {
 		return this.file;
 	}
+
+	// -- Helper methods --
+
+	/** Compiles a matcher for the given strings in the stream's encoding. */
+	private BytePatternMatcher matcher(final String... terminators)
+		throws IOException
+	{
+		final byte[][] patterns = new byte[terminators.length][];
+		for (int i = 0; i < patterns.length; i++) {
+			patterns[i] = terminators[i].getBytes(encoding);
+		}
+		return new BytePatternMatcher(patterns);
+	}
+
+	/**
+	 * Reads the given number of bytes into the start of the bulk buffer, and
+	 * returns the buffer limited to them, in the stream's byte order.
+	 */
+	private ByteBuffer fillBulkBuffer(final int n) throws IOException {
+		if (bulkBuffer == null) bulkBuffer = ByteBuffer.allocate(BULK_BUFFER_SIZE);
+		final byte[] array = bulkBuffer.array();
+		final long start = metrics == null ? 0 : System.nanoTime();
+		for (int done = 0; done < n;) {
+			final int r = raf.read(array, done, n - done);
+			if (r <= 0) throw new EOFException();
+			done += r;
+		}
+		if (metrics != null) countRead(n, start);
+		bulkBuffer.clear();
+		bulkBuffer.limit(n);
+		return bulkBuffer.order(raf.getOrder());
+	}
+
+	/** Counts a bulk read of the given number of bytes begun at a given time. */
+	private void countRead(final long bytes, final long start) {
+		metrics.read(Math.max(bytes, 0), System.nanoTime() - start);
+	}
+
+	/**
+	 * Counts a search from the given offset begun at the given time as a read
+	 * of the bytes passed over.
+	 */
+	private void countSearch(final long startPos, final long start)
+		throws IOException
+	{
+		metrics.read(raf.getFilePointer() - startPos, System.nanoTime() - start);
+	}
 }
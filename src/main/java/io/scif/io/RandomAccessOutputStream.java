@@ -32,13 +32,16 @@ package io.scif.io;
 
 import io.scif.SCIFIO;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 import org.scijava.Context;
+import org.scijava.thread.ThreadService;
 
 /**
  * RandomAccessOutputStream provides methods for writing to files and byte
@@ -48,10 +51,29 @@ public class RandomAccessOutputStream extends OutputStream implements
 	DataOutput
 {
 
+	// -- Static fields --
+
+	/** Size of each buffer when writing behind. */
+	private static int writeBehindBufferSize = 1024 * 1024;
+
+	/** Maximum number of buffers per stream when writing behind. */
+	private static int writeBehindBufferCount = 4;
+
 	// -- Fields --
 
 	private final IRandomAccess outputFile;
 
+	/** Buffers of writes not yet passed to the handle, or null. */
+	private WriteBehind writeBehind;
+
+	/** Current offset within the stream, while writing behind. */
+	private long position;
+
+	private IOMetricsService metricsService;
+
+	/** Metrics of the I/O through this stream, or null if not collected. */
+	private IOMetrics metrics;
+
 	// -- Constructor --
 
 	/**
@@ -65,6 +87,8 @@ public class RandomAccessOutputStream extends OutputStream implements
 	{
 		final SCIFIO scifio = new SCIFIO(context);
 		outputFile = scifio.location().getHandle(file, true);
+		metricsService = context.getService(IOMetricsService.class);
+		if (metricsService != null) metrics = metricsService.create(file);
 	}
 
 	/**
@@ -78,30 +102,98 @@ public class RandomAccessOutputStream extends OutputStream implements
 
 	// -- RandomAccessOutputStream API methods --
 
+	/**
+	 * Sets the size of the buffers used by streams which subsequently start
+	 * writing behind. Buffers are aligned to multiples of this size within the
+	 * file where possible. Default: 1 MiB
+	 */
+	public static void setWriteBehindBufferSize(final int size) {
+		writeBehindBufferSize = size;
+	}
+
+	/**
+	 * Sets the maximum number of buffers each stream which subsequently starts
+	 * writing behind may fill before waiting for one to be written out, bounding
+	 * its memory use. Default: 4
+	 */
+	public static void setWriteBehindBufferCount(final int count) {
+		writeBehindBufferCount = count;
+	}
+
+	/**
+	 * Enables or disables writing behind. While enabled, writes are collected
+	 * in large buffers which a background thread passes on to the underlying
+	 * handle, so that the writing thread only waits when all buffers are full.
+	 * Writes take effect in the order they were made, including overwrites of
+	 * earlier parts of the stream. Other streams reading the same file see
+	 * written data only after {@link #drain()}, {@link #flush()} or
+	 * {@link #close()}.
+	 *
+	 * @param threadService Service running the background writes, or null to
+	 *          write all buffered data and disable writing behind.
+	 */
+	public void setWriteBehind(final ThreadService threadService)
+		throws IOException
+	{
+		if (writeBehind != null) {
+			writeBehind.close();
+			writeBehind = null;
+			outputFile.seek(position);
+		}
+		if (threadService != null) {
+			position = outputFile.getFilePointer();
+			writeBehind =
+				new WriteBehind(outputFile, threadService, writeBehindBufferSize,
+					writeBehindBufferCount);
+		}
+	}
+
+	/** Gets whether this stream writes behind. */
+	public boolean isWriteBehind() {
+		return writeBehind != null;
+	}
+
+	/**
+	 * Gets the metrics of the I/O through this stream.
+	 *
+	 * @return The metrics, or null if the stream was constructed around a
+	 *         handle, or the {@link IOMetricsService} was disabled when it was
+	 *         opened.
+	 */
+	public IOMetrics getMetrics() {
+		return metrics;
+	}
+
 	/** Seeks to the given offset within the stream. */
 	public void seek(final long pos) throws IOException {
-		outputFile.seek(pos);
+		if (metrics != null) metrics.seek(pos - getFilePointer());
+		if (writeBehind != null) position = pos;
+		else outputFile.seek(pos);
 	}
 
 	/** Returns the current offset within the stream. */
 	public long getFilePointer() throws IOException {
-		return outputFile.getFilePointer();
+		return writeBehind != null ? position : outputFile.getFilePointer();
 	}
 
 	/** Returns the length of the file. */
 	public long length() throws IOException {
-		return outputFile.length();
+		return writeBehind != null ? writeBehind.length() : outputFile.length();
 	}
 
 	/** Advances the current offset by the given number of bytes. */
 	public void skipBytes(final int skip) throws IOException {
-		outputFile.seek(outputFile.getFilePointer() + skip);
+		if (metrics != null) metrics.seek(skip);
+		if (writeBehind != null) position += skip;
+		else outputFile.seek(outputFile.getFilePointer() + skip);
 	}
 
 	/** Sets the endianness of the stream. */
 	public void order(final boolean little) {
-		outputFile
-			.setOrder(little ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+		final ByteOrder order =
+			little ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+		outputFile.setOrder(order);
+		if (writeBehind != null) writeBehind.setOrder(order);
 	}
 
 	/** Gets the endianness of the stream. */
@@ -119,14 +211,20 @@ public class RandomAccessOutputStream extends OutputStream implements
 
 	@Override
 	public void write(final byte[] b) throws IOException {
-		outputFile.write(b);
+		final long start = metrics == null ? 0 : System.nanoTime();
+		if (writeBehind != null) writeBehind(ByteBuffer.wrap(b));
+		else outputFile.write(b);
+		if (metrics != null) countWrite(b.length, start);
 	}
 
 	@Override
 	public void write(final byte[] b, final int off, final int len)
 		throws IOException
 	{
-		outputFile.write(b, off, len);
+		final long start = metrics == null ? 0 : System.nanoTime();
+		if (writeBehind != null) writeBehind(ByteBuffer.wrap(b, off, len));
+		else outputFile.write(b, off, len);
+		if (metrics != null) countWrite(len, start);
 	}
 
 	/**
@@ -136,7 +234,12 @@ public class RandomAccessOutputStream extends OutputStream implements
 	 * @throws IOException If there is an error writing to the stream.
 	 */
 	public void write(final ByteBuffer b) throws IOException {
-		outputFile.write(b);
+		if (writeBehind != null) write(b, 0, b.capacity());
+		else {
+			final long start = metrics == null ? 0 : System.nanoTime();
+			outputFile.write(b);
+			if (metrics != null) countWrite(b.capacity(), start);
+		}
 	}
 
 	/**
@@ -148,77 +251,185 @@ public class RandomAccessOutputStream extends OutputStream implements
 	public void write(final ByteBuffer b, final int off, final int len)
 		throws IOException
 	{
-		outputFile.write(b, off, len);
+		final long start = metrics == null ? 0 : System.nanoTime();
+		if (writeBehind != null) {
+			final ByteBuffer src = b.duplicate();
+			src.limit(off + len);
+			src.position(off);
+			writeBehind(src);
+		}
+		else outputFile.write(b, off, len);
+		if (metrics != null) countWrite(len, start);
 	}
 
 	@Override
 	public void write(final int b) throws IOException {
-		outputFile.write(b);
+		if (writeBehind != null) writeByte(b);
+		else {
+			if (metrics != null) metrics.write(1);
+			outputFile.write(b);
+		}
 	}
 
 	@Override
 	public void writeBoolean(final boolean v) throws IOException {
-		outputFile.writeBoolean(v);
+		if (writeBehind != null) writeByte(v ? 1 : 0);
+		else {
+			if (metrics != null) metrics.write(1);
+			outputFile.writeBoolean(v);
+		}
 	}
 
 	@Override
 	public void writeByte(final int v) throws IOException {
-		outputFile.writeByte(v);
+		if (metrics != null) metrics.write(1);
+		if (writeBehind != null) buffer(1).put((byte) v);
+		else outputFile.writeByte(v);
 	}
 
 	@Override
 	public void writeBytes(final String s) throws IOException {
-		outputFile.writeBytes(s);
+		// NB: as per DataOutput, only the low byte of each char is written
+		final byte[] b = new byte[s.length()];
+		for (int i = 0; i < b.length; i++) {
+			b[i] = (byte) s.charAt(i);
+		}
+		write(b);
 	}
 
 	@Override
 	public void writeChar(final int v) throws IOException {
-		outputFile.writeChar(v);
+		if (metrics != null) metrics.write(2);
+		if (writeBehind != null) buffer(2).putChar((char) v);
+		else outputFile.writeChar(v);
 	}
 
 	@Override
 	public void writeChars(final String s) throws IOException {
-		outputFile.writeChars(s);
+		if (writeBehind != null) write(s.getBytes("UTF-16BE"));
+		else {
+			if (metrics != null) metrics.write(2 * s.length());
+			outputFile.writeChars(s);
+		}
 	}
 
 	@Override
 	public void writeDouble(final double v) throws IOException {
-		outputFile.writeDouble(v);
+		if (metrics != null) metrics.write(8);
+		if (writeBehind != null) buffer(8).putDouble(v);
+		else outputFile.writeDouble(v);
 	}
 
 	@Override
 	public void writeFloat(final float v) throws IOException {
-		outputFile.writeFloat(v);
+		if (metrics != null) metrics.write(4);
+		if (writeBehind != null) buffer(4).putFloat(v);
+		else outputFile.writeFloat(v);
 	}
 
 	@Override
 	public void writeInt(final int v) throws IOException {
-		outputFile.writeInt(v);
+		if (metrics != null) metrics.write(4);
+		if (writeBehind != null) buffer(4).putInt(v);
+		else outputFile.writeInt(v);
 	}
 
 	@Override
 	public void writeLong(final long v) throws IOException {
-		outputFile.writeLong(v);
+		if (metrics != null) metrics.write(8);
+		if (writeBehind != null) buffer(8).putLong(v);
+		else outputFile.writeLong(v);
 	}
 
 	@Override
 	public void writeShort(final int v) throws IOException {
-		outputFile.writeShort(v);
+		if (metrics != null) metrics.write(2);
+		if (writeBehind != null) buffer(2).putShort((short) v);
+		else outputFile.writeShort(v);
 	}
 
 	@Override
 	public void writeUTF(final String str) throws IOException {
-		outputFile.writeUTF(str);
+		if (writeBehind != null) {
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			new DataOutputStream(bytes).writeUTF(str);
+			write(bytes.toByteArray());
+		}
+		else outputFile.writeUTF(str);
 	}
 
 	// -- OutputStream API methods --
 
+	/**
+	 * Closes the stream. When writing behind, all buffered data is written
+	 * first, and forced to the storage device if the handle is a file.
+	 */
 	@Override
 	public void close() throws IOException {
-		outputFile.close();
+		if (metricsService != null) metricsService.close(metrics);
+		try {
+			if (writeBehind != null) {
+				writeBehind.close();
+				writeBehind = null;
+				force();
+			}
+		}
+		finally {
+			outputFile.close();
+		}
 	}
 
+	/**
+	 * Flushes the stream. When writing behind, this waits until all buffered
+	 * data has been written, and forced to the storage device if the handle is
+	 * a file; otherwise, data is written immediately and this does nothing.
+	 *
+	 * @see #drain()
+	 */
 	@Override
-	public void flush() throws IOException {}
+	public void flush() throws IOException {
+		if (writeBehind == null) return;
+		drain();
+		force();
+	}
+
+	/**
+	 * Waits until all data buffered for writing behind has been passed to the
+	 * underlying handle, so that other streams reading the same file see it.
+	 * Unlike {@link #flush()}, this does not force the data to the storage
+	 * device, which makes it much cheaper when written data only needs to be
+	 * read back.
+	 */
+	public void drain() throws IOException {
+		if (writeBehind != null) writeBehind.drain();
+	}
+
+	// -- Helper methods --
+
+	/** Returns a write-behind buffer positioned for the next len bytes. */
+	private ByteBuffer buffer(final int len) throws IOException {
+		final ByteBuffer buf = writeBehind.buffer(position, len);
+		position += len;
+		return buf;
+	}
+
+	/** Counts a bulk write of the given number of bytes begun at a given time. */
+	private void countWrite(final int bytes, final long start) {
+		metrics.write(bytes, System.nanoTime() - start);
+	}
+
+	/** Writes the remaining bytes of the given buffer behind. */
+	private void writeBehind(final ByteBuffer src) throws IOException {
+		final int len = src.remaining();
+		writeBehind.write(position, src);
+		position += len;
+	}
+
+	/** Forces written data to the storage device, if the handle is a file. */
+	private void force() throws IOException {
+		if (outputFile instanceof NIOFileHandle) {
+			((NIOFileHandle) outputFile).getFileChannel().force(true);
+		}
+	}
 
 }
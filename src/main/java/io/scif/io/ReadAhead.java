@@ -0,0 +1,222 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.scijava.thread.ThreadService;
+
+/**
+ * Prefetches the data following sequential reads of a file channel on a
+ * background thread, so that reading the next region of the file overlaps
+ * with whatever the caller does with the current one.
+ * <p>
+ * Reads count as sequential when each one starts where the previous one ended,
+ * or the same distance after the start of the previous one as that did after
+ * the one before it (e.g. every other plane of a file, or the rows of a
+ * sub-region). While reads remain sequential, a window covering the next few
+ * expected reads is prefetched, growing by one stride with each read up to
+ * {@link #MAX_DEPTH} strides or the maximum window size.
+ * </p>
+ */
+class ReadAhead {
+
+	// -- Constants --
+
+	/** Smallest number of bytes worth prefetching at once. */
+	private static final int MIN_WINDOW = 64 * 1024;
+
+	/** Maximum number of expected reads prefetched at once. */
+	private static final int MAX_DEPTH = 4;
+
+	// -- Fields --
+
+	private final FileChannel channel;
+
+	private final ThreadService threadService;
+
+	/** Maximum number of bytes prefetched at once. */
+	private final int maxWindow;
+
+	/** Start of the previous read, or -1 before the first read. */
+	private long lastStart = -1;
+
+	/** End of the previous read. */
+	private long lastEnd;
+
+	/** Distance between the starts of the previous two reads. */
+	private long stride;
+
+	/** Number of consecutive sequential reads. */
+	private int run;
+
+	/** Position of the prefetched window. */
+	private long windowStart;
+
+	/** Requested length of the prefetched window. */
+	private int windowLength;
+
+	/** Contents of the prefetched window, or null if there is none. */
+	private Future<ByteBuffer> window;
+
+	// -- Constructor --
+
+	ReadAhead(final FileChannel channel, final ThreadService threadService,
+		final int maxWindow)
+	{
+		this.channel = channel;
+		this.threadService = threadService;
+		this.maxWindow = Math.max(MIN_WINDOW, maxWindow);
+	}
+
+	// -- ReadAhead methods --
+
+	/**
+	 * Reads bytes from the given position until the buffer is full or the end
+	 * of the file is reached, taking as many of them as possible from the
+	 * prefetched window, and then prefetches the following window if the read
+	 * continues a sequential run.
+	 *
+	 * @return The number of bytes read.
+	 */
+	synchronized int read(final long pos, final ByteBuffer buf)
+		throws IOException
+	{
+		final int len = buf.remaining();
+		track(pos, len);
+		int total = copyWindow(pos, buf);
+		while (buf.hasRemaining()) {
+			final int n = channel.read(buf, pos + total);
+			if (n <= 0) break;
+			total += n;
+		}
+		if (run > 0) prefetch(pos, len);
+		return total;
+	}
+
+	/** Discards the prefetched window, e.g. after the file has changed. */
+	synchronized void invalidate() {
+		if (window != null) {
+			// NB: interrupting a channel read would close the channel
+			window.cancel(false);
+			window = null;
+		}
+		run = 0;
+	}
+
+	// -- Helper methods --
+
+	/** Updates the sequential run with a read of the given range. */
+	private void track(final long pos, final int len) {
+		final long distance = pos - lastStart;
+		final boolean sequential =
+			lastStart >= 0 && pos >= lastStart &&
+				(pos == lastEnd || distance == stride);
+		run = sequential ? run + 1 : 0;
+		stride = lastStart < 0 ? len : distance;
+		lastStart = pos;
+		lastEnd = pos + len;
+	}
+
+	/**
+	 * Copies the part of the prefetched window at the given position into the
+	 * buffer, waiting for the window if it is still being read.
+	 *
+	 * @return The number of bytes copied.
+	 */
+	private int copyWindow(final long pos, final ByteBuffer buf)
+		throws IOException
+	{
+		if (window == null || pos < windowStart ||
+			pos >= windowStart + windowLength)
+		{
+			return 0;
+		}
+		final ByteBuffer data;
+		try {
+			data = window.get();
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading ahead", e);
+		}
+		catch (final ExecutionException e) {
+			// NB: read the data directly instead, reporting any actual error then
+			window = null;
+			return 0;
+		}
+		final int from = (int) (pos - windowStart);
+		if (from >= data.limit()) return 0;
+		final int n = Math.min(buf.remaining(), data.limit() - from);
+		final ByteBuffer src = data.duplicate();
+		src.position(from);
+		src.limit(from + n);
+		buf.put(src);
+		return n;
+	}
+
+	/**
+	 * Starts prefetching the expected next reads after a sequential read of the
+	 * given range, unless the current window already covers the next one.
+	 */
+	private void prefetch(final long pos, final int len) throws IOException {
+		final long next = pos + Math.max(stride, len);
+		final long step = next - pos;
+		if (window != null && next >= windowStart &&
+			next + len <= windowStart + windowLength)
+		{
+			return;
+		}
+		final long size = channel.size();
+		if (next >= size) return;
+		final long depth = Math.min(run, MAX_DEPTH);
+		final int length =
+			(int) Math.min(size - next, Math.min(maxWindow, Math.max(MIN_WINDOW,
+				(depth - 1) * step + len)));
+
+		if (window != null) window.cancel(false);
+		windowStart = next;
+		windowLength = length;
+		window = threadService.run(() -> {
+			final ByteBuffer data = ByteBuffer.allocate(length);
+			while (data.hasRemaining()) {
+				final int n = channel.read(data, next + data.position());
+				if (n <= 0) break;
+			}
+			data.flip();
+			return data;
+		});
+	}
+}
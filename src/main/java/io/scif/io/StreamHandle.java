@@ -38,6 +38,7 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.List;
 
 import org.scijava.Context;
 import org.scijava.util.Bytes;
@@ -45,6 +46,12 @@ import org.scijava.util.Bytes;
 /**
  * Abstract IRandomAccess implementation for reading from InputStreams and
  * writing to OutputStreams.
+ * <p>
+ * Streams cannot be read at arbitrary positions, so positional reads seek
+ * there and back, as {@link IRandomAccess#read(long, byte[], int, int)} does
+ * by default. Every method moving the stream pointer is synchronized, so such
+ * reads cannot interleave with them.
+ * </p>
  *
  * @see IRandomAccess
  * @author Melissa Linkert
@@ -178,7 +185,7 @@ public abstract class StreamHandle extends AbstractSCIFIOPlugin implements
 	}
 
 	@Override
-	public int read(final byte[] b, final int off, final int len)
+	public synchronized int read(final byte[] b, final int off, final int len)
 		throws IOException
 	{
 		int n = stream.read(b, off, len);
@@ -199,8 +206,8 @@ public abstract class StreamHandle extends AbstractSCIFIOPlugin implements
 	}
 
 	@Override
-	public int read(final ByteBuffer buffer, final int off, final int len)
-		throws IOException
+	public synchronized int read(final ByteBuffer buffer, final int off,
+		final int len) throws IOException
 	{
 		if (buffer.hasArray()) {
 			return read(buffer.array(), off, len);
@@ -212,8 +219,18 @@ public abstract class StreamHandle extends AbstractSCIFIOPlugin implements
 		return n;
 	}
 
+	/**
+	 * Skipping through a stream costs as much as reading it, so ranges are
+	 * read in a single forward pass, coalescing ranges regardless of the gaps
+	 * between them.
+	 */
+	@Override
+	public long readVectored(final List<FileRange> ranges) throws IOException {
+		return StreamTools.readVectored(this, ranges, Integer.MAX_VALUE, false);
+	}
+
 	@Override
-	public void seek(final long pos) throws IOException {
+	public synchronized void seek(final long pos) throws IOException {
 		long diff = pos - fp;
 		fp = pos;
 
@@ -262,97 +279,97 @@ public abstract class StreamHandle extends AbstractSCIFIOPlugin implements
 	// -- DataInput API methods --
 
 	@Override
-	public boolean readBoolean() throws IOException {
+	public synchronized boolean readBoolean() throws IOException {
 		fp++;
 		return stream.readBoolean();
 	}
 
 	@Override
-	public byte readByte() throws IOException {
+	public synchronized byte readByte() throws IOException {
 		fp++;
 		return stream.readByte();
 	}
 
 	@Override
-	public char readChar() throws IOException {
+	public synchronized char readChar() throws IOException {
 		fp++;
 		return stream.readChar();
 	}
 
 	@Override
-	public double readDouble() throws IOException {
+	public synchronized double readDouble() throws IOException {
 		fp += 8;
 		final double v = stream.readDouble();
 		return order.equals(ByteOrder.LITTLE_ENDIAN) ? Bytes.swap(v) : v;
 	}
 
 	@Override
-	public float readFloat() throws IOException {
+	public synchronized float readFloat() throws IOException {
 		fp += 4;
 		final float v = stream.readFloat();
 		return order.equals(ByteOrder.LITTLE_ENDIAN) ? Bytes.swap(v) : v;
 	}
 
 	@Override
-	public void readFully(final byte[] b) throws IOException {
+	public synchronized void readFully(final byte[] b) throws IOException {
 		stream.readFully(b);
 		fp += b.length;
 	}
 
 	@Override
-	public void readFully(final byte[] b, final int off, final int len)
-		throws IOException
+	public synchronized void readFully(final byte[] b, final int off,
+		final int len) throws IOException
 	{
 		stream.readFully(b, off, len);
 		fp += len;
 	}
 
 	@Override
-	public int readInt() throws IOException {
+	public synchronized int readInt() throws IOException {
 		fp += 4;
 		final int v = stream.readInt();
 		return order.equals(ByteOrder.LITTLE_ENDIAN) ? Bytes.swap(v) : v;
 	}
 
 	@Override
-	public String readLine() throws IOException {
+	public synchronized String readLine() throws IOException {
 		throw new IOException("Unimplemented");
 	}
 
 	@Override
-	public long readLong() throws IOException {
+	public synchronized long readLong() throws IOException {
 		fp += 8;
 		final long v = stream.readLong();
 		return order.equals(ByteOrder.LITTLE_ENDIAN) ? Bytes.swap(v) : v;
 	}
 
 	@Override
-	public short readShort() throws IOException {
+	public synchronized short readShort() throws IOException {
 		fp += 2;
 		final short v = stream.readShort();
 		return order.equals(ByteOrder.LITTLE_ENDIAN) ? Bytes.swap(v) : v;
 	}
 
 	@Override
-	public int readUnsignedByte() throws IOException {
+	public synchronized int readUnsignedByte() throws IOException {
 		fp++;
 		return stream.readUnsignedByte();
 	}
 
 	@Override
-	public int readUnsignedShort() throws IOException {
+	public synchronized int readUnsignedShort() throws IOException {
 		return readShort() & 0xffff;
 	}
 
 	@Override
-	public String readUTF() throws IOException {
+	public synchronized String readUTF() throws IOException {
 		final String s = stream.readUTF();
 		fp += s.length();
 		return s;
 	}
 
 	@Override
-	public int skipBytes(final int n) throws IOException {
+	public synchronized int skipBytes(final int n) throws IOException {
 		int skipped = 0;
 		try {
 			for (int i = 0; i < n; i++) {
@@ -367,7 +384,7 @@ public abstract class StreamHandle extends AbstractSCIFIOPlugin implements
 	// -- DataOutput API methods --
 
 	@Override
-	public void write(final byte[] b) throws IOException {
+	public synchronized void write(final byte[] b) throws IOException {
 		if (outStream == null) {
 			throw new HandleException("This stream is read-only.");
 		}
@@ -375,8 +392,8 @@ public abstract class StreamHandle extends AbstractSCIFIOPlugin implements
 	}
 
 	@Override
-	public void write(final byte[] b, final int off, final int len)
-		throws IOException
+	public synchronized void write(final byte[] b, final int off,
+		final int len) throws IOException
 	{
 		if (outStream == null) {
 			throw new HandleException("This stream is read-only.");
@@ -385,7 +402,7 @@ public abstract class StreamHandle extends AbstractSCIFIOPlugin implements
 	}
 
 	@Override
-	public void write(int b) throws IOException {
+	public synchronized void write(int b) throws IOException {
 		if (outStream == null) {
 			throw new HandleException("This stream is read-only.");
 		}
@@ -394,7 +411,7 @@ public abstract class StreamHandle extends AbstractSCIFIOPlugin implements
 	}
 
 	@Override
-	public void writeBoolean(final boolean v) throws IOException {
+	public synchronized void writeBoolean(final boolean v) throws IOException {
 		if (outStream == null) {
 			throw new HandleException("This stream is read-only.");
 		}
@@ -402,7 +419,7 @@ public abstract class StreamHandle extends AbstractSCIFIOPlugin implements
 	}
 
 	@Override
-	public void writeByte(int v) throws IOException {
+	public synchronized void writeByte(int v) throws IOException {
 		if (outStream == null) {
 			throw new HandleException("This stream is read-only.");
 		}
@@ -411,7 +428,7 @@ public abstract class StreamHandle extends AbstractSCIFIOPlugin implements
 	}
 
 	@Override
-	public void writeBytes(final String s) throws IOException {
+	public synchronized void writeBytes(final String s) throws IOException {
 		if (outStream == null) {
 			throw new HandleException("This stream is read-only.");
 		}
@@ -419,7 +436,7 @@ public abstract class StreamHandle extends AbstractSCIFIOPlugin implements
 	}
 
 	@Override
-	public void writeChar(int v) throws IOException {
+	public synchronized void writeChar(int v) throws IOException {
 		if (outStream == null) {
 			throw new HandleException("This stream is read-only.");
 		}
@@ -428,7 +445,7 @@ public abstract class StreamHandle extends AbstractSCIFIOPlugin implements
 	}
 
 	@Override
-	public void writeChars(final String s) throws IOException {
+	public synchronized void writeChars(final String s) throws IOException {
 		if (outStream == null) {
 			throw new HandleException("This stream is read-only.");
 		}
@@ -436,7 +453,7 @@ public abstract class StreamHandle extends AbstractSCIFIOPlugin implements
 	}
 
 	@Override
-	public void writeDouble(double v) throws IOException {
+	public synchronized void writeDouble(double v) throws IOException {
 		if (outStream == null) {
 			throw new HandleException("This stream is read-only.");
 		}
@@ -445,7 +462,7 @@ public abstract class StreamHandle extends AbstractSCIFIOPlugin implements
 	}
 
 	@Override
-	public void writeFloat(float v) throws IOException {
+	public synchronized void writeFloat(float v) throws IOException {
 		if (outStream == null) {
 			throw new HandleException("This stream is read-only.");
 		}
@@ -454,7 +471,7 @@ public abstract class StreamHandle extends AbstractSCIFIOPlugin implements
 	}
 
 	@Override
-	public void writeInt(int v) throws IOException {
+	public synchronized void writeInt(int v) throws IOException {
 		if (outStream == null) {
 			throw new HandleException("This stream is read-only.");
 		}
@@ -463,7 +480,7 @@ public abstract class StreamHandle extends AbstractSCIFIOPlugin implements
 	}
 
 	@Override
-	public void writeLong(long v) throws IOException {
+	public synchronized void writeLong(long v) throws IOException {
 		if (outStream == null) {
 			throw new HandleException("This stream is read-only.");
 		}
@@ -472,7 +489,7 @@ public abstract class StreamHandle extends AbstractSCIFIOPlugin implements
 	}
 
 	@Override
-	public void writeShort(int v) throws IOException {
+	public synchronized void writeShort(int v) throws IOException {
 		if (outStream == null) {
 			throw new HandleException("This stream is read-only.");
 		}
@@ -481,7 +498,7 @@ public abstract class StreamHandle extends AbstractSCIFIOPlugin implements
 	}
 
 	@Override
-	public void writeUTF(final String str) throws IOException {
+	public synchronized void writeUTF(final String str) throws IOException {
 		if (outStream == null) {
 			throw new HandleException("This stream is read-only.");
 		}
@@ -31,12 +31,25 @@
 package io.scif.io;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 
 /**
  * A utility class for RandomAccess Input/Output streams.
  */
 public class StreamTools {
 
+	// -- Constants --
+
+	/**
+	 * Maximum number of bytes read at once by {@link #readVectored}, when
+	 * coalescing several ranges into one read through a temporary buffer.
+	 */
+	public static final int MAX_COALESCED_READ = 16 * 1024 * 1024;
+
+	// -- StreamTools methods --
+
 	/**
 	 * Returns true if the given RandomAccessInputStream conatins at least 'len'
 	 * bytes.
@@ -48,4 +61,95 @@ public class StreamTools {
 		stream.order(littleEndian);
 		return stream.length() >= len;
 	}
+
+	/**
+	 * Fills several ranges from the given handle with as few reads as possible,
+	 * as {@link IRandomAccess#readVectored} does. Ranges are read in order of
+	 * their offsets, and ranges that overlap or are separated by at most
+	 * {@code maxGap} bytes are read at once; directly into their common array if
+	 * they are contiguous there as well, through a temporary buffer otherwise.
+	 * Afterwards, the handle's file pointer is at the end of the range ending
+	 * furthest into the stream, or at the end of the stream if that is
+	 * closer.
+	 *
+	 * @param maxGap Maximum number of bytes between two ranges which are read
+	 *          at once, and then discarded. Negative values disable coalescing.
+	 * @param positional Whether to use positional reads, rather than seeking to
+	 *          each group of ranges and reading sequentially.
+	 * @return The total number of bytes read, which is less than the total
+	 *         length of the ranges only if the end of the stream was reached.
+	 */
+	public static long readVectored(final IRandomAccess handle,
+		final List<FileRange> ranges, final int maxGap, final boolean positional)
+		throws IOException
+	{
+		final FileRange[] sorted = ranges.toArray(new FileRange[ranges.size()]);
+		Arrays.sort(sorted, Comparator.comparingLong(FileRange::getOffset));
+
+		long total = 0;
+		long furthest = -1;
+		int first = 0;
+		while (first < sorted.length) {
+			final long start = sorted[first].getOffset();
+			long end = sorted[first].getEnd();
+			boolean direct = true;
+			int last = first;
+			while (last + 1 < sorted.length) {
+				final FileRange next = sorted[last + 1];
+				if (next.getOffset() - end > maxGap ||
+					Math.max(end, next.getEnd()) - start > MAX_COALESCED_READ)
+				{
+					break;
+				}
+				final FileRange prev = sorted[last];
+				direct &=
+					next.getOffset() == end && next.getDest() == prev.getDest() &&
+						next.getDestOffset() == prev.getDestOffset() + prev.getLength();
+				end = Math.max(end, next.getEnd());
+				last++;
+			}
+			furthest = Math.max(furthest, end);
+
+			if (direct) {
+				// the ranges are contiguous in the stream and in their array
+				total +=
+					read(handle, start, sorted[first].getDest(), sorted[first]
+						.getDestOffset(), (int) (end - start), positional);
+			}
+			else {
+				final byte[] buf = new byte[(int) (end - start)];
+				final int n = read(handle, start, buf, 0, buf.length, positional);
+				for (int i = first; i <= last; i++) {
+					final FileRange range = sorted[i];
+					final int from = (int) (range.getOffset() - start);
+					final int len = Math.max(0, Math.min(range.getLength(), n - from));
+					System.arraycopy(buf, from, range.getDest(), range.getDestOffset(),
+						len);
+					total += len;
+				}
+			}
+			first = last + 1;
+		}
+		// NB: seeking past the end may extend writable handles
+		if (furthest >= 0) handle.seek(Math.min(furthest, handle.length()));
+		return total;
+	}
+
+	// -- Helper methods --
+
+	/** Reads as many of the given bytes as possible, before the end of stream. */
+	private static int read(final IRandomAccess handle, final long pos,
+		final byte[] b, final int off, final int len, final boolean positional)
+		throws IOException
+	{
+		if (positional) return handle.read(pos, b, off, len);
+		handle.seek(pos);
+		int n = 0;
+		while (n < len) {
+			final int r = handle.read(b, off + n, len - n);
+			if (r <= 0) break;
+			n += r;
+		}
+		return n;
+	}
 }
@@ -117,7 +117,7 @@ public class URLHandle extends StreamHandle {
 	// -- IRandomAccess API methods --
 
 	@Override
-	public void seek(final long pos) throws IOException {
+	public synchronized void seek(final long pos) throws IOException {
 		if (pos < getFp() && pos >= getMark()) {
 			getStream().reset();
 			setFp(getMark());
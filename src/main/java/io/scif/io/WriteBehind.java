@@ -0,0 +1,282 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.scijava.thread.ThreadService;
+
+/**
+ * Collects writes to a handle in large buffers, which a background thread
+ * writes out in the order they were filled, so that the writing thread rarely
+ * waits for the disk.
+ * <p>
+ * Each buffer holds a contiguous run of written bytes, ending at a multiple of
+ * the buffer size where possible. A write which does not extend the current
+ * run, e.g. after seeking back to patch an earlier offset, hands the buffer
+ * over and starts a new one; since buffers are written in order, the later
+ * write still takes precedence. Once all buffers are in use, writing blocks
+ * until the background thread has written one out.
+ * </p>
+ */
+class WriteBehind {
+
+	// -- Fields --
+
+	private final IRandomAccess handle;
+
+	private final int bufferSize;
+
+	/** Buffers which may be filled. */
+	private final BlockingQueue<Block> free;
+
+	/** Filled buffers waiting to be written, in order. */
+	private final BlockingQueue<Block> pending = new LinkedBlockingQueue<>();
+
+	/** Marker telling the background thread to stop. */
+	private final Block stop = new Block();
+
+	/** Buffer currently being filled, or null. */
+	private Block current;
+
+	/** Byte order of the values written. */
+	private ByteOrder order;
+
+	/** Position after the last byte written so far. */
+	private long end;
+
+	/** Number of buffers handed over but not yet written. */
+	private int outstanding;
+
+	/** First error of the background thread, reported by the next call. */
+	private volatile Exception failure;
+
+	// -- Constructor --
+
+	/**
+	 * Starts writing behind to the given handle, beginning at its current file
+	 * pointer.
+	 *
+	 * @param bufferSize Size of each buffer.
+	 * @param bufferCount Maximum number of buffers, filled or being filled.
+	 */
+	WriteBehind(final IRandomAccess handle, final ThreadService threadService,
+		final int bufferSize, final int bufferCount) throws IOException
+	{
+		this.handle = handle;
+		this.bufferSize = Math.max(4096, bufferSize);
+		final ByteOrder handleOrder = handle.getOrder();
+		order = handleOrder == null ? ByteOrder.BIG_ENDIAN : handleOrder;
+		end = handle.length();
+		final int count = Math.max(2, bufferCount);
+		free = new ArrayBlockingQueue<>(count);
+		for (int i = 0; i < count; i++) {
+			free.add(new Block());
+		}
+		threadService.run(this::writeBlocks);
+	}
+
+	// -- WriteBehind methods --
+
+	/** Sets the byte order of subsequently written values. */
+	void setOrder(final ByteOrder order) {
+		this.order = order;
+		if (current != null) current.data.order(order);
+	}
+
+	/** Gets the length of the handle, including the bytes not yet written. */
+	long length() throws IOException {
+		return Math.max(end, handle.length());
+	}
+
+	/**
+	 * Returns a buffer positioned to receive the given number of bytes, at most
+	 * 8, which are to be written at the given position.
+	 */
+	ByteBuffer buffer(final long pos, final int len) throws IOException {
+		ensure(pos, len);
+		return extend(pos, len);
+	}
+
+	/** Copies the remaining bytes of the given buffer to the given position. */
+	void write(long pos, final ByteBuffer src) throws IOException {
+		while (src.hasRemaining()) {
+			ensure(pos, 1);
+			final int room =
+				current.data.limit() - (int) (pos - current.start);
+			final int n = Math.min(room, src.remaining());
+			final ByteBuffer chunk = src.duplicate();
+			chunk.limit(chunk.position() + n);
+			extend(pos, n).put(chunk);
+			src.position(src.position() + n);
+			pos += n;
+		}
+	}
+
+	/**
+	 * Hands over the current buffer, and waits until all buffers have been
+	 * written to the handle.
+	 */
+	void drain() throws IOException {
+		handOver();
+		try {
+			synchronized (this) {
+				while (outstanding > 0) {
+					wait();
+				}
+			}
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing behind", e);
+		}
+		checkFailure();
+	}
+
+	/** Writes all buffers to the handle and stops the background thread. */
+	void close() throws IOException {
+		try {
+			drain();
+		}
+		finally {
+			pending.add(stop);
+		}
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Makes the current buffer one which can hold the given number of bytes at
+	 * the given position, contiguously with the bytes it already holds.
+	 */
+	private void ensure(final long pos, final int len) throws IOException {
+		checkFailure();
+		if (current != null && pos >= current.start &&
+			pos <= current.start + current.length &&
+			pos + len <= current.start + current.data.limit())
+		{
+			return;
+		}
+		handOver();
+		try {
+			current = free.take();
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing behind", e);
+		}
+		if (current.data == null) current.data = ByteBuffer.allocate(bufferSize);
+		current.start = pos;
+		current.length = 0;
+		current.data.clear();
+		// NB: end on a multiple of the buffer size, so later buffers are aligned
+		final int aligned = bufferSize - (int) (pos % bufferSize);
+		current.data.limit(aligned >= len ? aligned : bufferSize);
+		current.data.order(order);
+	}
+
+	/** Positions the current buffer for the given bytes, and counts them. */
+	private ByteBuffer extend(final long pos, final int len) {
+		final int offset = (int) (pos - current.start);
+		current.length = Math.max(current.length, offset + len);
+		end = Math.max(end, pos + len);
+		current.data.position(offset);
+		return current.data;
+	}
+
+	/** Queues the current buffer for writing, if it holds anything. */
+	private void handOver() {
+		if (current == null) return;
+		if (current.length == 0) free.add(current);
+		else {
+			synchronized (this) {
+				outstanding++;
+			}
+			pending.add(current);
+		}
+		current = null;
+	}
+
+	private void checkFailure() throws IOException {
+		final Exception e = failure;
+		if (e instanceof IOException) throw (IOException) e;
+		if (e != null) throw new IOException(e);
+	}
+
+	/** Body of the background thread. */
+	private void writeBlocks() {
+		while (true) {
+			final Block block;
+			try {
+				block = pending.take();
+			}
+			catch (final InterruptedException e) {
+				return;
+			}
+			if (block == stop) return;
+			try {
+				// NB: after a failure, discard the remaining buffers
+				if (failure == null) {
+					handle.seek(block.start);
+					handle.write(block.data, 0, block.length);
+				}
+			}
+			catch (final IOException | RuntimeException e) {
+				failure = e;
+			}
+			finally {
+				free.add(block);
+				synchronized (this) {
+					outstanding--;
+					notifyAll();
+				}
+			}
+		}
+	}
+
+	// -- Helper classes --
+
+	/** A buffer, and where in the handle its contents belong. */
+	private static class Block {
+
+		private ByteBuffer data;
+
+		private long start;
+
+		/** Number of bytes filled. */
+		private int length;
+	}
+}
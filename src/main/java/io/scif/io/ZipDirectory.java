@@ -0,0 +1,371 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+
+/**
+ * The central directory of a Zip archive, listing each entry along with its
+ * compression method, sizes and location in the archive.
+ * <p>
+ * Reading the central directory only requires the end of the archive, so
+ * entries can be located without reading through the ones preceding them, as
+ * {@link java.util.zip.ZipInputStream} does. Directories are cached per
+ * archive by {@link #get}, as long as the archive does not change; see
+ * {@link #setCacheSize}. Zip64 archives are supported.
+ * </p>
+ */
+public class ZipDirectory {
+
+	// -- Constants --
+
+	private static final int EOCD_SIGNATURE = 0x06054b50;
+
+	private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+	private static final int HEADER_SIGNATURE = 0x02014b50;
+
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+	/** Size of the end of central directory record, without comment. */
+	private static final int EOCD_SIZE = 22;
+
+	/** Size of a local file header, without name and extra field. */
+	private static final int LOCAL_HEADER_SIZE = 30;
+
+	private static final int ZIP64_EXTRA_ID = 0x0001;
+
+	// -- Static fields --
+
+	/** Maximum number of cached directories. */
+	private static int cacheSize = 16;
+
+	/** Recently used directories, by archive id. */
+	private static final Map<String, ZipDirectory> CACHE =
+		new LinkedHashMap<>(16, 0.75f, true);
+
+	// -- Fields --
+
+	/** Length of the archive the directory was read from. */
+	private final long archiveLength;
+
+	/** Modification time of the archive, or 0 if not a file. */
+	private final long lastModified;
+
+	private final List<Entry> entries;
+
+	private final Map<String, Entry> entriesByName;
+
+	// -- Constructor --
+
+	/**
+	 * Reads the central directory of the archive read by the given stream. The
+	 * stream's file pointer is left unchanged.
+	 *
+	 * @param lastModified Modification time of the archive, used to validate
+	 *          cached directories.
+	 * @throws IOException if the archive has no valid central directory.
+	 */
+	public ZipDirectory(final RandomAccessInputStream in,
+		final long lastModified) throws IOException
+	{
+		this.archiveLength = in.length();
+		this.lastModified = lastModified;
+
+		// find the end of central directory record, followed by a comment of
+		// at most 65535 bytes
+		final int tailLength = (int) Math.min(archiveLength, EOCD_SIZE + 0xffff);
+		final ByteBuffer tail =
+			read(in, archiveLength - tailLength, tailLength);
+		int eocd = tailLength - EOCD_SIZE;
+		while (eocd >= 0 && tail.getInt(eocd) != EOCD_SIGNATURE) {
+			eocd--;
+		}
+		if (eocd < 0) throw new IOException("No Zip central directory found");
+
+		long count = tail.getShort(eocd + 10) & 0xffff;
+		long size = tail.getInt(eocd + 12) & 0xffffffffL;
+		long offset = tail.getInt(eocd + 16) & 0xffffffffL;
+		final long locator = archiveLength - tailLength + eocd - 20;
+		if ((count == 0xffff || size == 0xffffffffL || offset == 0xffffffffL) &&
+			locator >= 0)
+		{
+			final ByteBuffer loc = read(in, locator, 20);
+			if (loc.getInt(0) == ZIP64_LOCATOR_SIGNATURE) {
+				final ByteBuffer eocd64 = read(in, loc.getLong(8), 56);
+				if (eocd64.getInt(0) != ZIP64_EOCD_SIGNATURE) {
+					throw new IOException("Invalid Zip64 central directory");
+				}
+				count = eocd64.getLong(32);
+				size = eocd64.getLong(40);
+				offset = eocd64.getLong(48);
+			}
+		}
+		if (size > Integer.MAX_VALUE || offset + size > archiveLength) {
+			throw new IOException("Invalid Zip central directory");
+		}
+
+		final ByteBuffer dir = read(in, offset, (int) size);
+		final List<Entry> list = new ArrayList<>((int) Math.min(count, 65536));
+		final Map<String, Entry> byName = new HashMap<>();
+		int pos = 0;
+		while (pos + 46 <= size && dir.getInt(pos) == HEADER_SIGNATURE) {
+			final int nameLength = dir.getShort(pos + 28) & 0xffff;
+			final int extraLength = dir.getShort(pos + 30) & 0xffff;
+			final int commentLength = dir.getShort(pos + 32) & 0xffff;
+			final byte[] name = new byte[nameLength];
+			dir.position(pos + 46);
+			dir.get(name);
+
+			final Entry entry = new Entry(new String(name, StandardCharsets.UTF_8));
+			entry.method = dir.getShort(pos + 10) & 0xffff;
+			entry.crc = dir.getInt(pos + 16) & 0xffffffffL;
+			entry.compressedSize = dir.getInt(pos + 20) & 0xffffffffL;
+			entry.size = dir.getInt(pos + 24) & 0xffffffffL;
+			entry.localHeaderOffset = dir.getInt(pos + 42) & 0xffffffffL;
+			readZip64Extra(dir, pos + 46 + nameLength, extraLength, entry);
+
+			list.add(entry);
+			if (!byName.containsKey(entry.name)) byName.put(entry.name, entry);
+			pos += 46 + nameLength + extraLength + commentLength;
+		}
+
+		entries = Collections.unmodifiableList(list);
+		entriesByName = byName;
+	}
+
+	// -- ZipDirectory methods --
+
+	/**
+	 * Gets the central directory of the archive read by the given stream,
+	 * reading it only if it was not cached already, or the archive changed
+	 * since. Directories are cached by the {@link
+	 * RandomAccessInputStream#getFileName() name} of the stream.
+	 *
+	 * @throws IOException if the archive has no valid central directory.
+	 */
+	public static ZipDirectory get(final RandomAccessInputStream in)
+		throws IOException
+	{
+		final String id = in.getFileName();
+		final long lastModified = id == null ? 0 : new File(id).lastModified();
+		synchronized (CACHE) {
+			final ZipDirectory cached = id == null ? null : CACHE.get(id);
+			if (cached != null && cached.lastModified == lastModified &&
+				cached.archiveLength == in.length())
+			{
+				return cached;
+			}
+		}
+		final ZipDirectory dir = new ZipDirectory(in, lastModified);
+		if (id == null) return dir;
+		synchronized (CACHE) {
+			CACHE.put(id, dir);
+			trimCache();
+		}
+		return dir;
+	}
+
+	/**
+	 * Sets the maximum number of archives whose central directories are
+	 * cached, or 0 to disable caching. Default: 16
+	 */
+	public static void setCacheSize(final int size) {
+		synchronized (CACHE) {
+			cacheSize = Math.max(0, size);
+			trimCache();
+		}
+	}
+
+	/** Discards the cached central directory of the given archive, if any. */
+	public static void evict(final String id) {
+		synchronized (CACHE) {
+			CACHE.remove(id);
+		}
+	}
+
+	/** Gets all entries, in the order of the central directory. */
+	public List<Entry> getEntries() {
+		return entries;
+	}
+
+	/** Gets the first entry with the given name, or null if there is none. */
+	public Entry getEntry(final String name) {
+		return entriesByName.get(name);
+	}
+
+	// -- Helper methods --
+
+	private static void trimCache() {
+		while (CACHE.size() > cacheSize) {
+			CACHE.remove(CACHE.keySet().iterator().next());
+		}
+	}
+
+	/** Replaces the 32-bit fields of an entry by those of its Zip64 field. */
+	private static void readZip64Extra(final ByteBuffer dir, final int start,
+		final int length, final Entry entry)
+	{
+		int pos = start;
+		while (pos + 4 <= start + length) {
+			final int id = dir.getShort(pos) & 0xffff;
+			final int size = dir.getShort(pos + 2) & 0xffff;
+			if (id == ZIP64_EXTRA_ID) {
+				int field = pos + 4;
+				final int end = field + size;
+				if (entry.size == 0xffffffffL && field + 8 <= end) {
+					entry.size = dir.getLong(field);
+					field += 8;
+				}
+				if (entry.compressedSize == 0xffffffffL && field + 8 <= end) {
+					entry.compressedSize = dir.getLong(field);
+					field += 8;
+				}
+				if (entry.localHeaderOffset == 0xffffffffL && field + 8 <= end) {
+					entry.localHeaderOffset = dir.getLong(field);
+				}
+				return;
+			}
+			pos += 4 + size;
+		}
+	}
+
+	/** Reads the given number of bytes at the given position, little-endian. */
+	private static ByteBuffer read(final RandomAccessInputStream in,
+		final long pos, final int length) throws IOException
+	{
+		final byte[] b = new byte[length];
+		int n = 0;
+		while (n < length) {
+			final int r = in.read(pos + n, b, n, length - n);
+			if (r <= 0) throw new EOFException();
+			n += r;
+		}
+		return ByteBuffer.wrap(b).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	// -- Helper classes --
+
+	/** An entry of a Zip archive. */
+	public static class Entry {
+
+		private final String name;
+
+		private int method;
+
+		private long crc;
+
+		private long compressedSize;
+
+		private long size;
+
+		private long localHeaderOffset;
+
+		/** Offset of the entry's data, or -1 if not determined yet. */
+		private volatile long dataOffset = -1;
+
+		private Entry(final String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Gets the compression method, such as {@link ZipEntry#STORED} or
+		 * {@link ZipEntry#DEFLATED}.
+		 */
+		public int getMethod() {
+			return method;
+		}
+
+		public long getCompressedSize() {
+			return compressedSize;
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		/** Whether the entry's data is stored without compression. */
+		public boolean isStored() {
+			return method == ZipEntry.STORED;
+		}
+
+		/**
+		 * Gets the offset of the entry's (compressed) data in the archive, which
+		 * follows the entry's local header.
+		 *
+		 * @param in Stream reading the archive, used to read the local header the
+		 *          first time the offset is requested.
+		 */
+		public long getDataOffset(final RandomAccessInputStream in)
+			throws IOException
+		{
+			if (dataOffset < 0) {
+				final ByteBuffer header =
+					read(in, localHeaderOffset, LOCAL_HEADER_SIZE);
+				if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+					throw new IOException("Invalid Zip local header for " + name);
+				}
+				dataOffset =
+					localHeaderOffset + LOCAL_HEADER_SIZE +
+						(header.getShort(26) & 0xffff) + (header.getShort(28) & 0xffff);
+			}
+			return dataOffset;
+		}
+
+		/** Creates a {@link ZipEntry} describing this entry. */
+		public ZipEntry toZipEntry() {
+			final ZipEntry entry = new ZipEntry(name);
+			entry.setMethod(method);
+			entry.setCrc(crc);
+			entry.setCompressedSize(compressedSize);
+			entry.setSize(size);
+			return entry;
+		}
+	}
+}
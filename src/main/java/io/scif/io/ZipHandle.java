@@ -35,17 +35,33 @@ import io.scif.common.Constants;
 
 import java.io.BufferedInputStream;
 import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 import org.scijava.Context;
+import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
 
 /**
  * StreamHandle implementation for reading from Zip-compressed files or byte
  * arrays. Instances of ZipHandle are read-only.
+ * <p>
+ * Entries are located through the archive's {@link ZipDirectory central
+ * directory}, which is read once per archive. Deflated entries are inflated
+ * straight from their offset in the archive. Entries stored without
+ * compression in a file or byte array are read through a window over the
+ * archive's data, memory mapped if the {@link NIOService} maps buffers, so
+ * that seeking is free; see {@link #getBuffer()}. Archives without a readable
+ * central directory are read sequentially instead.
+ * </p>
  *
  * @see StreamHandle
  * @author Melissa Linkert
@@ -55,8 +71,14 @@ public class ZipHandle extends StreamHandle {
 
 	// -- Fields --
 
+	@Parameter
+	private NIOService nioService;
+
 	private boolean resetStream;
 
+	/** Handle reading the archive, unless closed until needed. */
+	private IRandomAccess handle;
+
 	private RandomAccessInputStream in;
 
 	private ZipInputStream zip;
@@ -65,6 +87,24 @@ public class ZipHandle extends StreamHandle {
 
 	private int entryCount;
 
+	/** The backing entry, or null if the archive is read sequentially. */
+	private ZipDirectory.Entry entry;
+
+	/** Offset of the backing entry's data in the archive. */
+	private long dataOffset;
+
+	/** Whether the backing entry is read through a window. */
+	private boolean windowed;
+
+	/** Window over the backing entry's data, or null if not allocated yet. */
+	private ByteBuffer window;
+
+	/** Stream reading from the window. */
+	private WindowInputStream windowStream;
+
+	/** Inflater of the backing entry, if deflated. */
+	private Inflater inflater;
+
 	// -- Constructor --
 
 	/**
@@ -128,6 +168,18 @@ public class ZipHandle extends StreamHandle {
 		return getStream();
 	}
 
+	/**
+	 * Gets a read-only view of the backing Zip entry's data, if the entry is
+	 * stored without compression in a file or byte array. The view is memory
+	 * mapped if the {@link NIOService} maps buffers, and copied into memory
+	 * otherwise.
+	 *
+	 * @return The entry's data, or null if it cannot be accessed directly.
+	 */
+	public ByteBuffer getBuffer() throws IOException {
+		return windowed ? getWindow().asReadOnlyBuffer() : null;
+	}
+
 	/**
 	 * Returns the number of entries.
 	 *
@@ -147,31 +199,72 @@ public class ZipHandle extends StreamHandle {
 		super.setFile(file);
 
 		setLength(-1);
+		closeEntry();
 
-		in = openStream(file);
-		zip = new ZipInputStream(in);
+		handle = getHandle(file);
+		in = new RandomAccessInputStream(getContext(), handle, file);
 		entryName = entry == null ? null : entry.getName();
 		entryCount = entryName == null ? 0 : 1;
 
-		if (entryName == null) {
-			// strip off .zip extension and directory prefix
-			String innerFile = file.substring(0, file.length() - 4);
-			int slash = innerFile.lastIndexOf(File.separator);
-			if (slash < 0) slash = innerFile.lastIndexOf("/");
-			if (slash >= 0) innerFile = innerFile.substring(slash + 1);
-
-			// look for Zip entry with same prefix as the Zip file itself
-			boolean matchFound = false;
-			while (true) {
-				final ZipEntry ze = zip.getNextEntry();
-				if (ze == null) break;
-				if (entryName == null) entryName = ze.getName();
-				if (!matchFound && ze.getName().startsWith(innerFile)) {
-					// found entry with matching name
-					entryName = ze.getName();
-					matchFound = true;
+		ZipDirectory directory;
+		try {
+			directory = ZipDirectory.get(in);
+		}
+		catch (final IOException e) {
+			// NB: read the archive sequentially, as far as possible
+			directory = null;
+		}
+
+		if (directory != null) {
+			if (entryName == null) {
+				final String innerFile = getInnerFile(file);
+				for (final ZipDirectory.Entry ze : directory.getEntries()) {
+					if (entryName == null) entryName = ze.getName();
+					if (ze.getName().startsWith(innerFile)) {
+						// found entry with matching name
+						entryName = ze.getName();
+						break;
+					}
+				}
+				entryCount = directory.getEntries().size();
+			}
+			this.entry = entryName == null ? null : directory.getEntry(entryName);
+		}
+
+		if (this.entry != null && (this.entry.isStored() ||
+			this.entry.getMethod() == ZipEntry.DEFLATED))
+		{
+			dataOffset = this.entry.getDataOffset(in);
+			setLength(this.entry.getSize());
+			windowed =
+				this.entry.isStored() && this.entry.getSize() <= Integer.MAX_VALUE &&
+					(handle instanceof NIOFileHandle || handle instanceof ByteArrayHandle);
+			if (windowed && handle instanceof NIOFileHandle) {
+				// NB: the file is reopened when first read
+				in.close();
+				in = null;
+				handle = null;
+			}
+		}
+		else {
+			this.entry = null;
+			zip = new ZipInputStream(in);
+			if (entryName == null) {
+				final String innerFile = getInnerFile(file);
+
+				// look for Zip entry with same prefix as the Zip file itself
+				boolean matchFound = false;
+				while (true) {
+					final ZipEntry ze = zip.getNextEntry();
+					if (ze == null) break;
+					if (entryName == null) entryName = ze.getName();
+					if (!matchFound && ze.getName().startsWith(innerFile)) {
+						// found entry with matching name
+						entryName = ze.getName();
+						matchFound = true;
+					}
+					entryCount++;
 				}
-				entryCount++;
 			}
 		}
 
@@ -186,6 +279,25 @@ public class ZipHandle extends StreamHandle {
 	@Override
 	public void resetStream() throws IOException {
 		if (getStream() != null) getStream().close();
+
+		if (windowed) {
+			windowStream = new WindowInputStream();
+			setStream(new DataInputStream(windowStream));
+			return;
+		}
+		if (entry != null) {
+			InputStream data = new EntryInputStream(!entry.isStored());
+			if (!entry.isStored()) {
+				if (inflater == null) inflater = new Inflater(true);
+				else inflater.reset();
+				data = new InflaterInputStream(data, inflater);
+			}
+			setStream(new DataInputStream(new BufferedInputStream(data,
+				RandomAccessInputStream.MAX_OVERHEAD)));
+			getStream().mark(RandomAccessInputStream.MAX_OVERHEAD);
+			return;
+		}
+
 		if (in != null) {
 			in.close();
 			in = openStream(getFile());
@@ -204,19 +316,105 @@ public class ZipHandle extends StreamHandle {
 
 	// -- IRandomAccess API methods --
 
+	@Override
+	public int read(final long pos, final byte[] b, final int off, final int len)
+		throws IOException
+	{
+		if (!windowed) return super.read(pos, b, off, len);
+		final ByteBuffer data = getWindow().duplicate();
+		if (pos >= data.limit()) return 0;
+		final int n = (int) Math.min(len, data.limit() - pos);
+		data.position((int) pos);
+		data.get(b, off, n);
+		return n;
+	}
+
+	@Override
+	public synchronized void seek(final long pos) throws IOException {
+		if (windowed) {
+			windowStream.pos = pos;
+			setFp(pos);
+			return;
+		}
+		super.seek(pos);
+	}
+
 	@Override
 	public void close() throws IOException {
 		super.close();
 		zip = null;
 		entryName = null;
 		setLength(-1);
-		if (in != null) in.close();
-		in = null;
+		closeEntry();
 		entryCount = 0;
 	}
 
 	// -- Helper methods --
 
+	/** Releases the resources tied to the backing entry. */
+	private void closeEntry() throws IOException {
+		if (in != null) in.close();
+		in = null;
+		handle = null;
+		entry = null;
+		windowed = false;
+		windowStream = null;
+		if (window != null && nioService != null) nioService.release(window);
+		window = null;
+		if (inflater != null) inflater.end();
+		inflater = null;
+	}
+
+	/**
+	 * Gets the window over the backing entry's data, slicing, mapping or reading
+	 * it on first use.
+	 */
+	private synchronized ByteBuffer getWindow() throws IOException {
+		if (window == null) {
+			final int size = (int) entry.getSize();
+			if (handle instanceof ByteArrayHandle) {
+				final ByteBuffer bytes =
+					((ByteArrayHandle) handle).getByteBuffer().duplicate();
+				bytes.limit((int) dataOffset + size);
+				bytes.position((int) dataOffset);
+				window = bytes.slice();
+			}
+			else {
+				final IRandomAccess file = getHandle(getFile());
+				try {
+					if (file instanceof NIOFileHandle) {
+						window =
+							nioService.allocate(((NIOFileHandle) file).getFileChannel(),
+								MapMode.READ_ONLY, dataOffset, size);
+					}
+					else {
+						final byte[] bytes = new byte[size];
+						int n = 0;
+						while (n < size) {
+							final int r = file.read(dataOffset + n, bytes, n, size - n);
+							if (r <= 0) throw new EOFException();
+							n += r;
+						}
+						window = ByteBuffer.wrap(bytes);
+					}
+				}
+				finally {
+					file.close();
+				}
+			}
+		}
+		return window;
+	}
+
+	/** Strips the .zip extension and directory prefix off a file name. */
+	private static String getInnerFile(final String file) {
+		String innerFile = file.substring(0, file.length() - 4);
+		int slash = innerFile.lastIndexOf(File.separator);
+		if (slash < 0) slash = innerFile.lastIndexOf("/");
+		if (slash >= 0) innerFile = innerFile.substring(slash + 1);
+		return innerFile;
+	}
+
 	/**
 	 * Seeks to the relevant ZIP entry, populating the stream length accordingly.
 	 */
@@ -272,4 +470,81 @@ public class ZipHandle extends StreamHandle {
 		return new RandomAccessInputStream(getContext(), getHandle(file), file);
 	}
 
+	// -- Helper classes --
+
+	/** Reads the backing entry's data from the window. */
+	private class WindowInputStream extends InputStream {
+
+		private long pos;
+
+		@Override
+		public int read() throws IOException {
+			final ByteBuffer data = getWindow();
+			return pos < data.limit() ? data.get((int) pos++) & 0xff : -1;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len)
+			throws IOException
+		{
+			if (len == 0) return 0;
+			final int n = ZipHandle.this.read(pos, b, off, len);
+			if (n == 0) return -1;
+			pos += n;
+			return n;
+		}
+
+		@Override
+		public long skip(final long n) throws IOException {
+			final long skipped = Math.max(0, Math.min(n, getLength() - pos));
+			pos += skipped;
+			return skipped;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return (int) Math.max(0, getLength() - pos);
+		}
+	}
+
+	/**
+	 * Reads the backing entry's compressed data from the archive, optionally
+	 * followed by a dummy byte, which {@link Inflater} needs to detect the end
+	 * of raw deflate data.
+	 */
+	private class EntryInputStream extends InputStream {
+
+		private long pos = dataOffset;
+
+		private final long end = dataOffset + entry.getCompressedSize();
+
+		private boolean padding;
+
+		public EntryInputStream(final boolean padding) {
+			this.padding = padding;
+		}
+
+		@Override
+		public int read() throws IOException {
+			final byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len)
+			throws IOException
+		{
+			if (len == 0) return 0;
+			if (pos >= end) {
+				if (!padding) return -1;
+				padding = false;
+				b[off] = 0;
+				return 1;
+			}
+			final int n = in.read(pos, b, off, (int) Math.min(len, end - pos));
+			if (n <= 0) return -1;
+			pos += n;
+			return n;
+		}
+	}
 }
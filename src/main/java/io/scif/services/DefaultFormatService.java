@@ -47,6 +47,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -133,6 +134,12 @@ public class DefaultFormatService extends AbstractService implements
 
 	private boolean dirtyFormatCache = false;
 
+	/*
+	 * Suffix and signature index of the enabled formats, used to skip Checkers
+	 * which can not match a source. Rebuilt on demand after formats change.
+	 */
+	private volatile SignatureIndex signatureIndex;
+
 	// Flag to mark if this service has been initialized or not.
 	private boolean initialized = false;
 
@@ -172,6 +179,7 @@ public class DefaultFormatService extends AbstractService implements
 				formats().add(format);
 				formatMap().put(format.getClass(), format);
 				addComponents(format);
+				signatureIndex = null;
 			}
 		}
 
@@ -184,6 +192,7 @@ public class DefaultFormatService extends AbstractService implements
 		removeComponents(format);
 		formatMap().remove(format.getClass());
 		dirtyFormatCache = true;
+		signatureIndex = null;
 		return formats().remove(format);
 	}
 
@@ -337,10 +346,29 @@ public class DefaultFormatService extends AbstractService implements
 
 		boolean found = false;
 
+		// Only consult the signature index if the source may be opened
+		final SignatureIndex index =
+			config.checkerIsOpen() ? signatureIndex() : null;
+		Set<Format> suffixMatches = null;
+		Set<Format> signatureMatches = null;
+
 		for (final Format format : formats()) {
-			if (!found && format.isEnabled() &&
-				format.createChecker().isFormat(id, config))
-			{
+			if (found || !format.isEnabled()) continue;
+
+			if (index != null && index.hasSignatures(format)) {
+				// A matching suffix may be enough on its own
+				if (suffixMatches == null) suffixMatches = index.matchSuffix(id);
+				if (!(index.isSuffixSufficient(format) && suffixMatches
+					.contains(format)))
+				{
+					if (signatureMatches == null) {
+						signatureMatches = index.matchSignatures(readHeader(id, index));
+					}
+					if (!signatureMatches.contains(format)) continue;
+				}
+			}
+
+			if (format.createChecker().isFormat(id, config)) {
 				// if greedy is true, we can end after finding the first format
 				found = greedy;
 				formatList.add(format);
@@ -383,11 +411,22 @@ public class DefaultFormatService extends AbstractService implements
 
 		boolean found = false;
 
-		for (final Format format : formats()) {
-			try {
-				if (!found && format.isEnabled() &&
-					format.createChecker().isFormat(source))
-				{
+		try {
+			// Read the header once, to rule out formats by their signatures
+			final SignatureIndex index = signatureIndex();
+			final byte[] header = new byte[(int) Math.min(source.length(), index
+				.getMaxSignatureLength())];
+			source.seek(0);
+			source.readFully(header);
+			source.seek(0);
+			final Set<Format> signatureMatches = index.matchSignatures(header);
+
+			for (final Format format : formats()) {
+				if (found || !format.isEnabled()) continue;
+				if (index.hasSignatures(format) &&
+					!signatureMatches.contains(format)) continue;
+
+				if (format.createChecker().isFormat(source)) {
 					// if greedy is true, we can end after finding the first format
 					found = greedy;
 					formatList.add(format);
@@ -395,9 +434,9 @@ public class DefaultFormatService extends AbstractService implements
 				// Reset the stream
 				source.seek(0);
 			}
-			catch (final IOException e) {
-				throw new FormatException(e);
-			}
+		}
+		catch (final IOException e) {
+			throw new FormatException(e);
 		}
 
 		if (formatList.isEmpty()) {
@@ -460,6 +499,45 @@ public class DefaultFormatService extends AbstractService implements
 
 	// -- Private Methods --
 
+	/**
+	 * @return The current {@link SignatureIndex}, building it if needed.
+	 */
+	private SignatureIndex signatureIndex() {
+		SignatureIndex index = signatureIndex;
+		if (index == null) {
+			synchronized (formats()) {
+				index = signatureIndex;
+				if (index == null) {
+					index = new SignatureIndex(formats(), logService);
+					signatureIndex = index;
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Reads the leading bytes of the given source, as needed to match it against
+	 * the given index.
+	 *
+	 * @return The header bytes of the source, or null if it can not be read.
+	 */
+	private byte[] readHeader(final String id, final SignatureIndex index) {
+		try (final RandomAccessInputStream stream =
+			new RandomAccessInputStream(getContext(), id))
+		{
+			final byte[] header =
+				new byte[(int) Math.min(stream.length(), index
+					.getMaxSignatureLength())];
+			stream.readFully(header);
+			return header;
+		}
+		catch (final IOException e) {
+			logService.debug("", e);
+			return null;
+		}
+	}
+
 	private Set<Format> formats() {
 		checkLock();
 		return formats;
@@ -536,4 +614,141 @@ public class DefaultFormatService extends AbstractService implements
 			}
 		}
 	}
+
+	// -- Helper classes --
+
+	/**
+	 * Index of the suffixes and signatures of a set of formats. Formats whose
+	 * {@link Checker} declares {@link Checker#getSignatures() signatures} can be
+	 * ruled out by looking up a source's leading bytes in a prefix trie, rather
+	 * than by asking each Checker in turn.
+	 */
+	private static class SignatureIndex {
+
+		/** Maps each suffix to the formats declaring it. */
+		private final Map<String, Set<Format>> suffixes = new HashMap<>();
+
+		/** Formats with known signatures. */
+		private final Set<Format> signed = new HashSet<>();
+
+		/** Formats for which a matching suffix is sufficient. */
+		private final Set<Format> suffixSufficient = new HashSet<>();
+
+		/** Root of the signature prefix trie. */
+		private final Node root = new Node();
+
+		private int maxSignatureLength;
+
+		public SignatureIndex(final Collection<Format> formats,
+			final LogService log)
+		{
+			for (final Format format : formats) {
+				for (final String suffix : format.getSuffixes()) {
+					Set<Format> s = suffixes.get(suffix);
+					if (s == null) {
+						s = new HashSet<>();
+						suffixes.put(suffix, s);
+					}
+					s.add(format);
+				}
+
+				final Checker checker;
+				try {
+					checker = format.createChecker();
+				}
+				catch (final FormatException e) {
+					log.debug("", e);
+					continue;
+				}
+				final byte[][] signatures = checker.getSignatures();
+				if (signatures == null) continue;
+
+				signed.add(format);
+				if (checker.suffixSufficient()) suffixSufficient.add(format);
+				for (final byte[] signature : signatures) {
+					add(format, signature);
+				}
+			}
+		}
+
+		/** @return True if the given format declared its signatures. */
+		public boolean hasSignatures(final Format format) {
+			return signed.contains(format);
+		}
+
+		/** @return True if a suffix match identifies the given format. */
+		public boolean isSuffixSufficient(final Format format) {
+			return suffixSufficient.contains(format);
+		}
+
+		/** @return The number of header bytes needed to match any signature. */
+		public int getMaxSignatureLength() {
+			return maxSignatureLength;
+		}
+
+		/**
+		 * @return All formats with a suffix matching the given name, as per
+		 *         {@link FormatTools#checkSuffix(String, String[])}.
+		 */
+		public Set<Format> matchSuffix(final String name) {
+			final Set<Format> matches = new HashSet<>();
+			final String lname = name.toLowerCase();
+			matchSuffix(lname, matches);
+			for (final String compression : FormatTools.COMPRESSION_SUFFIXES) {
+				final String s = "." + compression;
+				if (lname.endsWith(s)) {
+					matchSuffix(lname.substring(0, lname.length() - s.length()),
+						matches);
+				}
+			}
+			return matches;
+		}
+
+		/**
+		 * @param header Leading bytes of a source, or null if unknown.
+		 * @return All signed formats whose signatures match the header. If the
+		 *         header is unknown, all signed formats.
+		 */
+		public Set<Format> matchSignatures(final byte[] header) {
+			if (header == null) return signed;
+			final Set<Format> matches = new HashSet<>();
+			Node node = root;
+			for (int i = 0; node != null; i++) {
+				if (node.formats != null) matches.addAll(node.formats);
+				if (i == header.length || node.children == null) break;
+				node = node.children[header[i] & 0xff];
+			}
+			return matches;
+		}
+
+		private void matchSuffix(final String lname, final Set<Format> matches) {
+			for (int dot = lname.indexOf('.'); dot >= 0; dot =
+				lname.indexOf('.', dot + 1))
+			{
+				final Set<Format> s = suffixes.get(lname.substring(dot + 1));
+				if (s != null) matches.addAll(s);
+			}
+		}
+
+		private void add(final Format format, final byte[] signature) {
+			Node node = root;
+			for (final byte b : signature) {
+				if (node.children == null) node.children = new Node[256];
+				final int i = b & 0xff;
+				if (node.children[i] == null) node.children[i] = new Node();
+				node = node.children[i];
+			}
+			if (node.formats == null) node.formats = new HashSet<>();
+			node.formats.add(format);
+			maxSignatureLength = Math.max(maxSignatureLength, signature.length);
+		}
+
+		/** Node of the signature prefix trie. */
+		private static class Node {
+
+			private Node[] children;
+
+			private Set<Format> formats;
+		}
+	}
 }
@@ -0,0 +1,184 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.scif.FormatException;
+import io.scif.SCIFIO;
+import io.scif.io.RandomAccessInputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests compressing and decompressing through the {@link ByteBuffer} methods
+ * of {@link Codec}s.
+ */
+public class CodecBufferTest {
+
+	private final SCIFIO scifio = new SCIFIO();
+
+	/** Packbits data: a literal run of 3, a repeat of 5, a no-op and 2 more. */
+	private static final byte[] PACKBITS = { 2, 1, 2, 3, -4, 7, -128, 1, 9, 8 };
+
+	private static final byte[] UNPACKED = { 1, 2, 3, 7, 7, 7, 7, 7, 9, 8 };
+
+	@After
+	public void tearDown() {
+		scifio.getContext().dispose();
+	}
+
+	@Test
+	public void testZlib() throws FormatException {
+		final Codec codec = scifio.codec().getCodec(ZlibCodec.class);
+		final byte[] data = randomData();
+
+		final ByteBuffer compressed =
+			codec.compress(ByteBuffer.wrap(data), ByteBuffer.allocate(16), null);
+		final byte[] bytes = new byte[compressed.remaining()];
+		compressed.get(bytes);
+		assertArrayEquals(codec.compress(data, null), bytes);
+
+		// decompress into the middle of a larger array
+		final byte[] dest = new byte[data.length + 10];
+		final ByteBuffer src = ByteBuffer.wrap(bytes);
+		final ByteBuffer dst = ByteBuffer.wrap(dest, 5, data.length + 5);
+		assertEquals(data.length, codec.decompress(src, dst, null));
+		assertFalse(src.hasRemaining());
+		assertArrayEquals(data, Arrays.copyOfRange(dest, 5, 5 + data.length));
+
+		// decompress into a smaller buffer
+		final ByteBuffer small = ByteBuffer.allocate(1000);
+		assertEquals(1000, codec.decompress(ByteBuffer.wrap(bytes), small, null));
+		assertArrayEquals(Arrays.copyOf(data, 1000), small.array());
+	}
+
+	@Test
+	public void testPackbits() throws FormatException, IOException {
+		final Codec codec = scifio.codec().getCodec(PackbitsCodec.class);
+
+		ByteBuffer dst = ByteBuffer.allocate(20);
+		assertEquals(10, codec.decompress(ByteBuffer.wrap(PACKBITS), dst, null));
+		assertArrayEquals(UNPACKED, Arrays.copyOf(dst.array(), 10));
+
+		dst = ByteBuffer.allocate(5);
+		final ByteBuffer src = ByteBuffer.wrap(PACKBITS);
+		assertEquals(5, codec.decompress(src, dst, null));
+		assertArrayEquals(Arrays.copyOf(UNPACKED, 5), dst.array());
+		assertEquals(6, src.position());
+
+		final RandomAccessInputStream in =
+			new RandomAccessInputStream(scifio.getContext(), PACKBITS);
+		dst = ByteBuffer.allocate(2);
+		assertEquals(2, codec.decompress(in, dst, null));
+		assertEquals(4, in.getFilePointer());
+		dst = ByteBuffer.allocate(20);
+		assertEquals(7, codec.decompress(in, dst, null));
+		assertArrayEquals(Arrays.copyOfRange(UNPACKED, 3, 10), Arrays.copyOf(dst
+			.array(), 7));
+		in.close();
+	}
+
+	@Test
+	public void testLZW() throws FormatException, IOException {
+		final Codec codec = scifio.codec().getCodec(LZWCodec.class);
+		final byte[] data = randomData();
+		final byte[] compressed = codec.compress(data, null);
+		final ByteBuffer buffer =
+			codec.compress(ByteBuffer.wrap(data), ByteBuffer.allocate(16), null);
+		final byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		assertArrayEquals(compressed, bytes);
+
+		final CodecOptions options = new CodecOptions();
+		options.maxBytes = data.length;
+		assertArrayEquals(data, codec.decompress(compressed, options));
+
+		// decompress into the middle of a larger array
+		final byte[] dest = new byte[data.length + 10];
+		final ByteBuffer dst = ByteBuffer.wrap(dest, 5, data.length + 5);
+		assertEquals(data.length, codec.decompress(ByteBuffer.wrap(compressed),
+			dst, null));
+		assertArrayEquals(data, Arrays.copyOfRange(dest, 5, 5 + data.length));
+
+		// a run of a single byte exercises the codes which are used before
+		// the decompressor has added them to its table
+		final byte[] zeros = new byte[5000];
+		options.maxBytes = zeros.length;
+		assertArrayEquals(zeros, codec.decompress(codec.compress(zeros, null),
+			options));
+
+		// decompress part of the data from a stream
+		options.maxBytes = 1000;
+		final RandomAccessInputStream in =
+			new RandomAccessInputStream(scifio.getContext(), compressed);
+		assertArrayEquals(Arrays.copyOf(data, 1000), codec.decompress(in,
+			options));
+		assertTrue(in.getFilePointer() < compressed.length);
+		in.close();
+	}
+
+	@Test
+	public void testDefaultBridge() throws FormatException {
+		// LZW decompresses into direct buffers through the byte array methods
+		final Codec codec = scifio.codec().getCodec(LZWCodec.class);
+		final byte[] data = randomData();
+		final ByteBuffer compressed =
+			codec.compress(ByteBuffer.wrap(data), null, null);
+
+		final CodecOptions options = new CodecOptions();
+		options.maxBytes = data.length;
+		final ByteBuffer dst = ByteBuffer.allocateDirect(data.length);
+		assertEquals(data.length, codec.decompress(compressed, dst, options));
+		dst.flip();
+		final byte[] bytes = new byte[data.length];
+		dst.get(bytes);
+		assertArrayEquals(data, bytes);
+	}
+
+	private byte[] randomData() {
+		final byte[] data = new byte[100000];
+		final Random random = new Random(3);
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) random.nextInt(4);
+		}
+		return data;
+	}
+}
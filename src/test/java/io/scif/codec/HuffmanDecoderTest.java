@@ -0,0 +1,261 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.codec;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link HuffmanDecoder} and {@link BitBuffer} against the original
+ * bit-by-bit implementations, which are kept here for reference.
+ */
+public class HuffmanDecoderTest {
+
+	/** The lossless JPEG table for luminance DC differences (ITU T.81 K.3). */
+	private static final short[] JPEG_DC_LUMINANCE = { 0, 1, 5, 1, 1, 1, 1, 1,
+		1, 0, 0, 0, 0, 0, 0, 0, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11 };
+
+	/** A table with codes longer than the 10 bits looked up at once. */
+	private static final short[] LONG_CODES = { 0, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+		1, 1, 1, 2, 0, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 16 };
+
+	/** The table of lossless 12-bit Nikon data. */
+	private static final short[] NIKON_LOSSLESS_12 = { 0, 1, 4, 2, 3, 1, 2, 0,
+		0, 0, 0, 0, 0, 0, 0, 0, 5, 4, 6, 3, 7, 2, 8, 1, 9, 0, 10, 11, 12 };
+
+	/** The first table of split lossy 12-bit Nikon data. */
+	private static final short[] NIKON_SPLIT_12 = { 0, 1, 5, 1, 1, 1, 1, 1, 1,
+		2, 0, 0, 0, 0, 0, 0, 0x39, 0x5a, 0x38, 0x27, 0x16, 5, 4, 3, 2, 1, 0, 11,
+		12, 12 };
+
+	@Test
+	public void testBitBuffer() {
+		final Random random = new Random(5);
+		for (int trial = 0; trial < 200; trial++) {
+			final byte[] data = new byte[random.nextInt(64)];
+			random.nextBytes(data);
+			final BitBuffer bb = new BitBuffer(data);
+			final LegacyBitBuffer legacy = new LegacyBitBuffer(data);
+			for (int op = 0; op < 40; op++) {
+				final int bits = random.nextInt(40);
+				if (random.nextInt(4) == 0) {
+					// skipping exactly to the end broke the original
+					if (legacy.position() + bits == 8L * data.length) continue;
+					bb.skipBits(bits);
+					legacy.skipBits(bits);
+				}
+				else {
+					if (legacy.position() == 8L * data.length) break;
+					if (bits <= 32 && !legacy.eofFlag) {
+						final int peeked = bb.peekBits(bits);
+						final int read = bb.getBits(bits);
+						final long remaining = 8L * data.length - legacy.position();
+						final int expected = legacy.getBits(bits);
+						assertEquals(expected, read);
+						if (bits <= remaining) assertEquals(read, peeked);
+					}
+					else {
+						assertEquals(legacy.getBits(bits), bb.getBits(bits));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDecoder() {
+		final Random random = new Random(11);
+		for (final short[] table : new short[][] { JPEG_DC_LUMINANCE, LONG_CODES,
+			NIKON_LOSSLESS_12, NIKON_SPLIT_12 })
+		{
+			final HuffmanDecoder decoder = new HuffmanDecoder(table);
+			final LegacyDecoder legacyDecoder = new LegacyDecoder(table);
+			for (int trial = 0; trial < 50; trial++) {
+				final byte[] data = new byte[1 + random.nextInt(2000)];
+				// mostly short codes, as in real data
+				for (int i = 0; i < data.length; i++) {
+					data[i] = (byte) (random.nextInt(3) == 0 ? random.nextInt(256)
+						: random.nextInt(64));
+				}
+				final BitBuffer bb = new BitBuffer(data);
+				final LegacyBitBuffer legacy = new LegacyBitBuffer(data);
+				// read past the end, too
+				for (int i = 0; i < data.length + 10; i++) {
+					assertEquals(legacyDecoder.getSample(legacy), decoder.getSample(bb));
+				}
+			}
+		}
+	}
+
+	// -- Helper classes --
+
+	/** The bit reader as originally written in {@link BitBuffer}. */
+	private static class LegacyBitBuffer {
+
+		private static final int[] BACK_MASK = { 0x00, 0x01, 0x03, 0x07, 0x0F,
+			0x1F, 0x3F, 0x7F };
+
+		private static final int[] FRONT_MASK = { 0x0000, 0x0080, 0x00C0, 0x00E0,
+			0x00F0, 0x00F8, 0x00FC, 0x00FE };
+
+		private final byte[] byteBuffer;
+
+		private int currentByte;
+
+		private int currentBit;
+
+		private final int eofByte;
+
+		private boolean eofFlag;
+
+		public LegacyBitBuffer(final byte[] byteBuffer) {
+			this.byteBuffer = byteBuffer;
+			eofByte = byteBuffer.length;
+		}
+
+		public long position() {
+			return 8L * currentByte + currentBit;
+		}
+
+		public void skipBits(final long bits) {
+			if ((long) eofByte * 8 < (long) currentByte * 8 + currentBit + bits) {
+				eofFlag = true;
+				currentByte = eofByte;
+				currentBit = 0;
+				return;
+			}
+			final int skipBytes = (int) (bits / 8);
+			final int skipBits = (int) (bits % 8);
+			currentByte += skipBytes;
+			currentBit += skipBits;
+			while (currentBit >= 8) {
+				currentByte++;
+				currentBit -= 8;
+			}
+		}
+
+		public int getBits(int bitsToRead) {
+			if (bitsToRead == 0) return 0;
+			if (eofFlag) return -1;
+			int toStore = 0;
+			while (bitsToRead != 0 && !eofFlag) {
+				final int bitsLeft = 8 - currentBit;
+				if (bitsToRead >= bitsLeft) {
+					toStore <<= bitsLeft;
+					bitsToRead -= bitsLeft;
+					final int cb = byteBuffer[currentByte];
+					if (currentBit == 0) {
+						toStore += cb & 0xff;
+					}
+					else {
+						toStore += cb & BACK_MASK[bitsLeft];
+						currentBit = 0;
+					}
+					currentByte++;
+				}
+				else {
+					toStore = toStore << bitsToRead;
+					final int cb = byteBuffer[currentByte] & 0xff;
+					toStore +=
+						(cb & (0x00FF - FRONT_MASK[currentBit])) >> (bitsLeft - bitsToRead);
+					currentBit += bitsToRead;
+					bitsToRead = 0;
+				}
+				if (currentByte == eofByte) {
+					eofFlag = true;
+					return toStore;
+				}
+			}
+			return toStore;
+		}
+	}
+
+	/** The tree decoder as originally written in {@link HuffmanCodec}. */
+	private static class LegacyDecoder {
+
+		private final LegacyDecoder[] branch = new LegacyDecoder[2];
+
+		private int leafValue = -1;
+
+		private int[] leafCounter;
+
+		private LegacyDecoder() {}
+
+		public LegacyDecoder(final short[] source) {
+			leafCounter = new int[1];
+			createDecoder(this, source, 0);
+		}
+
+		private void createDecoder(final LegacyDecoder dest,
+			final short[] source, final int level)
+		{
+			int next = 0;
+			int i = 0;
+			while (i <= leafCounter[0] && next < 16) {
+				i += source[next++] & 0xff;
+			}
+			if (level < next && next < 16) {
+				for (int b = 0; b < 2; b++) {
+					dest.branch[b] = new LegacyDecoder();
+					createDecoder(dest.branch[b], source, level + 1);
+				}
+			}
+			else {
+				i = 16 + leafCounter[0]++;
+				if (i < source.length) {
+					dest.leafValue = source[i] & 0xff;
+				}
+			}
+		}
+
+		public int getSample(final LegacyBitBuffer bb) {
+			LegacyDecoder d = this;
+			while (d.branch[0] != null) {
+				final int v = bb.getBits(1);
+				if (v < 0) break;
+				d = d.branch[v];
+			}
+			int bitCount = d.leafValue;
+			if (bitCount == 16) {
+				return 0x8000;
+			}
+			if (bitCount < 0) bitCount = 0;
+			int v = bb.getBits(bitCount) & ((int) Math.pow(2, bitCount) - 1);
+			if ((v & (1 << (bitCount - 1))) == 0) {
+				v -= (1 << bitCount) - 1;
+			}
+			return v;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package io.scif.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.scif.FormatException;
+import io.scif.SCIFIO;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests {@link LZ4Codec}.
+ */
+public class LZ4CodecTest {
+
+	/** A block written by the reference implementation. */
+	private static final byte[] REFERENCE = {
+		-14, 3, 112, 108, 97, 110, 101, 32, 48, 58, 32, 48, 32, 99, 111, 117, 110,
+		116, 115, 10, 18, 0, 90, 49, 58, 32, 51, 55, 19, 0, 90, 50, 58, 32, 55,
+		52, 19, 0, 106, 51, 58, 32, 49, 49, 49, 20, 0, 106, 52, 58, 32, 49, 52,
+		56, 20, 0, -32, 53, 58, 32, 49, 56, 53, 32, 99, 111, 117, 110, 116, 115,
+		10 };
+
+	private final SCIFIO scifio = new SCIFIO();
+
+	@After
+	public void tearDown() {
+		scifio.getContext().dispose();
+	}
+
+	@Test
+	public void testReference() throws FormatException {
+		final Codec codec = scifio.codec().getCodec(LZ4Codec.class);
+		final byte[] expected = text();
+		final CodecOptions options = new CodecOptions();
+		options.maxBytes = expected.length;
+		assertArrayEquals(expected, codec.decompress(REFERENCE, options));
+		assertArrayEquals(expected, codec.decompress(REFERENCE, null));
+	}
+
+	@Test
+	public void testEncoder() throws FormatException {
+		final Codec codec = scifio.codec().getCodec(LZ4Codec.class);
+		// the same block as the reference implementation's default compressor
+		assertArrayEquals(REFERENCE, codec.compress(text(), null));
+	}
+
+	@Test
+	public void testRoundTrip() throws FormatException {
+		final Codec codec = scifio.codec().getCodec(LZ4Codec.class);
+		final byte[] data = new byte[100000];
+		final Random random = new Random(7);
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) (i / 100 + random.nextInt(4));
+		}
+		// long runs need extra length bytes
+		Arrays.fill(data, 50000, 60000, (byte) 3);
+		final byte[] noise = new byte[5000];
+		random.nextBytes(noise);
+		for (final byte[] d : new byte[][] { data, noise, { 1, 2, 3 } }) {
+			final byte[] compressed = codec.compress(d, null);
+			final CodecOptions options = new CodecOptions();
+			options.maxBytes = d.length;
+			assertArrayEquals(d, codec.decompress(compressed, options));
+			assertArrayEquals(d, codec.decompress(compressed, null));
+		}
+		assertTrue(codec.compress(data, null).length < data.length);
+		assertTrue(codec.compress(noise, null).length < noise.length + 40);
+
+		// truncated output
+		final ByteBuffer dst = ByteBuffer.allocate(1234);
+		assertEquals(1234, codec.decompress(ByteBuffer.wrap(codec.compress(data,
+			null)), dst, null));
+		assertArrayEquals(Arrays.copyOf(data, 1234), dst.array());
+	}
+
+	@Test(expected = FormatException.class)
+	public void testInvalidOffset() throws FormatException {
+		final Codec codec = scifio.codec().getCodec(LZ4Codec.class);
+		// a literal, then a match reaching 2 bytes back
+		codec.decompress(new byte[] { 0x10, 1, 2, 0 }, null);
+	}
+
+	private byte[] text() {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 6; i++) {
+			sb.append("plane " + i + ": " + (i * 37) % 1000 + " counts\n");
+		}
+		return sb.toString().getBytes();
+	}
+}
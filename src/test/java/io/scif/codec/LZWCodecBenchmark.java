@@ -0,0 +1,143 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.codec;
+
+import io.scif.FormatException;
+import io.scif.SCIFIO;
+import io.scif.io.RandomAccessInputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.scijava.Context;
+
+/**
+ * A simple benchmark comparing {@link LZWCodec} against its original
+ * implementation, which decompressed by pulling each byte from a
+ * {@link RandomAccessInputStream}, walking each string's chain of codes
+ * backwards, and compressed with a division-hashed table cleared by
+ * {@link Arrays#fill} on every CLEAR code. That implementation is kept in
+ * {@link LZWCodecTest}, which checks that both produce the same output.
+ * <p>
+ * The data is a noisy 16-bit gradient, as found in microscopy planes.
+ * </p>
+ * <p>
+ * Usage: {@code LZWCodecBenchmark [width] [height]}
+ * </p>
+ */
+public class LZWCodecBenchmark {
+
+	private static final int ITERATIONS = 20;
+
+	public static void main(final String[] args) throws FormatException,
+		IOException
+	{
+		final int width = args.length > 0 ? Integer.parseInt(args[0]) : 2048;
+		final int height = args.length > 1 ? Integer.parseInt(args[1]) : 2048;
+
+		final byte[] plane = new byte[2 * width * height];
+		final Random random = new Random(0xdeadbeef);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				final int v = (x + y) / 8 + random.nextInt(2);
+				final int i = 2 * (y * width + x);
+				plane[i] = (byte) (v >> 8);
+				plane[i + 1] = (byte) v;
+			}
+		}
+		final long bytes = (long) plane.length * ITERATIONS;
+
+		final SCIFIO scifio = new SCIFIO();
+		final Context context = scifio.getContext();
+		final Codec codec = scifio.codec().getCodec(LZWCodec.class);
+		final CodecOptions options = new CodecOptions();
+		options.maxBytes = plane.length;
+
+		// warm up and check that both implementations agree
+		final byte[] compressed = codec.compress(plane, options);
+		if (!Arrays.equals(compressed, LZWCodecTest.legacyCompress(plane)) ||
+			!Arrays.equals(plane, LZWCodecTest.legacyDecompress(
+				new RandomAccessInputStream(context, compressed), plane.length)) ||
+			!Arrays.equals(plane, codec.decompress(compressed, options)))
+		{
+			throw new IllegalStateException("Implementations disagree");
+		}
+		System.out.println(String.format("Compression ratio: %.2f",
+			(double) plane.length / compressed.length));
+
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			LZWCodecTest.legacyCompress(plane);
+		}
+		report("legacy compress", bytes, System.nanoTime() - start);
+
+		start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			codec.compress(plane, options);
+		}
+		report("compress", bytes, System.nanoTime() - start);
+
+		start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			LZWCodecTest.legacyDecompress(new RandomAccessInputStream(context,
+				compressed), plane.length);
+		}
+		report("legacy decompress", bytes, System.nanoTime() - start);
+
+		start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			codec.decompress(compressed, options);
+		}
+		report("decompress(byte[])", bytes, System.nanoTime() - start);
+
+		final ByteBuffer dst = ByteBuffer.allocate(plane.length);
+		start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			dst.clear();
+			codec.decompress(ByteBuffer.wrap(compressed), dst, options);
+		}
+		report("decompress(ByteBuffer)", bytes, System.nanoTime() - start);
+
+		context.dispose();
+	}
+
+	// -- Helper methods --
+
+	private static void report(final String label, final long bytes,
+		final long nanos)
+	{
+		final double seconds = nanos / 1e9;
+		System.out.println(String.format("%-32s %8.1f MB/s", label, bytes /
+			seconds / (1 << 20)));
+	}
+}
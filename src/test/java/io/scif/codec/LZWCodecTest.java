@@ -0,0 +1,323 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package io.scif.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import io.scif.FormatException;
+import io.scif.SCIFIO;
+import io.scif.io.RandomAccessInputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests {@link LZWCodec}, checking that its output is identical to that of
+ * the codec's original implementation.
+ */
+public class LZWCodecTest {
+
+	private final SCIFIO scifio = new SCIFIO();
+
+	@After
+	public void tearDown() {
+		scifio.getContext().dispose();
+	}
+
+	@Test
+	public void testMatchesLegacy() throws FormatException, IOException {
+		final Codec codec = scifio.codec().getCodec(LZWCodec.class);
+
+		// a noisy 16-bit gradient, as found in microscopy planes, long enough
+		// for the code table to fill up and be cleared several times
+		final int width = 256, height = 256;
+		final byte[] plane = new byte[2 * width * height];
+		final Random random = new Random(0xdeadbeef);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				final int v = (x + y) / 8 + random.nextInt(2);
+				final int i = 2 * (y * width + x);
+				plane[i] = (byte) (v >> 8);
+				plane[i + 1] = (byte) v;
+			}
+		}
+		final byte[] noise = new byte[20000];
+		random.nextBytes(noise);
+		final byte[] run = new byte[10000];
+		Arrays.fill(run, (byte) 3);
+
+		for (final byte[] data : new byte[][] { plane, noise, run }) {
+			final byte[] compressed = codec.compress(data, null);
+			assertArrayEquals(legacyCompress(data), compressed);
+
+			final CodecOptions options = new CodecOptions();
+			options.maxBytes = data.length;
+			assertArrayEquals(data, codec.decompress(compressed, options));
+			assertArrayEquals(legacyDecompress(new RandomAccessInputStream(scifio
+				.getContext(), compressed), data.length), codec.decompress(
+					new RandomAccessInputStream(scifio.getContext(), compressed),
+					options));
+
+			final ByteBuffer dst = ByteBuffer.allocate(data.length);
+			assertEquals(data.length, codec.decompress(ByteBuffer.wrap(compressed),
+				dst, options));
+			assertArrayEquals(data, dst.array());
+		}
+	}
+
+	@Test
+	public void testSingleByte() throws FormatException, IOException {
+		// NB: the original decompressor mishandled a lone code before EOI
+		final Codec codec = scifio.codec().getCodec(LZWCodec.class);
+		final byte[] data = { 7 };
+		final byte[] compressed = codec.compress(data, null);
+		final CodecOptions options = new CodecOptions();
+		options.maxBytes = data.length;
+		assertArrayEquals(data, codec.decompress(compressed, options));
+		assertArrayEquals(data, codec.decompress(new RandomAccessInputStream(
+			scifio.getContext(), compressed), options));
+	}
+
+	// -- Helper methods --
+
+	/** The compressor as originally written in {@link LZWCodec}. */
+	static byte[] legacyCompress(final byte[] input) {
+		final int hashSize = 7349;
+		final int hashStep = 257;
+		final int[] masks = { 0xff, 0x7f, 0x3f, 0x1f, 0x0f, 0x07, 0x03, 0x01 };
+		final byte[] output = new byte[(int) ((long) input.length * 141 / 100 + 3)];
+		int outSize = 0;
+		output[outSize++] = (byte) (256 >> 1);
+		int currOutByte = 256 & 0x01;
+		int freeBits = 7;
+		final int[] htKeys = new int[hashSize];
+		final int[] htValues = new int[hashSize];
+		Arrays.fill(htKeys, -1);
+		int nextCode = 258;
+		int currCodeLength = 9;
+		int tiffK = input[0] & 0xff;
+		int tiffOmega = tiffK;
+		for (int currInPos = 1; currInPos < input.length; currInPos++) {
+			tiffK = input[currInPos] & 0xff;
+			final int hashKey = (tiffOmega << 8) | tiffK;
+			int hashCode = hashKey % hashSize;
+			do {
+				if (htKeys[hashCode] == hashKey) {
+					tiffOmega = htValues[hashCode];
+					break;
+				}
+				else if (htKeys[hashCode] < 0) {
+					htKeys[hashCode] = hashKey;
+					htValues[hashCode] = nextCode++;
+					int shift = currCodeLength - freeBits;
+					output[outSize++] =
+						(byte) ((currOutByte << freeBits) | (tiffOmega >> shift));
+					if (shift > 8) {
+						output[outSize++] = (byte) (tiffOmega >> (shift - 8));
+						shift -= 8;
+					}
+					freeBits = 8 - shift;
+					currOutByte = tiffOmega & masks[freeBits];
+					tiffOmega = tiffK;
+					break;
+				}
+				else {
+					hashCode = (hashCode + hashStep) % hashSize;
+				}
+			}
+			while (true);
+
+			switch (nextCode) {
+				case 512:
+					currCodeLength = 10;
+					break;
+				case 1024:
+					currCodeLength = 11;
+					break;
+				case 2048:
+					currCodeLength = 12;
+					break;
+				case 4096:
+					int shift = currCodeLength - freeBits;
+					output[outSize++] =
+						(byte) ((currOutByte << freeBits) | (256 >> shift));
+					if (shift > 8) {
+						output[outSize++] = (byte) (256 >> (shift - 8));
+						shift -= 8;
+					}
+					freeBits = 8 - shift;
+					currOutByte = 256 & masks[freeBits];
+					Arrays.fill(htKeys, -1);
+					nextCode = 258;
+					currCodeLength = 9;
+					break;
+			}
+		}
+		int shift = currCodeLength - freeBits;
+		output[outSize++] =
+			(byte) ((currOutByte << freeBits) | (tiffOmega >> shift));
+		if (shift > 8) {
+			output[outSize++] = (byte) (tiffOmega >> (shift - 8));
+			shift -= 8;
+		}
+		freeBits = 8 - shift;
+		currOutByte = tiffOmega & masks[freeBits];
+		switch (nextCode) {
+			case 511:
+				currCodeLength = 10;
+				break;
+			case 1023:
+				currCodeLength = 11;
+				break;
+			case 2047:
+				currCodeLength = 12;
+				break;
+		}
+		shift = currCodeLength - freeBits;
+		output[outSize++] = (byte) ((currOutByte << freeBits) | (257 >> shift));
+		if (shift > 8) {
+			output[outSize++] = (byte) (257 >> (shift - 8));
+			shift -= 8;
+		}
+		freeBits = 8 - shift;
+		currOutByte = 257 & masks[freeBits];
+		output[outSize++] = (byte) (currOutByte << freeBits);
+		return Arrays.copyOf(output, outSize);
+	}
+
+	/** The decompressor as originally written in {@link LZWCodec}. */
+	static byte[] legacyDecompress(final RandomAccessInputStream in,
+		final int maxBytes) throws IOException
+	{
+		final int[] masks = { 0x00, 0x01, 0x03, 0x07, 0x0f, 0x1f, 0x3f, 0x7f };
+		final byte[] output = new byte[maxBytes];
+		int currOutPos = 0;
+		final int[] anotherCodes = new int[4096];
+		final byte[] newBytes = new byte[4096];
+		final int[] lengths = new int[4096];
+		for (int i = 0; i < 256; i++) {
+			newBytes[i] = (byte) i;
+			lengths[i] = 1;
+		}
+		int currCodeLength = 9;
+		int nextCode = 258;
+		int currRead = 0;
+		int bitsRead = 0;
+		int currCode;
+		int oldCode = 0;
+		do {
+			int bitsLeft = currCodeLength - bitsRead;
+			if (bitsLeft > 8) {
+				currRead = (currRead << 8) | (in.read() & 0xff);
+				bitsLeft -= 8;
+			}
+			bitsRead = 8 - bitsLeft;
+			int nextByte = in.read() & 0xff;
+			currCode = (currRead << bitsLeft) | (nextByte >> bitsRead);
+			currRead = nextByte & masks[bitsRead];
+
+			if (currCode == 257) break;
+
+			if (currCode == 256) {
+				nextCode = 258;
+				currCodeLength = 9;
+				bitsLeft = currCodeLength - bitsRead;
+				if (bitsLeft > 8) {
+					currRead = (currRead << 8) | (in.read() & 0xff);
+					bitsLeft -= 8;
+				}
+				bitsRead = 8 - bitsLeft;
+				nextByte = in.read() & 0xff;
+				currCode = (currRead << bitsLeft) | (nextByte >> bitsRead);
+				currRead = nextByte & masks[bitsRead];
+				if (currCode == 257) break;
+				if (currOutPos >= output.length - 1) break;
+				output[currOutPos++] = newBytes[currCode];
+				oldCode = currCode;
+			}
+			else if (currCode < nextCode) {
+				final int outLength = lengths[currCode];
+				int i = currOutPos + outLength;
+				int tablePos = currCode;
+				if (i > output.length) break;
+				while (i > currOutPos) {
+					output[--i] = newBytes[tablePos];
+					tablePos = anotherCodes[tablePos];
+				}
+				currOutPos += outLength;
+				if (nextCode >= anotherCodes.length) break;
+				anotherCodes[nextCode] = oldCode;
+				newBytes[nextCode] = output[i];
+				lengths[nextCode] = lengths[oldCode] + 1;
+				oldCode = currCode;
+				nextCode++;
+			}
+			else {
+				final int outLength = lengths[oldCode];
+				int i = currOutPos + outLength;
+				int tablePos = oldCode;
+				if (i > output.length) break;
+				while (i > currOutPos) {
+					output[--i] = newBytes[tablePos];
+					tablePos = anotherCodes[tablePos];
+				}
+				currOutPos += outLength;
+				if (currOutPos >= output.length - 1) break;
+				output[currOutPos++] = output[i];
+				anotherCodes[nextCode] = oldCode;
+				newBytes[nextCode] = output[i];
+				lengths[nextCode] = outLength + 1;
+				oldCode = currCode;
+				nextCode++;
+			}
+			switch (nextCode) {
+				case 511:
+					currCodeLength = 10;
+					break;
+				case 1023:
+					currCodeLength = 11;
+					break;
+				case 2047:
+					currCodeLength = 12;
+					break;
+			}
+		}
+		while (currOutPos < output.length && in.getFilePointer() < in.length());
+		return output;
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.scif.FormatException;
+import io.scif.SCIFIO;
+import io.scif.io.RandomAccessInputStream;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests {@link ZlibCodec}.
+ */
+public class ZlibCodecTest {
+
+	private final SCIFIO scifio = new SCIFIO();
+
+	@After
+	public void tearDown() {
+		scifio.getContext().dispose();
+	}
+
+	@Test
+	public void testLevelAndStrategy() throws FormatException {
+		final Codec codec = scifio.codec().getCodec(ZlibCodec.class);
+		final byte[] data = data();
+
+		final CodecOptions options = new CodecOptions();
+		options.compressionLevel = Deflater.NO_COMPRESSION;
+		final byte[] stored = codec.compress(data, options);
+		assertTrue(stored.length > data.length);
+
+		options.compressionLevel = Deflater.BEST_SPEED;
+		options.compressionStrategy = Deflater.FILTERED;
+		final byte[] fast = codec.compress(data, options);
+		assertTrue(fast.length < data.length);
+
+		// the codec's defaults apply again for other calls
+		final byte[] standard = codec.compress(data, null);
+		assertArrayEquals(standard, codec.compress(data, new CodecOptions()));
+
+		for (final byte[] compressed : new byte[][] { stored, fast, standard }) {
+			assertArrayEquals(data, codec.decompress(compressed, null));
+		}
+	}
+
+	@Test
+	public void testMaxBytes() throws FormatException {
+		final Codec codec = scifio.codec().getCodec(ZlibCodec.class);
+		final byte[] data = data();
+		final byte[] compressed = codec.compress(data, null);
+
+		final CodecOptions options = new CodecOptions();
+		options.maxBytes = data.length;
+		assertArrayEquals(data, codec.decompress(compressed, options));
+		options.maxBytes = 1000;
+		assertArrayEquals(Arrays.copyOf(data, 1000), codec.decompress(compressed,
+			options));
+		options.maxBytes = 2 * data.length;
+		assertArrayEquals(data, codec.decompress(compressed, options));
+	}
+
+	@Test
+	public void testStream() throws FormatException, IOException {
+		final Codec codec = scifio.codec().getCodec(ZlibCodec.class);
+		final byte[] data = data();
+		final byte[] compressed = codec.compress(data, null);
+
+		// two streams back to back
+		final byte[] both = Arrays.copyOf(compressed, 2 * compressed.length);
+		System.arraycopy(compressed, 0, both, compressed.length,
+			compressed.length);
+		final RandomAccessInputStream in =
+			new RandomAccessInputStream(scifio.getContext(), both);
+		assertArrayEquals(data, codec.decompress(in, null));
+		assertEquals(compressed.length, in.getFilePointer());
+		assertArrayEquals(data, codec.decompress(in, null));
+		assertEquals(both.length, in.getFilePointer());
+		in.close();
+	}
+
+	private byte[] data() {
+		final byte[] data = new byte[100000];
+		final Random random = new Random(7);
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) (i / 100 + random.nextInt(4));
+		}
+		return data;
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package io.scif.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.scif.FormatException;
+import io.scif.SCIFIO;
+import io.scif.io.RandomAccessInputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests {@link ZstdCodec}.
+ */
+public class ZstdCodecTest {
+
+	/**
+	 * A frame written by the reference implementation at level 19, with
+	 * Huffman coded literals and FSE coded sequences.
+	 */
+	private static final byte[] REFERENCE = {
+		40, -75, 47, -3, 96, -16, 3, 125, 6, 0, -62, 74, 27, 20, -112, -85, 13,
+		-83, -39, 104, 27, 51, 35, 65, -111, -35, -67, 51, -119, 31, 118, 93, 115,
+		2, -33, -93, 30, -13, -8, -69, -3, -9, -21, -12, 92, -68, -18, 110, 26,
+		23, -49, 123, -86, 106, 117, 122, 43, -75, 51, -77, 76, -106, -28, 83, 46,
+		34, -22, 26, -45, 123, 120, 119, -89, 117, 86, 106, 55, 51, 87, -110, 21,
+		81, -3, 95, 92, -21, -98, -45, 54, -98, -42, -87, -107, 85, -43, 45, -113,
+		96, -25, -113, 80, 5, 44, 12, -46, 36, -60, -95, 35, -48, 57, 10, 4, 25,
+		12, -30, 4, 116, 10, 100, 56, -108, 79, -88, 113, 96, -114, -57, -6, 119,
+		112, 23, -73, -48, 1, 16, 20, 1, 17, 16, -95, 117, 15, -21, -79, 34, 116,
+		105, -86, -80, 87, 6, -37, 81, -66, 86, -71, -41, 71, -24, -38, -22, 92,
+		27, -55, -42, 125, 16, 81, -23, -26, 74, -22, -75, 126, 29, -40, -72, 50,
+		50, -35, -118, 118, -91, 27, 117, 44, 0, -79, 57, 80, 51, -74, -54, -42,
+		119, 13, -76, 66, -1, -84, -45, 121, 86, -30, -49, 105, 58, -98, 37, -12,
+		-78, 43, 2, 0, 85, 1 };
+
+	/**
+	 * The frame {@link ZstdCodec} writes for the same text. The reference
+	 * implementation decodes it to that text.
+	 */
+	private static final byte[] ENCODED = {
+		40, -75, 47, -3, 96, -16, 3, -91, 12, 0, 116, 12, 112, 108, 97, 110, 101,
+		32, 48, 44, 32, 99, 104, 97, 110, 110, 101, 108, 32, 48, 58, 32, 48, 32,
+		99, 111, 117, 110, 116, 115, 10, 49, 49, 58, 32, 51, 55, 50, 50, 58, 32,
+		55, 52, 51, 48, 58, 32, 49, 49, 49, 52, 49, 58, 32, 49, 52, 56, 53, 50,
+		58, 32, 49, 56, 53, 54, 48, 58, 32, 50, 50, 50, 55, 49, 58, 32, 50, 53,
+		57, 56, 50, 58, 32, 50, 57, 54, 57, 48, 58, 32, 51, 51, 51, 49, 50, 58,
+		32, 52, 48, 49, 48, 58, 32, 52, 52, 49, 49, 58, 32, 52, 56, 49, 50, 58,
+		32, 53, 49, 49, 48, 58, 32, 53, 53, 49, 49, 58, 32, 53, 57, 49, 50, 58,
+		32, 54, 50, 49, 48, 58, 32, 54, 54, 49, 49, 58, 32, 55, 48, 50, 50, 48,
+		58, 32, 55, 55, 50, 49, 58, 32, 56, 49, 50, 50, 58, 32, 56, 53, 50, 48,
+		58, 32, 56, 56, 50, 49, 58, 32, 57, 50, 50, 50, 58, 32, 57, 54, 50, 48,
+		58, 32, 57, 57, 50, 50, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 93, 0, 67,
+		-85, 0, 92, 0, -29, -124, 86, -121, -37, 0, -60, 7, 29, 33, -85, 1, -120,
+		15, 116, -124, 21, 13, 64, 124, -96, 3, -84, 104, 0, -30, 3, 29, 95, 69,
+		3, 16, 31, -24, -16, 42, 26, -128, -8, 64, 71, 87, -47, 0, -60, 7, 58,
+		-72, -118, 6, 32, 62, -48, -79, 85, 52, -128, -8, -126, -74, 67, 100, 89,
+		0, -29, -124, 86, -57, 16, 97, 1, 24, 23, 116, 5, 6, 3, -3, 1, 67, -128,
+		-82, -64, 96, -96, 63, 96, 8, -48, 21, 24, 12, -12, 7, 12, 1, -70, 2,
+		-125, 65, -37, 14, -47, 2, -60, 23, -70, 14, 45, -125, 65, 127, 66, -53,
+		16, -48, 53, 104, 25, 12, -6, 3, 90, -122, -128, -82, 63, -53, 96, -48,
+		-97, -49, 50, 4, 116, -19, 89, -125, -15, 108, 127, 59, 107, 8, -99, -19,
+		-102, -77, 70, -32, 44, 66, -58, 94, -80, 89, -58, 5, -78, 0, 124, -127,
+		44, 0, 95, 32, 11, -64, 23, -56, 2, -16, 5, -78, 0, 124, -127, 44, 0, 95,
+		-95, 100, 1, -8, 2, -87, 0, 102, 65, -55, 7, -96, 8, 96, -54, 9 };
+
+	private final SCIFIO scifio = new SCIFIO();
+
+	@After
+	public void tearDown() {
+		scifio.getContext().dispose();
+	}
+
+	@Test
+	public void testReference() throws FormatException {
+		final Codec codec = scifio.codec().getCodec(ZstdCodec.class);
+		assertArrayEquals(text(), codec.decompress(REFERENCE, null));
+	}
+
+	@Test
+	public void testEncoder() throws FormatException {
+		final Codec codec = scifio.codec().getCodec(ZstdCodec.class);
+		assertArrayEquals(ENCODED, codec.compress(text(), null));
+		assertArrayEquals(text(), codec.decompress(ENCODED, null));
+	}
+
+	@Test
+	public void testRoundTrip() throws FormatException {
+		final Codec codec = scifio.codec().getCodec(ZstdCodec.class);
+		final Random random = new Random(5);
+		// three blocks, the second of which is a run of one byte
+		final byte[] data = data(300000);
+		Arrays.fill(data, 1 << 17, 1 << 18, (byte) 9);
+		final byte[] noise = new byte[5000];
+		random.nextBytes(noise);
+		for (final byte[] d : new byte[][] { data, noise, { 1 } }) {
+			final byte[] compressed = codec.compress(d, null);
+			assertArrayEquals(d, codec.decompress(compressed, null));
+			final CodecOptions options = new CodecOptions();
+			options.maxBytes = d.length;
+			assertArrayEquals(d, codec.decompress(compressed, options));
+		}
+		assertTrue(codec.compress(data, null).length < data.length / 2);
+		assertTrue(codec.compress(noise, null).length < noise.length + 20);
+	}
+
+	@Test
+	public void testFrames() throws FormatException, IOException {
+		final Codec codec = scifio.codec().getCodec(ZstdCodec.class);
+		final byte[] data = data(10000);
+		final byte[] compressed = codec.compress(data, null);
+
+		// a frame, a skippable frame, and the frame again
+		final byte[] skippable = { 0x5A, 0x2A, 0x4D, 0x18, 2, 0, 0, 0, 7, 7 };
+		final ByteBuffer frames =
+			ByteBuffer.allocate(2 * compressed.length + skippable.length);
+		frames.put(compressed).put(skippable).put(compressed);
+		final byte[] both = Arrays.copyOf(data, 2 * data.length);
+		System.arraycopy(data, 0, both, data.length, data.length);
+		assertArrayEquals(both, codec.decompress(frames.array(), null));
+
+		// a stream is left after the blocks decoded
+		final RandomAccessInputStream in =
+			new RandomAccessInputStream(scifio.getContext(), frames.array());
+		final CodecOptions options = new CodecOptions();
+		options.maxBytes = data.length;
+		assertArrayEquals(data, codec.decompress(in, options));
+		assertEquals(compressed.length, in.getFilePointer());
+		in.close();
+
+		// truncated output
+		final ByteBuffer dst = ByteBuffer.allocate(1234);
+		assertEquals(1234, codec.decompress(ByteBuffer.wrap(compressed), dst,
+			null));
+		assertArrayEquals(Arrays.copyOf(data, 1234), dst.array());
+	}
+
+	/**
+	 * Tests that streams are read frame by frame, however large the skippable
+	 * frames padding them.
+	 */
+	@Test
+	public void testPaddedStream() throws FormatException, IOException {
+		final Codec codec = scifio.codec().getCodec(ZstdCodec.class);
+		// three blocks, the second of which is a run of one byte
+		final byte[] data = data(300000);
+		Arrays.fill(data, 1 << 17, 1 << 18, (byte) 9);
+		final byte[] compressed = codec.compress(data, null);
+
+		final int padding = 400000;
+		final ByteBuffer frames =
+			ByteBuffer.allocate(compressed.length + 2 * (8 + padding)).order(
+				ByteOrder.LITTLE_ENDIAN);
+		frames.putInt(0x184D2A5F).putInt(padding).position(8 + padding);
+		frames.put(compressed);
+		frames.putInt(0x184D2A50).putInt(padding);
+
+		final RandomAccessInputStream in =
+			new RandomAccessInputStream(scifio.getContext(), frames.array());
+		final CodecOptions options = new CodecOptions();
+		options.maxBytes = data.length;
+		assertArrayEquals(data, codec.decompress(in, options));
+		assertEquals(8 + padding + compressed.length, in.getFilePointer());
+
+		// a partly filled output stops after the block filling it
+		in.seek(0);
+		final ByteBuffer dst = ByteBuffer.allocate(1000);
+		assertEquals(1000, codec.decompress(in, dst, options));
+		assertArrayEquals(Arrays.copyOf(data, 1000), dst.array());
+		assertTrue(in.getFilePointer() < 8 + padding + compressed.length);
+		in.close();
+	}
+
+	@Test(expected = FormatException.class)
+	public void testTruncated() throws FormatException {
+		final Codec codec = scifio.codec().getCodec(ZstdCodec.class);
+		codec.decompress(Arrays.copyOf(REFERENCE, REFERENCE.length - 20), null);
+	}
+
+	private byte[] text() {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 40; i++) {
+			sb.append("plane " + i + ", channel " + i % 3 + ": " + (i * 37) % 1000 +
+				" counts\n");
+		}
+		return sb.toString().getBytes();
+	}
+
+	private byte[] data(final int length) {
+		final byte[] data = new byte[length];
+		final Random random = new Random(7);
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) (i / 100 + random.nextInt(4));
+		}
+		return data;
+	}
+}
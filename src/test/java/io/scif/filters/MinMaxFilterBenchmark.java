@@ -0,0 +1,153 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.filters;
+
+import io.scif.FormatException;
+import io.scif.SCIFIO;
+import io.scif.util.FormatTools;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.scijava.util.Bytes;
+
+/**
+ * A simple benchmark comparing {@link MinMaxFilter} against the original
+ * per-pixel min/max computation, which converted each pixel with
+ * {@link Bytes#toLong} and each index to a position with
+ * {@link FormatTools#rasterToPosition}.
+ * <p>
+ * Usage: {@code MinMaxFilterBenchmark [pixelType] [width] [height] [threads]}
+ * </p>
+ */
+public class MinMaxFilterBenchmark {
+
+	private static final int ITERATIONS = 20;
+
+	public static void main(final String[] args) throws FormatException,
+		IOException
+	{
+		final String pixelType = args.length > 0 ? args[0] : "uint16";
+		final int width = args.length > 1 ? Integer.parseInt(args[1]) : 2048;
+		final int height = args.length > 2 ? Integer.parseInt(args[2]) : 2048;
+		final int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime
+			.getRuntime().availableProcessors();
+
+		final String id = "benchmark&pixelType=" + pixelType + "&lengths=" +
+			width + "," + height + "," + ITERATIONS + "&axes=X,Y,Time.fake";
+		final SCIFIO scifio = new SCIFIO();
+
+		final ReaderFilter plain = scifio.initializer().initializeReader(id);
+		final int type = plain.getMetadata().get(0).getPixelType();
+		final boolean little = plain.getMetadata().get(0).isLittleEndian();
+		final long[] lengths = { width, height };
+		final byte[][] planes = new byte[ITERATIONS][];
+		for (int p = 0; p < ITERATIONS; p++) {
+			planes[p] = plain.openPlane(0, p).getBytes();
+		}
+		final long bytes = (long) planes[0].length * ITERATIONS;
+
+		long start = System.nanoTime();
+		for (final byte[] plane : planes) {
+			legacyMinMax(plane, type, little, lengths);
+		}
+		report("legacy", bytes, System.nanoTime() - start);
+
+		for (final int threadCount : new int[] { 1, threads }) {
+			final ReaderFilter filter = scifio.initializer().initializeReader(id);
+			filter.enable(MinMaxFilter.class).setThreadCount(threadCount);
+			// pre-read the planes so that only the min/max computation differs
+			final long readStart = System.nanoTime();
+			for (int p = 0; p < ITERATIONS; p++) {
+				plain.openPlane(0, p);
+			}
+			final long readTime = System.nanoTime() - readStart;
+			start = System.nanoTime();
+			for (int p = 0; p < ITERATIONS; p++) {
+				filter.openPlane(0, p);
+			}
+			report("MinMaxFilter, " + threadCount + " thread(s)", bytes, System
+				.nanoTime() - start - readTime);
+			filter.close();
+		}
+		plain.close();
+		scifio.getContext().dispose();
+	}
+
+	/** The min/max loop as originally written in {@link MinMaxFilter}. */
+	private static double[] legacyMinMax(final byte[] buf, final int pixelType,
+		final boolean little, final long[] lengths)
+	{
+		final int bpp = FormatTools.getBytesPerPixel(pixelType);
+		final boolean signed = FormatTools.isSigned(pixelType);
+		final long threshold = (long) Math.pow(2, bpp * 8 - 1);
+		final double[][] axisMin = new double[lengths.length][];
+		final double[][] axisMax = new double[lengths.length][];
+		for (int a = 0; a < lengths.length; a++) {
+			axisMin[a] = new double[(int) lengths[a]];
+			axisMax[a] = new double[(int) lengths[a]];
+			Arrays.fill(axisMin[a], Double.POSITIVE_INFINITY);
+			Arrays.fill(axisMax[a], Double.NEGATIVE_INFINITY);
+		}
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		final int pixels = buf.length / bpp;
+		for (int i = 0; i < pixels; i++) {
+			final int idx = bpp * i;
+			long bits = Bytes.toLong(buf, idx, bpp, little);
+			if (signed && bits >= threshold) bits -= 2 * threshold;
+			double v = bits;
+			if (pixelType == FormatTools.FLOAT) {
+				v = Float.intBitsToFloat((int) bits);
+			}
+			else if (pixelType == FormatTools.DOUBLE) {
+				v = Double.longBitsToDouble(bits);
+			}
+			final long[] pos = FormatTools.rasterToPosition(lengths, i);
+			for (int a = 0; a < pos.length; a++) {
+				final int p = (int) pos[a];
+				if (v > axisMax[a][p]) axisMax[a][p] = v;
+				if (v < axisMin[a][p]) axisMin[a][p] = v;
+			}
+			if (v < min) min = v;
+			if (v > max) max = v;
+		}
+		return new double[] { min, max };
+	}
+
+	private static void report(final String label, final long bytes,
+		final long nanos)
+	{
+		final double seconds = nanos / 1e9;
+		System.out.println(String.format("%-32s %8.1f MB/s", label, bytes /
+			seconds / (1 << 20)));
+	}
+}
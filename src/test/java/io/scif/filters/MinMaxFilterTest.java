@@ -39,6 +39,7 @@ import io.scif.SCIFIO;
 import java.io.IOException;
 
 import net.imagej.axis.Axes;
+import net.imagej.axis.AxisType;
 
 import org.junit.Test;
 
@@ -103,4 +104,65 @@ public class MinMaxFilterTest {
 		assertCloseEnough(0.0, minMax.getAxisGlobalMinimum(0, Axes.CHANNEL, 1));
 		assertCloseEnough(0.0, minMax.getAxisGlobalMinimum(0, Axes.CHANNEL, 2));
 	}
+
+	@Test
+	public void testThreadedMinMax() throws FormatException, IOException {
+		// NB: planes of 1 MiB or more are split into at least four bands
+		for (final String type : new String[] { "int8", "uint16", "int32",
+			"float", "double" })
+		{
+			final String bigId = "testImg&pixelType=" + type +
+				"&lengths=1024,1100,2&axes=X,Y,Time.fake";
+			final ReaderFilter serial = scifio.initializer().initializeReader(bigId);
+			final MinMaxFilter serialMinMax = serial.enable(MinMaxFilter.class);
+			final ReaderFilter threaded =
+				scifio.initializer().initializeReader(bigId);
+			final MinMaxFilter threadedMinMax = threaded.enable(MinMaxFilter.class);
+			threadedMinMax.setThreadCount(4);
+
+			for (int p = 0; p < 2; p++) {
+				serial.openPlane(0, p);
+				threaded.openPlane(0, p);
+				assertEquals(serialMinMax.getPlaneMinimum(0, p), threadedMinMax
+					.getPlaneMinimum(0, p));
+				assertEquals(serialMinMax.getPlaneMaximum(0, p), threadedMinMax
+					.getPlaneMaximum(0, p));
+			}
+			assertAxisEquals(serialMinMax, threadedMinMax, Axes.X, 1024);
+			assertAxisEquals(serialMinMax, threadedMinMax, Axes.Y, 1100);
+		}
+	}
+
+	@Test
+	public void testSubRegion() throws FormatException, IOException {
+		final ReaderFilter region = scifio.initializer().initializeReader(id);
+		final MinMaxFilter regionMinMax = region.enable(MinMaxFilter.class);
+		final ReaderFilter full = scifio.initializer().initializeReader(id);
+		final MinMaxFilter fullMinMax = full.enable(MinMaxFilter.class);
+
+		region.openPlane(0, 0, new long[] { 1, 20, 30 }, new long[] { 2, 40, 50 });
+		full.openPlane(0, 0);
+
+		// only the opened region should be known
+		final double unknown = Double.NEGATIVE_INFINITY;
+		assertCloseEnough(unknown, regionMinMax.getAxisKnownMaximum(0,
+			Axes.CHANNEL, 0));
+		assertCloseEnough(unknown, regionMinMax.getAxisKnownMaximum(0, Axes.X, 19));
+		assertCloseEnough(unknown, regionMinMax.getAxisKnownMaximum(0, Axes.X, 60));
+		for (int x = 20; x < 60; x++) {
+			assertCloseEnough(fullMinMax.getAxisKnownMaximum(0, Axes.X, x),
+				regionMinMax.getAxisKnownMaximum(0, Axes.X, x));
+		}
+	}
+
+	private void assertAxisEquals(final MinMaxFilter expected,
+		final MinMaxFilter actual, final AxisType type, final int length)
+	{
+		for (int i = 0; i < length; i++) {
+			assertEquals(expected.getAxisKnownMinimum(0, type, i), actual
+				.getAxisKnownMinimum(0, type, i));
+			assertEquals(expected.getAxisKnownMaximum(0, type, i), actual
+				.getAxisKnownMaximum(0, type, i));
+		}
+	}
 }
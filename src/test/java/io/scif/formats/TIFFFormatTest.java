@@ -32,14 +32,28 @@ package io.scif.formats;
 
 import static org.junit.Assert.*;
 
+import io.scif.FormatException;
+import io.scif.Reader;
+import io.scif.SCIFIO;
+import io.scif.Writer;
+import io.scif.config.SCIFIOConfig;
+import io.scif.formats.tiff.IFD;
+import io.scif.formats.tiff.TiffCompression;
+import io.scif.formats.tiff.TiffParser;
+import io.scif.formats.tiff.TiffSaver;
 import io.scif.img.IO;
+import io.scif.util.FormatTools;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 
 import net.imagej.ImgPlus;
 import net.imagej.axis.Axes;
 
 import org.junit.Test;
+import org.scijava.Context;
+import org.scijava.log.LogService;
 
 /**
  * Tests reading of TIFF files without (dimensional) metainformation.
@@ -64,4 +78,114 @@ public class TIFFFormatTest {
 		assertEquals(Axes.UNKNOWN_LABEL, img.axis(2).type().getLabel());
 	}
 
+	/**
+	 * Tests that decoding with multiple threads yields the same pixels as
+	 * decoding on the calling thread, for planes of several LZW strips.
+	 */
+	@Test
+	public void testConcurrentDecoding() throws Exception {
+		final SCIFIO scifio = new SCIFIO();
+		final File file = File.createTempFile("strips", ".tif");
+		file.deleteOnExit();
+		final String path = file.getPath();
+		final byte[][] planes = writeStrips(scifio.getContext(), path);
+
+		final TiffParser parser = new TiffParser(scifio.getContext(), path);
+		assertTrue(parser.getFirstIFD().getStripOffsets().length > 1);
+		parser.getStream().close();
+
+		final Reader reader = scifio.initializer().initializeReader(path);
+		final SCIFIOConfig config = new SCIFIOConfig().readerSetDecodeThreads(4);
+		assertEquals(planes.length, reader.getPlaneCount(0));
+		for (int p = 0; p < planes.length; p++) {
+			assertArrayEquals(planes[p], reader.openPlane(0, p).getBytes());
+			assertArrayEquals(planes[p], reader.openPlane(0, p, config).getBytes());
+		}
+
+		reader.close();
+		file.delete();
+		scifio.getContext().dispose();
+	}
+
+	/**
+	 * Tests that planes written with zlib compression and the horizontal
+	 * predictor read back intact, and that the predictor is only used for
+	 * integer samples.
+	 */
+	@Test
+	public void testZlibPredictor() throws Exception {
+		final SCIFIO scifio = new SCIFIO();
+		final File file = File.createTempFile("zlib", ".tif");
+		file.deleteOnExit();
+		final String path = file.getPath();
+		final String[] sources = {
+			"zlib&pixelType=uint16&lengths=64,48,3&axes=X,Y,Z.fake",
+			"zlib&pixelType=float&lengths=64,48,3&axes=X,Y,Z.fake" };
+		final int[] predictors = { 2, 1 };
+
+		for (int s = 0; s < sources.length; s++) {
+			file.delete();
+			final Reader source = scifio.initializer().initializeReader(
+				sources[s]);
+			final SCIFIOConfig config = new SCIFIOConfig().writerSetCompression(
+				TIFFFormat.Writer.COMPRESSION_ZLIB);
+			config.put(TIFFFormat.Writer.PREDICTOR_KEY, true);
+			final Writer writer = scifio.initializer().initializeWriter(
+				sources[s], path, config);
+			for (int p = 0; p < 3; p++) {
+				writer.savePlane(0, p, source.openPlane(0, p));
+			}
+			writer.close();
+
+			final TiffParser parser = new TiffParser(scifio.getContext(), path);
+			final IFD ifd = parser.getFirstIFD();
+			assertEquals(TiffCompression.DEFLATE, ifd.getCompression());
+			assertEquals(predictors[s], ifd.getIFDIntValue(IFD.PREDICTOR, 1));
+			parser.getStream().close();
+
+			final Reader reader = scifio.initializer().initializeReader(path);
+			assertEquals(3, reader.getPlaneCount(0));
+			for (int p = 0; p < 3; p++) {
+				assertArrayEquals(source.openPlane(0, p).getBytes(), reader
+					.openPlane(0, p).getBytes());
+			}
+			reader.close();
+			source.close();
+		}
+
+		file.delete();
+		scifio.getContext().dispose();
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Writes three 8-bit planes of 64x50 pixels, in LZW-compressed strips of 4
+	 * rows, to the given file.
+	 *
+	 * @return The pixels of the planes.
+	 */
+	private byte[][] writeStrips(final Context context, final String path)
+		throws FormatException, IOException
+	{
+		final int width = 64, height = 50;
+		final byte[][] planes = new byte[3][width * height];
+		final TiffSaver saver = new TiffSaver(context, path);
+		saver.writeHeader();
+		for (int p = 0; p < planes.length; p++) {
+			for (int i = 0; i < planes[p].length; i++) {
+				planes[p][i] = (byte) (i / width * (p + 1) + i % 5);
+			}
+			final IFD ifd = new IFD(context.getService(LogService.class));
+			ifd.put(IFD.IMAGE_WIDTH, (long) width);
+			ifd.put(IFD.IMAGE_LENGTH, (long) height);
+			ifd.putIFDValue(IFD.ROWS_PER_STRIP, new long[] { 4 });
+			ifd.putIFDValue(IFD.COMPRESSION, TiffCompression.LZW.getCode());
+			saver.writeImage(planes[p], ifd, p, FormatTools.UINT8, 0, 0, width,
+				height, p == planes.length - 1);
+		}
+		saver.getStream().close();
+		return planes;
+	}
+
 }
@@ -0,0 +1,255 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package io.scif.formats.tiff;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import io.scif.FormatException;
+import io.scif.codec.CodecOptions;
+import io.scif.codec.CodecService;
+import io.scif.codec.ZlibCodec;
+import io.scif.io.ByteArrayHandle;
+import io.scif.io.RandomAccessInputStream;
+import io.scif.services.LocationService;
+import io.scif.util.FormatTools;
+
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+import org.scijava.log.LogService;
+
+/**
+ * Tests writing multi-strip planes with {@link TiffSaver}, compressing strips
+ * on several threads.
+ */
+public class TiffSaverTest {
+
+	private static final int WIDTH = 64;
+
+	private static final int HEIGHT = 50;
+
+	private static final int PLANES = 5;
+
+	private static final String ID = "saver.tif";
+
+	private Context context;
+
+	private LogService log;
+
+	@Before
+	public void setUp() {
+		context = new Context();
+		log = context.getService(LogService.class);
+		context.getService(LocationService.class).mapFile(ID,
+			new ByteArrayHandle());
+	}
+
+	@After
+	public void tearDown() {
+		context.dispose();
+	}
+
+	@Test
+	public void testConcurrentWrites() throws FormatException, IOException {
+		final TiffSaver saver = new TiffSaver(context, ID);
+		saver.setCompressionThreads(4);
+		saver.writeHeader();
+		for (int p = 0; p < PLANES; p++) {
+			saver.writeImage(plane(p), ifd(TiffCompression.LZW), p,
+				FormatTools.UINT8, 0, 0, WIDTH, HEIGHT, p == PLANES - 1);
+		}
+		saver.getStream().close();
+		assertPlanes();
+	}
+
+	/**
+	 * Tests writing planes sequentially, each of which is written while the next
+	 * one is being compressed.
+	 */
+	@Test
+	public void testPipelinedWrites() throws FormatException, IOException {
+		final TiffSaver saver = new TiffSaver(context, ID);
+		saver.setCompressionThreads(4);
+		saver.setWritingSequentially(true);
+		saver.writeHeader();
+		for (int p = 0; p < PLANES; p++) {
+			// NB: the last plane is not flagged, so it is written by flush()
+			saver.writeImage(plane(p), ifd(TiffCompression.DEFLATE), p,
+				FormatTools.UINT8, 0, 0, WIDTH, HEIGHT, false);
+		}
+		saver.flush();
+		saver.getStream().close();
+		assertPlanes();
+	}
+
+	/**
+	 * Tests that the end offset reported while a plane is pending is where the
+	 * plane ends once written.
+	 */
+	@Test
+	public void testEndOffset() throws FormatException, IOException {
+		final TiffSaver saver = new TiffSaver(context, ID);
+		saver.setCompressionThreads(4);
+		saver.setWritingSequentially(true);
+		saver.writeHeader();
+		long end = 0;
+		for (int p = 0; p < PLANES; p++) {
+			// NB: this writes the previous plane, while compressing this one
+			saver.writeImage(plane(p), ifd(TiffCompression.LZW), p,
+				FormatTools.UINT8, 0, 0, WIDTH, HEIGHT, false);
+			if (p > 0) assertEquals(end, saver.getStream().length());
+			end = saver.getEndOffset();
+		}
+		saver.flush();
+		assertEquals(end, saver.getStream().length());
+		saver.getStream().close();
+		assertPlanes();
+	}
+
+	/**
+	 * Tests that an error compressing a pending plane is reported when it is
+	 * written out.
+	 */
+	@Test
+	public void testPipelinedFailure() throws FormatException, IOException {
+		final TiffSaver saver = new TiffSaver(context, ID);
+		saver.setCompressionThreads(4);
+		saver.setWritingSequentially(true);
+		saver.writeHeader();
+		saver.writeImage(plane(0), ifd(TiffCompression.THUNDERSCAN), 0,
+			FormatTools.UINT8, 0, 0, WIDTH, HEIGHT, false);
+		try {
+			saver.writePendingImage();
+			fail("Expected a FormatException");
+		}
+		catch (final FormatException e) {
+			// expected: there is no Thunderscan codec
+		}
+		// the failed plane is not written again
+		saver.flush();
+		saver.getStream().close();
+	}
+
+	@Test(expected = FormatException.class)
+	public void testConcurrentFailure() throws FormatException, IOException {
+		final TiffSaver saver = new TiffSaver(context, ID);
+		saver.setCompressionThreads(4);
+		saver.writeHeader();
+		try {
+			saver.writeImage(plane(0), ifd(TiffCompression.THUNDERSCAN), 0,
+				FormatTools.UINT8, 0, 0, WIDTH, HEIGHT, true);
+		}
+		finally {
+			saver.getStream().close();
+		}
+	}
+
+	/**
+	 * Tests that tiles are differenced one tile row at a time, as libtiff
+	 * expects, rather than one image row at a time.
+	 */
+	@Test
+	public void testTiledPredictor() throws FormatException, IOException {
+		final int tileSize = 16;
+		final IFD ifd = ifd(TiffCompression.DEFLATE);
+		ifd.remove(IFD.ROWS_PER_STRIP);
+		ifd.put(IFD.TILE_WIDTH, (long) tileSize);
+		ifd.put(IFD.TILE_LENGTH, (long) tileSize);
+		ifd.putIFDValue(IFD.PREDICTOR, 2);
+		final TiffSaver saver = new TiffSaver(context, ID);
+		saver.writeHeader();
+		saver.writeImage(plane(3), ifd, 0, FormatTools.UINT8, 0, 0, WIDTH,
+			HEIGHT, true);
+		saver.getStream().close();
+
+		final TiffParser parser = new TiffParser(context, ID);
+		final IFD written = parser.getFirstIFD();
+		assertArrayEquals(plane(3), parser.getSamples(written,
+			new byte[WIDTH * HEIGHT]));
+
+		// undo the differencing of the second tile without the TiffService
+		final RandomAccessInputStream in = parser.getStream();
+		in.seek(written.getStripOffsets()[1]);
+		final byte[] compressed = new byte[(int) written.getStripByteCounts()[1]];
+		in.readFully(compressed);
+		final CodecOptions options = new CodecOptions();
+		options.maxBytes = tileSize * tileSize;
+		final byte[] tile = context.getService(CodecService.class).getCodec(
+			ZlibCodec.class).decompress(compressed, options);
+		final byte[] plane = plane(3);
+		for (int y = 0; y < tileSize; y++) {
+			for (int x = 0; x < tileSize; x++) {
+				final int i = y * tileSize + x;
+				if (x > 0) tile[i] += tile[i - 1];
+				assertEquals(plane[y * WIDTH + tileSize + x], tile[i]);
+			}
+		}
+		in.close();
+	}
+
+	// -- Helper methods --
+
+	private IFD ifd(final TiffCompression compression) {
+		final IFD ifd = new IFD(log);
+		ifd.put(IFD.IMAGE_WIDTH, (long) WIDTH);
+		ifd.put(IFD.IMAGE_LENGTH, (long) HEIGHT);
+		ifd.putIFDValue(IFD.ROWS_PER_STRIP, new long[] { 8 });
+		ifd.putIFDValue(IFD.COMPRESSION, compression.getCode());
+		return ifd;
+	}
+
+	private byte[] plane(final int p) {
+		final byte[] plane = new byte[WIDTH * HEIGHT];
+		for (int i = 0; i < plane.length; i++) {
+			plane[i] = (byte) (i / WIDTH * p + i % 7);
+		}
+		return plane;
+	}
+
+	/** Checks that all planes read back intact, each in several strips. */
+	private void assertPlanes() throws FormatException, IOException {
+		final TiffParser parser = new TiffParser(context, ID);
+		final IFDList ifds = parser.getIFDs();
+		assertEquals(PLANES, ifds.size());
+		for (int p = 0; p < PLANES; p++) {
+			assertEquals((HEIGHT + 7) / 8, ifds.get(p).getStripOffsets().length);
+			assertArrayEquals(plane(p), parser.getSamples(ifds.get(p),
+				new byte[WIDTH * HEIGHT]));
+		}
+		parser.getStream().close();
+	}
+}
@@ -32,7 +32,9 @@ package io.scif.img;
 
 import static io.scif.JUnitHelper.assertCloseEnough;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 
 import io.scif.Format;
 import io.scif.FormatException;
@@ -41,16 +43,23 @@ import io.scif.Metadata;
 import io.scif.Reader;
 import io.scif.SCIFIO;
 import io.scif.config.SCIFIOConfig;
+import io.scif.config.SCIFIOConfig.ImgMode;
+import io.scif.filters.MinMaxFilter;
+import io.scif.filters.ReaderFilter;
 import io.scif.formats.FakeFormat;
 import io.scif.img.cell.SCIFIOCellImgFactory;
 import io.scif.io.RandomAccessInputStream;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.imagej.ImgPlus;
 import net.imagej.axis.Axes;
 import net.imagej.axis.AxisType;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
 import net.imglib2.exception.IncompatibleTypeException;
 import net.imglib2.img.ImgFactory;
 import net.imglib2.img.array.ArrayImgFactory;
@@ -222,6 +231,154 @@ public class ImgOpenerTest {
 		assertNotNull(img);
 	}
 
+	/**
+	 * Verify that a cell image backed by several readers loads the same data
+	 * as a planar image, when its cells are loaded from several threads.
+	 */
+	@Test
+	public void testReaderPool() throws ImgIOException, InterruptedException {
+		final String poolId = "testImg&lengths=128,128,16&axes=X,Y,Z.fake";
+		final SCIFIOImgPlus<UnsignedByteType> expected =
+			imgOpener.openImgs(poolId, new UnsignedByteType(),
+				new SCIFIOConfig().imgOpenerSetImgModes(ImgMode.PLANAR)).get(0);
+		final SCIFIOImgPlus<UnsignedByteType> actual =
+			imgOpener.openImgs(
+				poolId,
+				new UnsignedByteType(),
+				new SCIFIOConfig().imgOpenerSetImgModes(ImgMode.CELL)
+					.imgOpenerSetReaderCount(4)).get(0);
+
+		final AtomicInteger mismatches = new AtomicInteger();
+		final List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			threads.add(new Thread() {
+
+				@Override
+				public void run() {
+					final Cursor<UnsignedByteType> cursor = actual.localizingCursor();
+					final RandomAccess<UnsignedByteType> ra = expected.randomAccess();
+					while (cursor.hasNext()) {
+						cursor.fwd();
+						ra.setPosition(cursor);
+						if (cursor.get().get() != ra.get().get()) {
+							mismatches.incrementAndGet();
+						}
+					}
+				}
+			});
+		}
+		for (final Thread thread : threads)
+			thread.start();
+		for (final Thread thread : threads)
+			thread.join();
+
+		assertEquals(0, mismatches.get());
+		actual.dispose();
+	}
+
+	/**
+	 * Test that planes read by several readers at once end up in the same
+	 * positions as when read sequentially.
+	 */
+	@Test
+	public void testConcurrentPlanes() throws ImgIOException {
+		final String planesId =
+			"testImg&lengths=64,64,5,7&axes=X,Y,Z,Time.fake";
+		for (final ImgMode mode : new ImgMode[] { ImgMode.ARRAY, ImgMode.PLANAR })
+		{
+			final SCIFIOImgPlus<UnsignedByteType> expected =
+				imgOpener.openImgs(planesId, new UnsignedByteType(),
+					new SCIFIOConfig().imgOpenerSetImgModes(mode)).get(0);
+			final SCIFIOImgPlus<UnsignedByteType> actual =
+				imgOpener.openImgs(
+					planesId,
+					new UnsignedByteType(),
+					new SCIFIOConfig().imgOpenerSetImgModes(mode)
+						.imgOpenerSetReaderCount(4)).get(0);
+
+			final Cursor<UnsignedByteType> cursor = actual.localizingCursor();
+			final RandomAccess<UnsignedByteType> ra = expected.randomAccess();
+			while (cursor.hasNext()) {
+				cursor.fwd();
+				ra.setPosition(cursor);
+				assertEquals(ra.get().get(), cursor.get().get());
+			}
+		}
+	}
+
+	/**
+	 * Test that a pool whose factory creates readers presenting a different
+	 * dataset layout discards them and keeps using its primary reader.
+	 */
+	@Test
+	public void testMismatchedPoolReader() throws FormatException, IOException,
+		InterruptedException
+	{
+		final SCIFIO scifio = new SCIFIO(imgOpener.getContext());
+		final Reader primary = scifio.initializer().initializeReader(
+			"testImg&lengths=64,64,3&axes=X,Y,Z.fake");
+		final ReaderPool pool = new ReaderPool(primary, 2, () -> scifio
+			.initializer().initializeReader(
+				"testImg&lengths=32,32,3&axes=X,Y,Z.fake"));
+
+		assertSame(primary, pool.acquire());
+		final List<Reader> acquired = new ArrayList<>();
+		final Thread thread = new Thread(() -> {
+			try {
+				acquired.add(pool.acquire());
+			}
+			catch (final FormatException | IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		thread.start();
+		// the mismatched reader is discarded, so the thread waits for the primary
+		while (pool.getMaxReaders() > 1) {
+			Thread.sleep(10);
+		}
+		pool.release(primary);
+		thread.join();
+
+		assertEquals(1, acquired.size());
+		assertSame(primary, acquired.get(0));
+		pool.close();
+		primary.close();
+	}
+
+	/**
+	 * Test that channel min/max values computed by several readers match those
+	 * computed sequentially, for readers supplied without a MinMaxFilter.
+	 */
+	@Test
+	public void testConcurrentMinMax() throws ImgIOException, FormatException,
+		IOException
+	{
+		final String minMaxId =
+			"testImg&lengths=64,64,3,7&axes=X,Y,Channel,Time.fake";
+		final SCIFIO scifio = new SCIFIO(imgOpener.getContext());
+		final SCIFIOConfig config =
+			new SCIFIOConfig().imgOpenerSetImgModes(ImgMode.PLANAR)
+				.imgOpenerSetComputeMinMax(true);
+		final SCIFIOImgPlus<UnsignedByteType> expected =
+			imgOpener.openImgs(scifio.initializer().initializeReader(minMaxId),
+				new UnsignedByteType(), config).get(0);
+		final ReaderFilter reader = scifio.initializer().initializeReader(minMaxId);
+		final SCIFIOImgPlus<UnsignedByteType> actual =
+			imgOpener.openImgs(reader, new UnsignedByteType(),
+				new SCIFIOConfig(config).imgOpenerSetReaderCount(4)
+					.imgOpenerSetMinMaxThreads(2)).get(0);
+		assertEquals(2, reader.enable(MinMaxFilter.class).getThreadCount());
+
+		for (int c = 0; c < 3; c++) {
+			assertFalse(Double.isNaN(expected.getChannelMinimum(c)));
+			assertFalse(Double.isNaN(expected.getChannelMaximum(c)));
+			assertEquals(expected.getChannelMinimum(c), actual.getChannelMinimum(c),
+				0);
+			assertEquals(expected.getChannelMaximum(c), actual.getChannelMaximum(c),
+				0);
+		}
+	}
+
 	// Tests the opening various sub-regions of an image
 	@SuppressWarnings({ "rawtypes" })
 	private void testSubRegion(final ImgFactory factory) throws ImgIOException {
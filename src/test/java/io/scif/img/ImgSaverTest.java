@@ -135,6 +135,27 @@ public class ImgSaverTest {
 		testPlaneSavingForConfig(config);
 	}
 
+	/**
+	 * Test that planes compressed on several threads, each while the previous
+	 * one is written, are saved correctly
+	 */
+	@Test
+	public void testPipelinedSaving() throws ImgIOException,
+		IncompatibleTypeException
+	{
+		final ImgOpener o = new ImgOpener(ctx);
+		final ImgSaver s = new ImgSaver(ctx);
+		final SCIFIOImgPlus<UnsignedByteType> before = o.openImgs(id,
+			new UnsignedByteType(), new SCIFIOConfig().imgOpenerSetImgModes(
+				ImgMode.PLANAR)).get(0);
+		s.saveImg(out, before, 0, new SCIFIOConfig().writerSetSequential(true)
+			.writerSetCompression("LZW").writerSetCompressionThreads(4));
+
+		final SCIFIOImgPlus<UnsignedByteType> after = o.openImgs(out,
+			new UnsignedByteType()).get(0);
+		assertImagesEqual(before, after);
+	}
+
 	// -- Helper methods --
 
 	private void testPlaneSavingForConfig(final SCIFIOConfig config)
@@ -468,6 +468,40 @@ public class CacheServiceTest {
 		enableCells(false, cell1a, cell1b, cell2a, cell2b);
 	}
 
+	// Test the byte budget and statistics of the in-memory tier
+	@Test
+	public void testMemoryBudget() throws FormatException, IOException {
+		// Room for two 128x128 byte cells
+		final SCIFIOCellCache<ByteArray> cache =
+			makeCache(makeFakeFile(512l * 512l), 2l * 128l * 128l);
+
+		final SCIFIOCell<ByteArray> cell0 =
+			cache.load(0, new int[] { 128, 128 }, new long[] { 0l, 0l });
+		cache.load(1, new int[] { 128, 128 }, new long[] { 128l, 0l });
+		assertEquals(2l * 128l * 128l, cache.getBytes());
+		assertEquals(0, cache.getEvictionCount());
+
+		// Loading a third cell evicts the least recently used one
+		cache.load(2, new int[] { 128, 128 }, new long[] { 256l, 0l });
+		assertEquals(2l * 128l * 128l, cache.getBytes());
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals(3, cache.getMissCount());
+
+		// The most recently used cells are held in memory
+		assertNotNull(cache.get(1));
+		assertNotNull(cache.get(2));
+		assertEquals(2, cache.getHitCount());
+
+		// An evicted cell is still softly reachable while in use
+		assertEquals(cell0, cache.get(0));
+		assertEquals(3, cache.getHitCount());
+
+		cache.trim();
+		assertEquals(0, cache.getBytes());
+
+		enableCells(false, cell0);
+	}
+
 	// -- Helper methods --
 
 	// return a fake id for a file of the specified size
@@ -486,13 +520,20 @@ public class CacheServiceTest {
 	// Creates a SCIFIOCellCache for the given id
 	private SCIFIOCellCache<ByteArray> makeCache(final String id)
 		throws FormatException, IOException
+	{
+		return makeCache(id, 0);
+	}
+
+	// Creates a SCIFIOCellCache for the given id, with the given memory budget
+	private SCIFIOCellCache<ByteArray> makeCache(final String id,
+		final long maxBytes) throws FormatException, IOException
 	{
 		final ReaderFilter rf =
 			scifio.initializer().initializeReader(id,
 				new SCIFIOConfig().checkerSetOpen(true));
 		final ByteArrayLoader loader = new ByteArrayLoader(rf, null);
 		final SCIFIOCellCache<ByteArray> cellCache =
-			new SCIFIOCellCache<>(cs.getContext(), loader);
+			new SCIFIOCellCache<>(cs.getContext(), loader, maxBytes);
 		return cellCache;
 	}
 
@@ -0,0 +1,165 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.img.cell.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import io.scif.codec.CodecService;
+import io.scif.codec.LZ4Codec;
+import io.scif.img.cell.SCIFIOCell;
+
+import net.imglib2.img.basictypeaccess.array.ShortArray;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+
+/**
+ * Tests {@link MappedSlabCache}.
+ */
+public class MappedSlabCacheTest {
+
+	private Context context;
+
+	private MappedSlabCache cs;
+
+	@Before
+	public void setUp() {
+		context = new Context(MappedSlabCache.class, CodecService.class);
+		cs = context.getService(MappedSlabCache.class);
+		cs.addCache("cache");
+	}
+
+	@After
+	public void tearDown() {
+		context.dispose();
+	}
+
+	// Cells round-trip through the slab with their data and hashes intact
+	@Test
+	public void testCacheAndRetrieve() {
+		final SCIFIOCell<ShortArray> cell = makeCell(0, 64);
+		cell.getData().setValue(10, 42);
+
+		assertEquals(CacheResult.SUCCESS, cs.cache("cache", 0, cell));
+		assertEquals(CacheResult.DUPLICATE_FOUND, cs.cache("cache", 0, cell));
+
+		@SuppressWarnings("unchecked")
+		final SCIFIOCell<ShortArray> retrieved =
+			(SCIFIOCell<ShortArray>) cs.retrieveNoRecache("cache", 0);
+		assertEquals(cell, retrieved);
+		assertArrayEquals(cell.getData().getCurrentStorageArray(), retrieved
+			.getData().getCurrentStorageArray());
+
+		// Overwrite the cell
+		cell.getData().setValue(11, 43);
+		assertEquals(CacheResult.SUCCESS, cs.cache("cache", 0, cell));
+		assertArrayEquals(cell.getData().getCurrentStorageArray(),
+			((ShortArray) cs.retrieveNoRecache("cache", 0).getData())
+				.getCurrentStorageArray());
+
+		cs.clearCache("cache");
+		assertNull(cs.retrieveNoRecache("cache", 0));
+		cell.cacheOnFinalize(false);
+	}
+
+	// Retrieved entries make room for new ones once the disk is full
+	@Test
+	public void testMaxBytes() {
+		cs.setMaxBytesOnDisk(3 * 64 * 64);
+
+		final SCIFIOCell<ShortArray> cell0 = makeCell(0, 64);
+		final SCIFIOCell<ShortArray> cell1 = makeCell(1, 64);
+		cell0.getData().setValue(0, 1);
+		cell1.getData().setValue(0, 2);
+
+		assertEquals(CacheResult.SUCCESS, cs.cache("cache", 0, cell0));
+		assertEquals(CacheResult.DISK_FULL, cs.cache("cache", 1, cell1));
+
+		cs.retrieveNoRecache("cache", 0);
+		assertEquals(CacheResult.SUCCESS, cs.cache("cache", 1, cell1));
+		assertNull(cs.retrieveNoRecache("cache", 0));
+		assertEquals(cell1, cs.retrieveNoRecache("cache", 1));
+
+		cell0.cacheOnFinalize(false);
+		cell1.cacheOnFinalize(false);
+	}
+
+	// Compressed cells come back intact and take less of the slab
+	@Test
+	public void testCompressedCells() {
+		final LZ4Codec codec =
+			context.getService(CodecService.class).getCodec(LZ4Codec.class);
+		cs.setCodec(codec);
+		assertSame(codec, cs.getCodec());
+
+		final SCIFIOCell<ShortArray> cell = makeCell(0, 64);
+		for (int i = 0; i < 64 * 64; i++) {
+			cell.getData().setValue(i, i % 64);
+		}
+		assertEquals(CacheResult.SUCCESS, cs.cache("cache", 0, cell));
+
+		@SuppressWarnings("unchecked")
+		final SCIFIOCell<ShortArray> retrieved =
+			(SCIFIOCell<ShortArray>) cs.retrieveNoRecache("cache", 0);
+		assertEquals(cell, retrieved);
+		assertArrayEquals(cell.getData().getCurrentStorageArray(), retrieved
+			.getData().getCurrentStorageArray());
+		cell.cacheOnFinalize(false);
+	}
+
+	// Cells written by the caller keep the data they had when cached
+	@Test
+	public void testInlineWrites() {
+		assertEquals(64 * 1024 * 1024, cs.getMaxPendingBytes());
+		cs.setMaxPendingBytes(0);
+
+		final SCIFIOCell<ShortArray> cell = makeCell(0, 64);
+		cell.getData().setValue(10, 42);
+		assertEquals(CacheResult.SUCCESS, cs.cache("cache", 0, cell));
+		cell.getData().setValue(10, 7);
+
+		@SuppressWarnings("unchecked")
+		final SCIFIOCell<ShortArray> retrieved =
+			(SCIFIOCell<ShortArray>) cs.retrieveNoRecache("cache", 0);
+		assertEquals(42, retrieved.getData().getValue(10));
+		cell.cacheOnFinalize(false);
+	}
+
+	private SCIFIOCell<ShortArray> makeCell(final int index, final int size) {
+		return new SCIFIOCell<>(cs, "cache", index, new int[] { size, size },
+			new long[] { 0, 0 }, new ShortArray(size * size));
+	}
+}
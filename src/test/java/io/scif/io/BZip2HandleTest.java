@@ -0,0 +1,142 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+
+/**
+ * Tests seeking and reading across blocks of {@link BZip2Handle}s.
+ */
+public class BZip2HandleTest {
+
+	private Context context;
+
+	private File file;
+
+	private byte[] data;
+
+	@Before
+	public void setUp() throws IOException, InterruptedException {
+		context = new Context();
+		final File raw = File.createTempFile("bzip2Handle", ".dat");
+		raw.deleteOnExit();
+
+		// partly compressible data, spanning many 100 kB blocks
+		final Random random = new Random(0xdeadbeef);
+		data = new byte[2 * 1024 * 1024];
+		for (int i = 0; i < data.length; i++) {
+			data[i] =
+				(byte) (random.nextInt(4) == 0 ? random.nextInt(256) : i / 64 % 23);
+		}
+		try (OutputStream out = new FileOutputStream(raw)) {
+			out.write(data);
+		}
+		final Process p =
+			Runtime.getRuntime().exec(
+				new String[] { "bzip2", "-1", raw.getAbsolutePath() });
+		p.waitFor();
+		file = new File(raw.getAbsolutePath() + ".bz2");
+		file.deleteOnExit();
+	}
+
+	@After
+	public void tearDown() {
+		BZip2Handle.setDecodeThreads(Runtime.getRuntime().availableProcessors());
+		file.delete();
+		context.dispose();
+	}
+
+	@Test
+	public void testRandomSeeks() throws IOException {
+		final BZip2Handle handle = new BZip2Handle(context, file.getPath());
+		assertEquals(data.length, handle.length());
+		final Random random = new Random(1);
+		final byte[] buf = new byte[1000];
+		for (int i = 0; i < 50; i++) {
+			final int pos = random.nextInt(data.length - buf.length);
+			handle.seek(pos);
+			handle.readFully(buf);
+			assertEquals(pos + buf.length, handle.getFilePointer());
+			assertArrayEquals(Arrays.copyOfRange(data, pos, pos + buf.length), buf);
+		}
+		handle.close();
+	}
+
+	@Test
+	public void testConcurrentBlocks() throws IOException {
+		BZip2Handle.setDecodeThreads(4);
+		assertLargeReads();
+	}
+
+	@Test
+	public void testSequentialBlocks() throws IOException {
+		BZip2Handle.setDecodeThreads(1);
+		assertLargeReads();
+	}
+
+	// -- Helper methods --
+
+	private void assertLargeReads() throws IOException {
+		final BZip2Handle handle = new BZip2Handle(context, file.getPath());
+		final int pos = 12345;
+		final byte[] buf = new byte[data.length / 2];
+		handle.seek(pos);
+		handle.readFully(buf);
+		assertEquals(pos + buf.length, handle.getFilePointer());
+		assertArrayEquals(Arrays.copyOfRange(data, pos, pos + buf.length), buf);
+
+		// the stream continues where the read ended
+		final byte[] next = new byte[100];
+		assertEquals(next.length, handle.read(next));
+		assertArrayEquals(Arrays.copyOfRange(data, pos + buf.length, pos +
+			buf.length + next.length), next);
+
+		// reads past the end are truncated
+		handle.seek(data.length - buf.length / 2);
+		assertEquals(buf.length / 2, handle.read(buf));
+		assertArrayEquals(Arrays.copyOfRange(data, data.length - buf.length / 2,
+			data.length), Arrays.copyOf(buf, buf.length / 2));
+		handle.close();
+	}
+}
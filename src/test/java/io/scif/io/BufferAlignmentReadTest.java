@@ -205,6 +205,19 @@ public class BufferAlignmentReadTest {
 		assertEquals(36, fileHandle.readByte());
 	}
 
+	@Test
+	public void testAlternatingRegions() throws IOException {
+		for (int i = 0; i < 4; i++) {
+			fileHandle.seek(2 * i);
+			assertEquals(2 * i + 1, fileHandle.readByte());
+			fileHandle.seek(48 + 2 * i);
+			assertEquals(49 + 2 * i, fileHandle.readByte());
+			assertEquals(50 + 2 * i, fileHandle.readByte());
+			fileHandle.seek(2 * i + 1);
+			assertEquals(2 * i + 2, fileHandle.readByte());
+		}
+	}
+
 	@Test
 	public void testBufferBoundry() throws IOException {
 		fileHandle.seek(32);
@@ -0,0 +1,242 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package io.scif.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+import org.scijava.service.AbstractService;
+
+/**
+ * Tests recycling and pooling of {@link NIOService} buffers, and the buffered
+ * windows of {@link NIOFileHandle}.
+ */
+public class BufferRecyclingTest {
+
+	private static final int LENGTH = 256;
+
+	private File file;
+
+	private RandomAccessFile raf;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("recycling", ".dat");
+		file.deleteOnExit();
+		final byte[] data = new byte[LENGTH];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) i;
+		}
+		Files.write(file.toPath(), data);
+		raf = new RandomAccessFile(file, "r");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		raf.close();
+		file.delete();
+	}
+
+	@Test
+	public void testRecyclingIsOptIn() throws IOException {
+		final Context context = createContext(null, null);
+		try {
+			final NIOService service = context.getService(NIOService.class);
+			final FileChannel channel = raf.getChannel();
+			final ByteBuffer first = service.allocate(channel, MapMode.READ_ONLY,
+				0, 16);
+			final ByteBuffer second = service.allocate(channel,
+				MapMode.READ_ONLY, 32, 16, first);
+			assertNotSame(first, second);
+			assertEquals(32, second.get(0));
+		}
+		finally {
+			context.dispose();
+		}
+	}
+
+	@Test
+	public void testRecycling() throws IOException {
+		final Context context = createContext("true", null);
+		try {
+			final NIOService service = context.getService(NIOService.class);
+			final FileChannel channel = raf.getChannel();
+			final ByteBuffer first = service.allocate(channel, MapMode.READ_ONLY,
+				0, 16);
+			final ByteBuffer second = service.allocate(channel,
+				MapMode.READ_ONLY, 32, 8, first);
+			assertSame(first, second);
+			assertEquals(8, second.limit());
+			assertEquals(32, second.get(0));
+			assertEquals(39, second.get(7));
+
+			// a buffer too small for the request is replaced
+			final ByteBuffer third = service.allocate(channel, MapMode.READ_ONLY,
+				64, 32, second);
+			assertNotSame(second, third);
+			assertEquals(64, third.get(0));
+			assertEquals(95, third.get(31));
+		}
+		finally {
+			context.dispose();
+		}
+	}
+
+	@Test
+	public void testDirectPool() throws IOException {
+		final Context context = createContext(null, "true");
+		try {
+			final NIOService service = context.getService(NIOService.class);
+			final FileChannel channel = raf.getChannel();
+			final ByteBuffer first = service.allocate(channel, MapMode.READ_ONLY,
+				0, 32);
+			assertEquals(true, first.isDirect());
+			service.release(first);
+
+			// the pool does not hand a large buffer out for a small request
+			final ByteBuffer small = service.allocate(channel, MapMode.READ_ONLY,
+				0, 8);
+			assertNotSame(first, small);
+
+			final ByteBuffer second = service.allocate(channel,
+				MapMode.READ_ONLY, 128, 24);
+			assertSame(first, second);
+			assertEquals(24, second.limit());
+			assertEquals((byte) 128, second.get(0));
+		}
+		finally {
+			context.dispose();
+		}
+	}
+
+	@Test
+	public void testWindows() throws IOException {
+		final CountingNIOService service = new CountingNIOService();
+		final NIOFileHandle handle = new NIOFileHandle(service, file, "r", 16, 3);
+		assertEquals(3, handle.getWindowCount());
+		for (int i = 0; i < 4; i++) {
+			for (int region = 0; region < 3; region++) {
+				final int pos = 64 * region + i;
+				handle.seek(pos);
+				assertEquals((byte) pos, handle.readByte());
+			}
+		}
+		// each region was loaded once, and then served from its window
+		assertEquals(3, service.allocations);
+
+		// a fourth region evicts the least recently used window
+		handle.seek(200);
+		assertEquals((byte) 200, handle.readByte());
+		handle.seek(2);
+		assertEquals(2, handle.readByte());
+		assertEquals(5, service.allocations);
+		handle.close();
+	}
+
+	@Test
+	public void testReadWriteWindow() throws IOException {
+		final NIOService service = new CountingNIOService();
+		final NIOFileHandle handle =
+			new NIOFileHandle(service, file, "rw", 16, 3);
+		assertEquals(1, handle.getWindowCount());
+		handle.seek(4);
+		assertEquals(4, handle.readByte());
+		handle.seek(4);
+		handle.writeByte(100);
+		handle.seek(4);
+		assertEquals(100, handle.readByte());
+		handle.close();
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Creates a context whose {@link NIOService} sees the given values of the
+	 * {@code recycleBuffers} and {@code directBuffers} system properties.
+	 */
+	private Context createContext(final String recycle, final String direct) {
+		final String oldRecycle = setProperty("recycleBuffers", recycle);
+		final String oldDirect = setProperty("directBuffers", direct);
+		try {
+			final Context context = new Context(NIOService.class);
+			context.getService(NIOService.class);
+			return context;
+		}
+		finally {
+			setProperty("recycleBuffers", oldRecycle);
+			setProperty("directBuffers", oldDirect);
+		}
+	}
+
+	private String setProperty(final String key, final String value) {
+		return value == null ? System.clearProperty(key) : System.setProperty(key,
+			value);
+	}
+
+	// -- Helper classes --
+
+	/**
+	 * A service implementing only the original {@link NIOService} method, which
+	 * counts its allocations.
+	 */
+	private static class CountingNIOService extends AbstractService implements
+		NIOService
+	{
+
+		private int allocations;
+
+		@Override
+		public ByteBuffer allocate(final FileChannel channel,
+			final MapMode mapMode, final long bufferStartPosition,
+			final int newSize) throws IOException
+		{
+			allocations++;
+			final ByteBuffer buffer = ByteBuffer.allocate(newSize);
+			channel.read(buffer, bufferStartPosition);
+			return buffer;
+		}
+	}
+
+}
@@ -0,0 +1,127 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import io.scif.common.Constants;
+import io.scif.services.LocationService;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+
+/**
+ * Tests searching for terminating strings in a {@link RandomAccessInputStream}.
+ */
+public class FindStringTest {
+
+	private static final String TEXT =
+		"key1=value1\r\nkey2=value2\nkey3=été\r\n\nend\nfinal";
+
+	private Context context;
+
+	private RandomAccessInputStream stream;
+
+	@Before
+	public void setUp() throws IOException {
+		context = new Context(LocationService.class);
+		stream =
+			new RandomAccessInputStream(context, TEXT.getBytes(Constants.ENCODING));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		stream.close();
+		context.dispose();
+	}
+
+	@Test
+	public void testEarliestTerminator() throws IOException {
+		assertEquals("key1=", stream.findString("\n", "="));
+		assertEquals("value1\r", stream.findString("\n", "\r"));
+		assertEquals("\nkey2", stream.findString("value2", "key2"));
+	}
+
+	@Test
+	public void testFirstOfEqualTerminators() throws IOException {
+		assertEquals("key1=value1\r\n", stream.findString("\r\n", "\r"));
+		assertEquals("key2=value2\n", stream.findString("\n", "\nkey3"));
+	}
+
+	@Test
+	public void testMultiByteCharacters() throws IOException {
+		stream.seek(TEXT.indexOf("key3"));
+		assertEquals("key3=été\r\n", stream.findString("\r\n"));
+		assertEquals(TEXT.getBytes(Constants.ENCODING).length - 10, stream
+			.getFilePointer());
+	}
+
+	@Test
+	public void testNoMatch() throws IOException {
+		stream.seek(stream.length() - 5);
+		assertEquals("final", stream.findString("\n"));
+		assertEquals(stream.length(), stream.getFilePointer());
+	}
+
+	@Test
+	public void testSkip() throws IOException {
+		assertNull(stream.findString(false, "\n\n"));
+		assertEquals("end", stream.readLine().trim());
+	}
+
+	@Test
+	public void testFindOffset() throws IOException {
+		final int length = TEXT.getBytes(Constants.ENCODING).length;
+		assertEquals(length - 11, stream.findOffset("\nend\n", "\n\nend"));
+		assertEquals(length - 6, stream.getFilePointer());
+		assertEquals(-1, stream.findOffset("key"));
+		assertEquals(length, stream.getFilePointer());
+	}
+
+	@Test
+	public void testSmallBlocks() throws IOException {
+		final char[] chars = new char[100000];
+		Arrays.fill(chars, 'x');
+		final String text = new String(chars) + "<end>" + new String(chars);
+		stream.close();
+		stream =
+			new RandomAccessInputStream(context, text.getBytes(Constants.ENCODING));
+		assertEquals(chars.length, stream.findOffset("<end>"));
+		stream.seek(0);
+		assertEquals(chars.length + 5, stream.findString(7, "<end>").length());
+	}
+}
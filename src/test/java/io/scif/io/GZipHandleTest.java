@@ -0,0 +1,146 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+
+/**
+ * Tests seeking within {@link GZipHandle}s using checkpoints.
+ */
+public class GZipHandleTest {
+
+	private Context context;
+
+	private File file;
+
+	private byte[] data;
+
+	@Before
+	public void setUp() throws IOException {
+		context = new Context();
+		file = File.createTempFile("gzipHandle", ".gz");
+		file.deleteOnExit();
+
+		// two gzip members of partly compressible data
+		final Random random = new Random(0xdeadbeef);
+		data = new byte[3 * 1024 * 1024];
+		for (int i = 0; i < data.length; i++) {
+			data[i] =
+				(byte) (random.nextInt(4) == 0 ? random.nextInt(256) : i / 64 % 23);
+		}
+		try (OutputStream out = new FileOutputStream(file)) {
+			final int split = data.length / 3;
+			GZIPOutputStream gz = new GZIPOutputStream(out);
+			gz.write(data, 0, split);
+			gz.finish();
+			gz = new GZIPOutputStream(out);
+			gz.write(data, split, data.length - split);
+			gz.finish();
+		}
+		GZipHandle.setCheckpointSpacing(64 * 1024);
+	}
+
+	@After
+	public void tearDown() {
+		GZipHandle.setCheckpointSpacing(4 * 1024 * 1024);
+		GZipHandle.setPersistIndex(false);
+		new File(file.getPath() + ".gzindex").delete();
+		file.delete();
+		context.dispose();
+	}
+
+	@Test
+	public void testRandomSeeks() throws IOException {
+		final GZipHandle handle = new GZipHandle(context, file.getPath());
+		assertEquals(data.length, handle.length());
+		assertSeeks(handle, new Random(1));
+		handle.close();
+	}
+
+	@Test
+	public void testPersistedIndex() throws IOException {
+		GZipHandle.setPersistIndex(true);
+		GZipHandle handle = new GZipHandle(context, file.getPath());
+		// read through to the end, then index part of the file
+		final byte[] all = new byte[data.length];
+		handle.readFully(all);
+		assertArrayEquals(data, all);
+		handle.seek(data.length / 2);
+		handle.close();
+		assertTrue(new File(file.getPath() + ".gzindex").exists());
+
+		// corrupt the trailer of the last member, keeping the file's size and
+		// modification time: finding the length by decoding would now fail
+		final long modified = file.lastModified();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.seek(raf.length() - 8);
+			raf.write(new byte[8]);
+		}
+		file.setLastModified(modified);
+
+		handle = new GZipHandle(context, file.getPath());
+		assertEquals(data.length, handle.length());
+		handle.seek(1000);
+		final byte[] buf = new byte[1000];
+		handle.readFully(buf);
+		assertArrayEquals(Arrays.copyOfRange(data, 1000, 2000), buf);
+		handle.close();
+	}
+
+	private void assertSeeks(final GZipHandle handle, final Random random)
+		throws IOException
+	{
+		final byte[] buf = new byte[1000];
+		for (int i = 0; i < 50; i++) {
+			final int pos = random.nextInt(data.length - buf.length);
+			handle.seek(pos);
+			handle.readFully(buf);
+			assertEquals(pos + buf.length, handle.getFilePointer());
+			assertArrayEquals(Arrays.copyOfRange(data, pos, pos + buf.length), buf);
+		}
+	}
+}
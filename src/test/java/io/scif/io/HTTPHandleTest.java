@@ -0,0 +1,235 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.scif.services.LocationService;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+
+/**
+ * Tests {@link HTTPHandle} against an embedded HTTP server.
+ */
+public class HTTPHandleTest {
+
+	private static final int BLOCK_SIZE = 4096;
+
+	private Context context;
+
+	private HttpServer server;
+
+	private byte[] data;
+
+	/** Number of GET requests served. */
+	private final AtomicInteger requests = new AtomicInteger();
+
+	/** Entity tag of the current version of the data. */
+	private volatile String etag = "\"1\"";
+
+	@Before
+	public void setUp() throws IOException {
+		context = new Context();
+		data = new byte[100 * BLOCK_SIZE + 123];
+		new Random(0xdeadbeef).nextBytes(data);
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/ranges", exchange -> serve(exchange, true));
+		server.createContext("/whole", exchange -> serve(exchange, false));
+		server.createContext("/chunked", exchange -> {
+			// NB: a length of 0 means chunked transfer encoding
+			final boolean head = exchange.getRequestMethod().equals("HEAD");
+			exchange.sendResponseHeaders(200, head ? -1 : 0);
+			if (!head) {
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(data);
+				}
+			}
+			exchange.close();
+		});
+		server.start();
+
+		HTTPHandle.clearCache();
+		HTTPHandle.setBlockSize(BLOCK_SIZE);
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+		HTTPHandle.setBlockSize(64 * 1024);
+		HTTPHandle.clearCache();
+		context.dispose();
+	}
+
+	@Test
+	public void testRandomSeeks() throws IOException {
+		assertSeeks(new HTTPHandle(context, url("/ranges")));
+	}
+
+	/**
+	 * Resources without range support or a known length are left to
+	 * {@link URLHandle}.
+	 */
+	@Test
+	public void testFallback() throws IOException {
+		final LocationService locationService =
+			context.getService(LocationService.class);
+		for (final String path : new String[] { "/whole", "/chunked" }) {
+			assertFalse(new HTTPHandle(context).isConstructable(url(path)));
+			final IRandomAccess handle = locationService.getHandle(url(path));
+			assertTrue(handle instanceof URLHandle);
+			handle.close();
+		}
+		assertTrue(new HTTPHandle(context).isConstructable(url("/ranges")));
+
+		final IRandomAccess handle = locationService.getHandle(url("/whole"));
+		final byte[] buf = new byte[BLOCK_SIZE];
+		handle.readFully(buf);
+		assertArrayEquals(Arrays.copyOf(data, buf.length), buf);
+		handle.close();
+	}
+
+	/** Blocks of a resource which changed after opening it are not mixed. */
+	@Test(expected = IOException.class)
+	public void testChangedResource() throws IOException {
+		final HTTPHandle handle = new HTTPHandle(context, url("/ranges"));
+		final byte[] buf = new byte[BLOCK_SIZE];
+		handle.readFully(buf);
+
+		etag = "\"2\"";
+		handle.seek(50 * BLOCK_SIZE);
+		handle.readFully(buf);
+	}
+
+	@Test
+	public void testCoalescedRequests() throws IOException {
+		final HTTPHandle handle = new HTTPHandle(context, url("/ranges"));
+		final byte[] buf = new byte[10 * BLOCK_SIZE];
+		final int pos = BLOCK_SIZE + BLOCK_SIZE / 2;
+		handle.seek(pos);
+		handle.readFully(buf);
+		assertArrayEquals(Arrays.copyOfRange(data, pos, pos + buf.length), buf);
+		assertEquals(1, requests.get());
+
+		// only the missing blocks on either side are requested, separately
+		handle.seek(0);
+		final byte[] wide = new byte[13 * BLOCK_SIZE];
+		handle.readFully(wide);
+		assertArrayEquals(Arrays.copyOf(data, wide.length), wide);
+		assertEquals(3, requests.get());
+		handle.close();
+
+		// blocks are shared with other handles
+		final HTTPHandle other = new HTTPHandle(context, url("/ranges"));
+		assertEquals(data.length, other.length());
+		other.seek(BLOCK_SIZE);
+		other.readFully(buf);
+		assertEquals(3, requests.get());
+		other.close();
+	}
+
+	// -- Helper methods --
+
+	private String url(final String path) {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+	}
+
+	private void assertSeeks(final HTTPHandle handle) throws IOException {
+		assertEquals(data.length, handle.length());
+		final Random random = new Random(1);
+		final byte[] buf = new byte[3 * BLOCK_SIZE];
+		for (int i = 0; i < 50; i++) {
+			final int pos = random.nextInt(data.length - buf.length);
+			handle.seek(pos);
+			handle.readFully(buf);
+			assertEquals(pos + buf.length, handle.getFilePointer());
+			assertArrayEquals(Arrays.copyOfRange(data, pos, pos + buf.length), buf);
+			handle.seek(pos + 1);
+			assertEquals(data[pos + 1], handle.readByte());
+		}
+
+		// reads at the end are truncated
+		handle.seek(data.length - 10);
+		assertEquals(10, handle.read(buf));
+		handle.close();
+	}
+
+	private void serve(final HttpExchange exchange, final boolean ranges)
+		throws IOException
+	{
+		int start = 0;
+		int end = data.length;
+		final String range = exchange.getRequestHeaders().getFirst("Range");
+		final String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+		final boolean partial =
+			ranges && range != null && range.startsWith("bytes=") &&
+				(ifRange == null || ifRange.equals(etag));
+		if (partial) {
+			final String[] bounds = range.substring(6).split("-");
+			start = Integer.parseInt(bounds[0]);
+			end = Math.min(end, Integer.parseInt(bounds[1]) + 1);
+			exchange.getResponseHeaders().add("Content-Range",
+				"bytes " + start + "-" + (end - 1) + "/" + data.length);
+		}
+		final int code = partial ? 206 : 200;
+		exchange.getResponseHeaders().add("Accept-Ranges",
+			ranges ? "bytes" : "none");
+		exchange.getResponseHeaders().add("ETag", etag);
+		if (exchange.getRequestMethod().equals("HEAD")) {
+			exchange.getResponseHeaders().add("Content-Length", "" + data.length);
+			exchange.sendResponseHeaders(code, -1);
+		}
+		else {
+			requests.incrementAndGet();
+			exchange.sendResponseHeaders(code, end - start);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(data, start, end - start);
+			}
+		}
+		exchange.close();
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.scif.services.LocationService;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+
+/**
+ * Tests {@link IOMetricsService} and the {@link IOMetrics} collected by
+ * {@link RandomAccessInputStream} and {@link RandomAccessOutputStream}.
+ */
+public class IOMetricsTest {
+
+	private Context context;
+
+	private IOMetricsService metricsService;
+
+	@Before
+	public void setUp() {
+		context =
+			new Context(IOMetricsService.class, LocationService.class,
+				NIOService.class);
+		metricsService = context.getService(IOMetricsService.class);
+		metricsService.setEnabled(true);
+	}
+
+	@After
+	public void tearDown() {
+		context.dispose();
+	}
+
+	@Test
+	public void testReads() throws IOException {
+		final RandomAccessInputStream in =
+			new RandomAccessInputStream(context, new byte[1000]);
+		in.readInt();
+		in.readFully(new byte[100]);
+		in.seek(500);
+		in.seek(200);
+		in.readShorts(new short[10], 0, 10);
+		in.skipBytes(30);
+
+		final IOMetrics.Snapshot snapshot = in.getMetrics().snapshot();
+		assertEquals(124, snapshot.getBytesRead());
+		assertEquals(2, snapshot.getReads());
+		assertEquals(0, snapshot.getBytesWritten());
+		assertEquals(3, snapshot.getSeeks());
+		assertEquals(396 + 300 + 30, snapshot.getSeekDistance());
+		assertEquals(1, metricsService.snapshot().size());
+		in.close();
+	}
+
+	@Test
+	public void testReset() throws IOException {
+		final RandomAccessInputStream in =
+			new RandomAccessInputStream(context, new byte[1000]);
+		in.readFully(new byte[100]);
+		assertEquals(100, metricsService.total().getBytesRead());
+		metricsService.reset();
+		assertEquals(0, in.getMetrics().snapshot().getBytesRead());
+		assertEquals(0, metricsService.total().getBytesRead());
+		in.close();
+	}
+
+	@Test
+	public void testClose() throws IOException {
+		final List<IOMetrics.Snapshot> closed = new ArrayList<>();
+		metricsService.addListener(new IOMetricsListener() {
+
+			@Override
+			public void metricsClosed(final IOMetrics.Snapshot snapshot) {
+				closed.add(snapshot);
+			}
+		});
+
+		final RandomAccessInputStream in =
+			new RandomAccessInputStream(context, new byte[1000]);
+		in.readFully(new byte[300]);
+		in.close();
+		in.close();
+
+		assertEquals(1, closed.size());
+		assertEquals(300, closed.get(0).getBytesRead());
+		assertTrue(metricsService.snapshot().isEmpty());
+		assertEquals(300, metricsService.total().getBytesRead());
+	}
+
+	@Test
+	public void testDisabled() throws IOException {
+		metricsService.setEnabled(false);
+		final RandomAccessInputStream in =
+			new RandomAccessInputStream(context, new byte[1000]);
+		assertNull(in.getMetrics());
+		in.readFully(new byte[100]);
+		in.close();
+		assertEquals(0, metricsService.total().getBytesRead());
+	}
+
+	@Test
+	public void testWindowMisses() throws IOException {
+		final File file = File.createTempFile("ioMetrics", ".dat");
+		file.deleteOnExit();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(3 * 1024 * 1024);
+		}
+		final RandomAccessInputStream in =
+			new RandomAccessInputStream(context, file.getAbsolutePath());
+		// the first window is filled as the file is opened
+		in.readByte();
+		in.seek(2 * 1024 * 1024);
+		in.readByte();
+		in.seek(0);
+		in.readByte();
+		in.seek(1536 * 1024);
+		in.readByte();
+		assertEquals(2, in.getMetrics().snapshot().getWindowMisses());
+		in.close();
+		file.delete();
+	}
+
+	@Test
+	public void testWrites() throws IOException {
+		final File file = File.createTempFile("ioMetrics", ".dat");
+		file.deleteOnExit();
+		final RandomAccessOutputStream out =
+			new RandomAccessOutputStream(context, file.getAbsolutePath());
+		final IOMetrics metrics = out.getMetrics();
+		assertNotNull(metrics);
+		out.writeInt(42);
+		out.write(new byte[10]);
+		out.seek(0);
+		out.close();
+
+		final IOMetrics.Snapshot snapshot = metrics.snapshot();
+		assertEquals(14, snapshot.getBytesWritten());
+		assertEquals(1, snapshot.getWrites());
+		assertEquals(1, snapshot.getSeeks());
+		assertEquals(14, snapshot.getSeekDistance());
+		file.delete();
+	}
+}
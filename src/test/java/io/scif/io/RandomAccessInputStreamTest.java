@@ -37,7 +37,10 @@ import io.scif.io.providers.IRandomAccessProvider;
 import io.scif.io.providers.IRandomAccessProviderFactory;
 import io.scif.services.LocationService;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Collection;
 
 import org.junit.After;
@@ -153,6 +156,58 @@ public class RandomAccessInputStreamTest {
 		}
 	}
 
+	@Test
+	public void testBulkReads() throws IOException {
+		for (final boolean little : new boolean[] { false, true }) {
+			stream.order(little);
+			final ByteBuffer expected =
+				ByteBuffer.wrap(PAGE).order(
+					little ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+
+			final short[] shorts = new short[PAGE.length / 2 + 1];
+			stream.seek(0);
+			stream.readShorts(shorts, 1, PAGE.length / 2);
+			for (int i = 0; i < PAGE.length / 2; i++) {
+				assertEquals(expected.getShort(2 * i), shorts[i + 1]);
+			}
+
+			final int[] ints = new int[PAGE.length / 4];
+			stream.seek(0);
+			stream.readInts(ints, 0, ints.length);
+			for (int i = 0; i < ints.length; i++) {
+				assertEquals(expected.getInt(4 * i), ints[i]);
+			}
+			assertEquals(PAGE.length, stream.getFilePointer());
+
+			final float[] floats = new float[PAGE.length / 4 - 1];
+			stream.seek(4);
+			stream.readFloats(floats, 0, floats.length);
+			for (int i = 0; i < floats.length; i++) {
+				assertEquals(expected.getFloat(4 * i + 4), floats[i], 0);
+			}
+
+			final long[] longs = new long[PAGE.length / 8];
+			stream.seek(0);
+			stream.readLongs(longs, 0, longs.length);
+			for (int i = 0; i < longs.length; i++) {
+				assertEquals(expected.getLong(8 * i), longs[i]);
+			}
+
+			final double[] doubles = new double[PAGE.length / 8];
+			stream.seek(0);
+			stream.readDoubles(doubles, 0, doubles.length);
+			for (int i = 0; i < doubles.length; i++) {
+				assertEquals(expected.getDouble(8 * i), doubles[i], 0);
+			}
+		}
+	}
+
+	@Test(expected = EOFException.class)
+	public void testBulkReadPastEnd() throws IOException {
+		stream.seek(PAGE.length - 6);
+		stream.readInts(new int[2], 0, 2);
+	}
+
 	@After
 	public void tearDown() throws IOException {
 		stream.close();
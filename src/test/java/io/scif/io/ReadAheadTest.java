@@ -0,0 +1,139 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+import org.scijava.thread.ThreadService;
+
+/**
+ * Tests reading ahead in {@link NIOFileHandle}s.
+ */
+public class ReadAheadTest {
+
+	private Context context;
+
+	private File file;
+
+	private byte[] data;
+
+	private NIOFileHandle handle;
+
+	@Before
+	public void setUp() throws IOException {
+		context = new Context(NIOService.class, ThreadService.class);
+		file = File.createTempFile("readAhead", ".dat");
+		file.deleteOnExit();
+		data = new byte[3 * 1024 * 1024 + 17];
+		new Random(0xdeadbeef).nextBytes(data);
+		try (OutputStream out = new FileOutputStream(file)) {
+			out.write(data);
+		}
+		handle =
+			new NIOFileHandle(context.getService(NIOService.class), file, "r");
+		handle.setReadAhead(context.getService(ThreadService.class));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		handle.close();
+		file.delete();
+		context.dispose();
+	}
+
+	@Test
+	public void testSequentialReads() throws IOException {
+		assertTrue(handle.isReadAhead());
+		final byte[] buf = new byte[100000];
+		for (int pos = 0; pos < data.length; pos += buf.length) {
+			final int n = handle.read(buf);
+			final int expected = Math.min(buf.length, data.length - pos);
+			assertEquals(expected, n);
+			assertEquals(pos + n, handle.getFilePointer());
+			assertArrayEquals(Arrays.copyOfRange(data, pos, pos + n), Arrays
+				.copyOf(buf, n));
+		}
+	}
+
+	@Test
+	public void testStridedReads() throws IOException {
+		final int stride = 70000;
+		final ByteBuffer buf = ByteBuffer.allocate(30000);
+		for (int pos = 5; pos + buf.capacity() <= data.length; pos += stride) {
+			buf.clear();
+			assertEquals(buf.capacity(), handle.read(pos, buf));
+			assertArrayEquals(Arrays.copyOfRange(data, pos, pos + buf.capacity()),
+				buf.array());
+		}
+	}
+
+	@Test
+	public void testRandomReads() throws IOException {
+		final Random random = new Random(1);
+		final byte[] buf = new byte[50000];
+		int pos = 0;
+		for (int i = 0; i < 200; i++) {
+			// mostly sequential reads, with occasional jumps back and forth
+			if (random.nextInt(4) == 0) pos = random.nextInt(data.length);
+			handle.seek(pos);
+			final int n = handle.read(buf);
+			assertEquals(Math.min(buf.length, data.length - pos), n);
+			assertArrayEquals(Arrays.copyOfRange(data, pos, pos + n), Arrays
+				.copyOf(buf, n));
+			pos = Math.min(pos + n, data.length - 1);
+		}
+	}
+
+	@Test
+	public void testDisable() throws IOException {
+		handle.setReadAhead(null);
+		assertFalse(handle.isReadAhead());
+		final byte[] buf = new byte[1000];
+		handle.seek(1234);
+		handle.readFully(buf);
+		assertArrayEquals(Arrays.copyOfRange(data, 1234, 2234), buf);
+	}
+}
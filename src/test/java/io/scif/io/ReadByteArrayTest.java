@@ -30,14 +30,23 @@
 
 package io.scif.io;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeTrue;
 
 import io.scif.io.providers.IRandomAccessProvider;
 import io.scif.io.providers.IRandomAccessProviderFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.After;
 import org.junit.Before;
@@ -167,6 +176,82 @@ public class ReadByteArrayTest {
 		testResetReadByte();
 	}
 
+	@Test
+	public void testPositionalReadByte() throws IOException {
+		fileHandle.seek(3);
+		final byte[] b = new byte[4];
+		int length = fileHandle.read(12, b, 1, 3);
+		assertEquals(3, fileHandle.getFilePointer());
+		assertEquals(3, length);
+		assertEquals(0x00, b[0]);
+		assertEquals(0x0D, b[1]);
+		assertEquals(0x0E, b[2]);
+		assertEquals((byte) 0xFF, b[3]);
+
+		// reads are cut short at the end of the file
+		final ByteBuffer buf = ByteBuffer.allocate(4);
+		length = fileHandle.read(14, buf);
+		assertEquals(3, fileHandle.getFilePointer());
+		assertEquals(2, length);
+		assertEquals(2, buf.position());
+		assertEquals((byte) 0xFF, buf.get(0));
+		assertEquals((byte) 0xFE, buf.get(1));
+		assertEquals(0x04, fileHandle.readByte());
+	}
+
+	@Test
+	public void testPositionalReadDirectBuffer() throws IOException {
+		fileHandle.seek(5);
+		final ByteBuffer buf = ByteBuffer.allocateDirect(3);
+		assertEquals(3, fileHandle.read(12, buf));
+		assertEquals(5, fileHandle.getFilePointer());
+		assertEquals(3, buf.position());
+		assertEquals(0x0D, buf.get(0));
+		assertEquals(0x0E, buf.get(1));
+		assertEquals((byte) 0xFF, buf.get(2));
+		assertEquals(0x06, fileHandle.readByte());
+	}
+
+	@Test
+	public void testConcurrentPositionalReadByte() throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<Boolean>> results = new ArrayList<>();
+			for (int t = 0; t < 16; t++) {
+				final int pos = t;
+				results.add(executor.submit(() -> {
+					final byte[] b = new byte[PAGE.length - pos];
+					final int length = fileHandle.read(pos, b, 0, b.length);
+					return length == b.length &&
+						Arrays.equals(b, Arrays.copyOfRange(PAGE, pos, PAGE.length));
+				}));
+			}
+			for (final Future<Boolean> result : results) {
+				assertTrue(result.get());
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testReadVectored() throws IOException {
+		// overlapping, adjacent and distant ranges, in no particular order
+		final byte[] a = new byte[4];
+		final byte[] b = new byte[6];
+		final List<FileRange> ranges = new ArrayList<>();
+		ranges.add(new FileRange(12, a, 0, 4));
+		ranges.add(new FileRange(0, b, 0, 2));
+		ranges.add(new FileRange(2, b, 2, 2));
+		ranges.add(new FileRange(3, b, 4, 2));
+		assertEquals(10, fileHandle.readVectored(ranges));
+		assertArrayEquals(Arrays.copyOfRange(PAGE, 12, 16), a);
+		assertArrayEquals(new byte[] { PAGE[0], PAGE[1], PAGE[2], PAGE[3],
+			PAGE[3], PAGE[4] }, b);
+		assertEquals(16, fileHandle.getFilePointer());
+	}
+
 	@After
 	public void tearDown() throws IOException {
 		fileHandle.close();
@@ -0,0 +1,212 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+import org.scijava.thread.ThreadService;
+
+/**
+ * Tests writing behind with {@link RandomAccessOutputStream}s.
+ */
+public class WriteBehindTest {
+
+	private static final int BUFFER_SIZE = 4096;
+
+	private Context context;
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		context = new Context(NIOService.class, ThreadService.class);
+		file = File.createTempFile("writeBehind", ".dat");
+		file.deleteOnExit();
+		RandomAccessOutputStream.setWriteBehindBufferSize(BUFFER_SIZE);
+		RandomAccessOutputStream.setWriteBehindBufferCount(2);
+	}
+
+	@After
+	public void tearDown() {
+		RandomAccessOutputStream.setWriteBehindBufferSize(1024 * 1024);
+		RandomAccessOutputStream.setWriteBehindBufferCount(4);
+		file.delete();
+		context.dispose();
+	}
+
+	@Test
+	public void testMatchesWriteThrough() throws IOException {
+		final ByteArrayHandle expected = new ByteArrayHandle();
+		final RandomAccessOutputStream reference =
+			new RandomAccessOutputStream(expected);
+		final RandomAccessOutputStream out = open();
+		assertTrue(out.isWriteBehind());
+
+		final Random random = new Random(0xdeadbeef);
+		for (int i = 0; i < 2000; i++) {
+			final int op = random.nextInt(10);
+			if (op == 0) {
+				// seek back, e.g. to patch an offset
+				final long pos = (long) (random.nextDouble() * out.length());
+				out.seek(pos);
+				reference.seek(pos);
+			}
+			else if (op == 1) {
+				out.seek(out.length());
+				reference.seek(reference.length());
+			}
+			else if (op == 2) {
+				final boolean little = random.nextBoolean();
+				out.order(little);
+				reference.order(little);
+			}
+			else if (op == 3) {
+				final byte[] b = new byte[random.nextInt(3 * BUFFER_SIZE)];
+				random.nextBytes(b);
+				out.write(b);
+				reference.write(b);
+			}
+			else if (op == 4) {
+				final long v = random.nextLong();
+				out.writeLong(v);
+				reference.writeLong(v);
+			}
+			else if (op == 5) {
+				final short v = (short) random.nextInt();
+				out.writeShort(v);
+				reference.writeShort(v);
+			}
+			else if (op == 6) {
+				final double v = random.nextDouble();
+				out.writeDouble(v);
+				reference.writeDouble(v);
+			}
+			else if (op == 7) {
+				out.writeBytes("text");
+				reference.writeBytes("text");
+			}
+			else {
+				final int v = random.nextInt();
+				out.writeInt(v);
+				reference.writeInt(v);
+			}
+			assertEquals(reference.getFilePointer(), out.getFilePointer());
+			assertEquals(reference.length(), out.length());
+		}
+		out.close();
+
+		final byte[] bytes =
+			Arrays.copyOf(expected.getBytes(), (int) expected.length());
+		assertArrayEquals(bytes, Files.readAllBytes(file.toPath()));
+	}
+
+	@Test
+	public void testFlush() throws IOException {
+		final RandomAccessOutputStream out = open();
+		final byte[] b = new byte[10 * BUFFER_SIZE + 7];
+		new Random(1).nextBytes(b);
+		out.write(b);
+		out.seek(3);
+		out.writeInt(0x01020304);
+		out.flush();
+		b[3] = 1;
+		b[4] = 2;
+		b[5] = 3;
+		b[6] = 4;
+		assertArrayEquals(b, Files.readAllBytes(file.toPath()));
+
+		out.setWriteBehind(null);
+		assertEquals(7, out.getFilePointer());
+		out.writeByte(9);
+		out.close();
+		b[7] = 9;
+		assertArrayEquals(b, Files.readAllBytes(file.toPath()));
+	}
+
+	@Test
+	public void testDrain() throws IOException {
+		final RandomAccessOutputStream out = open();
+		final byte[] b = new byte[3 * BUFFER_SIZE + 5];
+		new Random(2).nextBytes(b);
+		out.write(b);
+		out.drain();
+		assertEquals(b.length, file.length());
+		assertArrayEquals(b, Files.readAllBytes(file.toPath()));
+
+		// draining a stream which writes through does nothing
+		out.setWriteBehind(null);
+		out.drain();
+		out.close();
+		assertArrayEquals(b, Files.readAllBytes(file.toPath()));
+	}
+
+	@Test
+	public void testWriteBytes() throws IOException {
+		final String s = "\u00b5m \u00c5 \u03a9";
+		final byte[] b = new byte[s.length()];
+		for (int i = 0; i < b.length; i++) {
+			b[i] = (byte) s.charAt(i);
+		}
+
+		final RandomAccessOutputStream out = open();
+		out.writeBytes(s);
+		assertEquals(b.length, out.getFilePointer());
+		out.setWriteBehind(null);
+		out.writeBytes(s);
+		out.close();
+
+		final byte[] expected = Arrays.copyOf(b, 2 * b.length);
+		System.arraycopy(b, 0, expected, b.length, b.length);
+		assertArrayEquals(expected, Files.readAllBytes(file.toPath()));
+	}
+
+	// -- Helper methods --
+
+	private RandomAccessOutputStream open() throws IOException {
+		final RandomAccessOutputStream out =
+			new RandomAccessOutputStream(new NIOFileHandle(context
+				.getService(NIOService.class), file, "rw"));
+		out.setWriteBehind(context.getService(ThreadService.class));
+		return out;
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2016 Board of Regents of the University of
+ * Wisconsin-Madison
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+
+/**
+ * Tests reading stored and deflated entries through {@link ZipHandle}s.
+ */
+public class ZipHandleTest {
+
+	private Context context;
+
+	private File file;
+
+	private byte[][] data;
+
+	@Before
+	public void setUp() throws IOException {
+		context = new Context();
+		file = File.createTempFile("zipHandle", ".zip");
+		file.deleteOnExit();
+
+		// alternate stored and deflated entries
+		final Random random = new Random(0xdeadbeef);
+		data = new byte[6][];
+		try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file))) {
+			for (int e = 0; e < data.length; e++) {
+				data[e] = new byte[50000 + random.nextInt(50000)];
+				for (int i = 0; i < data[e].length; i++) {
+					data[e][i] =
+						(byte) (random.nextInt(4) == 0 ? random.nextInt(256) : i);
+				}
+				final ZipEntry entry = new ZipEntry("entry" + e);
+				if (e % 2 == 0) {
+					final CRC32 crc = new CRC32();
+					crc.update(data[e]);
+					entry.setMethod(ZipEntry.STORED);
+					entry.setSize(data[e].length);
+					entry.setCrc(crc.getValue());
+				}
+				zip.putNextEntry(entry);
+				zip.write(data[e]);
+				zip.closeEntry();
+			}
+		}
+	}
+
+	@After
+	public void tearDown() {
+		ZipDirectory.evict(file.getPath());
+		file.delete();
+		context.dispose();
+	}
+
+	@Test
+	public void testEntries() throws IOException {
+		final RandomAccessInputStream in =
+			new RandomAccessInputStream(context, file.getPath());
+		assertEquals(data.length, ZipDirectory.get(in).getEntries().size());
+		in.close();
+
+		for (int e = 0; e < data.length; e++) {
+			final ZipHandle handle =
+				new ZipHandle(context, file.getPath(), new ZipEntry("entry" + e));
+			assertEquals(data[e].length, handle.length());
+			final byte[] buf = new byte[data[e].length];
+			handle.readFully(buf);
+			assertArrayEquals(data[e], buf);
+
+			// seek backwards
+			handle.seek(1000);
+			final byte[] part = new byte[500];
+			handle.readFully(part);
+			assertArrayEquals(Arrays.copyOfRange(data[e], 1000, 1500), part);
+			assertEquals(1500, handle.getFilePointer());
+			handle.close();
+		}
+	}
+
+	@Test
+	public void testStoredBuffer() throws IOException {
+		final ZipHandle stored =
+			new ZipHandle(context, file.getPath(), new ZipEntry("entry2"));
+		final ByteBuffer buffer = stored.getBuffer();
+		assertNotNull(buffer);
+		final byte[] b = new byte[buffer.remaining()];
+		buffer.get(b);
+		assertArrayEquals(data[2], b);
+		stored.close();
+
+		final ZipHandle deflated =
+			new ZipHandle(context, file.getPath(), new ZipEntry("entry3"));
+		assertNull(deflated.getBuffer());
+		deflated.close();
+	}
+}
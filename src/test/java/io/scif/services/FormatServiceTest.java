@@ -33,9 +33,14 @@ package io.scif.services;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import io.scif.Format;
 import io.scif.FormatException;
+import io.scif.io.RandomAccessInputStream;
 
+import java.io.IOException;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import org.junit.After;
@@ -77,6 +82,28 @@ public class FormatServiceTest {
 		assertArrayEquals(expectedSuffixes, suffixes);
 	}
 
+	/**
+	 * Tests that signature-indexed detection finds the same formats as asking
+	 * every format's Checker.
+	 */
+	@Test
+	public void testSignatureDetection() throws IOException {
+		final byte[][] headers =
+			{ "GIF89a".getBytes(), "BM".getBytes(),
+				{ (byte) 0x89, 0x50, 0x4e, 0x47, 0x0d, 0x0a, 0x1a, 0x0a },
+				{ 0x49, 0x49, 0x2a, 0x00 }, { 0x0a }, "P5 ".getBytes(), {} };
+		final Random random = new Random(0xace);
+		for (final byte[] header : headers) {
+			final byte[] bytes = new byte[64];
+			random.nextBytes(bytes);
+			System.arraycopy(header, 0, bytes, 0, header.length);
+			final RandomAccessInputStream stream =
+				new RandomAccessInputStream(formatService.getContext(), bytes);
+			assertEquals(probeAll(stream), getFormatList(stream));
+			stream.close();
+		}
+	}
+
 	/**
 	 * Test simultaneous format caching on multiple threads.
 	 *
@@ -124,4 +151,33 @@ public class FormatServiceTest {
 		assertEquals(threads, count[0]);
 	}
 
+	// -- Helper methods --
+
+	private List<Format> getFormatList(final RandomAccessInputStream stream) {
+		try {
+			return formatService.getFormatList(stream);
+		}
+		catch (final FormatException e) {
+			return new ArrayList<>();
+		}
+	}
+
+	private List<Format> probeAll(final RandomAccessInputStream stream)
+		throws IOException
+	{
+		final List<Format> formats = new ArrayList<>();
+		for (final Format format : formatService.getAllFormats()) {
+			try {
+				if (format.isEnabled() && format.createChecker().isFormat(stream)) {
+					formats.add(format);
+				}
+			}
+			catch (final FormatException e) {
+				// no checker
+			}
+			stream.seek(0);
+		}
+		return formats;
+	}
+
 }